@@ -32,14 +32,17 @@ import org.thosp.charting.data.Entry;
 import org.thosp.charting.data.LineData;
 import org.thosp.charting.data.LineDataSet;
 import org.thosp.charting.interfaces.datasets.IDataSet;
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
 import org.thosp.yourlocalweather.service.UpdateWeatherService;
 import org.thosp.yourlocalweather.settings.GraphValuesSwitchListener;
 import org.thosp.yourlocalweather.utils.ApiKeys;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.CustomValueFormatter;
+import org.thosp.yourlocalweather.utils.ForecastSeries;
 import org.thosp.yourlocalweather.utils.ForecastUtil;
 import org.thosp.yourlocalweather.utils.GraphUtils;
+import org.thosp.yourlocalweather.utils.PreferenceSnapshot;
 import org.thosp.yourlocalweather.utils.PreferenceUtil;
 import org.thosp.yourlocalweather.utils.RainSnowYAxisValueFormatter;
 import org.thosp.yourlocalweather.utils.TemperatureUtil;
@@ -47,9 +50,11 @@ import org.thosp.yourlocalweather.utils.Utils;
 import org.thosp.yourlocalweather.utils.YAxisValueFormatter;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
@@ -78,6 +83,7 @@ public class GraphsActivity extends ForecastingActivity {
     private RainSnowYAxisValueFormatter rainSnowYAxisValueFormatter;
     private Set<Integer> visibleGraphs = new HashSet<>();
     private Set<Integer> combinedGraphValues = new HashSet<>();
+    private Map<Long, ForecastSeries> forecastSeries = new HashMap<>();
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -207,9 +213,9 @@ public class GraphsActivity extends ForecastingActivity {
         mTemperatureChart.getAxisRight().setEnabled(false);
 
         List<Entry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            double temperatureDay = TemperatureUtil.getTemperature(this, weatherForecastList.get(locationId).get(i));
-            entries.add(new Entry(i, (float) temperatureDay));
+        float[] temperatures = forecastSeries.get(locationId).getTemperatures();
+        for (int i = 0; i < temperatures.length; i++) {
+            entries.add(new Entry(i, temperatures[i]));
         }
 
         LineDataSet set;
@@ -291,9 +297,9 @@ public class GraphsActivity extends ForecastingActivity {
         mWindChart.getAxisRight().setEnabled(false);
 
         List<Entry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            double wind = AppPreference.getWind(this, weatherForecastList.get(locationId).get(i).getWindSpeed());
-            entries.add(new Entry(i, (float) wind));
+        float[] winds = forecastSeries.get(locationId).getWinds();
+        for (int i = 0; i < winds.length; i++) {
+            entries.add(new Entry(i, winds[i]));
         }
 
         LineDataSet set;
@@ -375,14 +381,9 @@ public class GraphsActivity extends ForecastingActivity {
         mRainChart.getAxisRight().setEnabled(false);
 
         List<Entry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            entries.add(new Entry(
-                    i,
-                    (float) AppPreference.getRainOrSnow(
-                            this,
-                            weatherForecastList.get(locationId).get(i).getRain())
-                    )
-            );
+        float[] rains = forecastSeries.get(locationId).getRains();
+        for (int i = 0; i < rains.length; i++) {
+            entries.add(new Entry(i, rains[i]));
         }
 
         LineDataSet set;
@@ -464,14 +465,9 @@ public class GraphsActivity extends ForecastingActivity {
         rainBarChart.getAxisRight().setEnabled(false);
 
         List<BarEntry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            entries.add(new BarEntry(
-                            i,
-                            (float) AppPreference.getRainOrSnow(
-                                    this,
-                                    weatherForecastList.get(locationId).get(i).getRain())
-                    )
-            );
+        float[] rains = forecastSeries.get(locationId).getRains();
+        for (int i = 0; i < rains.length; i++) {
+            entries.add(new BarEntry(i, rains[i]));
         }
 
         BarDataSet set;
@@ -545,14 +541,9 @@ public class GraphsActivity extends ForecastingActivity {
         mSnowChart.getAxisRight().setEnabled(false);
 
         List<Entry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            entries.add(new Entry(
-                            i,
-                            (float) AppPreference.getRainOrSnow(
-                                    this,
-                                    weatherForecastList.get(locationId).get(i).getSnow())
-                    )
-            );
+        float[] snows = forecastSeries.get(locationId).getSnows();
+        for (int i = 0; i < snows.length; i++) {
+            entries.add(new Entry(i, snows[i]));
         }
 
         LineDataSet set;
@@ -634,14 +625,9 @@ public class GraphsActivity extends ForecastingActivity {
         snowBarChart.getAxisRight().setEnabled(false);
 
         List<BarEntry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            entries.add(new BarEntry(
-                            i,
-                            (float) AppPreference.getRainOrSnow(
-                                    this,
-                                    weatherForecastList.get(locationId).get(i).getSnow())
-                    )
-            );
+        float[] snows = forecastSeries.get(locationId).getSnows();
+        for (int i = 0; i < snows.length; i++) {
+            entries.add(new BarEntry(i, snows[i]));
         }
 
         BarDataSet set;
@@ -714,13 +700,9 @@ public class GraphsActivity extends ForecastingActivity {
         mPressureChart.getAxisRight().setEnabled(false);
 
         List<Entry> entries = new ArrayList<>();
-        for (int i = 0; i < weatherForecastList.get(locationId).size(); i++) {
-            entries.add(new Entry(
-                    i,
-                    (float) AppPreference.getPressureWithUnit(
-                            this,
-                            weatherForecastList.get(locationId).get(i).getPressure(),
-                            locale).getPressure()));
+        float[] pressures = forecastSeries.get(locationId).getPressures();
+        for (int i = 0; i < pressures.length; i++) {
+            entries.add(new Entry(i, pressures[i]));
         }
 
         LineDataSet set;
@@ -963,6 +945,9 @@ public class GraphsActivity extends ForecastingActivity {
         WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord = weatherForecastDbHelper.getWeatherForecast(locationId, 1);
         if (weatherForecastRecord != null) {
             weatherForecastList.put(locationId, weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList());
+            forecastSeries.put(locationId, ForecastSeries.convert(
+                    PreferenceSnapshot.get(this),
+                    ColumnarWeatherForecast.of(weatherForecastRecord.getCompleteWeatherForecast())));
             locationWeatherForecastLastUpdate.put(locationId, weatherForecastRecord.getLastUpdatedTime());
         } else if (ForecastUtil.shouldUpdateForecast(this, locationId, UpdateWeatherService.WEATHER_FORECAST_TYPE)) {
             /*if (forecastType.isChecked()) {
@@ -2,12 +2,10 @@ package org.thosp.yourlocalweather;
 
 import android.app.ProgressDialog;
 import android.content.BroadcastReceiver;
-import android.content.ContentValues;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.database.sqlite.SQLiteDatabase;
 import android.location.Address;
 import android.os.Build;
 import android.os.Bundle;
@@ -28,7 +26,6 @@ import org.osmdroid.views.CustomZoomButtonsController;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.MapEventsOverlay;
 import org.thosp.yourlocalweather.model.Location;
-import org.thosp.yourlocalweather.model.LocationsContract;
 import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.service.NominatimLocationService;
 import org.thosp.yourlocalweather.service.SearchActivityProcessResultFromAddressResolution;
@@ -219,18 +216,7 @@ public class SearchActivity extends BaseActivity {
         LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(this.getApplicationContext());
 
         int currentMaxOrderId = locationsDbHelper.getMaxOrderId();
-        SQLiteDatabase db = locationsDbHelper.getWritableDatabase();
-
-        ContentValues values = new ContentValues();
-        values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS, locationsDbHelper.getAddressAsBytes(address));
-        values.put(LocationsContract.Locations.COLUMN_NAME_LONGITUDE, longitude);
-        values.put(LocationsContract.Locations.COLUMN_NAME_LATITUDE, latitude);
-        values.put(LocationsContract.Locations.COLUMN_NAME_LOCALE, locale);
-        values.put(LocationsContract.Locations.COLUMN_NAME_ORDER_ID, currentMaxOrderId + 1);
-        values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, "");
-        values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND, 1);
-
-        long newLocationRowId = db.insert(LocationsContract.Locations.TABLE_NAME, null, values);
+        locationsDbHelper.addLocation(address, longitude, latitude, locale);
 
         SensorLocationUpdater.autolocationForSensorEventAddressFound = true;
         appendLog(this,
@@ -1,174 +1,441 @@
 package org.thosp.yourlocalweather;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 import org.thosp.yourlocalweather.licence.LicenseNotValidException;
 import org.thosp.yourlocalweather.licence.TooEarlyUpdateException;
 import org.thosp.yourlocalweather.model.CompleteWeatherForecast;
 import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
 import org.thosp.yourlocalweather.model.Weather;
+import org.thosp.yourlocalweather.utils.JsonByteReader;
+import org.thosp.yourlocalweather.utils.Metrics;
 import org.thosp.yourlocalweather.utils.OWMLanguages;
 
+import java.nio.charset.Charset;
+
 public class WeatherJSONParser {
 
     private static final String TAG = "WeatherJSONParser";
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Metrics.Histogram parseTime = Metrics.histogram(Metrics.PARSE_WEATHER);
+
+    private static final String[] SERVER_RESULT_FIELDS = {"result", "token", "owm"};
+    private static final String[] WEATHER_SECTIONS = {"weather", "main", "wind", "clouds", "sys", "coord"};
+    private static final String[] WEATHER_CONDITION_FIELDS = {"id", "icon", "description"};
+    private static final String[] WEATHER_MAIN_FIELDS = {"temp", "pressure", "humidity"};
+    private static final String[] WIND_FIELDS = {"speed", "deg"};
+    private static final String[] CLOUDS_FIELDS = {"all"};
+    private static final String[] SYS_FIELDS = {"sunrise", "sunset"};
+    private static final String[] COORD_FIELDS = {"lon", "lat"};
+    private static final String[] FORECAST_FIELDS = {"list"};
+    private static final String[] FORECAST_ITEM_FIELDS = {"dt", "main", "wind", "clouds", "rain", "snow", "weather"};
+    private static final String[] FORECAST_MAIN_FIELDS = {"pressure", "humidity", "temp_min", "temp_max", "temp"};
+    private static final String[] PRECIPITATION_FIELDS = {"3h"};
+    private static final String[] LONG_FORECAST_ITEM_FIELDS = {"dt", "temp", "pressure", "humidity", "speed", "deg", "clouds", "weather"};
+    private static final String[] LONG_FORECAST_TEMP_FIELDS = {"min", "max", "day"};
+
     public static JSONParseResult parseServerResult(String serverResult) throws JSONException,
                                                                                 LicenseNotValidException,
                                                                                 TooEarlyUpdateException {
-        JSONObject serverResponse = new JSONObject(serverResult);
-        String result = serverResponse.getString("result");
+        return parseServerResult(serverResult.getBytes(UTF_8));
+    }
+
+    public static JSONParseResult parseServerResult(byte[] serverResult) throws JSONException,
+                                                                                LicenseNotValidException,
+                                                                                TooEarlyUpdateException {
+        long start = System.nanoTime();
+        JsonByteReader reader = new JsonByteReader(serverResult);
+        String result = null;
+        String token = null;
+        String owmResponse = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(SERVER_RESULT_FIELDS)) {
+                case 0: result = reader.nextString(); break;
+                case 1: token = reader.nextString(); break;
+                case 2: owmResponse = reader.nextString(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        parseTime.recordSince(start);
+        if (result == null) {
+            throw new JSONException("No value for result");
+        }
         switch (result) {
             case "TOO_EARLY_UPDATE": throw new TooEarlyUpdateException();
-            case "OK": return new JSONParseResult(serverResponse.getString("token"), serverResponse.getString("owm"));
+            case "OK":
+                if ((token == null) || (owmResponse == null)) {
+                    throw new JSONException("No value for token or owm");
+                }
+                return new JSONParseResult(token, owmResponse);
         }
         throw new LicenseNotValidException("Result is not OK. Result = " + result);
     }
 
     public static Weather getWeather(String data, String locale) throws JSONException {
+        return getWeather(data.getBytes(UTF_8), locale);
+    }
+
+    public static Weather getWeather(byte[] data, String locale) throws JSONException {
+        long start = System.nanoTime();
         Weather weather = new Weather();
+        boolean descriptionSupported = OWMLanguages.isLanguageSupportedByOWMAndNotTranslatedLocaly(locale);
+        int foundSections = 0;
+
+        JsonByteReader reader = new JsonByteReader(data);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int section = reader.nextName(WEATHER_SECTIONS);
+            switch (section) {
+                case 0: readCurrentWeathers(reader, weather, descriptionSupported); break;
+                case 1: readWeatherMain(reader, weather); break;
+                case 2: readWeatherWind(reader, weather); break;
+                case 3: readWeatherClouds(reader, weather); break;
+                case 4: readWeatherSys(reader, weather); break;
+                case 5: readWeatherCoord(reader, weather); break;
+                default: reader.skipValue();
+            }
+            if (section >= 0) {
+                foundSections |= 1 << section;
+            }
+        }
+        reader.endObject();
+        checkRequiredFields(foundSections, WEATHER_SECTIONS);
+        parseTime.recordSince(start);
+        return weather;
+    }
+
+    public static CompleteWeatherForecast getLongWeatherForecast(String weatherForecastResponseTxt) throws JSONException {
+        return getLongWeatherForecast(weatherForecastResponseTxt.getBytes(UTF_8));
+    }
+
+    public static CompleteWeatherForecast getLongWeatherForecast(byte[] weatherForecastResponse) throws JSONException {
+        long start = System.nanoTime();
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        JsonByteReader reader = new JsonByteReader(weatherForecastResponse);
+        boolean listFound = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(FORECAST_FIELDS) != 0) {
+                reader.skipValue();
+                continue;
+            }
+            listFound = true;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                completeWeatherForecast.addDetailedWeatherForecast(readLongForecastItem(reader));
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        if (!listFound) {
+            throw new JSONException("No value for list");
+        }
+        parseTime.recordSince(start);
+        return completeWeatherForecast;
+    }
+
+    public static CompleteWeatherForecast getWeatherForecast(String weatherForecastResponseTxt) throws JSONException {
+        return getWeatherForecast(weatherForecastResponseTxt.getBytes(UTF_8));
+    }
 
-        JSONObject weatherData = new JSONObject(data);
-        JSONArray weatherArray = weatherData.getJSONArray("weather");
+    public static CompleteWeatherForecast getWeatherForecast(byte[] weatherForecastResponse) throws JSONException {
+        long start = System.nanoTime();
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        JsonByteReader reader = new JsonByteReader(weatherForecastResponse);
+        boolean listFound = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(FORECAST_FIELDS) != 0) {
+                reader.skipValue();
+                continue;
+            }
+            listFound = true;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                completeWeatherForecast.addDetailedWeatherForecast(readForecastItem(reader));
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        if (!listFound) {
+            throw new JSONException("No value for list");
+        }
+        parseTime.recordSince(start);
+        return completeWeatherForecast;
+    }
 
-        for (int weatherCounter = 0; weatherCounter < weatherArray.length(); weatherCounter++) {
-            JSONObject weatherObj = weatherArray.getJSONObject(weatherCounter);
+    private static void readCurrentWeathers(JsonByteReader reader,
+                                            Weather weather,
+                                            boolean descriptionSupported) throws JSONException {
+        reader.beginArray();
+        while (reader.hasNext()) {
             Integer weatherId = null;
             String weatherDescription = null;
             String weatherIconId = null;
-            if (weatherObj.has("icon")) {
-                weatherIconId = weatherObj.getString("icon");
-            }
-            if (weatherObj.has("id")) {
-                weatherId = weatherObj.getInt("id");
-            }
-            if (weatherObj.has("description")) {
-                if (OWMLanguages.isLanguageSupportedByOWMAndNotTranslatedLocaly(locale)) {
-                    weatherDescription = weatherObj.getString("description");
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(WEATHER_CONDITION_FIELDS)) {
+                    case 0: weatherId = reader.nextInt(); break;
+                    case 1: weatherIconId = reader.nextString(); break;
+                    case 2:
+                        if (descriptionSupported) {
+                            weatherDescription = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    default: reader.skipValue();
                 }
             }
+            reader.endObject();
             weather.addCurrentWeather(weatherId, weatherDescription, weatherIconId);
         }
+        reader.endArray();
+    }
 
-        JSONObject mainObj = weatherData.getJSONObject("main");
-        if (mainObj.has("temp")) {
-            weather.setTemperature(Float.parseFloat(mainObj.getString("temp")));
+    private static void readWeatherMain(JsonByteReader reader, Weather weather) throws JSONException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(WEATHER_MAIN_FIELDS)) {
+                case 0: weather.setTemperature((float) reader.nextDouble()); break;
+                case 1: weather.setPressure((float) reader.nextDouble()); break;
+                case 2: weather.setHumidity(reader.nextInt()); break;
+                default: reader.skipValue();
+            }
         }
-        if (mainObj.has("pressure")) {
-            weather.setPressure(Float.parseFloat(mainObj.getString("pressure")));
+        reader.endObject();
+    }
+
+    private static void readWeatherWind(JsonByteReader reader, Weather weather) throws JSONException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(WIND_FIELDS)) {
+                case 0: weather.setWindSpeed((float) reader.nextDouble()); break;
+                case 1: weather.setWindDirection((float) reader.nextDouble()); break;
+                default: reader.skipValue();
+            }
         }
-        if (mainObj.has("humidity")) {
-            weather.setHumidity(mainObj.getInt("humidity"));
+        reader.endObject();
+    }
+
+    private static void readWeatherClouds(JsonByteReader reader, Weather weather) throws JSONException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(CLOUDS_FIELDS) == 0) {
+                weather.setClouds(reader.nextInt());
+            } else {
+                reader.skipValue();
+            }
         }
+        reader.endObject();
+    }
 
-        JSONObject windObj = weatherData.getJSONObject("wind");
-        if (windObj.has("speed")) {
-            weather.setWindSpeed(Float.parseFloat(windObj.getString("speed")));
+    private static void readWeatherSys(JsonByteReader reader, Weather weather) throws JSONException {
+        int foundFields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(SYS_FIELDS)) {
+                case 0:
+                    weather.setSunrise(reader.nextLong());
+                    foundFields |= 1;
+                    break;
+                case 1:
+                    weather.setSunset(reader.nextLong());
+                    foundFields |= 2;
+                    break;
+                default: reader.skipValue();
+            }
         }
-        if (windObj.has("deg")) {
-            weather.setWindDirection(Float.parseFloat(windObj.getString("deg")));
+        reader.endObject();
+        checkRequiredFields(foundFields, SYS_FIELDS);
+    }
+
+    private static void readWeatherCoord(JsonByteReader reader, Weather weather) throws JSONException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(COORD_FIELDS)) {
+                case 0: weather.setLon((float) reader.nextDouble()); break;
+                case 1: weather.setLat((float) reader.nextDouble()); break;
+                default: reader.skipValue();
+            }
         }
+        reader.endObject();
+    }
 
-        JSONObject cloudsObj = weatherData.getJSONObject("clouds");
-        if (cloudsObj.has("all")) {
-            weather.setClouds(cloudsObj.getInt("all"));
+    private static DetailedWeatherForecast readForecastItem(JsonByteReader reader) throws JSONException {
+        DetailedWeatherForecast weatherForecast = new DetailedWeatherForecast();
+        int foundFields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(FORECAST_ITEM_FIELDS);
+            switch (field) {
+                case 0: weatherForecast.setDateTime(reader.nextLong()); break;
+                case 1: readForecastMain(reader, weatherForecast); break;
+                case 2: readForecastWind(reader, weatherForecast); break;
+                case 3: readForecastClouds(reader, weatherForecast); break;
+                case 4: weatherForecast.setRain(readPrecipitation(reader)); break;
+                case 5: weatherForecast.setSnow(readPrecipitation(reader)); break;
+                case 6: readWeatherConditions(reader, weatherForecast); break;
+                default: reader.skipValue();
+            }
+            if (field >= 0) {
+                foundFields |= 1 << field;
+            }
         }
+        reader.endObject();
+        checkRequiredFields(foundFields | (1 << 4) | (1 << 5), FORECAST_ITEM_FIELDS);
+        return weatherForecast;
+    }
 
-        JSONObject sysObj = weatherData.getJSONObject("sys");
+    private static void readForecastMain(JsonByteReader reader, DetailedWeatherForecast weatherForecast) throws JSONException {
+        int foundFields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(FORECAST_MAIN_FIELDS);
+            switch (field) {
+                case 0: weatherForecast.setPressure(reader.nextDouble()); break;
+                case 1: weatherForecast.setHumidity(reader.nextInt()); break;
+                case 2: weatherForecast.setTemperatureMin(reader.nextDouble()); break;
+                case 3: weatherForecast.setTemperatureMax(reader.nextDouble()); break;
+                case 4: weatherForecast.setTemperature(reader.nextDouble()); break;
+                default: reader.skipValue();
+            }
+            if (field >= 0) {
+                foundFields |= 1 << field;
+            }
+        }
+        reader.endObject();
+        checkRequiredFields(foundFields, FORECAST_MAIN_FIELDS);
+    }
 
-        weather.setSunrise(sysObj.getLong("sunrise"));
-        weather.setSunset(sysObj.getLong("sunset"));
+    private static void readForecastWind(JsonByteReader reader, DetailedWeatherForecast weatherForecast) throws JSONException {
+        int foundFields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(WIND_FIELDS);
+            switch (field) {
+                case 0: weatherForecast.setWindSpeed(reader.nextDouble()); break;
+                case 1: weatherForecast.setWindDegree(reader.nextDouble()); break;
+                default: reader.skipValue();
+            }
+            if (field >= 0) {
+                foundFields |= 1 << field;
+            }
+        }
+        reader.endObject();
+        checkRequiredFields(foundFields, WIND_FIELDS);
+    }
 
-        JSONObject coordObj = weatherData.getJSONObject("coord");
-        if (coordObj.has("lon")) {
-            weather.setLon(Float.parseFloat(coordObj.getString("lon")));
+    private static void readForecastClouds(JsonByteReader reader, DetailedWeatherForecast weatherForecast) throws JSONException {
+        boolean found = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(CLOUDS_FIELDS) == 0) {
+                weatherForecast.setCloudiness(reader.nextInt());
+                found = true;
+            } else {
+                reader.skipValue();
+            }
         }
-        if (coordObj.has("lat")) {
-            weather.setLat(Float.parseFloat(coordObj.getString("lat")));
+        reader.endObject();
+        checkRequiredFields(found ? 1 : 0, CLOUDS_FIELDS);
+    }
+
+    private static double readPrecipitation(JsonByteReader reader) throws JSONException {
+        double precipitation = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(PRECIPITATION_FIELDS) == 0) {
+                precipitation = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
         }
+        reader.endObject();
+        return precipitation;
+    }
 
-        return weather;
+    private static DetailedWeatherForecast readLongForecastItem(JsonByteReader reader) throws JSONException {
+        DetailedWeatherForecast weatherForecast = new DetailedWeatherForecast();
+        int foundFields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(LONG_FORECAST_ITEM_FIELDS);
+            switch (field) {
+                case 0: weatherForecast.setDateTime(reader.nextLong()); break;
+                case 1: readLongForecastTemperature(reader, weatherForecast); break;
+                case 2: weatherForecast.setPressure(reader.nextDouble()); break;
+                case 3: weatherForecast.setHumidity(reader.nextInt()); break;
+                case 4: weatherForecast.setWindSpeed(reader.nextDouble()); break;
+                case 5: weatherForecast.setWindDegree(reader.nextDouble()); break;
+                case 6: weatherForecast.setCloudiness(reader.nextInt()); break;
+                case 7: readWeatherConditions(reader, weatherForecast); break;
+                default: reader.skipValue();
+            }
+            if (field >= 0) {
+                foundFields |= 1 << field;
+            }
+        }
+        reader.endObject();
+        checkRequiredFields(foundFields, LONG_FORECAST_ITEM_FIELDS);
+        return weatherForecast;
     }
 
-    public static CompleteWeatherForecast getLongWeatherForecast(String weatherForecastResponseTxt) throws JSONException {
-        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
-        JSONObject weatherForecastResponse = new JSONObject(weatherForecastResponseTxt);
-        JSONArray weatherForecastList = weatherForecastResponse.getJSONArray("list");
-        for (int weatherForecastCounter = 0; weatherForecastCounter < weatherForecastList.length(); weatherForecastCounter++) {
-            DetailedWeatherForecast weatherForecast = new DetailedWeatherForecast();
-            JSONObject weatherForecastCase = weatherForecastList.getJSONObject(weatherForecastCounter);
-            weatherForecast.setDateTime(weatherForecastCase.getLong("dt"));
-            JSONObject weatherForecastTemp = weatherForecastCase.getJSONObject("temp");
-
-            weatherForecast.setTemperatureMin(weatherForecastTemp.getDouble("min"));
-            weatherForecast.setTemperatureMax(weatherForecastTemp.getDouble("max"));
-            weatherForecast.setTemperature(weatherForecastTemp.getDouble("day"));
-
-            weatherForecast.setPressure(weatherForecastCase.getDouble("pressure"));
-            weatherForecast.setHumidity(weatherForecastCase.getInt("humidity"));
-            weatherForecast.setWindSpeed(weatherForecastCase.getDouble("speed"));
-            weatherForecast.setWindDegree(weatherForecastCase.getDouble("deg"));
-            weatherForecast.setCloudiness(weatherForecastCase.getInt("clouds"));
-
-            JSONArray weatherConditionList = weatherForecastCase.getJSONArray("weather");
-            for (int weatherConditionCounter = 0; weatherConditionCounter < weatherConditionList.length(); weatherConditionCounter++) {
-                JSONObject weatherCondition = weatherConditionList.getJSONObject(weatherConditionCounter);
-                weatherForecast.addWeatherCondition(weatherCondition.getInt("id"),
-                        weatherCondition.getString("icon"),
-                        weatherCondition.getString("description"));
-            }
-            completeWeatherForecast.addDetailedWeatherForecast(weatherForecast);
+    private static void readLongForecastTemperature(JsonByteReader reader, DetailedWeatherForecast weatherForecast) throws JSONException {
+        int foundFields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(LONG_FORECAST_TEMP_FIELDS);
+            switch (field) {
+                case 0: weatherForecast.setTemperatureMin(reader.nextDouble()); break;
+                case 1: weatherForecast.setTemperatureMax(reader.nextDouble()); break;
+                case 2: weatherForecast.setTemperature(reader.nextDouble()); break;
+                default: reader.skipValue();
+            }
+            if (field >= 0) {
+                foundFields |= 1 << field;
+            }
         }
-        return completeWeatherForecast;
+        reader.endObject();
+        checkRequiredFields(foundFields, LONG_FORECAST_TEMP_FIELDS);
     }
 
-    public static CompleteWeatherForecast getWeatherForecast(String weatherForecastResponseTxt) throws JSONException {
-        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
-        JSONObject weatherForecastResponse = new JSONObject(weatherForecastResponseTxt);
-        JSONArray weatherForecastList = weatherForecastResponse.getJSONArray("list");
-        for (int weatherForecastCounter = 0; weatherForecastCounter < weatherForecastList.length(); weatherForecastCounter++) {
-            DetailedWeatherForecast weatherForecast = new DetailedWeatherForecast();
-            JSONObject weatherForecastCase = weatherForecastList.getJSONObject(weatherForecastCounter);
-            weatherForecast.setDateTime(weatherForecastCase.getLong("dt"));
-            JSONObject weatherForecastCaseMain = weatherForecastCase.getJSONObject("main");
-            weatherForecast.setPressure(weatherForecastCaseMain.getDouble("pressure"));
-            weatherForecast.setHumidity(weatherForecastCaseMain.getInt("humidity"));
-            JSONObject weatherForecastCaseWind = weatherForecastCase.getJSONObject("wind");
-            weatherForecast.setWindSpeed(weatherForecastCaseWind.getDouble("speed"));
-            weatherForecast.setWindDegree(weatherForecastCaseWind.getDouble("deg"));
-            JSONObject weatherForecastCaseClouds = weatherForecastCase.getJSONObject("clouds");
-            weatherForecast.setCloudiness(weatherForecastCaseClouds.getInt("all"));
-
-            if (weatherForecastCase.has("rain")) {
-                JSONObject rain = weatherForecastCase.getJSONObject("rain");
-                if (rain.has("3h")) {
-                    weatherForecast.setRain(rain.getDouble("3h"));
+    private static void readWeatherConditions(JsonByteReader reader, DetailedWeatherForecast weatherForecast) throws JSONException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Integer weatherId = null;
+            String icon = null;
+            String description = null;
+            int foundFields = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int field = reader.nextName(WEATHER_CONDITION_FIELDS);
+                switch (field) {
+                    case 0: weatherId = reader.nextInt(); break;
+                    case 1: icon = reader.nextString(); break;
+                    case 2: description = reader.nextString(); break;
+                    default: reader.skipValue();
                 }
-            } else {
-                weatherForecast.setRain(0);
-            }
-            if (weatherForecastCase.has("snow")) {
-                JSONObject snow = weatherForecastCase.getJSONObject("snow");
-                if (snow.has("3h")) {
-                    weatherForecast.setSnow(snow.getDouble("3h"));
+                if (field >= 0) {
+                    foundFields |= 1 << field;
                 }
-            } else {
-                weatherForecast.setSnow(0);
             }
-            weatherForecast.setTemperatureMin(weatherForecastCaseMain.getDouble("temp_min"));
-            weatherForecast.setTemperatureMax(weatherForecastCaseMain.getDouble("temp_max"));
-            weatherForecast.setTemperature(weatherForecastCaseMain.getDouble("temp"));
-            JSONArray weatherConditionList = weatherForecastCase.getJSONArray("weather");
-            for (int weatherConditionCounter = 0; weatherConditionCounter < weatherConditionList.length(); weatherConditionCounter++) {
-                JSONObject weatherCondition = weatherConditionList.getJSONObject(weatherConditionCounter);
-                weatherForecast.addWeatherCondition(weatherCondition.getInt("id"),
-                                                    weatherCondition.getString("icon"),
-                                                    weatherCondition.getString("description"));
+            reader.endObject();
+            checkRequiredFields(foundFields, WEATHER_CONDITION_FIELDS);
+            weatherForecast.addWeatherCondition(weatherId, icon, description);
+        }
+        reader.endArray();
+    }
+
+    private static void checkRequiredFields(int foundFields, String[] fields) throws JSONException {
+        for (int fieldIndex = 0; fieldIndex < fields.length; fieldIndex++) {
+            if ((foundFields & (1 << fieldIndex)) == 0) {
+                throw new JSONException("No value for " + fields[fieldIndex]);
             }
-            completeWeatherForecast.addDetailedWeatherForecast(weatherForecast);
         }
-        return completeWeatherForecast;
     }
 
     public static class JSONParseResult {
@@ -425,7 +425,7 @@ public class WidgetSettingsDialogue extends Activity {
                         if (saveLocationSetting) {
                             widgetSettingsDbHelper.saveParamBoolean(widgetId, "showLocation", showLocationSwitchListener.isChecked());
                         }
-                        GraphUtils.invalidateGraph();
+                        GraphUtils.invalidateGraph(widgetId);
                         Intent intent = new Intent(Constants.ACTION_APPWIDGET_CHANGE_SETTINGS);
                         intent.setPackage("org.thosp.yourlocalweather");
                         intent.putExtra("widgetId", widgetId);
@@ -613,8 +613,8 @@ public class WidgetSettingsDialogue extends Activity {
 
                         widgetSettingsDbHelper.saveParamString(widgetId, "combinedGraphValues", valuesToStore.toString());
                         widgetSettingsDbHelper.saveParamBoolean(widgetId, "combinedGraphShowLegend", showLegendSwitchListener.isChecked());
-                        GraphUtils.invalidateGraph();
                         Intent refreshWidgetIntent = new Intent(Constants.ACTION_APPWIDGET_CHANGE_GRAPH_SCALE);
+                        refreshWidgetIntent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, widgetId);
                         refreshWidgetIntent.setPackage("org.thosp.yourlocalweather");
                         sendBroadcast(refreshWidgetIntent);
                         finish();
@@ -9,6 +9,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+import org.thosp.yourlocalweather.utils.ForecastSeries;
+import org.thosp.yourlocalweather.utils.PreferenceSnapshot;
 
 import java.util.List;
 import java.util.Locale;
@@ -19,7 +21,7 @@ public class LongWeatherForecastItemAdapter extends RecyclerView.Adapter<LongWea
     private Context mContext;
     private Set<Integer> visibleColumns;
     private List<DetailedWeatherForecast> mWeatherList;
-    private double latitude;
+    private float[] apparentTemperatures;
     private Locale locale;
 
     public LongWeatherForecastItemAdapter(Context context,
@@ -30,8 +32,11 @@ public class LongWeatherForecastItemAdapter extends RecyclerView.Adapter<LongWea
         mContext = context;
         mWeatherList = weather;
         this.visibleColumns = visibleColumns;
-        this.latitude = latitude;
         this.locale = locale;
+        if (weather != null) {
+            apparentTemperatures = ForecastSeries.convert(PreferenceSnapshot.get(context), weather, latitude)
+                    .getApparentTemperatures();
+        }
     }
 
     @Override
@@ -44,7 +49,7 @@ public class LongWeatherForecastItemAdapter extends RecyclerView.Adapter<LongWea
     @Override
     public void onBindViewHolder(LongWeatherForecastItemViewHolder holder, int position) {
         DetailedWeatherForecast weather = mWeatherList.get(position);
-        holder.bindWeather(mContext, latitude, locale, weather, visibleColumns);
+        holder.bindWeather(mContext, locale, weather, apparentTemperatures[position], visibleColumns);
     }
 
     @Override
@@ -59,14 +59,13 @@ public class LongWeatherForecastItemViewHolder extends RecyclerView.ViewHolder {
     }
 
     void bindWeather(Context context,
-                     double latitude,
                      Locale locale,
                      DetailedWeatherForecast weather,
+                     float apparentTemperature,
                      Set<Integer> visibleColumns) {
         mWeatherForecast = weather;
 
-        Typeface typeface = Typeface.createFromAsset(mContext.getAssets(),
-                "fonts/weathericons-regular-webfont.ttf");
+        Typeface typeface = Utils.getWeatherFont(mContext);
         WeatherCondition weatherCondition = weather.getFirstWeatherCondition();
 
         if (visibleColumns.contains(1)) {
@@ -107,9 +106,9 @@ public class LongWeatherForecastItemViewHolder extends RecyclerView.ViewHolder {
         }
         if (visibleColumns.contains(5)) {
             mApparentTemperature.setVisibility(View.VISIBLE);
-            String apparentTemperature = mContext.getString(R.string.temperature_with_degree,
-                    TemperatureUtil.getForecastedApparentTemperatureWithUnit(mContext, latitude, weather, locale));
-            mApparentTemperature.setText(apparentTemperature);
+            String apparentTemperatureText = mContext.getString(R.string.temperature_with_degree,
+                    TemperatureUtil.getForecastedApparentTemperatureWithUnit(mContext, apparentTemperature, locale));
+            mApparentTemperature.setText(apparentTemperatureText);
         } else {
             mApparentTemperature.setVisibility(View.GONE);
         }
@@ -83,8 +83,7 @@ public class LongWeatherForecastViewHolder extends RecyclerView.ViewHolder {
 
     void bindWeather(Context context, double latitude, Locale locale, List<DetailedWeatherForecast> weather) {
 
-        Typeface typeface = Typeface.createFromAsset(mContext.getAssets(),
-                "fonts/weathericons-regular-webfont.ttf");
+        Typeface typeface = Utils.getWeatherFont(mContext);
 
         if (visibleColumns.contains(1)) {
             headerTemperature.setVisibility(View.VISIBLE);
@@ -9,6 +9,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+import org.thosp.yourlocalweather.utils.ForecastSeries;
+import org.thosp.yourlocalweather.utils.PreferenceSnapshot;
 
 import java.util.List;
 import java.util.Locale;
@@ -19,7 +21,7 @@ public class WeatherForecastItemAdapter extends RecyclerView.Adapter<WeatherFore
     private Context mContext;
     private Set<Integer> visibleColumns;
     private List<DetailedWeatherForecast> mWeatherList;
-    private double latitude;
+    private float[] apparentTemperatures;
     private Locale locale;
     double minTemp, maxTemp;
 
@@ -31,8 +33,9 @@ public class WeatherForecastItemAdapter extends RecyclerView.Adapter<WeatherFore
         mContext = context;
         mWeatherList = weather;
         this.visibleColumns = visibleColumns;
-        this.latitude = latitude;
         this.locale = locale;
+        apparentTemperatures = ForecastSeries.convert(PreferenceSnapshot.get(context), weather, latitude)
+                .getApparentTemperatures();
 
         minTemp = Integer.MAX_VALUE;
         maxTemp = Integer.MIN_VALUE;
@@ -56,7 +59,7 @@ public class WeatherForecastItemAdapter extends RecyclerView.Adapter<WeatherFore
         double temp = weather.getTemperature();
         boolean isMin = temp == minTemp;
         boolean isMax = temp == maxTemp;
-        holder.bindWeather(mContext, latitude, locale, weather, visibleColumns, isMin, isMax);
+        holder.bindWeather(mContext, locale, weather, apparentTemperatures[position], visibleColumns, isMin, isMax);
     }
 
     @Override
@@ -56,10 +56,10 @@ public class WeatherForecastItemViewHolder extends RecyclerView.ViewHolder {
         mDescription = (TextView) itemView.findViewById(R.id.forecast_description);
     }
 
-    void bindWeather(Context context, double latitude, Locale locale, DetailedWeatherForecast weather, Set<Integer> visibleColumns, boolean isMin, boolean isMax) {
+    void bindWeather(Context context, Locale locale, DetailedWeatherForecast weather, float apparentTemperature, Set<Integer> visibleColumns, boolean isMin, boolean isMax) {
         mWeatherForecast = weather;
 
-        Typeface typeface = Typeface.createFromAsset(mContext.getAssets(), "fonts/weathericons-regular-webfont.ttf");
+        Typeface typeface = Utils.getWeatherFont(mContext);
         WeatherCondition weatherCondition = weather.getFirstWeatherCondition();
 
         if (visibleColumns.contains(1)) {
@@ -107,8 +107,8 @@ public class WeatherForecastItemViewHolder extends RecyclerView.ViewHolder {
         }
         if (visibleColumns.contains(5)) {
             mApparentTemperature.setVisibility(View.VISIBLE);
-            String apparentTemperature = mContext.getString(R.string.temperature_with_degree, TemperatureUtil.getForecastedApparentTemperatureWithUnit(mContext, latitude, weather, locale));
-            mApparentTemperature.setText(apparentTemperature);
+            String apparentTemperatureText = mContext.getString(R.string.temperature_with_degree, TemperatureUtil.getForecastedApparentTemperatureWithUnit(mContext, apparentTemperature, locale));
+            mApparentTemperature.setText(apparentTemperatureText);
         } else {
             mApparentTemperature.setVisibility(View.GONE);
         }
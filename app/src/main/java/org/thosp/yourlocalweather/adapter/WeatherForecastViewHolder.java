@@ -93,8 +93,7 @@ public class WeatherForecastViewHolder extends RecyclerView.ViewHolder {
         currentRowDate.setTime(date);
         mDate.setText(dateFormat.format(date));
 
-        Typeface typeface = Typeface.createFromAsset(mContext.getAssets(),
-                "fonts/weathericons-regular-webfont.ttf");
+        Typeface typeface = Utils.getWeatherFont(mContext);
 
         if (visibleColumns.contains(1)) {
             headerTemperature.setVisibility(View.VISIBLE);
@@ -0,0 +1,286 @@
+package org.thosp.yourlocalweather.model;
+
+import android.location.Address;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Versioned binary format of the records stored as BLOBs in the databases.
+ * Unlike Parcel.marshall() output the format does not depend on the platform
+ * version and can be read on the JVM. Forecast values are stored column by
+ * column as floats, times as deltas.
+ */
+public class BinaryCodec {
+
+    public static final int RECORD_TYPE_WEATHER = 1;
+    public static final int RECORD_TYPE_COMPLETE_WEATHER_FORECAST = 2;
+    public static final int RECORD_TYPE_ADDRESS = 3;
+
+    private static final int ADDRESS_HAS_LATITUDE = 1;
+    private static final int ADDRESS_HAS_LONGITUDE = 2;
+
+    /**
+     * The fewest bytes one encoded element takes, a count read from a record
+     * is checked against them before anything is allocated for it.
+     */
+    private static final int MIN_WEATHER_CONDITION_BYTES = 3;
+    private static final int MIN_FORECAST_BYTES = 36;
+
+    /**
+     * Tells an encoded record from a legacy parcel of an address or a forecast.
+     * Those parcels start with the length of a string or of a list, which is
+     * never as large as the header read as an int. Legacy Weather parcels start
+     * with a float and can not be told apart, CurrentWeatherDbHelper drops them
+     * on the upgrade to the version storing encoded records.
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return BinaryCodecReader.isEncoded(bytes);
+    }
+
+    public static byte[] encodeWeather(Weather weather) {
+        BinaryCodecWriter writer = new BinaryCodecWriter();
+        writer.writeFloat(weather.getTemperature());
+        writer.writeFloat(weather.getLon());
+        writer.writeFloat(weather.getLat());
+        writer.writeFloat(weather.getWindSpeed());
+        writer.writeFloat(weather.getWindDirection());
+        writer.writeFloat(weather.getPressure());
+        writer.writeSignedVarLong(weather.getHumidity());
+        writer.writeSignedVarLong(weather.getClouds());
+        writer.writeSignedVarLong(weather.getSunrise());
+        writer.writeSignedVarLong(weather.getSunset());
+        List<CurrentWeather> currentWeathers = weather.getCurrentWeathers();
+        writer.writeVarLong(currentWeathers.size());
+        for (CurrentWeather currentWeather: currentWeathers) {
+            writer.writeNullableInt(currentWeather.getWeatherId());
+            writer.writeString(currentWeather.getDescription());
+            writer.writeString(currentWeather.getIdIcon());
+        }
+        return writer.toByteArray(RECORD_TYPE_WEATHER);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the bytes are not a valid weather record
+     */
+    public static Weather decodeWeather(byte[] bytes) {
+        BinaryCodecReader reader = createReader(bytes, RECORD_TYPE_WEATHER);
+        Weather weather = new Weather();
+        weather.setTemperature(reader.readFloat());
+        weather.setLon(reader.readFloat());
+        weather.setLat(reader.readFloat());
+        weather.setWindSpeed(reader.readFloat());
+        weather.setWindDirection(reader.readFloat());
+        weather.setPressure(reader.readFloat());
+        weather.setHumidity((int) reader.readSignedVarLong());
+        weather.setClouds((int) reader.readSignedVarLong());
+        weather.setSunrise(reader.readSignedVarLong());
+        weather.setSunset(reader.readSignedVarLong());
+        int currentWeathersCount = reader.readCount(MIN_WEATHER_CONDITION_BYTES);
+        for (int i = 0; i < currentWeathersCount; i++) {
+            Integer weatherId = reader.readNullableInt();
+            String description = reader.readString();
+            String iconId = reader.readString();
+            weather.addCurrentWeather(weatherId, description, iconId);
+        }
+        return weather;
+    }
+
+    public static byte[] encodeCompleteWeatherForecast(CompleteWeatherForecast completeWeatherForecast) {
+        BinaryCodecWriter writer = new BinaryCodecWriter();
+        List<DetailedWeatherForecast> forecasts = completeWeatherForecast.getWeatherForecastList();
+        int forecastsCount = forecasts.size();
+        writer.writeVarLong(forecastsCount);
+        long previousDateTime = 0;
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeSignedVarLong(forecast.getDateTime() - previousDateTime);
+            previousDateTime = forecast.getDateTime();
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getTemperatureMin());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getTemperatureMax());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getTemperature());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getPressure());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getWindSpeed());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getWindDegree());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getRain());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeFloat((float) forecast.getSnow());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeSignedVarLong(forecast.getHumidity());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            writer.writeSignedVarLong(forecast.getCloudiness());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            List<WeatherCondition> weatherConditions = forecast.getWeatherConditions();
+            writer.writeVarLong(weatherConditions.size());
+            for (WeatherCondition weatherCondition: weatherConditions) {
+                writer.writeNullableInt(weatherCondition.getWeatherId());
+                writer.writeString(weatherCondition.getIcon());
+                writer.writeString(weatherCondition.getDescription());
+            }
+        }
+        return writer.toByteArray(RECORD_TYPE_COMPLETE_WEATHER_FORECAST);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the bytes are not a valid forecast record
+     */
+    public static CompleteWeatherForecast decodeCompleteWeatherForecast(byte[] bytes) {
+        BinaryCodecReader reader = createReader(bytes, RECORD_TYPE_COMPLETE_WEATHER_FORECAST);
+        int forecastsCount = reader.readCount(MIN_FORECAST_BYTES);
+        DetailedWeatherForecast[] forecasts = new DetailedWeatherForecast[forecastsCount];
+        long dateTime = 0;
+        for (int i = 0; i < forecastsCount; i++) {
+            dateTime += reader.readSignedVarLong();
+            forecasts[i] = new DetailedWeatherForecast();
+            forecasts[i].setDateTime(dateTime);
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setTemperatureMin(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setTemperatureMax(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setTemperature(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setPressure(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setWindSpeed(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setWindDegree(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setRain(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setSnow(reader.readFloat());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setHumidity((int) reader.readSignedVarLong());
+        }
+        for (DetailedWeatherForecast forecast: forecasts) {
+            forecast.setCloudiness((int) reader.readSignedVarLong());
+        }
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        for (DetailedWeatherForecast forecast: forecasts) {
+            int weatherConditionsCount = reader.readCount(MIN_WEATHER_CONDITION_BYTES);
+            for (int i = 0; i < weatherConditionsCount; i++) {
+                Integer weatherId = reader.readNullableInt();
+                String icon = reader.readString();
+                String description = reader.readString();
+                forecast.addWeatherCondition(weatherId, icon, description);
+            }
+            completeWeatherForecast.addDetailedWeatherForecast(forecast);
+        }
+        return completeWeatherForecast;
+    }
+
+    public static byte[] encodeAddress(Address address) {
+        BinaryCodecWriter writer = new BinaryCodecWriter();
+        Locale locale = address.getLocale();
+        writer.writeString((locale != null) ? locale.getLanguage() : null);
+        writer.writeString((locale != null) ? locale.getCountry() : null);
+        writer.writeString((locale != null) ? locale.getVariant() : null);
+        int addressLinesCount = address.getMaxAddressLineIndex() + 1;
+        writer.writeVarLong(addressLinesCount);
+        for (int i = 0; i < addressLinesCount; i++) {
+            writer.writeString(address.getAddressLine(i));
+        }
+        writer.writeString(address.getFeatureName());
+        writer.writeString(address.getAdminArea());
+        writer.writeString(address.getSubAdminArea());
+        writer.writeString(address.getLocality());
+        writer.writeString(address.getSubLocality());
+        writer.writeString(address.getThoroughfare());
+        writer.writeString(address.getSubThoroughfare());
+        writer.writeString(address.getPremises());
+        writer.writeString(address.getPostalCode());
+        writer.writeString(address.getCountryCode());
+        writer.writeString(address.getCountryName());
+        writer.writeString(address.getPhone());
+        writer.writeString(address.getUrl());
+        int coordinatesFlags = (address.hasLatitude() ? ADDRESS_HAS_LATITUDE : 0) |
+                (address.hasLongitude() ? ADDRESS_HAS_LONGITUDE : 0);
+        writer.writeByte(coordinatesFlags);
+        if (address.hasLatitude()) {
+            writer.writeDouble(address.getLatitude());
+        }
+        if (address.hasLongitude()) {
+            writer.writeDouble(address.getLongitude());
+        }
+        return writer.toByteArray(RECORD_TYPE_ADDRESS);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the bytes are not a valid address record
+     */
+    public static Address decodeAddress(byte[] bytes) {
+        BinaryCodecReader reader = createReader(bytes, RECORD_TYPE_ADDRESS);
+        String language = reader.readString();
+        String country = reader.readString();
+        String variant = reader.readString();
+        Locale locale;
+        if (language == null) {
+            locale = Locale.getDefault();
+        } else {
+            locale = new Locale(language, (country != null) ? country : "", (variant != null) ? variant : "");
+        }
+        Address address = new Address(locale);
+        int addressLinesCount = reader.readCount(1);
+        for (int i = 0; i < addressLinesCount; i++) {
+            String addressLine = reader.readString();
+            if (addressLine != null) {
+                address.setAddressLine(i, addressLine);
+            }
+        }
+        address.setFeatureName(reader.readString());
+        address.setAdminArea(reader.readString());
+        address.setSubAdminArea(reader.readString());
+        address.setLocality(reader.readString());
+        address.setSubLocality(reader.readString());
+        address.setThoroughfare(reader.readString());
+        address.setSubThoroughfare(reader.readString());
+        address.setPremises(reader.readString());
+        address.setPostalCode(reader.readString());
+        address.setCountryCode(reader.readString());
+        address.setCountryName(reader.readString());
+        address.setPhone(reader.readString());
+        address.setUrl(reader.readString());
+        int coordinatesFlags = reader.readByte();
+        if ((coordinatesFlags & ADDRESS_HAS_LATITUDE) != 0) {
+            address.setLatitude(reader.readDouble());
+        }
+        if ((coordinatesFlags & ADDRESS_HAS_LONGITUDE) != 0) {
+            address.setLongitude(reader.readDouble());
+        }
+        return address;
+    }
+
+    private static BinaryCodecReader createReader(byte[] bytes, int expectedRecordType) {
+        BinaryCodecReader reader = new BinaryCodecReader(bytes);
+        if (reader.getRecordType() != expectedRecordType) {
+            throw new IllegalArgumentException("Unexpected record type: " + reader.getRecordType());
+        }
+        return reader;
+    }
+}
@@ -0,0 +1,142 @@
+package org.thosp.yourlocalweather.model;
+
+/**
+ * Reads values written by BinaryCodecWriter in the same order they were written.
+ */
+public class BinaryCodecReader {
+
+    private final byte[] data;
+    private int position;
+    private final int formatVersion;
+    private final int recordType;
+    private final String[] strings;
+
+    public BinaryCodecReader(byte[] data) {
+        if (!isEncoded(data)) {
+            throw new IllegalArgumentException("Not a binary codec record");
+        }
+        this.data = data;
+        position = BinaryCodecWriter.MAGIC.length;
+        formatVersion = readByte();
+        if (formatVersion > BinaryCodecWriter.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported binary codec version: " + formatVersion);
+        }
+        recordType = readByte();
+        strings = new String[readCount(1)];
+        for (int i = 0; i < strings.length; i++) {
+            int stringLength = readVarInt();
+            checkAvailable(stringLength);
+            strings[i] = new String(data, position, stringLength, BinaryCodecWriter.UTF_8);
+            position += stringLength;
+        }
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        if ((data == null) || (data.length < BinaryCodecWriter.MAGIC.length + 2)) {
+            return false;
+        }
+        for (int i = 0; i < BinaryCodecWriter.MAGIC.length; i++) {
+            if (data[i] != BinaryCodecWriter.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    public int getRecordType() {
+        return recordType;
+    }
+
+    public int readByte() {
+        checkAvailable(1);
+        return data[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        while (shift < 64) {
+            int currentByte = readByte();
+            value |= (long) (currentByte & 0x7F) << shift;
+            if ((currentByte & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if ((value < 0) || (value > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Varint out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the number of elements that follow, each taking at least
+     * minBytesPerElement bytes.
+     *
+     * @throws IllegalArgumentException when the remaining bytes can not hold the elements
+     */
+    public int readCount(int minBytesPerElement) {
+        int count = readVarInt();
+        if (count > (data.length - position) / minBytesPerElement) {
+            throw new IllegalArgumentException("Element count out of range: " + count);
+        }
+        return count;
+    }
+
+    public long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public Integer readNullableInt() {
+        long value = readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        value--;
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat((int) readFixed(4));
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixed(8));
+    }
+
+    public String readString() {
+        int stringIndex = readVarInt();
+        if (stringIndex == 0) {
+            return null;
+        }
+        if (stringIndex > strings.length) {
+            throw new IllegalArgumentException("String index out of range: " + stringIndex);
+        }
+        return strings[stringIndex - 1];
+    }
+
+    private long readFixed(int length) {
+        checkAvailable(length);
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value |= (long) (data[position++] & 0xFF) << (8 * i);
+        }
+        return value;
+    }
+
+    private void checkAvailable(int length) {
+        if ((length < 0) || (position + length > data.length)) {
+            throw new IllegalArgumentException("Unexpected end of binary codec record");
+        }
+    }
+}
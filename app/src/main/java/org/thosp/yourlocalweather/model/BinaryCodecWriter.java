@@ -0,0 +1,130 @@
+package org.thosp.yourlocalweather.model;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes values in the format read by BinaryCodecReader. Integers are written
+ * as varints, floats and doubles as little endian bits, strings are collected
+ * into a table written in front of the values, so repeated descriptions and
+ * icons are stored only once.
+ */
+public class BinaryCodecWriter {
+
+    static final byte[] MAGIC = {'Y', 'L', 'W'};
+    static final int FORMAT_VERSION = 1;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Bytes values = new Bytes(256);
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    public void writeByte(int value) {
+        values.add(value);
+    }
+
+    public void writeVarLong(long value) {
+        values.addVarLong(value);
+    }
+
+    public void writeSignedVarLong(long value) {
+        values.addVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeNullableInt(Integer value) {
+        if (value == null) {
+            values.addVarLong(0);
+            return;
+        }
+        values.addVarLong(((value << 1) ^ (value >> 31)) + 1L);
+    }
+
+    public void writeFloat(float value) {
+        values.addFixed(Float.floatToIntBits(value), 4);
+    }
+
+    public void writeDouble(double value) {
+        values.addFixed(Double.doubleToLongBits(value), 8);
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            values.addVarLong(0);
+            return;
+        }
+        Integer stringIndex = stringIndexes.get(value);
+        if (stringIndex == null) {
+            stringIndex = strings.size();
+            strings.add(value);
+            stringIndexes.put(value, stringIndex);
+        }
+        values.addVarLong(stringIndex + 1L);
+    }
+
+    public byte[] toByteArray(int recordType) {
+        Bytes record = new Bytes(values.size + 16 * strings.size() + 16);
+        for (byte magicByte: MAGIC) {
+            record.add(magicByte);
+        }
+        record.add(FORMAT_VERSION);
+        record.add(recordType);
+        record.addVarLong(strings.size());
+        for (String string: strings) {
+            byte[] stringBytes = string.getBytes(UTF_8);
+            record.addVarLong(stringBytes.length);
+            record.add(stringBytes, stringBytes.length);
+        }
+        record.add(values.data, values.size);
+        byte[] result = new byte[record.size];
+        System.arraycopy(record.data, 0, result, 0, record.size);
+        return result;
+    }
+
+    private static class Bytes {
+        private byte[] data;
+        private int size;
+
+        Bytes(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void add(int value) {
+            ensureCapacity(1);
+            data[size++] = (byte) value;
+        }
+
+        void add(byte[] bytes, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+        }
+
+        void addVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void addFixed(long value, int length) {
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                data[size++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        private void ensureCapacity(int additionalBytes) {
+            if (size + additionalBytes <= data.length) {
+                return;
+            }
+            byte[] newData = new byte[Math.max(data.length * 2, size + additionalBytes)];
+            System.arraycopy(data, 0, newData, 0, size);
+            data = newData;
+        }
+    }
+}
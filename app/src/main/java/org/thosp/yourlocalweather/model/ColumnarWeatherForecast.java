@@ -0,0 +1,233 @@
+package org.thosp.yourlocalweather.model;
+
+import org.thosp.yourlocalweather.utils.ForecastDayIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Forecast stored as parallel primitive columns, one entry per forecast time.
+ * Of the weather conditions only the first one is kept (the one displayed),
+ * its icon and description are indexes into tables holding every distinct
+ * string once. The columns of a CompleteWeatherForecast are built once and
+ * kept with it, so the graph, widget and voice code iterate arrays instead of
+ * the forecast objects.
+ */
+public class ColumnarWeatherForecast {
+
+    public static final short NO_WEATHER_ID = -1;
+
+    private final long[] dateTimes;
+    private final float[] temperatures;
+    private final float[] temperatureMins;
+    private final float[] temperatureMaxs;
+    private final float[] pressures;
+    private final float[] windSpeeds;
+    private final float[] windDegrees;
+    private final float[] rains;
+    private final float[] snows;
+    private final short[] humidities;
+    private final short[] cloudiness;
+    private final short[] weatherIds;
+    private final short[] iconIndexes;
+    private final short[] descriptionIndexes;
+    private final String[] icons;
+    private final String[] descriptions;
+    private volatile ForecastDayIndex dayIndex;
+
+    private ColumnarWeatherForecast(List<DetailedWeatherForecast> weatherForecastList) {
+        int size = weatherForecastList.size();
+        dateTimes = new long[size];
+        temperatures = new float[size];
+        temperatureMins = new float[size];
+        temperatureMaxs = new float[size];
+        pressures = new float[size];
+        windSpeeds = new float[size];
+        windDegrees = new float[size];
+        rains = new float[size];
+        snows = new float[size];
+        humidities = new short[size];
+        cloudiness = new short[size];
+        weatherIds = new short[size];
+        iconIndexes = new short[size];
+        descriptionIndexes = new short[size];
+        List<String> iconTable = new ArrayList<>();
+        List<String> descriptionTable = new ArrayList<>();
+        Map<String, Short> iconIndexesByValue = new HashMap<>();
+        Map<String, Short> descriptionIndexesByValue = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            DetailedWeatherForecast forecast = weatherForecastList.get(i);
+            dateTimes[i] = forecast.getDateTime();
+            temperatures[i] = (float) forecast.getTemperature();
+            temperatureMins[i] = (float) forecast.getTemperatureMin();
+            temperatureMaxs[i] = (float) forecast.getTemperatureMax();
+            pressures[i] = (float) forecast.getPressure();
+            windSpeeds[i] = (float) forecast.getWindSpeed();
+            windDegrees[i] = (float) forecast.getWindDegree();
+            rains[i] = (float) forecast.getRain();
+            snows[i] = (float) forecast.getSnow();
+            humidities[i] = (short) forecast.getHumidity();
+            cloudiness[i] = (short) forecast.getCloudiness();
+            WeatherCondition weatherCondition = forecast.getFirstWeatherCondition();
+            if ((weatherCondition == null) || (weatherCondition.getWeatherId() == null)) {
+                weatherIds[i] = NO_WEATHER_ID;
+            } else {
+                weatherIds[i] = weatherCondition.getWeatherId().shortValue();
+            }
+            iconIndexes[i] = intern(
+                    (weatherCondition != null) ? weatherCondition.getIcon() : null,
+                    iconTable,
+                    iconIndexesByValue);
+            descriptionIndexes[i] = intern(
+                    (weatherCondition != null) ? weatherCondition.getDescription() : null,
+                    descriptionTable,
+                    descriptionIndexesByValue);
+        }
+        icons = iconTable.toArray(new String[iconTable.size()]);
+        descriptions = descriptionTable.toArray(new String[descriptionTable.size()]);
+    }
+
+    private static short intern(String value, List<String> table, Map<String, Short> indexesByValue) {
+        if (value == null) {
+            return -1;
+        }
+        Short index = indexesByValue.get(value);
+        if (index == null) {
+            index = (short) table.size();
+            table.add(value);
+            indexesByValue.put(value, index);
+        }
+        return index;
+    }
+
+    public static ColumnarWeatherForecast of(List<DetailedWeatherForecast> weatherForecastList) {
+        return new ColumnarWeatherForecast(weatherForecastList);
+    }
+
+    /**
+     * Returns the columns of the forecast, built on the first call and kept with
+     * the forecast until a forecast time is added to it or changed.
+     */
+    public static ColumnarWeatherForecast of(CompleteWeatherForecast completeWeatherForecast) {
+        ColumnarWeatherForecast columns = completeWeatherForecast.columns;
+        if (columns == null) {
+            columns = new ColumnarWeatherForecast(completeWeatherForecast.getWeatherForecastList());
+            completeWeatherForecast.columns = columns;
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the forecast times grouped by day in the default time zone, built
+     * on the first call and again when the time zone changes.
+     */
+    public ForecastDayIndex getDayIndex() {
+        ForecastDayIndex index = dayIndex;
+        TimeZone timeZone = TimeZone.getDefault();
+        if ((index == null) || !index.isFor(timeZone)) {
+            index = ForecastDayIndex.create(this, timeZone);
+            dayIndex = index;
+        }
+        return index;
+    }
+
+    public DetailedWeatherForecast getDetailedWeatherForecast(int index) {
+        DetailedWeatherForecast forecast = new DetailedWeatherForecast();
+        forecast.setDateTime(dateTimes[index]);
+        forecast.setTemperature(temperatures[index]);
+        forecast.setTemperatureMin(temperatureMins[index]);
+        forecast.setTemperatureMax(temperatureMaxs[index]);
+        forecast.setPressure(pressures[index]);
+        forecast.setWindSpeed(windSpeeds[index]);
+        forecast.setWindDegree(windDegrees[index]);
+        forecast.setRain(rains[index]);
+        forecast.setSnow(snows[index]);
+        forecast.setHumidity(humidities[index]);
+        forecast.setCloudiness(cloudiness[index]);
+        if ((weatherIds[index] != NO_WEATHER_ID) || (iconIndexes[index] >= 0) || (descriptionIndexes[index] >= 0)) {
+            forecast.addWeatherCondition(getWeatherId(index), getIcon(index), getDescription(index));
+        }
+        return forecast;
+    }
+
+    public CompleteWeatherForecast toCompleteWeatherForecast() {
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        for (int i = 0; i < dateTimes.length; i++) {
+            completeWeatherForecast.addDetailedWeatherForecast(getDetailedWeatherForecast(i));
+        }
+        completeWeatherForecast.columns = this;
+        return completeWeatherForecast;
+    }
+
+    public int size() {
+        return dateTimes.length;
+    }
+
+    public long getDateTime(int index) {
+        return dateTimes[index];
+    }
+
+    public float getTemperature(int index) {
+        return temperatures[index];
+    }
+
+    public float getTemperatureMin(int index) {
+        return temperatureMins[index];
+    }
+
+    public float getTemperatureMax(int index) {
+        return temperatureMaxs[index];
+    }
+
+    public float getPressure(int index) {
+        return pressures[index];
+    }
+
+    public float getWindSpeed(int index) {
+        return windSpeeds[index];
+    }
+
+    public float getWindDegree(int index) {
+        return windDegrees[index];
+    }
+
+    public float getRain(int index) {
+        return rains[index];
+    }
+
+    public float getSnow(int index) {
+        return snows[index];
+    }
+
+    public int getHumidity(int index) {
+        return humidities[index];
+    }
+
+    public int getCloudiness(int index) {
+        return cloudiness[index];
+    }
+
+    /**
+     * @return weather id of the first weather condition, null when there is none
+     */
+    public Integer getWeatherId(int index) {
+        return (weatherIds[index] != NO_WEATHER_ID) ? Integer.valueOf(weatherIds[index]) : null;
+    }
+
+    public short getWeatherIdOrNone(int index) {
+        return weatherIds[index];
+    }
+
+    public String getIcon(int index) {
+        short iconIndex = iconIndexes[index];
+        return (iconIndex >= 0) ? icons[iconIndex] : null;
+    }
+
+    public String getDescription(int index) {
+        short descriptionIndex = descriptionIndexes[index];
+        return (descriptionIndex >= 0) ? descriptions[descriptionIndex] : null;
+    }
+}
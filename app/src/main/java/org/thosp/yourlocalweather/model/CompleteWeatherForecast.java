@@ -4,21 +4,40 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class CompleteWeatherForecast implements Parcelable {
 
     List<DetailedWeatherForecast> mWeatherForecastList = new ArrayList<>();
+    volatile ColumnarWeatherForecast columns;
 
     public CompleteWeatherForecast() {
     }
 
+    /**
+     * The columns already built are shared by the copy.
+     */
+    public CompleteWeatherForecast copy() {
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        for (DetailedWeatherForecast detailedWeatherForecast: mWeatherForecastList) {
+            completeWeatherForecast.addDetailedWeatherForecast(detailedWeatherForecast.copy());
+        }
+        completeWeatherForecast.columns = columns;
+        return completeWeatherForecast;
+    }
+
+    /**
+     * The columns are dropped when a forecast time is added or changed.
+     */
     public void addDetailedWeatherForecast(DetailedWeatherForecast detailedWeatherForecast) {
         mWeatherForecastList.add(detailedWeatherForecast);
+        detailedWeatherForecast.setCompleteWeatherForecast(this);
+        columns = null;
     }
 
     public List<DetailedWeatherForecast> getWeatherForecastList() {
-        return mWeatherForecastList;
+        return Collections.unmodifiableList(mWeatherForecastList);
     }
 
     @Override
@@ -44,5 +63,8 @@ public class CompleteWeatherForecast implements Parcelable {
 
     private CompleteWeatherForecast(Parcel in) {
         in.readTypedList(mWeatherForecastList, DetailedWeatherForecast.CREATOR);
+        for (DetailedWeatherForecast detailedWeatherForecast: mWeatherForecastList) {
+            detailedWeatherForecast.setCompleteWeatherForecast(this);
+        }
     }
 }
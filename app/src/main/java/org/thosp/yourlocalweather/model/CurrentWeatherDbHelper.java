@@ -3,21 +3,43 @@ package org.thosp.yourlocalweather.model;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabaseLockedException;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.os.Parcel;
+
+import org.thosp.yourlocalweather.utils.Metrics;
 
 import static org.thosp.yourlocalweather.model.CurrentWeatherContract.SQL_CREATE_TABLE_CURRENT_WEATHER;
 import static org.thosp.yourlocalweather.model.CurrentWeatherContract.SQL_DELETE_TABLE_CURRENT_WEATHER;
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
 
 public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
 
-    public static final int DATABASE_VERSION = 2;
+    private static final String TAG = "CurrentWeatherDbHelper";
+
+    /**
+     * Version 3 stores weather in the BinaryCodec format. A legacy Weather parcel
+     * starts with a float that can be anything, so it can not be told apart from
+     * an encoded record, the table of an older version is dropped instead.
+     */
+    public static final int DATABASE_VERSION = 3;
     public static final String DATABASE_NAME = "CurrentWeather.db";
     private static int GET_READABLE_DATABASE_RETRIES = 3;
     private static int GET_READABLE_DATABASE_WAIT_TIME_MS = 500;
+    private static final int WEATHER_CACHE_SIZE = 32;
+    private static final int CURRENT_WEATHER_TYPE = 0;
     private static CurrentWeatherDbHelper instance;
+    private final Context context;
+    private final DbWriteExecutor writeExecutor;
+    private final RecordCache<WeatherRecord> weatherCache = new RecordCache<>(WEATHER_CACHE_SIZE, new RecordCache.Copier<WeatherRecord>() {
+        @Override
+        public WeatherRecord copy(WeatherRecord record) {
+            return record.copy();
+        }
+    });
+    private static final Metrics.Histogram readTime = Metrics.histogram(Metrics.DB_READ_WEATHER);
+    private static final Metrics.Histogram writeTime = Metrics.histogram(Metrics.DB_WRITE_WEATHER);
 
     public synchronized static CurrentWeatherDbHelper getInstance(Context ctx) {
         if (instance == null) {
@@ -28,6 +50,20 @@ public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
 
     private CurrentWeatherDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
+        Metrics.gauge("cache.weather.hits", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherCache.getHits();
+            }
+        });
+        Metrics.gauge("cache.weather.misses", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherCache.getMisses();
+            }
+        });
     }
     @Override
     public void onCreate(SQLiteDatabase db) {
@@ -43,6 +79,10 @@ public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
     @Override
     public SQLiteDatabase getReadableDatabase() {
         int retryCounter = 0;
@@ -64,56 +104,66 @@ public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
         return null;
     }
 
-    public void deleteRecordByLocation(Location location) {
-        SQLiteDatabase db = getWritableDatabase();
-        String selection = CurrentWeatherContract.CurrentWeather.COLUMN_NAME_LOCATION_ID + " = ?";
-        String[] selectionArgs = {location.getId().toString()};
-        db.delete(CurrentWeatherContract.CurrentWeather.TABLE_NAME, selection, selectionArgs);
+    public void deleteRecordByLocation(final Location location) {
+        weatherCache.invalidateLocation(location.getId());
+        writeExecutor.execute(new Runnable() {
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                String selection = CurrentWeatherContract.CurrentWeather.COLUMN_NAME_LOCATION_ID + " = ?";
+                String[] selectionArgs = {location.getId().toString()};
+                db.delete(CurrentWeatherContract.CurrentWeather.TABLE_NAME, selection, selectionArgs);
+                weatherCache.invalidateLocation(location.getId());
+            }
+        });
     }
 
-    public void deleteRecordFromTable(Integer recordId) {
-        SQLiteDatabase db = getWritableDatabase();
-        String selection = CurrentWeatherContract.CurrentWeather._ID + " = ?";
-        String[] selectionArgs = {recordId.toString()};
-        db.delete(CurrentWeatherContract.CurrentWeather.TABLE_NAME, selection, selectionArgs);
+    public void deleteRecordFromTable(final Integer recordId) {
+        writeExecutor.execute(new Runnable() {
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                String selection = CurrentWeatherContract.CurrentWeather._ID + " = ?";
+                String[] selectionArgs = {recordId.toString()};
+                db.delete(CurrentWeatherContract.CurrentWeather.TABLE_NAME, selection, selectionArgs);
+                weatherCache.invalidateAll();
+            }
+        });
     }
 
-    public static Weather getWeatherFromBytes(byte[] addressBytes) {
-        if ((addressBytes == null) || (addressBytes.length == 0)) {
+    /**
+     * @return null when there is no weather or the record is malformed
+     */
+    public Weather getWeatherFromBytes(byte[] weatherBytes) {
+        if ((weatherBytes == null) || (weatherBytes.length == 0)) {
+            return null;
+        }
+        try {
+            return BinaryCodec.decodeWeather(weatherBytes);
+        } catch (IllegalArgumentException e) {
+            appendLog(context, TAG, "Malformed weather record:", e);
             return null;
         }
-        final Parcel parcel = Parcel.obtain();
-        parcel.unmarshall(addressBytes, 0, addressBytes.length);
-        parcel.setDataPosition(0);
-        Weather weather = Weather.CREATOR.createFromParcel(parcel);
-        parcel.recycle();
-        return weather;
     }
 
     public byte[] getWeatherAsBytes(Weather weather) {
-        final Parcel parcel = Parcel.obtain();
-        weather.writeToParcel(parcel, 0);
-        byte[] weatherBytes = parcel.marshall();
-        parcel.recycle();
-        return weatherBytes;
+        return BinaryCodec.encodeWeather(weather);
     }
 
     public void saveWeather(final long locationId,
                             final long weatherUpdateTime,
                             final long nextAllowedAttemptToUpdateTime,
                             final Weather weather) {
-        new Thread(new Runnable() {
+        weatherCache.put(locationId, CURRENT_WEATHER_TYPE, new WeatherRecord(weatherUpdateTime, nextAllowedAttemptToUpdateTime, weather));
+        writeExecutor.execute(new DbWriteExecutor.Write() {
             public void run() {
+                long start = System.nanoTime();
                 SQLiteDatabase db = getWritableDatabase();
 
-                WeatherRecord oldWeather = getWeather(locationId);
-
                 ContentValues values = new ContentValues();
                 values.put(CurrentWeatherContract.CurrentWeather.COLUMN_NAME_WEATHER, getWeatherAsBytes(weather));
                 values.put(CurrentWeatherContract.CurrentWeather.COLUMN_NAME_LOCATION_ID, locationId);
                 values.put(CurrentWeatherContract.CurrentWeather.COLUMN_NAME_LAST_UPDATED_IN_MS, weatherUpdateTime);
                 values.put(CurrentWeatherContract.CurrentWeather.COLUMN_NAME_NEXT_ALLOWED_ATTEMPT_TO_UPDATE_TIME_IN_MS, nextAllowedAttemptToUpdateTime);
-                if (oldWeather == null) {
+                if (!hasRecord(db, locationId)) {
                     db.insert(CurrentWeatherContract.CurrentWeather.TABLE_NAME, null, values);
                 } else {
                     db.updateWithOnConflict(CurrentWeatherContract.CurrentWeather.TABLE_NAME,
@@ -122,18 +172,37 @@ public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
                             null,
                             SQLiteDatabase.CONFLICT_IGNORE);
                 }
+                writeTime.recordSince(start);
+            }
+
+            @Override
+            public void onCommitted() {
+                weatherCache.written(locationId, CURRENT_WEATHER_TYPE);
             }
-        }).start();
+
+            @Override
+            public void onFailed(Exception e) {
+                weatherCache.failed(locationId, CURRENT_WEATHER_TYPE);
+            }
+        });
     }
 
     public void updateNextAllowedAttemptToUpdateTime(final long locationId, final long nextAllowedAttemptToUpdateTime) {
-        new Thread(new Runnable() {
+        final WeatherRecord cachedWeather = weatherCache.peek(locationId, CURRENT_WEATHER_TYPE);
+        if (cachedWeather != null) {
+            weatherCache.put(locationId, CURRENT_WEATHER_TYPE, new WeatherRecord(
+                    cachedWeather.getLastUpdatedTime(),
+                    nextAllowedAttemptToUpdateTime,
+                    cachedWeather.getWeather()));
+        } else {
+            weatherCache.invalidate(locationId, CURRENT_WEATHER_TYPE);
+        }
+        writeExecutor.execute(new DbWriteExecutor.Write() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
                 ContentValues values = new ContentValues();
                 values.put(CurrentWeatherContract.CurrentWeather.COLUMN_NAME_NEXT_ALLOWED_ATTEMPT_TO_UPDATE_TIME_IN_MS, nextAllowedAttemptToUpdateTime);
-                WeatherRecord oldWeather = getWeather(locationId);
-                if (oldWeather == null) {
+                if (!hasRecord(db, locationId)) {
                     values.put(CurrentWeatherContract.CurrentWeather.COLUMN_NAME_LOCATION_ID, locationId);
                     db.insert(CurrentWeatherContract.CurrentWeather.TABLE_NAME, null, values);
                 } else {
@@ -144,11 +213,52 @@ public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
                             null,
                             SQLiteDatabase.CONFLICT_IGNORE);
                 }
+                if (cachedWeather == null) {
+                    weatherCache.invalidate(locationId, CURRENT_WEATHER_TYPE);
+                }
+            }
+
+            @Override
+            public void onCommitted() {
+                if (cachedWeather != null) {
+                    weatherCache.written(locationId, CURRENT_WEATHER_TYPE);
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (cachedWeather != null) {
+                    weatherCache.failed(locationId, CURRENT_WEATHER_TYPE);
+                }
             }
-        }).start();
+        });
+    }
+
+    public RecordCache<WeatherRecord> getWeatherCache() {
+        return weatherCache;
     }
 
     public WeatherRecord getWeather(long locationId) {
+        WeatherRecord cachedWeather = weatherCache.get(locationId, CURRENT_WEATHER_TYPE);
+        if (cachedWeather != null) {
+            return cachedWeather;
+        }
+        long cacheVersion = weatherCache.getVersion();
+        long start = System.nanoTime();
+        WeatherRecord weatherRecord = loadWeather(locationId);
+        readTime.recordSince(start);
+        weatherCache.putIfNotChanged(locationId, CURRENT_WEATHER_TYPE, weatherRecord, cacheVersion);
+        return weatherRecord;
+    }
+
+    private boolean hasRecord(SQLiteDatabase db, long locationId) {
+        return DatabaseUtils.queryNumEntries(
+                db,
+                CurrentWeatherContract.CurrentWeather.TABLE_NAME,
+                CurrentWeatherContract.CurrentWeather.COLUMN_NAME_LOCATION_ID + "=" + locationId) > 0;
+    }
+
+    private WeatherRecord loadWeather(long locationId) {
         SQLiteDatabase db = getReadableDatabase();
 
         String[] projection = {
@@ -207,5 +317,9 @@ public class CurrentWeatherDbHelper extends SQLiteOpenHelper {
         public long getNextAllowedAttemptToUpdateTime() {
             return nextAllowedAttemptToUpdateTime;
         }
+
+        WeatherRecord copy() {
+            return new WeatherRecord(lastUpdatedTime, nextAllowedAttemptToUpdateTime, (weather != null) ? weather.copy() : null);
+        }
     }
 }
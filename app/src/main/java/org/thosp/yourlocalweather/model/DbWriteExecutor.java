@@ -0,0 +1,213 @@
+package org.thosp.yourlocalweather.model;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
+
+/**
+ * Runs all writes of one database on a single thread in the order they were
+ * submitted. Writes queued while the previous batch was running are executed
+ * in one transaction. When a write throws, the transaction is rolled back, only
+ * that write is told it failed and the other writes of the batch are run again
+ * in a new transaction, so a batch is never committed half applied and one bad
+ * write does not take the writes queued next to it down with it.
+ */
+public class DbWriteExecutor {
+
+    private static final String TAG = "DbWriteExecutor";
+
+    private static final int MAX_WRITES_IN_TRANSACTION = 100;
+
+    private final Context context;
+    private final SQLiteOpenHelper dbHelper;
+    private final String name;
+    private final LinkedBlockingQueue<Runnable> pendingWrites = new LinkedBlockingQueue<>();
+    private volatile long failedWritesCount;
+    private Thread writerThread;
+
+    /**
+     * A write told when its transaction was committed, or when it was not
+     * committed because it threw or because the transaction failed.
+     */
+    public abstract static class Write implements Runnable {
+        public void onCommitted() {
+        }
+
+        public void onFailed(Exception e) {
+        }
+    }
+
+    public DbWriteExecutor(Context context, SQLiteOpenHelper dbHelper, String name) {
+        this.context = context;
+        this.dbHelper = dbHelper;
+        this.name = name;
+    }
+
+    public void execute(Runnable write) {
+        pendingWrites.add(write);
+        startWriterThread();
+    }
+
+    /**
+     * Waits until all writes submitted before this call are done. Returns false
+     * when they were not done in time or when one of the writes that were still
+     * pending when this was called failed.
+     */
+    public boolean flush(long timeoutInMs) {
+        if (Thread.currentThread() == writerThread) {
+            return false;
+        }
+        FlushMarker flushMarker = new FlushMarker(failedWritesCount);
+        execute(flushMarker);
+        try {
+            return flushMarker.writesDone.await(timeoutInMs, TimeUnit.MILLISECONDS)
+                    && (flushMarker.failedWritesCountWhenDone == flushMarker.failedWritesCountWhenSubmitted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void startWriterThread() {
+        if (writerThread != null) {
+            return;
+        }
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processWrites();
+            }
+        }, TAG + ":" + name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void processWrites() {
+        List<Runnable> writes = new ArrayList<>();
+        while (true) {
+            try {
+                writes.add(pendingWrites.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingWrites.drainTo(writes, MAX_WRITES_IN_TRANSACTION - 1);
+            executeInTransaction(writes);
+            writes.clear();
+        }
+    }
+
+    void executeInTransaction(List<Runnable> writes) {
+        List<Runnable> writesToCommit = new ArrayList<>(writes);
+        List<Runnable> failedWrites = new ArrayList<>();
+        try {
+            while (true) {
+                int failedWriteIndex = -1;
+                Exception writeFailure = null;
+                beginTransaction();
+                try {
+                    for (int i = 0; i < writesToCommit.size(); i++) {
+                        Runnable write = writesToCommit.get(i);
+                        if (write instanceof FlushMarker) {
+                            continue;
+                        }
+                        try {
+                            write.run();
+                        } catch (Exception e) {
+                            failedWriteIndex = i;
+                            writeFailure = e;
+                            break;
+                        }
+                    }
+                } finally {
+                    endTransaction(failedWriteIndex < 0);
+                }
+                if (failedWriteIndex < 0) {
+                    notifyCommitted(writesToCommit);
+                    break;
+                }
+                logFailure("Write to " + name + " failed, batch rolled back and run again without it:", writeFailure);
+                Runnable failedWrite = writesToCommit.remove(failedWriteIndex);
+                failedWrites.add(failedWrite);
+                notifyFailed(failedWrite, writeFailure);
+            }
+        } catch (Exception e) {
+            logFailure("Transaction on " + name + " failed:", e);
+            for (Runnable write : writesToCommit) {
+                failedWrites.add(write);
+                notifyFailed(write, e);
+            }
+        } finally {
+            for (Runnable write : writes) {
+                if (write instanceof FlushMarker) {
+                    FlushMarker flushMarker = (FlushMarker) write;
+                    flushMarker.failedWritesCountWhenDone = failedWritesCount;
+                    flushMarker.writesDone.countDown();
+                } else if (failedWrites.contains(write)) {
+                    failedWritesCount++;
+                }
+            }
+        }
+    }
+
+    protected void beginTransaction() {
+        dbHelper.getWritableDatabase().beginTransaction();
+    }
+
+    protected void endTransaction(boolean successful) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        if (successful) {
+            db.setTransactionSuccessful();
+        }
+        db.endTransaction();
+    }
+
+    protected void logFailure(String text, Exception e) {
+        appendLog(context, TAG, text, e);
+    }
+
+    private void notifyCommitted(List<Runnable> writes) {
+        for (Runnable write : writes) {
+            if (!(write instanceof Write)) {
+                continue;
+            }
+            try {
+                ((Write) write).onCommitted();
+            } catch (Exception failure) {
+                logFailure("Commit of write to " + name + " not handled:", failure);
+            }
+        }
+    }
+
+    private void notifyFailed(Runnable write, Exception e) {
+        if (!(write instanceof Write)) {
+            return;
+        }
+        try {
+            ((Write) write).onFailed(e);
+        } catch (Exception failure) {
+            logFailure("Failure of write to " + name + " not handled:", failure);
+        }
+    }
+
+    private static class FlushMarker implements Runnable {
+        private final CountDownLatch writesDone = new CountDownLatch(1);
+        private final long failedWritesCountWhenSubmitted;
+        private volatile long failedWritesCountWhenDone;
+
+        FlushMarker(long failedWritesCountWhenSubmitted) {
+            this.failedWritesCountWhenSubmitted = failedWritesCountWhenSubmitted;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+}
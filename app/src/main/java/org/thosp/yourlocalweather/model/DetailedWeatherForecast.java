@@ -4,6 +4,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class DetailedWeatherForecast implements Parcelable {
@@ -20,17 +21,39 @@ public class DetailedWeatherForecast implements Parcelable {
     private double rain;
     private double snow;
     private final List<WeatherCondition> weatherConditions = new ArrayList<>();
+    private CompleteWeatherForecast completeWeatherForecast;
 
     public DetailedWeatherForecast() {
         super();
     }
 
+    /**
+     * Weather conditions are not changed after they are created, the copy shares them.
+     */
+    public DetailedWeatherForecast copy() {
+        DetailedWeatherForecast detailedWeatherForecast = new DetailedWeatherForecast();
+        detailedWeatherForecast.dateTime = dateTime;
+        detailedWeatherForecast.temperatureMin = temperatureMin;
+        detailedWeatherForecast.temperatureMax = temperatureMax;
+        detailedWeatherForecast.temperature = temperature;
+        detailedWeatherForecast.pressure = pressure;
+        detailedWeatherForecast.humidity = humidity;
+        detailedWeatherForecast.windSpeed = windSpeed;
+        detailedWeatherForecast.windDegree = windDegree;
+        detailedWeatherForecast.cloudiness = cloudiness;
+        detailedWeatherForecast.rain = rain;
+        detailedWeatherForecast.snow = snow;
+        detailedWeatherForecast.weatherConditions.addAll(weatherConditions);
+        return detailedWeatherForecast;
+    }
+
     public long getDateTime() {
         return dateTime;
     }
 
     public void setDateTime(long dateTime) {
         this.dateTime = dateTime;
+        changed();
     }
 
     public double getPressure() {
@@ -39,6 +62,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setPressure(double pressure) {
         this.pressure = pressure;
+        changed();
     }
 
     public int getHumidity() {
@@ -47,6 +71,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setHumidity(int humidity) {
         this.humidity = humidity;
+        changed();
     }
 
     public double getWindSpeed() {
@@ -55,6 +80,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setWindSpeed(double windSpeed) {
         this.windSpeed = windSpeed;
+        changed();
     }
 
     public double getWindDegree() {
@@ -63,6 +89,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setWindDegree(double windDegree) {
         this.windDegree = windDegree;
+        changed();
     }
 
     public int getCloudiness() {
@@ -71,6 +98,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setCloudiness(int cloudiness) {
         this.cloudiness = cloudiness;
+        changed();
     }
 
     public double getRain() {
@@ -79,6 +107,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setRain(double rain) {
         this.rain = rain;
+        changed();
     }
 
     public double getSnow() {
@@ -87,6 +116,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setSnow(double snow) {
         this.snow = snow;
+        changed();
     }
 
     public double getTemperatureMin() {
@@ -95,6 +125,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setTemperatureMin(double temperatureMin) {
         this.temperatureMin = temperatureMin;
+        changed();
     }
 
     public double getTemperatureMax() {
@@ -103,6 +134,7 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setTemperatureMax(double temperatureMax) {
         this.temperatureMax = temperatureMax;
+        changed();
     }
 
     public double getTemperature() {
@@ -111,10 +143,12 @@ public class DetailedWeatherForecast implements Parcelable {
 
     public void setTemperature(double temperature) {
         this.temperature = temperature;
+        changed();
     }
 
     public void addWeatherCondition(Integer weatherId, String icon, String description) {
         weatherConditions.add(new WeatherCondition(weatherId, icon, description));
+        changed();
     }
 
     public WeatherCondition getFirstWeatherCondition() {
@@ -124,6 +158,20 @@ public class DetailedWeatherForecast implements Parcelable {
         return weatherConditions.get(0);
     }
 
+    public List<WeatherCondition> getWeatherConditions() {
+        return Collections.unmodifiableList(weatherConditions);
+    }
+
+    void setCompleteWeatherForecast(CompleteWeatherForecast completeWeatherForecast) {
+        this.completeWeatherForecast = completeWeatherForecast;
+    }
+
+    private void changed() {
+        if (completeWeatherForecast != null) {
+            completeWeatherForecast.columns = null;
+        }
+    }
+
     @Override
     public int describeContents() {
         return 0;
@@ -0,0 +1,140 @@
+package org.thosp.yourlocalweather.model;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU of values keyed by their GeoGrid cell and locale, the value found
+ * last in a cell for a locale replaces the previous one. Lookups check the cells
+ * around the point and return the nearest value within the radius. When the
+ * radius spans more cells than there are entries, as it does for wide radii far
+ * from the equator, the entries are scanned instead.
+ */
+class GeoCellCache<T> {
+
+    static class Entry<T> {
+        final double latitude;
+        final double longitude;
+        final String locale;
+        final long rowId;
+        final T value;
+        long lastTouchedInMs;
+
+        Entry(double latitude, double longitude, String locale, long rowId, T value, long lastTouchedInMs) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.locale = locale;
+            this.rowId = rowId;
+            this.value = value;
+            this.lastTouchedInMs = lastTouchedInMs;
+        }
+    }
+
+    private static class CellKey {
+        private final long cell;
+        private final String locale;
+
+        CellKey(long cell, String locale) {
+            this.cell = cell;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CellKey)) {
+                return false;
+            }
+            CellKey objToCompareTo = (CellKey) obj;
+            return (cell == objToCompareTo.cell) &&
+                    ((locale != null) ? locale.equals(objToCompareTo.locale) : (objToCompareTo.locale == null));
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (31 * (cell ^ (cell >>> 32)) + ((locale != null) ? locale.hashCode() : 0));
+        }
+    }
+
+    private final LinkedHashMap<CellKey, Entry<T>> entries;
+
+    GeoCellCache(final int maxEntries) {
+        entries = new LinkedHashMap<CellKey, Entry<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CellKey, Entry<T>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Entry<T> getNearest(double latitude, double longitude, String locale, double radiusInMeters) {
+        long[] cellRanges = GeoGrid.getCellRanges(latitude, longitude, radiusInMeters);
+        long cellsCount = 0;
+        for (int i = 0; i < cellRanges.length; i += 2) {
+            cellsCount += cellRanges[i + 1] - cellRanges[i] + 1;
+        }
+        if (cellsCount > entries.size()) {
+            return scanNearest(latitude, longitude, locale, radiusInMeters);
+        }
+        Entry<T> nearestEntry = null;
+        double nearestDistance = radiusInMeters;
+        for (int i = 0; i < cellRanges.length; i += 2) {
+            for (long cell = cellRanges[i]; cell <= cellRanges[i + 1]; cell++) {
+                Entry<T> entry = entries.get(new CellKey(cell, locale));
+                if (entry == null) {
+                    continue;
+                }
+                double distance = GeoGrid.getDistanceInMeters(latitude, longitude, entry.latitude, entry.longitude);
+                if (distance <= nearestDistance) {
+                    nearestDistance = distance;
+                    nearestEntry = entry;
+                }
+            }
+        }
+        return nearestEntry;
+    }
+
+    private Entry<T> scanNearest(double latitude, double longitude, String locale, double radiusInMeters) {
+        CellKey nearestKey = null;
+        double nearestDistance = radiusInMeters;
+        for (Map.Entry<CellKey, Entry<T>> cachedEntry: entries.entrySet()) {
+            CellKey key = cachedEntry.getKey();
+            if ((locale != null) ? !locale.equals(key.locale) : (key.locale != null)) {
+                continue;
+            }
+            Entry<T> entry = cachedEntry.getValue();
+            double distance = GeoGrid.getDistanceInMeters(latitude, longitude, entry.latitude, entry.longitude);
+            if (distance <= nearestDistance) {
+                nearestDistance = distance;
+                nearestKey = key;
+            }
+        }
+        // read through get, so the entry found is marked as used
+        return (nearestKey != null) ? entries.get(nearestKey) : null;
+    }
+
+    synchronized void put(Entry<T> entry) {
+        entries.put(new CellKey(GeoGrid.getCell(entry.latitude, entry.longitude), entry.locale), entry);
+    }
+
+    /**
+     * Removes the entries of the rows, used when the rows are deleted.
+     */
+    synchronized void removeRows(Collection<Long> rowIds) {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (rowIds.contains(iterator.next().rowId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
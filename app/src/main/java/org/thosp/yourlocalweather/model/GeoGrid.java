@@ -0,0 +1,86 @@
+package org.thosp.yourlocalweather.model;
+
+/**
+ * Integer grid over latitude and longitude used to index the reverse geocoding
+ * cache. A cell is CELL_SIZE_IN_DEGREES wide in both directions and cells of one
+ * latitude row have consecutive numbers, so the cells around a point are a few
+ * ranges of numbers that an index on the cell column can scan.
+ */
+class GeoGrid {
+
+    static final double CELL_SIZE_IN_DEGREES = 0.001;
+
+    private static final int LATITUDE_CELLS = (int) Math.round(180 / CELL_SIZE_IN_DEGREES);
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_SIZE_IN_DEGREES);
+    private static final double EARTH_RADIUS_IN_METERS = 6371000;
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS_IN_METERS * Math.PI / 180;
+
+    private GeoGrid() {
+    }
+
+    static long getCell(double latitude, double longitude) {
+        return ((long) getLatitudeIndex(latitude)) * LONGITUDE_CELLS + getLongitudeIndex(longitude);
+    }
+
+    /**
+     * Ranges of cells covering the circle around the point, as pairs of the first
+     * and the last cell of every range.
+     */
+    static long[] getCellRanges(double latitude, double longitude, double radiusInMeters) {
+        double latitudeSpan = radiusInMeters / METERS_PER_DEGREE;
+        int firstRow = getLatitudeIndex(latitude - latitudeSpan);
+        int lastRow = getLatitudeIndex(latitude + latitudeSpan);
+        double maxAbsLatitude = Math.min(90, Math.abs(latitude) + latitudeSpan);
+        double cosLatitude = Math.cos(Math.toRadians(maxAbsLatitude));
+        double longitudeSpan = (cosLatitude > 0) ? (latitudeSpan / cosLatitude) : 180;
+
+        int firstColumn;
+        int lastColumn;
+        boolean wrapped = false;
+        if (longitudeSpan >= 180) {
+            firstColumn = 0;
+            lastColumn = LONGITUDE_CELLS - 1;
+        } else {
+            firstColumn = getLongitudeIndex(longitude - longitudeSpan);
+            lastColumn = getLongitudeIndex(longitude + longitudeSpan);
+            wrapped = firstColumn > lastColumn;
+        }
+
+        int rangesPerRow = wrapped ? 2 : 1;
+        long[] ranges = new long[(lastRow - firstRow + 1) * rangesPerRow * 2];
+        int position = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            long rowStart = ((long) row) * LONGITUDE_CELLS;
+            if (wrapped) {
+                ranges[position++] = rowStart;
+                ranges[position++] = rowStart + lastColumn;
+                ranges[position++] = rowStart + firstColumn;
+                ranges[position++] = rowStart + LONGITUDE_CELLS - 1;
+            } else {
+                ranges[position++] = rowStart + firstColumn;
+                ranges[position++] = rowStart + lastColumn;
+            }
+        }
+        return ranges;
+    }
+
+    static double getDistanceInMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latitudeDistance = Math.toRadians(latitude2 - latitude1);
+        double longitudeDistance = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(latitudeDistance / 2) * Math.sin(latitudeDistance / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(longitudeDistance / 2) * Math.sin(longitudeDistance / 2);
+        return 2 * EARTH_RADIUS_IN_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int getLatitudeIndex(double latitude) {
+        int index = (int) Math.floor((latitude + 90) / CELL_SIZE_IN_DEGREES);
+        return Math.max(0, Math.min(LATITUDE_CELLS, index));
+    }
+
+    private static int getLongitudeIndex(double longitude) {
+        double normalized = ((longitude + 180) % 360 + 360) % 360;
+        int index = (int) Math.floor(normalized / CELL_SIZE_IN_DEGREES);
+        return Math.min(LONGITUDE_CELLS - 1, index);
+    }
+}
@@ -18,6 +18,7 @@ public class LicenseKeysDbHelper extends SQLiteOpenHelper {
     public static final String DATABASE_NAME = "Licenses.db";
     private Context context;
     private static LicenseKeysDbHelper instance;
+    private final DbWriteExecutor writeExecutor;
 
     public synchronized static LicenseKeysDbHelper getInstance(Context ctx) {
         if (instance == null) {
@@ -28,6 +29,7 @@ public class LicenseKeysDbHelper extends SQLiteOpenHelper {
 
     private LicenseKeysDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
         this.context = context;
     }
 
@@ -47,8 +49,12 @@ public class LicenseKeysDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
     private void createLicenseKey(LicenseKey licenseKey) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
 
@@ -63,7 +69,7 @@ public class LicenseKeysDbHelper extends SQLiteOpenHelper {
                 long newLocationRowId = db.insert(LicenseKeysContract.LicenseKeys.TABLE_NAME, null, values);
                 appendLog(context, TAG, "LicenseKey created: ", newLocationRowId);
             }
-        }).start();
+        });
     }
 
     public LicenseKey getLicenseKeyByLocationRequestId(String requestUri) {
@@ -111,7 +117,7 @@ public class LicenseKeysDbHelper extends SQLiteOpenHelper {
     }
 
     public void updateToken(String requestUri, String token) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
                 ContentValues values = new ContentValues();
@@ -129,7 +135,7 @@ public class LicenseKeysDbHelper extends SQLiteOpenHelper {
                             SQLiteDatabase.CONFLICT_IGNORE);
                 }
             }
-        }).start();
+        });
     }
 
     private boolean dbRecordExists(String requestUri) {
@@ -108,6 +108,65 @@ public class Location implements Parcelable {
         return enabled;
     }
 
+    public Location withOrderId(int orderId) {
+        Location location = copy();
+        location.orderId = orderId;
+        return location;
+    }
+
+    public Location withNickname(String nickname) {
+        Location location = copy();
+        location.nickname = nickname;
+        return location;
+    }
+
+    public Location withLocale(String localeAbbrev) {
+        return new Location(id, orderId, nickname, localeAbbrev, longitude, latitude, accuracy,
+                locationSource, lastLocationUpdate, addressFound, enabled, address);
+    }
+
+    public Location withGeoLocation(double longitude, double latitude, float accuracy) {
+        Location location = copy();
+        location.longitude = longitude;
+        location.latitude = latitude;
+        location.accuracy = accuracy;
+        return location;
+    }
+
+    public Location withLocationSource(String locationSource) {
+        Location location = copy();
+        location.locationSource = locationSource;
+        return location;
+    }
+
+    public Location withLastLocationUpdate(long lastLocationUpdate) {
+        Location location = copy();
+        location.lastLocationUpdate = lastLocationUpdate;
+        return location;
+    }
+
+    public Location withAddress(Address address) {
+        Location location = copy();
+        location.address = address;
+        return location;
+    }
+
+    public Location withAddressFound(boolean addressFound) {
+        Location location = copy();
+        location.addressFound = addressFound;
+        return location;
+    }
+
+    public Location withEnabled(boolean enabled) {
+        Location location = copy();
+        location.enabled = enabled;
+        return location;
+    }
+
+    private Location copy() {
+        return withLocale(localeAbbrev);
+    }
+
     @Override
     public int describeContents() {
         return 0;
@@ -0,0 +1,179 @@
+package org.thosp.yourlocalweather.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the locations changed in the LocationRegistry and hands them to the
+ * writer shortly after the first change, or at once when enough changes are
+ * pending. Repeated changes of one location are merged into one change from the
+ * location as it was last written to the location as it is now. Changes are
+ * handed to the writer under the lock of the journal, so batches reach the
+ * writer in the order they were recorded.
+ */
+public class LocationChangeJournal implements LocationRegistry.Listener {
+
+    public static final long FLUSH_DELAY_IN_MS = 500;
+    public static final int MAX_PENDING_CHANGES = 20;
+
+    public interface Writer {
+        /**
+         * Writes all changes in one transaction. Called under the lock of the
+         * journal, so it should only enqueue the write. Changes not written are
+         * handed back with LocationChangeJournal.requeue.
+         */
+        void write(List<Change> changes);
+    }
+
+    public static class Change {
+        private final Location written;
+        private Location current;
+        private boolean requeued;
+
+        Change(Location written, Location current) {
+            this.written = written;
+            this.current = current;
+        }
+
+        /**
+         * @return the location as it was written before, null for a new location
+         */
+        public Location getWritten() {
+            return written;
+        }
+
+        /**
+         * @return the location to write, null for a removed location
+         */
+        public Location getCurrent() {
+            return current;
+        }
+
+        public boolean isInsert() {
+            return (written == null) && (current != null);
+        }
+
+        public boolean isDelete() {
+            return (written != null) && (current == null);
+        }
+    }
+
+    private final LocationRegistry registry;
+    private final Writer writer;
+    private final long flushDelayInMs;
+    private final int maxPendingChanges;
+    private final Map<Long, Change> pendingChanges = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledFlush;
+
+    public LocationChangeJournal(LocationRegistry registry, Writer writer) {
+        this(registry, writer, FLUSH_DELAY_IN_MS, MAX_PENDING_CHANGES);
+    }
+
+    public LocationChangeJournal(LocationRegistry registry, Writer writer, long flushDelayInMs, int maxPendingChanges) {
+        this.registry = registry;
+        this.writer = writer;
+        this.flushDelayInMs = flushDelayInMs;
+        this.maxPendingChanges = maxPendingChanges;
+    }
+
+    @Override
+    public void onLocationChanged(Location previous, Location current) {
+        Long id = (current != null) ? current.getId() : previous.getId();
+        synchronized (this) {
+            Change change = pendingChanges.get(id);
+            if (change == null) {
+                pendingChanges.put(id, new Change(previous, current));
+            } else {
+                change.current = current;
+            }
+            if (pendingChanges.size() >= maxPendingChanges) {
+                flush();
+            } else {
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * Hands all pending changes to the writer.
+     *
+     * @return the number of changes written
+     */
+    public synchronized int flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pendingChanges.isEmpty()) {
+            return 0;
+        }
+        List<Change> changes = new ArrayList<>(pendingChanges.size());
+        for (Change change: pendingChanges.values()) {
+            if ((change.written != null) || (change.current != null)) {
+                changes.add(change);
+            }
+        }
+        pendingChanges.clear();
+        if (!changes.isEmpty()) {
+            writer.write(changes);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Takes back changes the writer failed to write, they are merged with the
+     * changes recorded since and written again. The location to write is read
+     * from the registry, as a newer change of it may have been handed to the
+     * writer already. When a change of the location was requeued by an earlier
+     * failed batch, its written location is kept, as that is the one on disk.
+     */
+    public synchronized void requeue(List<Change> changes) {
+        Map<Long, Change> mergedChanges = new LinkedHashMap<>();
+        for (Change change: changes) {
+            Location location = (change.current != null) ? change.current : change.written;
+            Change pendingChange = pendingChanges.remove(location.getId());
+            Location written = ((pendingChange != null) && pendingChange.requeued) ? pendingChange.written : change.written;
+            Change mergedChange = new Change(written, registry.getById(location.getId()));
+            mergedChange.requeued = true;
+            mergedChanges.put(location.getId(), mergedChange);
+        }
+        mergedChanges.putAll(pendingChanges);
+        pendingChanges.clear();
+        pendingChanges.putAll(mergedChanges);
+        scheduleFlush();
+    }
+
+    public synchronized int getPendingChangesCount() {
+        return pendingChanges.size();
+    }
+
+    private void scheduleFlush() {
+        if (scheduledFlush != null) {
+            return;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "LocationChangeJournal");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        scheduledFlush = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, flushDelayInMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,192 @@
+package org.thosp.yourlocalweather.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Locations kept in memory as immutable snapshots indexed by id and order id.
+ * Readers take the current snapshot without locking, mutations are serialized,
+ * publish a new snapshot and then notify the listeners in the order of the
+ * changes.
+ */
+public class LocationRegistry {
+
+    public interface Listener {
+        /**
+         * @param previous the location before the change, null when it was added
+         * @param current the location after the change, null when it was removed
+         */
+        void onLocationChanged(Location previous, Location current);
+    }
+
+    public interface Mutation {
+        /**
+         * @return the changed copy of the location, the same location when
+         * nothing is to be changed
+         */
+        Location apply(Location location);
+    }
+
+    private static final Comparator<Location> BY_ORDER_ID = new Comparator<Location>() {
+        @Override
+        public int compare(Location first, Location second) {
+            return (first.getOrderId() < second.getOrderId()) ? -1 : ((first.getOrderId() == second.getOrderId()) ? 0 : 1);
+        }
+    };
+
+    private static final class Snapshot {
+        final Map<Long, Location> byId;
+        final Map<Integer, Location> byOrderId;
+        final List<Location> ordered;
+        final long maxId;
+        final int maxOrderId;
+
+        Snapshot(Map<Long, Location> byId) {
+            this.byId = byId;
+            byOrderId = new HashMap<>();
+            List<Location> locations = new ArrayList<>(byId.values());
+            Collections.sort(locations, BY_ORDER_ID);
+            long highestId = 0;
+            int highestOrderId = 0;
+            for (Location location: locations) {
+                byOrderId.put(location.getOrderId(), location);
+                highestId = Math.max(highestId, location.getId());
+                highestOrderId = Math.max(highestOrderId, location.getOrderId());
+            }
+            ordered = Collections.unmodifiableList(locations);
+            maxId = highestId;
+            maxOrderId = highestOrderId;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<Long, Location>());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public Location getById(long id) {
+        return snapshot.byId.get(id);
+    }
+
+    public Location getByOrderId(int orderId) {
+        return snapshot.byOrderId.get(orderId);
+    }
+
+    /**
+     * @return all locations sorted by the order id
+     */
+    public List<Location> getAll() {
+        return snapshot.ordered;
+    }
+
+    public int getMaxOrderId() {
+        return snapshot.maxOrderId;
+    }
+
+    public long getMaxId() {
+        return snapshot.maxId;
+    }
+
+    public int size() {
+        return snapshot.byId.size();
+    }
+
+    /**
+     * Adds the location or replaces the location with the same id.
+     */
+    public synchronized void put(Location location) {
+        Map<Long, Location> byId = new HashMap<>(snapshot.byId);
+        Location previous = byId.put(location.getId(), location);
+        publish(byId);
+        notifyListeners(previous, location);
+    }
+
+    public synchronized void putAll(List<Location> locations) {
+        Map<Long, Location> byId = new HashMap<>(snapshot.byId);
+        List<Location> previousLocations = new ArrayList<>(locations.size());
+        for (Location location: locations) {
+            previousLocations.add(byId.put(location.getId(), location));
+        }
+        publish(byId);
+        for (int i = 0; i < locations.size(); i++) {
+            notifyListeners(previousLocations.get(i), locations.get(i));
+        }
+    }
+
+    /**
+     * @return the changed location, null when there is no location with the id
+     */
+    public synchronized Location update(long id, Mutation mutation) {
+        Location previous = snapshot.byId.get(id);
+        if (previous == null) {
+            return null;
+        }
+        Location current = mutation.apply(previous);
+        if (current == previous) {
+            return previous;
+        }
+        Map<Long, Location> byId = new HashMap<>(snapshot.byId);
+        byId.put(id, current);
+        publish(byId);
+        notifyListeners(previous, current);
+        return current;
+    }
+
+    public synchronized Location updateByOrderId(int orderId, Mutation mutation) {
+        Location location = snapshot.byOrderId.get(orderId);
+        if (location == null) {
+            return null;
+        }
+        return update(location.getId(), mutation);
+    }
+
+    /**
+     * Removes the location and moves the locations after it one order id up.
+     */
+    public synchronized Location remove(long id) {
+        Location removed = snapshot.byId.get(id);
+        if (removed == null) {
+            return null;
+        }
+        Map<Long, Location> byId = new HashMap<>(snapshot.byId);
+        byId.remove(id);
+        List<Location> previousLocations = new ArrayList<>();
+        List<Location> movedLocations = new ArrayList<>();
+        for (Location location: snapshot.ordered) {
+            if (location.getOrderId() <= removed.getOrderId()) {
+                continue;
+            }
+            Location moved = location.withOrderId(location.getOrderId() - 1);
+            byId.put(moved.getId(), moved);
+            previousLocations.add(location);
+            movedLocations.add(moved);
+        }
+        publish(byId);
+        notifyListeners(removed, null);
+        for (int i = 0; i < movedLocations.size(); i++) {
+            notifyListeners(previousLocations.get(i), movedLocations.get(i));
+        }
+        return removed;
+    }
+
+    private void publish(Map<Long, Location> byId) {
+        snapshot = new Snapshot(byId);
+    }
+
+    private void notifyListeners(Location previous, Location current) {
+        for (Listener listener: listeners) {
+            listener.onLocationChanged(previous, current);
+        }
+    }
+}
@@ -1,30 +1,30 @@
 package org.thosp.yourlocalweather.model;
 
-import android.content.ContentValues;
 import android.content.Context;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
 import android.location.Address;
 import android.os.Parcel;
 
 import org.thosp.yourlocalweather.service.SensorLocationUpdater;
-import org.thosp.yourlocalweather.utils.PreferenceUtil;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.thosp.yourlocalweather.model.LocationsContract.SQL_CREATE_TABLE_LOCATIONS;
-import static org.thosp.yourlocalweather.model.LocationsContract.SQL_DELETE_TABLE_LOCATIONS;
 import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
 
-public class LocationsDbHelper extends SQLiteOpenHelper {
+/**
+ * Locations of the app held in a LocationRegistry, loaded from the
+ * LocationsFileDbHelper at the start. Reads do not touch a database, changes
+ * are published to the registry at once and written to the file database by
+ * the LocationChangeJournal in less than a second.
+ */
+public class LocationsDbHelper {
 
     private static final String TAG = "LocationsDbHelper";
 
-    public static final int DATABASE_VERSION = 1;
     private Context context;
     private static LocationsDbHelper instance;
+    private final LocationRegistry registry = new LocationRegistry();
+    private final LocationChangeJournal changeJournal;
 
     public synchronized static LocationsDbHelper getInstance(Context ctx) {
         if (instance == null) {
@@ -34,485 +34,172 @@ public class LocationsDbHelper extends SQLiteOpenHelper {
     }
 
     private LocationsDbHelper(Context context) {
-        super(context, null, null, DATABASE_VERSION);
         this.context = context;
-        SQLiteDatabase db = getWritableDatabase();
-        db.execSQL(SQL_CREATE_TABLE_LOCATIONS);
-        List<Location> locations = LocationsFileDbHelper.getInstance(context).getAllRows();
-        for (Location location: locations) {
-            createLocation(location);
-        }
+        registry.addListener(new LocationRegistry.Listener() {
+            @Override
+            public void onLocationChanged(Location previous, Location current) {
+                if ((current != null) && (current.getOrderId() == 0)) {
+                    SensorLocationUpdater.autolocationForSensorEventLastUpdate = current.getLastLocationUpdate();
+                }
+            }
+        });
+        final LocationsFileDbHelper locationsFileDbHelper = LocationsFileDbHelper.getInstance(context);
+        List<Location> locations = locationsFileDbHelper.getAllRows();
+        registry.putAll(locations);
+        changeJournal = new LocationChangeJournal(registry, new LocationChangeJournal.Writer() {
+            @Override
+            public void write(List<LocationChangeJournal.Change> changes) {
+                locationsFileDbHelper.writeChanges(changes, changeJournal);
+            }
+        });
+        registry.addListener(changeJournal);
+        appendLog(context, TAG, "Locations in memory created: ", locations.size());
     }
 
-    @Override
-    public void onCreate(SQLiteDatabase db) {
+    /**
+     * Writes the pending changes of the locations to the file database now.
+     *
+     * @return the number of changed locations written
+     */
+    public int flushChanges() {
+        return changeJournal.flush();
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL(SQL_DELETE_TABLE_LOCATIONS);
-        onCreate(db);
+    public void addListener(LocationRegistry.Listener listener) {
+        registry.addListener(listener);
     }
 
-    @Override
-    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        onUpgrade(db, oldVersion, newVersion);
+    public void removeListener(LocationRegistry.Listener listener) {
+        registry.removeListener(listener);
     }
 
-    private void createLocation(Location location) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS,
-                           LocationsDbHelper.getAddressAsBytes(location.getAddress()));
-                values.put(LocationsContract.Locations.COLUMN_NAME_LONGITUDE, location.getLongitude());
-                values.put(LocationsContract.Locations.COLUMN_NAME_LATITUDE, location.getLatitude());
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCALE, location.getLocaleAbbrev());
-                values.put(LocationsContract.Locations.COLUMN_NAME_ORDER_ID, location.getOrderId());
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, location.getLocationSource());
-                values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND, location.isAddressFound());
-                values.put(LocationsContract.Locations.COLUMN_NAME_ENABLED, location.isEnabled());
-                values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, location.getLastLocationUpdate());
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY, location.getAccuracy());
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME, location.getNickname());
-                values.put(LocationsContract.Locations._ID, location.getId());
-
-                long newLocationRowId = db.insert(LocationsContract.Locations.TABLE_NAME, null, values);
-                appendLog(context, TAG, "Location in memory created: ", newLocationRowId, ":", location.getId());
-            }
-        }).start();
+    /**
+     * Adds a location found by the search after the last location.
+     */
+    public synchronized Location addLocation(Address address, double longitude, double latitude, String locale) {
+        Location location = new Location(
+                registry.getMaxId() + 1,
+                registry.getMaxOrderId() + 1,
+                null,
+                locale,
+                longitude,
+                latitude,
+                0,
+                "",
+                0,
+                true,
+                false,
+                address);
+        registry.put(location);
+        appendLog(context, TAG, "Location in memory created: ", location.getId());
+        return location;
     }
 
     public void deleteRecordFromTable(Location location) {
-        new Thread(new Runnable() {
-            public void run() {
-                int deletedOrderId = location.getOrderId();
-                SQLiteDatabase db = getWritableDatabase();
-                String selection = LocationsContract.Locations._ID + " = ?";
-                String[] selectionArgs = {location.getId().toString()};
-                db.delete(LocationsContract.Locations.TABLE_NAME, selection, selectionArgs);
-
-                String[] projection = {
-                        LocationsContract.Locations._ID,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID
-                };
-
-                String sortOrder = LocationsContract.Locations.COLUMN_NAME_ORDER_ID;
-
-                Cursor cursor = null;
-                try {
-                    cursor = db.query(
-                        LocationsContract.Locations.TABLE_NAME,
-                        projection,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID + ">" + deletedOrderId,
-                        null,
-                        null,
-                        null,
-                        sortOrder
-                    );
-
-                    while (cursor.moveToNext()) {
-                        long itemId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations._ID));
-                        int orderId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ORDER_ID));
-                        ContentValues values = new ContentValues();
-                        values.put(LocationsContract.Locations.COLUMN_NAME_ORDER_ID, orderId - 1);
-                        db.updateWithOnConflict(
-                                LocationsContract.Locations.TABLE_NAME,
-                                values,
-                                LocationsContract.Locations._ID +"=" + itemId,
-                                null,
-                                SQLiteDatabase.CONFLICT_IGNORE);
-                    }
-                } finally {
-                    if (cursor != null) {
-                        cursor.close();
-                    }
-                }
-            }
-        }).start();
+        registry.remove(location.getId());
     }
 
-    public static Address getAddressFromBytes(byte[] addressBytes) {
+    /**
+     * Reads an address in the BinaryCodec format or a legacy Address parcel.
+     *
+     * @return null when there is no address or the record is malformed
+     */
+    public static Address getAddressFromBytes(Context context, byte[] addressBytes) {
         if ((addressBytes == null) || (addressBytes.length == 0)) {
             return null;
         }
+        if (BinaryCodec.isEncoded(addressBytes)) {
+            try {
+                return BinaryCodec.decodeAddress(addressBytes);
+            } catch (IllegalArgumentException e) {
+                appendLog(context, TAG, "Malformed address record:", e);
+                return null;
+            }
+        }
         final Parcel parcel = Parcel.obtain();
-        parcel.unmarshall(addressBytes, 0, addressBytes.length);
-        parcel.setDataPosition(0);
-        Address address = Address.CREATOR.createFromParcel(parcel);
-        parcel.recycle();
-        return address;
+        try {
+            parcel.unmarshall(addressBytes, 0, addressBytes.length);
+            parcel.setDataPosition(0);
+            return Address.CREATOR.createFromParcel(parcel);
+        } catch (RuntimeException e) {
+            appendLog(context, TAG, "Malformed address parcel:", e);
+            return null;
+        } finally {
+            parcel.recycle();
+        }
     }
 
     public static byte[] getAddressAsBytes(Address address) {
         if (address == null) {
             return null;
         }
-        final Parcel parcel = Parcel.obtain();
-        address.writeToParcel(parcel, 0);
-        byte[] addressBytes = parcel.marshall();
-        parcel.recycle();
-        return addressBytes;
+        return BinaryCodec.encodeAddress(address);
     }
 
     public int getMaxOrderId() {
-        SQLiteDatabase db = getReadableDatabase();
-
-        int maxOrderId = 0;
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                LocationsContract.Locations.TABLE_NAME,
-                new String[]{"MAX(order_id)"},
-                null,
-                null,
-                null,
-                null,
-                null);
-
-            cursor.moveToNext();
-            maxOrderId = cursor.getInt(0);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
-        return maxOrderId;
+        return registry.getMaxOrderId();
     }
 
     public List<Location> getAllRows() {
-
-        List<Location> result = new ArrayList<>();
-
-        SQLiteDatabase db = getReadableDatabase();
-
-        String[] projection = {
-                LocationsContract.Locations.COLUMN_NAME_ADDRESS,
-                LocationsContract.Locations._ID,
-                LocationsContract.Locations.COLUMN_NAME_LONGITUDE,
-                LocationsContract.Locations.COLUMN_NAME_LATITUDE,
-                LocationsContract.Locations.COLUMN_NAME_ORDER_ID,
-                LocationsContract.Locations.COLUMN_NAME_LOCALE,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY,
-                LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE,
-                LocationsContract.Locations.COLUMN_NAME_ENABLED,
-                LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND
-        };
-
-        String sortOrder = LocationsContract.Locations.COLUMN_NAME_ORDER_ID;
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                LocationsContract.Locations.TABLE_NAME,
-                projection,
-                null,
-                null,
-                null,
-                null,
-                sortOrder
-            );
-
-            while (cursor.moveToNext()) {
-
-                byte[] cachedAddressBytes = cursor.getBlob(
-                        cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS));
-                Address address = null;
-                if (cachedAddressBytes != null) {
-                    address = getAddressFromBytes(cachedAddressBytes);
-                }
-
-                long itemId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations._ID));
-                double longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LONGITUDE));
-                double latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LATITUDE));
-                int orderId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ORDER_ID));
-                String locale = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCALE));
-                String nickname = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME));
-                float accuracy = cursor.getFloat(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY));
-                long locationUpdateTime = cursor.getLong(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS));
-                String locationSource = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE));
-                boolean addressFound = 1 == cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND));
-                boolean enabled = 1 == cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ENABLED));
-
-                if (locale == null) {
-                    locale = PreferenceUtil.getLanguage(context);
-                }
-
-                result.add(new Location(
-                        itemId,
-                        orderId,
-                        nickname,
-                        locale,
-                        longitude,
-                        latitude,
-                        accuracy,
-                        locationSource,
-                        locationUpdateTime,
-                        addressFound,
-                        enabled,
-                        address));
-            }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
-        return result;
+        return new ArrayList<>(registry.getAll());
     }
 
     public Location getLocationByOrderId(int orderId) {
-        SQLiteDatabase db = getReadableDatabase();
-
-        String[] projection = {
-                LocationsContract.Locations.COLUMN_NAME_ADDRESS,
-                LocationsContract.Locations._ID,
-                LocationsContract.Locations.COLUMN_NAME_LONGITUDE,
-                LocationsContract.Locations.COLUMN_NAME_LATITUDE,
-                LocationsContract.Locations.COLUMN_NAME_LOCALE,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY,
-                LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE,
-                LocationsContract.Locations.COLUMN_NAME_ENABLED,
-                LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND
-        };
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                LocationsContract.Locations.TABLE_NAME,
-                projection,
-                LocationsContract.Locations.COLUMN_NAME_ORDER_ID + "=" + orderId,
-                null,
-                null,
-                null,
-                null
-            );
-
-            if (!cursor.moveToNext()) {
-                return null;
-            }
-
-            byte[] cachedAddressBytes = cursor.getBlob(
-                    cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS));
-            Address address = null;
-            if (cachedAddressBytes != null) {
-                address = getAddressFromBytes(cachedAddressBytes);
-            }
-
-            int itemId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations._ID));
-            double longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LONGITUDE));
-            double latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LATITUDE));
-            String locale = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCALE));
-            String nickname = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME));
-            float accuracy = cursor.getFloat(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY));
-            long locationUpdateTime = cursor.getLong(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS));
-            String locationSource = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE));
-            boolean addressFound = 1 == cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND));
-            boolean enabled = 1 == cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ENABLED));
-
-            if (locale == null) {
-                locale = PreferenceUtil.getLanguage(context);
-            }
-
-            return new Location(
-                    itemId,
-                    orderId,
-                    nickname,
-                    locale,
-                    longitude,
-                    latitude,
-                    accuracy,
-                    locationSource,
-                    locationUpdateTime,
-                    addressFound,
-                    enabled,
-                    address);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+        return registry.getByOrderId(orderId);
     }
 
     public Location getLocationById(long id) {
-        SQLiteDatabase db = getReadableDatabase();
-
-        String[] projection = {
-                LocationsContract.Locations.COLUMN_NAME_ADDRESS,
-                LocationsContract.Locations.COLUMN_NAME_ORDER_ID,
-                LocationsContract.Locations.COLUMN_NAME_LONGITUDE,
-                LocationsContract.Locations.COLUMN_NAME_LATITUDE,
-                LocationsContract.Locations.COLUMN_NAME_LOCALE,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY,
-                LocationsContract.Locations.COLUMN_NAME_ENABLED,
-                LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS,
-                LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE,
-                LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND
-        };
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                LocationsContract.Locations.TABLE_NAME,
-                projection,
-                LocationsContract.Locations._ID + "=" + id,
-                null,
-                null,
-                null,
-                null
-            );
-
-            if (!cursor.moveToNext()) {
-                return null;
-            }
-
-            byte[] cachedAddressBytes = cursor.getBlob(
-                    cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS));
-            Address address = null;
-            if (cachedAddressBytes != null) {
-                address = getAddressFromBytes(cachedAddressBytes);
-            }
-
-            int orderId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ORDER_ID));
-            double longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LONGITUDE));
-            double latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LATITUDE));
-            String locale = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCALE));
-            String nickname = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME));
-            float accuracy = cursor.getFloat(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY));
-            long locationUpdateTime = cursor.getLong(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS));
-            String locationSource = cursor.getString(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE));
-            boolean addressFound = 1 == cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND));
-            boolean enabled = 1 == cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ENABLED));
-
-            if (locale == null) {
-                locale = PreferenceUtil.getLanguage(context);
-            }
-
-            return new Location(
-                    id,
-                    orderId,
-                    nickname,
-                    locale,
-                    longitude,
-                    latitude,
-                    accuracy,
-                    locationSource,
-                    locationUpdateTime,
-                    addressFound,
-                    enabled,
-                    address);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+        return registry.getById(id);
     }
 
     public Long getLocationIdByCoordinates(float lat, float lon) {
-
         float latLow = lat - 0.01f;
         float latHigh = lat + 0.01f;
         float lonLow = lon - 0.01f;
         float lonHigh = lon + 0.01f;
-        String latLowTxt = String.valueOf(latLow).replace(",", ".");
-        String latHighTxt = String.valueOf(latHigh).replace(",", ".");
-        String lonLowTxt = String.valueOf(lonLow).replace(",", ".");
-        String lonHighTxt = String.valueOf(lonHigh).replace(",", ".");
-
-        SQLiteDatabase db = getReadableDatabase();
-
-        String[] projection = {
-                LocationsContract.Locations._ID
-        };
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                    LocationsContract.Locations.TABLE_NAME,
-                    projection,
-                    LocationsContract.Locations.COLUMN_NAME_LATITUDE +
-                            ">? and " +
-                            LocationsContract.Locations.COLUMN_NAME_LATITUDE +
-                            "<? and " +
-                            LocationsContract.Locations.COLUMN_NAME_LONGITUDE +
-                            ">? and " +
-                            LocationsContract.Locations.COLUMN_NAME_LONGITUDE +
-                            "<?",
-                    new String[] {latLowTxt, latHighTxt, lonLowTxt, lonHighTxt},
-                    null,
-                    null,
-                    null
-            );
-
-            if (!cursor.moveToNext()) {
-                return null;
-            }
-            return cursor.getLong(cursor.getColumnIndexOrThrow(LocationsContract.Locations._ID));
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+        for (Location location: registry.getAll()) {
+            if ((location.getLatitude() > latLow) && (location.getLatitude() < latHigh) &&
+                    (location.getLongitude() > lonLow) && (location.getLongitude() < lonHigh)) {
+                return location.getId();
             }
         }
+        return null;
     }
 
-    public void updateNickname(int locationOrderId, String locationNickname) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME, locationNickname);
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,
-                        values,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID +"=" + locationOrderId,
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
+    public void updateNickname(int locationOrderId, final String locationNickname) {
+        registry.updateByOrderId(locationOrderId, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withNickname(locationNickname);
             }
-        }).start();
+        });
     }
 
     public void updateLocale(final long locationId, final String locale) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCALE, locale);
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,values,
-                        LocationsContract.Locations._ID +"=" + locationId,
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
+        registry.update(locationId, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withLocale(locale);
             }
-        }).start();
+        });
     }
 
     public void updateAutoLocationAddress(final Context context, final String locale, final Address address) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS, getAddressAsBytes(address));
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCALE, locale);
-                values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND, 1);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, System.currentTimeMillis());
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,values,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID +"=0",
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
-                SensorLocationUpdater.autolocationForSensorEventAddressFound = true;
-                appendLog(context,
-                          TAG,
-                         "updateAutoLocationAddress:autolocationForSensorEventAddressFound=",
-                                SensorLocationUpdater.autolocationForSensorEventAddressFound);
+        final long now = System.currentTimeMillis();
+        registry.updateByOrderId(0, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withLocale(locale)
+                        .withLastLocationUpdate(now)
+                        .withAddressFound(true)
+                        .withAddress(address);
             }
-        }).start();
+        });
+        SensorLocationUpdater.autolocationForSensorEventAddressFound = true;
+        appendLog(context,
+                  TAG,
+                 "updateAutoLocationAddress:autolocationForSensorEventAddressFound=",
+                        SensorLocationUpdater.autolocationForSensorEventAddressFound);
     }
 
     public void updateAutoLocationGeoLocation(final double latitude,
@@ -520,140 +207,71 @@ public class LocationsDbHelper extends SQLiteOpenHelper {
                                               final String locationSource,
                                               final float accuracy,
                                               final long locationTime) {
-        new Thread(new Runnable() {
-            public void run() {
-                appendLog(context, TAG, "updateLocationSource:entered:", latitude, ":", longitude, ":", locationSource);
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_LONGITUDE, longitude);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LATITUDE, latitude);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, locationSource);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY, accuracy);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, locationTime);
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,values,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID +"=0",
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
+        appendLog(context, TAG, "updateLocationSource:entered:", latitude, ":", longitude, ":", locationSource);
+        registry.updateByOrderId(0, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withGeoLocation(longitude, latitude, accuracy)
+                        .withLocationSource(locationSource)
+                        .withLastLocationUpdate(locationTime);
             }
-        }).start();
+        });
     }
 
     public void setNoLocationFound() {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND, 0);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, System.currentTimeMillis());
-
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,values,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID +"=0",
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
-                SensorLocationUpdater.autolocationForSensorEventAddressFound = false;
-                appendLog(context,
-                        TAG,
-                        "setNoLocationFound:autolocationForSensorEventAddressFound=",
-                                SensorLocationUpdater.autolocationForSensorEventAddressFound);
+        final long now = System.currentTimeMillis();
+        registry.updateByOrderId(0, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withLastLocationUpdate(now)
+                        .withAddressFound(false);
             }
-        }).start();
+        });
+        SensorLocationUpdater.autolocationForSensorEventAddressFound = false;
+        appendLog(context,
+                TAG,
+                "setNoLocationFound:autolocationForSensorEventAddressFound=",
+                        SensorLocationUpdater.autolocationForSensorEventAddressFound);
     }
 
     public void updateLocationSource(final long locationId, final String locationSource) {
-        new Thread(new Runnable() {
-            public void run() {
-                Location locationToChange = getLocationById(locationId);
-                if (locationToChange == null) {
-                    return;
-                }
-                String locationToChangeLocationSource = locationToChange.getLocationSource();
+        registry.update(locationId, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                String locationToChangeLocationSource = location.getLocationSource();
                 if ((locationToChangeLocationSource != null) && locationToChangeLocationSource.equals(locationSource)) {
-                    return;
+                    return location;
                 }
                 appendLog(context, TAG, "updateLocationSource:entered:", locationId, ":", locationSource);
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, locationSource);
-
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,
-                        values,
-                        LocationsContract.Locations._ID + "=" + locationId,
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
-                appendLog(context, TAG, "updateLocationSource:updated");
+                return location.withLocationSource(locationSource);
             }
-        }).start();
+        });
     }
 
-    public void updateEnabled(long locationId, boolean enabled) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_ENABLED, enabled);
-
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME, values,
-                        LocationsContract.Locations._ID + "=" + locationId,
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
+    public void updateEnabled(long locationId, final boolean enabled) {
+        registry.update(locationId, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withEnabled(enabled);
             }
-        }).start();
+        });
     }
 
     public void updateLastUpdatedAndLocationSource(final long locationId,
                                                    final long updateTime,
                                                    final String locationSource) {
-        new Thread(new Runnable() {
-            public void run() {
-                appendLog(context, TAG, "updateLocationSource:entered:", locationId, ":", locationSource);
-                SQLiteDatabase db = getWritableDatabase();
-                ContentValues values = new ContentValues();
-                values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, locationSource);
-                values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, updateTime);
-
-                db.updateWithOnConflict(
-                        LocationsContract.Locations.TABLE_NAME,
-                        values,
-                        LocationsContract.Locations._ID + "=" + locationId,
-                        null,
-                        SQLiteDatabase.CONFLICT_IGNORE);
-                appendLog(context, TAG, "updateLocationSource:updated");
+        appendLog(context, TAG, "updateLocationSource:entered:", locationId, ":", locationSource);
+        registry.update(locationId, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withLocationSource(locationSource)
+                        .withLastLocationUpdate(updateTime);
             }
-        }).start();
+        });
     }
 
     public long getLastUpdateLocationTime() {
-        SQLiteDatabase db = getReadableDatabase();
-
-        String[] projection = {
-                LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS
-        };
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                LocationsContract.Locations.TABLE_NAME,
-                projection,
-                LocationsContract.Locations.COLUMN_NAME_ORDER_ID + "=0",
-                null,
-                null,
-                null,
-                null
-            );
-
-            if (cursor.moveToNext()) {
-                return cursor.getLong(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS));
-            } else {
-                return 0;
-            }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+        Location autoLocation = registry.getByOrderId(0);
+        return (autoLocation != null) ? autoLocation.getLastLocationUpdate() : 0;
     }
 }
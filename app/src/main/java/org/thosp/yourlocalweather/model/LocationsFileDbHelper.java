@@ -10,10 +10,13 @@ import android.location.Address;
 import org.thosp.yourlocalweather.utils.PreferenceUtil;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.thosp.yourlocalweather.model.LocationsContract.SQL_CREATE_TABLE_LOCATIONS;
 import static org.thosp.yourlocalweather.model.LocationsContract.SQL_DELETE_TABLE_LOCATIONS;
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
 
 public class LocationsFileDbHelper extends SQLiteOpenHelper {
 
@@ -23,6 +26,7 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
     public static final String DATABASE_NAME = "Locations.db";
     private Context context;
     private static LocationsFileDbHelper instance;
+    private final DbWriteExecutor writeExecutor;
 
     public synchronized static LocationsFileDbHelper getInstance(Context ctx) {
         if (instance == null) {
@@ -33,6 +37,7 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
 
     private LocationsFileDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
         this.context = context;
     }
 
@@ -56,6 +61,10 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
     public Location getLocationById(long id) {
         SQLiteDatabase db = getReadableDatabase();
 
@@ -93,7 +102,7 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
                     cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS));
             Address address = null;
             if (cachedAddressBytes != null) {
-                address = LocationsDbHelper.getAddressFromBytes(cachedAddressBytes);
+                address = LocationsDbHelper.getAddressFromBytes(context, cachedAddressBytes);
             }
 
             int orderId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ORDER_ID));
@@ -134,6 +143,7 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
     public List<Location> getAllRows() {
 
         List<Location> result = new ArrayList<>();
+        Map<Long, Address> legacyAddresses = new HashMap<>();
 
         SQLiteDatabase db = getReadableDatabase();
 
@@ -172,10 +182,13 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
                         cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ADDRESS));
                 Address address = null;
                 if (cachedAddressBytes != null) {
-                    address = LocationsDbHelper.getAddressFromBytes(cachedAddressBytes);
+                    address = LocationsDbHelper.getAddressFromBytes(context, cachedAddressBytes);
                 }
 
                 long itemId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations._ID));
+                if ((address != null) && !BinaryCodec.isEncoded(cachedAddressBytes)) {
+                    legacyAddresses.put(itemId, address);
+                }
                 double longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LONGITUDE));
                 double latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_LATITUDE));
                 int orderId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ORDER_ID));
@@ -210,55 +223,132 @@ public class LocationsFileDbHelper extends SQLiteOpenHelper {
                 cursor.close();
             }
         }
+        if (!legacyAddresses.isEmpty()) {
+            migrateLegacyAddresses(legacyAddresses);
+        }
         return result;
     }
 
-    public void deleteRecordFromTable(Location location) {
-        new Thread(new Runnable() {
+    private void migrateLegacyAddresses(final Map<Long, Address> legacyAddresses) {
+        appendLog(context, TAG, "Migrating addresses to binary codec, count = ", legacyAddresses.size());
+        writeExecutor.execute(new Runnable() {
             public void run() {
-                int deletedOrderId = location.getOrderId();
                 SQLiteDatabase db = getWritableDatabase();
-                String selection = LocationsContract.Locations._ID + " = ?";
-                String[] selectionArgs = {location.getId().toString()};
-                db.delete(LocationsContract.Locations.TABLE_NAME, selection, selectionArgs);
-
-                String[] projection = {
-                        LocationsContract.Locations._ID,
-                        LocationsContract.Locations.COLUMN_NAME_ORDER_ID
-                };
-
-                String sortOrder = LocationsContract.Locations.COLUMN_NAME_ORDER_ID;
-
-                Cursor cursor = null;
-                try {
-                    cursor = db.query(
+                for (Map.Entry<Long, Address> legacyAddress: legacyAddresses.entrySet()) {
+                    ContentValues values = new ContentValues();
+                    values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS,
+                            LocationsDbHelper.getAddressAsBytes(legacyAddress.getValue()));
+                    db.updateWithOnConflict(
                             LocationsContract.Locations.TABLE_NAME,
-                            projection,
-                            LocationsContract.Locations.COLUMN_NAME_ORDER_ID + ">" + deletedOrderId,
-                            null,
-                            null,
+                            values,
+                            LocationsContract.Locations._ID + "=" + legacyAddress.getKey(),
                             null,
-                            sortOrder
-                    );
-
-                    while (cursor.moveToNext()) {
-                        long itemId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations._ID));
-                        int orderId = cursor.getInt(cursor.getColumnIndexOrThrow(LocationsContract.Locations.COLUMN_NAME_ORDER_ID));
-                        ContentValues values = new ContentValues();
-                        values.put(LocationsContract.Locations.COLUMN_NAME_ORDER_ID, orderId - 1);
-                        db.updateWithOnConflict(
-                                LocationsContract.Locations.TABLE_NAME,
-                                values,
-                                LocationsContract.Locations._ID +"=" + itemId,
-                                null,
-                                SQLiteDatabase.CONFLICT_IGNORE);
-                    }
-                } finally {
-                    if (cursor != null) {
-                        cursor.close();
+                            SQLiteDatabase.CONFLICT_IGNORE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the changes of the locations in memory in one transaction, changes
+     * failed to be written are handed back to the journal.
+     */
+    public void writeChanges(final List<LocationChangeJournal.Change> changes, final LocationChangeJournal journal) {
+        writeExecutor.execute(new DbWriteExecutor.Write() {
+            @Override
+            public void onFailed(Exception e) {
+                appendLog(context, TAG, "Changes of locations not written, requeued: ", changes.size());
+                journal.requeue(changes);
+            }
+
+            @Override
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                for (LocationChangeJournal.Change change: changes) {
+                    if (change.isInsert()) {
+                        insertLocation(db, change.getCurrent());
+                    } else if (change.isDelete()) {
+                        deleteLocation(db, change.getWritten());
+                    } else {
+                        updateLocation(db, change.getCurrent(), change.getWritten());
                     }
                 }
+                appendLog(context, TAG, "Changes of locations written: ", changes.size());
             }
-        }).start();
+        });
+    }
+
+    private void insertLocation(SQLiteDatabase db, Location location) {
+        ContentValues values = new ContentValues();
+        values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS, LocationsDbHelper.getAddressAsBytes(location.getAddress()));
+        values.put(LocationsContract.Locations.COLUMN_NAME_LONGITUDE, location.getLongitude());
+        values.put(LocationsContract.Locations.COLUMN_NAME_LATITUDE, location.getLatitude());
+        values.put(LocationsContract.Locations.COLUMN_NAME_LOCALE, location.getLocaleAbbrev());
+        values.put(LocationsContract.Locations.COLUMN_NAME_ORDER_ID, location.getOrderId());
+        values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, location.getLocationSource());
+        values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND, location.isAddressFound());
+        values.put(LocationsContract.Locations.COLUMN_NAME_ENABLED, location.isEnabled());
+        values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, location.getLastLocationUpdate());
+        values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY, location.getAccuracy());
+        values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME, location.getNickname());
+        values.put(LocationsContract.Locations._ID, location.getId());
+        db.insert(LocationsContract.Locations.TABLE_NAME, null, values);
+    }
+
+    private void deleteLocation(SQLiteDatabase db, Location location) {
+        String selection = LocationsContract.Locations._ID + " = ?";
+        String[] selectionArgs = {location.getId().toString()};
+        db.delete(LocationsContract.Locations.TABLE_NAME, selection, selectionArgs);
+    }
+
+    private void updateLocation(SQLiteDatabase db, Location location, Location locationInFile) {
+        ContentValues values = prepareValues(location, locationInFile);
+        if (values.size() == 0) {
+            return;
+        }
+        db.updateWithOnConflict(
+                LocationsContract.Locations.TABLE_NAME,
+                values,
+                LocationsContract.Locations._ID +"=" + locationInFile.getId(),
+                null,
+                SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    private ContentValues prepareValues(Location location, Location locationInFile) {
+        ContentValues values = new ContentValues();
+        if ((location.getAddress() != null) && !location.getAddress().equals(locationInFile.getAddress())) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS, LocationsDbHelper.getAddressAsBytes(location.getAddress()));
+        }
+        if (location.getLongitude() != locationInFile.getLongitude()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LONGITUDE, location.getLongitude());
+        }
+        if (location.getLatitude() != locationInFile.getLatitude()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LATITUDE, location.getLatitude());
+        }
+        if ((location.getLocale() != null) && !location.getLocale().equals(locationInFile.getLocale())) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LOCALE, location.getLocaleAbbrev());
+        }
+        if (location.getOrderId() != locationInFile.getOrderId()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_ORDER_ID, location.getOrderId());
+        }
+        if ((location.getLocationSource() != null) && !location.getLocationSource().equals(locationInFile.getLocationSource())) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_UPDATE_SOURCE, location.getLocationSource());
+        }
+        if (location.isAddressFound() != locationInFile.isAddressFound()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_ADDRESS_FOUND, location.isAddressFound());
+        }
+        if (location.isEnabled() != locationInFile.isEnabled()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_ENABLED, location.isEnabled());
+        }
+        if (location.getLastLocationUpdate() != locationInFile.getLastLocationUpdate()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LAST_UPDATE_TIME_IN_MS, location.getLastLocationUpdate());
+        }
+        if (location.getAccuracy() != locationInFile.getAccuracy()) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_ACCURACY, location.getAccuracy());
+        }
+        if ((location.getNickname() != null) && !location.getNickname().equals(locationInFile.getNickname())) {
+            values.put(LocationsContract.Locations.COLUMN_NAME_LOCATION_NICKNAME, location.getNickname());
+        }
+        return values;
     }
 }
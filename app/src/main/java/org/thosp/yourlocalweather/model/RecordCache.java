@@ -0,0 +1,233 @@
+package org.thosp.yourlocalweather.model;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded LRU cache of deserialized database records keyed by location and
+ * record type. Every change increments the version, a record loaded from the
+ * database is only stored when no change happened since the load started, so a
+ * slow read can not overwrite a newer record. Records are copied when they are
+ * stored and returned, so a caller changing its record does not change the
+ * cache. A record put is kept after it is evicted until written is called for
+ * it, as the database does not have it before. A record whose write failed is
+ * dropped, unless a newer record for the key is still being written.
+ */
+public class RecordCache<V> {
+
+    public interface Copier<V> {
+        V copy(V record);
+    }
+
+    private final int maxSize;
+    private final Copier<V> copier;
+    private final LinkedHashMap<Key, V> records;
+    private final Map<Key, V> unwrittenRecords = new HashMap<>();
+    private final Map<Key, Integer> pendingWritesCounts = new HashMap<>();
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * A cache of immutable records, they are not copied.
+     */
+    public RecordCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    public RecordCache(int maxSize, Copier<V> copier) {
+        this.maxSize = maxSize;
+        this.copier = copier;
+        this.records = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                if (size() > RecordCache.this.maxSize) {
+                    evictions++;
+                    if (pendingWritesCounts.containsKey(eldest.getKey())) {
+                        unwrittenRecords.put(eldest.getKey(), eldest.getValue());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(long locationId, int type) {
+        V record = find(new Key(locationId, type));
+        if (record != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return copy(record);
+    }
+
+    /**
+     * Returns the cached record without counting a hit or a miss.
+     */
+    public synchronized V peek(long locationId, int type) {
+        return copy(find(new Key(locationId, type)));
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Stores the record loaded from the database when the cache was at loadedAtVersion.
+     */
+    public synchronized void putIfNotChanged(long locationId, int type, V record, long loadedAtVersion) {
+        if ((record == null) || (version != loadedAtVersion)) {
+            return;
+        }
+        records.put(new Key(locationId, type), copy(record));
+    }
+
+    /**
+     * Stores the record to be written to the database, written has to be called
+     * when the write is committed or failed.
+     */
+    public synchronized void put(long locationId, int type, V record) {
+        version++;
+        Key key = new Key(locationId, type);
+        Integer pendingWritesCount = pendingWritesCounts.get(key);
+        pendingWritesCounts.put(key, (pendingWritesCount != null) ? pendingWritesCount + 1 : 1);
+        unwrittenRecords.remove(key);
+        if (record == null) {
+            records.remove(key);
+            return;
+        }
+        records.put(key, copy(record));
+    }
+
+    /**
+     * The write of a record put is over, the record is not kept after it is
+     * evicted once all its writes are over.
+     */
+    public synchronized void written(long locationId, int type) {
+        Key key = new Key(locationId, type);
+        Integer pendingWritesCount = pendingWritesCounts.get(key);
+        if (pendingWritesCount == null) {
+            return;
+        }
+        if (pendingWritesCount > 1) {
+            pendingWritesCounts.put(key, pendingWritesCount - 1);
+            return;
+        }
+        pendingWritesCounts.remove(key);
+        unwrittenRecords.remove(key);
+    }
+
+    /**
+     * The write of a record put failed, the record is dropped so it is loaded
+     * from the database again, unless a newer record put is still being written.
+     */
+    public synchronized void failed(long locationId, int type) {
+        Integer pendingWritesCount = pendingWritesCounts.get(new Key(locationId, type));
+        written(locationId, type);
+        if ((pendingWritesCount != null) && (pendingWritesCount > 1)) {
+            return;
+        }
+        invalidate(locationId, type);
+    }
+
+    public synchronized void invalidate(long locationId, int type) {
+        version++;
+        Key key = new Key(locationId, type);
+        records.remove(key);
+        unwrittenRecords.remove(key);
+    }
+
+    public synchronized void invalidateLocation(long locationId) {
+        version++;
+        removeLocation(records.keySet().iterator(), locationId);
+        removeLocation(unwrittenRecords.keySet().iterator(), locationId);
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        records.clear();
+        unwrittenRecords.clear();
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getUnwrittenCount() {
+        return unwrittenRecords.size();
+    }
+
+    private V find(Key key) {
+        V record = records.get(key);
+        if (record == null) {
+            record = unwrittenRecords.get(key);
+        }
+        return record;
+    }
+
+    private V copy(V record) {
+        if ((record == null) || (copier == null)) {
+            return record;
+        }
+        return copier.copy(record);
+    }
+
+    private static void removeLocation(Iterator<Key> keyIterator, long locationId) {
+        while (keyIterator.hasNext()) {
+            if (keyIterator.next().locationId == locationId) {
+                keyIterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RecordCache:size=" + records.size() +
+                ", unwritten=" + unwrittenRecords.size() +
+                ", version=" + version +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions;
+    }
+
+    private static class Key {
+        private final long locationId;
+        private final int type;
+
+        Key(long locationId, int type) {
+            this.locationId = locationId;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key objToCompareTo = (Key) obj;
+            return (locationId == objToCompareTo.locationId) && (type == objToCompareTo.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (31 * locationId + type);
+        }
+    }
+}
@@ -13,7 +13,33 @@ public final class ReverseGeocodingCacheContract {
         LocationAddressCache.COLUMN_NAME_LATITUDE + " double," +
         LocationAddressCache.COLUMN_NAME_LOCALE + " text," +
         LocationAddressCache.COLUMN_NAME_CREATED + " integer," +
-        LocationAddressCache.COLUMN_NAME_ADDRESS + " blob)";
+        LocationAddressCache.COLUMN_NAME_ADDRESS + " blob," +
+        LocationAddressCache.COLUMN_NAME_GEO_CELL + " integer," +
+        LocationAddressCache.COLUMN_NAME_LAST_USED + " integer)";
+
+    protected static final String SQL_ADD_COLUMN_GEO_CELL =
+        "ALTER TABLE " + LocationAddressCache.TABLE_NAME + " ADD COLUMN " +
+        LocationAddressCache.COLUMN_NAME_GEO_CELL + " integer";
+
+    protected static final String SQL_CREATE_INDEX_GEO_CELL =
+        "CREATE INDEX IF NOT EXISTS " + LocationAddressCache.INDEX_NAME_GEO_CELL + " ON " +
+        LocationAddressCache.TABLE_NAME + " (" +
+        LocationAddressCache.COLUMN_NAME_GEO_CELL + "," +
+        LocationAddressCache.COLUMN_NAME_LOCALE + ")";
+
+    protected static final String SQL_ADD_COLUMN_LAST_USED =
+        "ALTER TABLE " + LocationAddressCache.TABLE_NAME + " ADD COLUMN " +
+        LocationAddressCache.COLUMN_NAME_LAST_USED + " integer";
+
+    protected static final String SQL_FILL_COLUMN_LAST_USED =
+        "UPDATE " + LocationAddressCache.TABLE_NAME + " SET " +
+        LocationAddressCache.COLUMN_NAME_LAST_USED + " = " +
+        LocationAddressCache.COLUMN_NAME_CREATED;
+
+    protected static final String SQL_CREATE_INDEX_LAST_USED =
+        "CREATE INDEX IF NOT EXISTS " + LocationAddressCache.INDEX_NAME_LAST_USED + " ON " +
+        LocationAddressCache.TABLE_NAME + " (" +
+        LocationAddressCache.COLUMN_NAME_LAST_USED + ")";
 
     protected static final String SQL_DELETE_TABLE_LOCATION_ADDRESS_CACHE =
         "DROP TABLE IF EXISTS " + LocationAddressCache.TABLE_NAME;
@@ -25,5 +51,9 @@ public final class ReverseGeocodingCacheContract {
         public static final String COLUMN_NAME_LOCALE = "locale";
         public static final String COLUMN_NAME_ADDRESS = "address";
         public static final String COLUMN_NAME_CREATED = "created";
+        public static final String COLUMN_NAME_GEO_CELL = "geo_cell";
+        public static final String COLUMN_NAME_LAST_USED = "last_used";
+        public static final String INDEX_NAME_GEO_CELL = "location_address_cache_geo_cell";
+        public static final String INDEX_NAME_LAST_USED = "location_address_cache_last_used";
     }
 }
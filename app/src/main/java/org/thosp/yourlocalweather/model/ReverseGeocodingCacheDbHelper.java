@@ -1,19 +1,46 @@
 package org.thosp.yourlocalweather.model;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.location.Address;
-import android.os.Parcel;
 
+import org.thosp.yourlocalweather.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_ADD_COLUMN_GEO_CELL;
+import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_ADD_COLUMN_LAST_USED;
+import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_CREATE_INDEX_GEO_CELL;
+import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_CREATE_INDEX_LAST_USED;
 import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_CREATE_TABLE_LOCATION_ADDRESS_CACHE;
 import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_DELETE_TABLE_LOCATION_ADDRESS_CACHE;
+import static org.thosp.yourlocalweather.model.ReverseGeocodingCacheContract.SQL_FILL_COLUMN_LAST_USED;
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
 
 public class ReverseGeocodingCacheDbHelper extends SQLiteOpenHelper {
-    
-    public static final int DATABASE_VERSION = 1;
+
+    private static final String TAG = "ReverseGeocodingCacheDbHelper";
+
+    public static final int DATABASE_VERSION = 3;
     public static final String DATABASE_NAME = "ReverseGeocodingCache.db";
+    public static final double DEFAULT_LOOKUP_RADIUS_IN_METERS = 15;
+    public static final int DEFAULT_MAX_ROWS = 1000;
+    private static final int MEMORY_CACHE_SIZE = 32;
+    private static final long LAST_USED_UPDATE_INTERVAL_IN_MS = 3600000L;
     private static ReverseGeocodingCacheDbHelper instance;
+    private Context context;
+    private final DbWriteExecutor writeExecutor;
+    private final GeoCellCache<Address> memoryCache = new GeoCellCache<>(MEMORY_CACHE_SIZE);
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
 
     public synchronized static ReverseGeocodingCacheDbHelper getInstance(Context ctx) {
         if (instance == null) {
@@ -24,14 +51,56 @@ public class ReverseGeocodingCacheDbHelper extends SQLiteOpenHelper {
 
     private ReverseGeocodingCacheDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
+        Metrics.gauge("cache.address.memoryHits", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getMemoryHits();
+            }
+        });
+        Metrics.gauge("cache.address.databaseHits", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getDatabaseHits();
+            }
+        });
+        Metrics.gauge("cache.address.misses", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getMisses();
+            }
+        });
+        Metrics.gauge("cache.address.memorySize", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return getMemoryCacheSize();
+            }
+        });
     }
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_TABLE_LOCATION_ADDRESS_CACHE);
+        db.execSQL(SQL_CREATE_INDEX_GEO_CELL);
+        db.execSQL(SQL_CREATE_INDEX_LAST_USED);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        memoryCache.clear();
+        if ((oldVersion >= 1) && (oldVersion < newVersion) && (newVersion == DATABASE_VERSION)) {
+            if (oldVersion < 2) {
+                db.execSQL(SQL_ADD_COLUMN_GEO_CELL);
+                fillGeoCells(db);
+                db.execSQL(SQL_CREATE_INDEX_GEO_CELL);
+            }
+            if (oldVersion < 3) {
+                db.execSQL(SQL_ADD_COLUMN_LAST_USED);
+                db.execSQL(SQL_FILL_COLUMN_LAST_USED);
+                db.execSQL(SQL_CREATE_INDEX_LAST_USED);
+            }
+            return;
+        }
         db.execSQL(SQL_DELETE_TABLE_LOCATION_ADDRESS_CACHE);
         onCreate(db);
     }
@@ -40,19 +109,284 @@ public class ReverseGeocodingCacheDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
-    public void deleteRecordFromTable(Integer recordId) {
-        SQLiteDatabase db = getWritableDatabase();
-        String selection = ReverseGeocodingCacheContract.LocationAddressCache._ID + " = ?";
-        String[] selectionArgs = { recordId.toString() };
-        db.delete(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME, selection, selectionArgs);
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
+    public void deleteAllRecords() {
+        writeExecutor.execute(new Runnable() {
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                db.execSQL(SQL_DELETE_TABLE_LOCATION_ADDRESS_CACHE);
+                onCreate(db);
+                memoryCache.clear();
+            }
+        });
+    }
+
+    public void deleteRecordFromTable(final Integer recordId) {
+        memoryCache.removeRows(Collections.singleton(recordId.longValue()));
+        writeExecutor.execute(new Runnable() {
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                String selection = ReverseGeocodingCacheContract.LocationAddressCache._ID + " = ?";
+                String[] selectionArgs = { recordId.toString() };
+                db.delete(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME, selection, selectionArgs);
+                memoryCache.removeRows(Collections.singleton(recordId.longValue()));
+            }
+        });
+    }
+
+    public static long getGeoCell(double latitude, double longitude) {
+        return GeoGrid.getCell(latitude, longitude);
+    }
+
+    /**
+     * Returns the cached address nearest to the point within the radius. Addresses
+     * found recently are kept decoded in memory, the database is read through the
+     * geo cell index only when none of them is near enough.
+     */
+    public Address getNearestAddress(double latitude, double longitude, String locale, double radiusInMeters) {
+        long now = System.currentTimeMillis();
+        GeoCellCache.Entry<Address> memoryEntry = memoryCache.getNearest(latitude, longitude, locale, radiusInMeters);
+        if (memoryEntry != null) {
+            memoryHits.incrementAndGet();
+            if (now - memoryEntry.lastTouchedInMs > LAST_USED_UPDATE_INTERVAL_IN_MS) {
+                memoryEntry.lastTouchedInMs = now;
+                updateLastUsed(memoryEntry.rowId, now);
+            }
+            return memoryEntry.value;
+        }
+
+        GeoCellCache.Entry<Address> databaseEntry = loadNearestAddress(latitude, longitude, locale, radiusInMeters, now);
+        if ((databaseEntry == null) || (databaseEntry.value == null)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        databaseHits.incrementAndGet();
+        memoryCache.put(databaseEntry);
+        updateLastUsed(databaseEntry.rowId, now);
+        return databaseEntry.value;
+    }
+
+    /**
+     * Stores the address and removes the least recently used rows above maxRows.
+     * The addresses kept in memory are updated once the write is committed.
+     */
+    public void saveAddress(final double latitude,
+                            final double longitude,
+                            final String locale,
+                            final Address address,
+                            final int maxRows) {
+        writeExecutor.execute(new DbWriteExecutor.Write() {
+            private long now;
+            private long newLocationRowId;
+            private List<Long> evictedRowIds;
+
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                now = System.currentTimeMillis();
+                evictedRowIds = Collections.emptyList();
+
+                ContentValues values = new ContentValues();
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_ADDRESS, BinaryCodec.encodeAddress(address));
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LONGITUDE, longitude);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LATITUDE, latitude);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LOCALE, locale);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_CREATED, now);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LAST_USED, now);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_GEO_CELL, GeoGrid.getCell(latitude, longitude));
+
+                newLocationRowId = db.insert(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME, null, values);
+                appendLog(context, TAG, "storedAddress:", latitude, ", ", longitude, ", ", newLocationRowId, ", ", address);
+
+                long rowsToEvict = DatabaseUtils.queryNumEntries(db, ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME) - maxRows;
+                if (rowsToEvict > 0) {
+                    evictedRowIds = getLeastRecentlyUsedRowIds(db, rowsToEvict);
+                    String selection = ReverseGeocodingCacheContract.LocationAddressCache._ID + " = ?";
+                    int evictedRows = 0;
+                    for (Long rowId: evictedRowIds) {
+                        String[] selectionArgs = { String.valueOf(rowId) };
+                        evictedRows += db.delete(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME, selection, selectionArgs);
+                    }
+                    appendLog(context, TAG, "least recently used addresses evicted: ", evictedRows);
+                }
+            }
+
+            @Override
+            public void onCommitted() {
+                if (newLocationRowId >= 0) {
+                    memoryCache.put(new GeoCellCache.Entry<>(latitude, longitude, locale, newLocationRowId, address, now));
+                }
+                memoryCache.removeRows(evictedRowIds);
+            }
+        });
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDatabaseHits() {
+        return databaseHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getMemoryCacheSize() {
+        return memoryCache.size();
+    }
+
+    private GeoCellCache.Entry<Address> loadNearestAddress(double latitude,
+                                                           double longitude,
+                                                           String locale,
+                                                           double radiusInMeters,
+                                                           long now) {
+        SQLiteDatabase db = getReadableDatabase();
+
+        String[] projection = {
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LATITUDE,
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LONGITUDE,
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_ADDRESS,
+                ReverseGeocodingCacheContract.LocationAddressCache._ID
+        };
+
+        long[] cellRanges = GeoGrid.getCellRanges(latitude, longitude, radiusInMeters);
+        String[] selectionArgs = new String[cellRanges.length + 1];
+        StringBuilder selection = new StringBuilder();
+        selection.append(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LOCALE);
+        selection.append(" = ? and (");
+        selectionArgs[0] = locale;
+        for (int i = 0; i < cellRanges.length; i += 2) {
+            if (i > 0) {
+                selection.append(" or ");
+            }
+            selection.append(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_GEO_CELL);
+            selection.append(" between ? and ?");
+            selectionArgs[i + 1] = String.valueOf(cellRanges[i]);
+            selectionArgs[i + 2] = String.valueOf(cellRanges[i + 1]);
+        }
+        selection.append(")");
+
+        Cursor cursor = null;
+        try {
+            cursor = db.query(
+                    ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME,
+                    projection,
+                    selection.toString(),
+                    selectionArgs,
+                    null,
+                    null,
+                    null
+            );
+
+            int nearestPosition = -1;
+            double nearestDistance = radiusInMeters;
+            while (cursor.moveToNext()) {
+                double distance = GeoGrid.getDistanceInMeters(latitude, longitude,
+                        cursor.getDouble(0), cursor.getDouble(1));
+                if (distance <= nearestDistance) {
+                    nearestDistance = distance;
+                    nearestPosition = cursor.getPosition();
+                }
+            }
+            if ((nearestPosition < 0) || !cursor.moveToPosition(nearestPosition)) {
+                return null;
+            }
+            return new GeoCellCache.Entry<>(cursor.getDouble(0),
+                    cursor.getDouble(1),
+                    locale,
+                    cursor.getLong(3),
+                    getAddressFromBytes(context, cursor.getBlob(2)),
+                    now);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    private List<Long> getLeastRecentlyUsedRowIds(SQLiteDatabase db, long rowsCount) {
+        List<Long> rowIds = new ArrayList<>();
+        String[] projection = {
+                ReverseGeocodingCacheContract.LocationAddressCache._ID
+        };
+        Cursor cursor = null;
+        try {
+            cursor = db.query(
+                    ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME,
+                    projection,
+                    null,
+                    null,
+                    null,
+                    null,
+                    ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LAST_USED + " asc",
+                    String.valueOf(rowsCount)
+            );
+            while (cursor.moveToNext()) {
+                rowIds.add(cursor.getLong(0));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return rowIds;
+    }
+
+    private void updateLastUsed(final long rowId, final long lastUsed) {
+        writeExecutor.execute(new Runnable() {
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                ContentValues values = new ContentValues();
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LAST_USED, lastUsed);
+                String selection = ReverseGeocodingCacheContract.LocationAddressCache._ID + " = ?";
+                String[] selectionArgs = { String.valueOf(rowId) };
+                db.update(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME, values, selection, selectionArgs);
+            }
+        });
+    }
+
+    private void fillGeoCells(SQLiteDatabase db) {
+        String[] projection = {
+                ReverseGeocodingCacheContract.LocationAddressCache._ID,
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LATITUDE,
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LONGITUDE
+        };
+        int updatedRows = 0;
+        Cursor cursor = null;
+        try {
+            cursor = db.query(
+                    ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME,
+                    projection,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null
+            );
+            String selection = ReverseGeocodingCacheContract.LocationAddressCache._ID + " = ?";
+            ContentValues values = new ContentValues();
+            while (cursor.moveToNext()) {
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_GEO_CELL,
+                        GeoGrid.getCell(cursor.getDouble(1), cursor.getDouble(2)));
+                String[] selectionArgs = { String.valueOf(cursor.getLong(0)) };
+                updatedRows += db.update(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME,
+                        values,
+                        selection,
+                        selectionArgs);
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        appendLog(context, TAG, "geo cells of cached addresses filled: ", updatedRows);
     }
 
-    public static Address getAddressFromBytes(byte[] addressBytes) {
-        final Parcel parcel = Parcel.obtain();
-        parcel.unmarshall(addressBytes, 0, addressBytes.length);
-        parcel.setDataPosition(0);
-        Address address = Address.CREATOR.createFromParcel(parcel);
-        parcel.recycle();
-        return address;
+    public static Address getAddressFromBytes(Context context, byte[] addressBytes) {
+        return LocationsDbHelper.getAddressFromBytes(context, addressBytes);
     }
 }
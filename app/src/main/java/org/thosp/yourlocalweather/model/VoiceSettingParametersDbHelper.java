@@ -22,6 +22,7 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
     public static final int DATABASE_VERSION = 1;
     public static final String DATABASE_NAME = "VoiceSettingParameters.db";
     private static VoiceSettingParametersDbHelper instance;
+    private final DbWriteExecutor writeExecutor;
     private Context context;
 
     public static VoiceSettingParametersDbHelper getInstance(Context ctx) {
@@ -33,6 +34,7 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
 
     private VoiceSettingParametersDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
         this.context = context;
     }
     @Override
@@ -50,6 +52,10 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
     public List<Long> getAllSettingIds() {
 
         List<Long> result = new ArrayList<>();
@@ -88,7 +94,7 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
     }
 
     public void deleteAllSettings(Long voiceSettingId) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
                 try {
@@ -98,11 +104,11 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
                 } finally {
                 }
             }
-        }).start();
+        });
     }
 
     public void deleteRecordFromTable(Integer id) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
                 try {
@@ -112,11 +118,11 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
                 } finally {
                 }
             }
-        }).start();
+        });
     }
 
     public void saveStringParam(Long voiceSettingId, int paramType, String value) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
 
@@ -140,11 +146,11 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
                 } finally {
                 }
             }
-        }).start();
+        });
     }
 
     public void saveGeneralStringParam(int paramType, String value) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
 
@@ -164,11 +170,11 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
                 } finally {
                 }
             }
-        }).start();
+        });
     }
 
     public void saveBooleanParam(Long voiceSettingId, int paramType, Boolean value) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
 
@@ -198,11 +204,11 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
                 } finally {
                 }
             }
-        }).start();
+        });
     }
 
     public void saveLongParam(Long voiceSettingId, int paramType, long value) {
-        new Thread(new Runnable() {
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
 
@@ -224,7 +230,7 @@ public class VoiceSettingParametersDbHelper extends SQLiteOpenHelper {
                 } finally {
                 }
             }
-        }).start();
+        });
     }
 
     public Long getLongParam(Long voiceSettingId, int paramType) {
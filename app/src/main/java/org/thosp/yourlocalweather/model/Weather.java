@@ -24,6 +24,24 @@ public class Weather implements Parcelable {
         super();
     }
 
+    public Weather copy() {
+        Weather weather = new Weather();
+        weather.temperature = temperature;
+        weather.lon = lon;
+        weather.lat = lat;
+        weather.windSpeed = windSpeed;
+        weather.windDirection = windDirection;
+        weather.pressure = pressure;
+        weather.humidity = humidity;
+        weather.clouds = clouds;
+        weather.sunrise = sunrise;
+        weather.sunset = sunset;
+        for (CurrentWeather currentWeather: currentWeathers) {
+            weather.addCurrentWeather(currentWeather.getWeatherId(), currentWeather.getDescription(), currentWeather.getIdIcon());
+        }
+        return weather;
+    }
+
     public void addCurrentWeather(Integer id, String description, String iconId) {
         currentWeathers.add(new CurrentWeather(id, description, iconId));
     }
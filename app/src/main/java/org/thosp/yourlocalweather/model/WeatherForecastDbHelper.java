@@ -3,11 +3,14 @@ package org.thosp.yourlocalweather.model;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.AsyncTask;
 import android.os.Parcel;
 
+import org.thosp.yourlocalweather.utils.Metrics;
+
 import java.util.concurrent.ExecutionException;
 
 import static org.thosp.yourlocalweather.model.WeatherForecastContract.SQL_CREATE_TABLE_WEATHER_FORECAST;
@@ -20,7 +23,17 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
 
     public static final int DATABASE_VERSION = 3;
     public static final String DATABASE_NAME = "WeatherForecast.db";
+    private static final int WEATHER_FORECAST_CACHE_SIZE = 64;
     private static WeatherForecastDbHelper instance;
+    private final DbWriteExecutor writeExecutor;
+    private final RecordCache<WeatherForecastRecord> weatherForecastCache = new RecordCache<>(WEATHER_FORECAST_CACHE_SIZE, new RecordCache.Copier<WeatherForecastRecord>() {
+        @Override
+        public WeatherForecastRecord copy(WeatherForecastRecord record) {
+            return record.copy();
+        }
+    });
+    private static final Metrics.Histogram readTime = Metrics.histogram(Metrics.DB_READ_FORECAST);
+    private static final Metrics.Histogram writeTime = Metrics.histogram(Metrics.DB_WRITE_FORECAST);
     private Context context;
 
     public synchronized static WeatherForecastDbHelper getInstance(Context ctx) {
@@ -32,7 +45,20 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
 
     private WeatherForecastDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
         this.context = context;
+        Metrics.gauge("cache.forecast.hits", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherForecastCache.getHits();
+            }
+        });
+        Metrics.gauge("cache.forecast.misses", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherForecastCache.getMisses();
+            }
+        });
     }
     @Override
     public void onCreate(SQLiteDatabase db) {
@@ -48,24 +74,35 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
     public void deleteRecordByLocation(Location location) {
-        new Thread(new Runnable() {
+        weatherForecastCache.invalidateLocation(location.getId());
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
                 String selection = WeatherForecastContract.WeatherForecast.COLUMN_NAME_LOCATION_ID + " = ?";
                 String[] selectionArgs = {location.getId().toString()};
                 db.delete(WeatherForecastContract.WeatherForecast.TABLE_NAME, selection, selectionArgs);
+                weatherForecastCache.invalidateLocation(location.getId());
             }
-        }).start();
+        });
     }
 
     public void saveWeatherForecast(long locationId, int forecastType, long weatherUpdateTime, final long nextAllowedAttemptToUpdateTime, CompleteWeatherForecast completeWeatherForecast) {
-        new Thread(new Runnable() {
+        // the copies of the cached record share the columns built here
+        final ColumnarWeatherForecast columns = ColumnarWeatherForecast.of(completeWeatherForecast);
+        weatherForecastCache.put(locationId, forecastType, new WeatherForecastRecord(
+                weatherUpdateTime,
+                nextAllowedAttemptToUpdateTime,
+                completeWeatherForecast));
+        writeExecutor.execute(new DbWriteExecutor.Write() {
             public void run() {
+                long start = System.nanoTime();
                 SQLiteDatabase db = getWritableDatabase();
 
-                WeatherForecastRecord oldWeatherForecast = getWeatherForecast(locationId, forecastType);
-
                 ContentValues values = new ContentValues();
                 values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_WEATHER_FORECAST,
                         getCompleteWeatherForecastAsBytes(completeWeatherForecast));
@@ -73,7 +110,7 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
                 values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_LAST_UPDATED_IN_MS, weatherUpdateTime);
                 values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_NEXT_ALLOWED_ATTEMPT_TO_UPDATE_TIME_IN_MS, nextAllowedAttemptToUpdateTime);
                 values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_FORECAST_TYPE, forecastType);
-                if (oldWeatherForecast == null) {
+                if (!hasRecord(db, locationId, forecastType)) {
                     db.insert(WeatherForecastContract.WeatherForecast.TABLE_NAME, null, values);
                 } else {
                     db.updateWithOnConflict(WeatherForecastContract.WeatherForecast.TABLE_NAME,
@@ -83,8 +120,21 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
                             null,
                             SQLiteDatabase.CONFLICT_IGNORE);
                 }
+                writeTime.recordSince(start);
+                // the day index of the cached record is ready before widgets and notifications read it
+                columns.getDayIndex();
+            }
+
+            @Override
+            public void onCommitted() {
+                weatherForecastCache.written(locationId, forecastType);
             }
-        }).start();
+
+            @Override
+            public void onFailed(Exception e) {
+                weatherForecastCache.failed(locationId, forecastType);
+            }
+        });
     }
 
     public WeatherForecastRecord getWeatherForecast(long locationId) {
@@ -92,6 +142,31 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
     }
 
     public WeatherForecastRecord getWeatherForecast(final long locationId, final int forecastType) {
+        WeatherForecastRecord cachedWeatherForecast = weatherForecastCache.get(locationId, forecastType);
+        if (cachedWeatherForecast != null) {
+            return cachedWeatherForecast;
+        }
+        long cacheVersion = weatherForecastCache.getVersion();
+        long start = System.nanoTime();
+        WeatherForecastRecord weatherForecastRecord = loadWeatherForecast(locationId, forecastType);
+        readTime.recordSince(start);
+        weatherForecastCache.putIfNotChanged(locationId, forecastType, weatherForecastRecord, cacheVersion);
+        return weatherForecastRecord;
+    }
+
+    public RecordCache<WeatherForecastRecord> getWeatherForecastCache() {
+        return weatherForecastCache;
+    }
+
+    private boolean hasRecord(SQLiteDatabase db, long locationId, int forecastType) {
+        return DatabaseUtils.queryNumEntries(
+                db,
+                WeatherForecastContract.WeatherForecast.TABLE_NAME,
+                WeatherForecastContract.WeatherForecast.COLUMN_NAME_LOCATION_ID + "=" + locationId +
+                        " AND " + WeatherForecastContract.WeatherForecast.COLUMN_NAME_FORECAST_TYPE + "=" + forecastType) > 0;
+    }
+
+    private WeatherForecastRecord loadWeatherForecast(final long locationId, final int forecastType) {
         SQLiteDatabase db = getReadableDatabase();
 
         String[] projection = {
@@ -133,39 +208,56 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
         }
     }
 
-    public CompleteWeatherForecast getCompleteWeatherForecastFromBytes(byte[] addressBytes) {
-        if ((addressBytes == null) || (addressBytes.length == 0)) {
+    /**
+     * Reads a forecast in the BinaryCodec format or a legacy forecast parcel.
+     *
+     * @return null when there is no forecast or the record is malformed
+     */
+    public CompleteWeatherForecast getCompleteWeatherForecastFromBytes(byte[] forecastBytes) {
+        if ((forecastBytes == null) || (forecastBytes.length == 0)) {
             return null;
         }
+        if (BinaryCodec.isEncoded(forecastBytes)) {
+            try {
+                return BinaryCodec.decodeCompleteWeatherForecast(forecastBytes);
+            } catch (IllegalArgumentException e) {
+                appendLog(context, TAG, e);
+                return null;
+            }
+        }
         final Parcel parcel = Parcel.obtain();
-        parcel.unmarshall(addressBytes, 0, addressBytes.length);
-        parcel.setDataPosition(0);
-        CompleteWeatherForecast completeWeatherForecast = null;
         try {
-            completeWeatherForecast = CompleteWeatherForecast.CREATOR.createFromParcel(parcel);
-        } catch (Exception e) {
+            parcel.unmarshall(forecastBytes, 0, forecastBytes.length);
+            parcel.setDataPosition(0);
+            return CompleteWeatherForecast.CREATOR.createFromParcel(parcel);
+        } catch (RuntimeException e) {
             appendLog(context, TAG, e);
+            return null;
+        } finally {
+            parcel.recycle();
         }
-        parcel.recycle();
-        return completeWeatherForecast;
     }
 
     public byte[] getCompleteWeatherForecastAsBytes(CompleteWeatherForecast completeWeatherForecast) {
-        final Parcel parcel = Parcel.obtain();
-        completeWeatherForecast.writeToParcel(parcel, 0);
-        byte[] completeWeatherForecastBytes = parcel.marshall();
-        parcel.recycle();
-        return completeWeatherForecastBytes;
+        return BinaryCodec.encodeCompleteWeatherForecast(completeWeatherForecast);
     }
 
     public void updateNextAllowedAttemptToUpdateTime(final long locationId, final int forecastType, final long nextAllowedAttemptToUpdateTime) {
-        new Thread(new Runnable() {
+        final WeatherForecastRecord cachedWeatherForecast = weatherForecastCache.peek(locationId, forecastType);
+        if (cachedWeatherForecast != null) {
+            weatherForecastCache.put(locationId, forecastType, new WeatherForecastRecord(
+                    cachedWeatherForecast.getLastUpdatedTime(),
+                    nextAllowedAttemptToUpdateTime,
+                    cachedWeatherForecast.getCompleteWeatherForecast()));
+        } else {
+            weatherForecastCache.invalidate(locationId, forecastType);
+        }
+        writeExecutor.execute(new DbWriteExecutor.Write() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
                 ContentValues values = new ContentValues();
                 values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_NEXT_ALLOWED_ATTEMPT_TO_UPDATE_TIME_IN_MS, nextAllowedAttemptToUpdateTime);
-                WeatherForecastRecord oldWeatherForecast = getWeatherForecast(locationId, forecastType);
-                if (oldWeatherForecast == null) {
+                if (!hasRecord(db, locationId, forecastType)) {
                     values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_LOCATION_ID, locationId);
                     values.put(WeatherForecastContract.WeatherForecast.COLUMN_NAME_FORECAST_TYPE, forecastType);
                     db.insert(WeatherForecastContract.WeatherForecast.TABLE_NAME, null, values);
@@ -178,8 +270,25 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
                             null,
                             SQLiteDatabase.CONFLICT_IGNORE);
                 }
+                if (cachedWeatherForecast == null) {
+                    weatherForecastCache.invalidate(locationId, forecastType);
+                }
             }
-        }).start();
+
+            @Override
+            public void onCommitted() {
+                if (cachedWeatherForecast != null) {
+                    weatherForecastCache.written(locationId, forecastType);
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (cachedWeatherForecast != null) {
+                    weatherForecastCache.failed(locationId, forecastType);
+                }
+            }
+        });
     }
 
     public class WeatherForecastRecord {
@@ -204,5 +313,10 @@ public class WeatherForecastDbHelper extends SQLiteOpenHelper {
         public long getNextAllowedAttemptToUpdateTime() {
             return nextAllowedAttemptToUpdateTime;
         }
+
+        WeatherForecastRecord copy() {
+            return new WeatherForecastRecord(lastUpdatedTime, nextAllowedAttemptToUpdateTime,
+                    (completeWeatherForecast != null) ? completeWeatherForecast.copy() : null);
+        }
     }
 }
@@ -0,0 +1,154 @@
+package org.thosp.yourlocalweather.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * All settings of one widget read in one query. The object is not changed,
+ * a saved setting creates a new object with the value.
+ */
+public class WidgetSettings {
+
+    public static final String LOCATION_ID = "locationId";
+    public static final String SHOW_LOCATION = "showLocation";
+    public static final String FORECAST_DAYS_COUNT = "forecastDaysCount";
+    public static final String HOURS_FORECAST = "hoursForecast";
+    public static final String FORECAST_DAY_ABBREV = "forecast_day_abbrev";
+    public static final String COMBINED_GRAPH_VALUES = "combinedGraphValues";
+    public static final String COMBINED_GRAPH_SHOW_LEGEND = "combinedGraphShowLegend";
+    public static final String CURRENT_WEATHER_DETAILS = "currentWeatherDetails";
+
+    /**
+     * The value columns of one row of the widget settings table.
+     */
+    static class Value {
+        final Long longValue;
+        final String stringValue;
+
+        Value(Long longValue, String stringValue) {
+            this.longValue = longValue;
+            this.stringValue = stringValue;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Value)) {
+                return false;
+            }
+            Value value = (Value) other;
+            return ((longValue != null) ? longValue.equals(value.longValue) : (value.longValue == null)) &&
+                    ((stringValue != null) ? stringValue.equals(value.stringValue) : (value.stringValue == null));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = (longValue != null) ? longValue.hashCode() : 0;
+            return 31 * hash + ((stringValue != null) ? stringValue.hashCode() : 0);
+        }
+    }
+
+    private final int widgetId;
+    private final Map<String, Value> values;
+
+    WidgetSettings(int widgetId, Map<String, Value> values) {
+        this.widgetId = widgetId;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    static WidgetSettings empty(int widgetId) {
+        return new WidgetSettings(widgetId, new HashMap<String, Value>());
+    }
+
+    public int getWidgetId() {
+        return widgetId;
+    }
+
+    /**
+     * @return hash of the stored settings, the same for settings with the same
+     * values whatever order they were saved in
+     */
+    public long getContentHash() {
+        return 31L * widgetId + values.hashCode();
+    }
+
+    public boolean hasParam(String paramName) {
+        return values.containsKey(paramName);
+    }
+
+    /**
+     * @return null when the setting is not stored, 0 when it is stored without
+     * a number
+     */
+    public Long getParamLong(String paramName) {
+        Value value = values.get(paramName);
+        if (value == null) {
+            return null;
+        }
+        return (value.longValue != null) ? value.longValue : 0;
+    }
+
+    public String getParamString(String paramName) {
+        Value value = values.get(paramName);
+        if (value == null) {
+            return null;
+        }
+        return value.stringValue;
+    }
+
+    public Boolean getParamBoolean(String paramName) {
+        Value value = values.get(paramName);
+        if (value == null) {
+            return null;
+        }
+        return (value.longValue != null) && (value.longValue > 0);
+    }
+
+    /**
+     * @return the stored columns of the setting, null when it is not stored
+     */
+    Value getValue(String paramName) {
+        return values.get(paramName);
+    }
+
+    public Long getLocationId() {
+        return getParamLong(LOCATION_ID);
+    }
+
+    public Boolean getShowLocation() {
+        return getParamBoolean(SHOW_LOCATION);
+    }
+
+    public Long getForecastDaysCount() {
+        return getParamLong(FORECAST_DAYS_COUNT);
+    }
+
+    public Boolean getHoursForecast() {
+        return getParamBoolean(HOURS_FORECAST);
+    }
+
+    public Boolean getForecastDayAbbrev() {
+        return getParamBoolean(FORECAST_DAY_ABBREV);
+    }
+
+    public String getCombinedGraphValues() {
+        return getParamString(COMBINED_GRAPH_VALUES);
+    }
+
+    public Boolean getCombinedGraphShowLegend() {
+        return getParamBoolean(COMBINED_GRAPH_SHOW_LEGEND);
+    }
+
+    public String getCurrentWeatherDetails() {
+        return getParamString(CURRENT_WEATHER_DETAILS);
+    }
+
+    WidgetSettings withValue(String paramName, Value value) {
+        Map<String, Value> changedValues = new HashMap<>(values);
+        changedValues.put(paramName, value);
+        return new WidgetSettings(widgetId, changedValues);
+    }
+}
@@ -6,24 +6,37 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.thosp.yourlocalweather.model.WidgetSettingsContract.SQL_CREATE_TABLE_WIDGET_SETTINGS;
 import static org.thosp.yourlocalweather.model.WidgetSettingsContract.SQL_DELETE_TABLE_WIDGET_SETTINGS;
 
+/**
+ * Settings of the widgets, all settings of a widget are read in one query and
+ * kept in memory. Saved settings replace the cached ones at once and are written
+ * on the write executor, settings saved together are written in one transaction.
+ * The cached settings of a widget are dropped when a write of them fails.
+ */
 public class WidgetSettingsDbHelper extends SQLiteOpenHelper {
 
     public static final int DATABASE_VERSION = 2;
     public static final String DATABASE_NAME = "WidgetSettings.db";
     private static WidgetSettingsDbHelper instance;
+    private final DbWriteExecutor writeExecutor;
+    private final Map<Integer, WidgetSettings> widgetSettingsCache = new ConcurrentHashMap<>();
 
-    public static WidgetSettingsDbHelper getInstance(Context ctx) {
+    public synchronized static WidgetSettingsDbHelper getInstance(Context ctx) {
         if (instance == null) {
             instance = new WidgetSettingsDbHelper(ctx.getApplicationContext());
         }
         return instance;
     }
 
-    private WidgetSettingsDbHelper(Context context) {
+    WidgetSettingsDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        writeExecutor = new DbWriteExecutor(context, this, DATABASE_NAME);
     }
     @Override
     public void onCreate(SQLiteDatabase db) {
@@ -39,212 +52,157 @@ public class WidgetSettingsDbHelper extends SQLiteOpenHelper {
         onUpgrade(db, oldVersion, newVersion);
     }
 
+    public boolean flushPendingWrites(long timeoutInMs) {
+        return writeExecutor.flush(timeoutInMs);
+    }
+
     public void deleteRecordFromTable(Integer widgetId) {
-        new Thread(new Runnable() {
+        widgetSettingsCache.put(widgetId, WidgetSettings.empty(widgetId));
+        writeExecutor.execute(new Runnable() {
             public void run() {
                 SQLiteDatabase db = getWritableDatabase();
-                try {
-                    String selection = WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + " = ?";
-                    String[] selectionArgs = {widgetId.toString()};
-                    db.delete(WidgetSettingsContract.WidgetSettings.TABLE_NAME, selection, selectionArgs);
-                } finally {
-                }
+                String selection = WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + " = ?";
+                String[] selectionArgs = {widgetId.toString()};
+                db.delete(WidgetSettingsContract.WidgetSettings.TABLE_NAME, selection, selectionArgs);
             }
-        }).start();
+        });
     }
 
-    public void saveParamString(int widgetId, String paramName, String value) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-
-                try {
-                    String oldValue = getParamString(widgetId, paramName);
-
-                    ContentValues values = new ContentValues();
-                    values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_STRING, value);
-                    if (oldValue == null) {
-                        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME, paramName);
-                        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID, widgetId);
-                        db.insert(WidgetSettingsContract.WidgetSettings.TABLE_NAME, null, values);
-                    } else {
-                        db.updateWithOnConflict(WidgetSettingsContract.WidgetSettings.TABLE_NAME,
-                                values,
-                                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
-                                        " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
-                                null,
-                                SQLiteDatabase.CONFLICT_IGNORE);
-                    }
-                } finally {
-                }
+    public WidgetSettings getWidgetSettings(int widgetId) {
+        WidgetSettings widgetSettings = widgetSettingsCache.get(widgetId);
+        if (widgetSettings != null) {
+            return widgetSettings;
+        }
+        synchronized (widgetSettingsCache) {
+            widgetSettings = widgetSettingsCache.get(widgetId);
+            if (widgetSettings == null) {
+                widgetSettings = loadWidgetSettings(widgetId);
+                widgetSettingsCache.put(widgetId, widgetSettings);
             }
-        }).start();
+            return widgetSettings;
+        }
     }
 
-    public void saveParamBoolean(int widgetId, String paramName, Boolean value) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
+    public void saveParamString(int widgetId, String paramName, String value) {
+        ContentValues values = new ContentValues();
+        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_STRING, value);
+        synchronized (widgetSettingsCache) {
+            WidgetSettings widgetSettings = getWidgetSettings(widgetId);
+            WidgetSettings.Value storedValue = widgetSettings.getValue(paramName);
+            Long longValue = (storedValue != null) ? storedValue.longValue : null;
+            saveParam(widgetSettings, paramName, new WidgetSettings.Value(longValue, value), values);
+        }
+    }
 
-                try {
-                    Boolean oldValue = getParamBoolean(widgetId, paramName);
-
-                    ContentValues values = new ContentValues();
-                    Long valueToStore;
-                    if (value == null) {
-                        valueToStore = null;
-                    } else if (value) {
-                        valueToStore = 1l;
-                    } else {
-                        valueToStore = 0l;
-                    }
-                    values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG, valueToStore);
-                    if (oldValue == null) {
-                        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME, paramName);
-                        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID, widgetId);
-                        db.insert(WidgetSettingsContract.WidgetSettings.TABLE_NAME, null, values);
-                    } else {
-                        db.updateWithOnConflict(WidgetSettingsContract.WidgetSettings.TABLE_NAME,
-                                values,
-                                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
-                                        " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
-                                null,
-                                SQLiteDatabase.CONFLICT_IGNORE);
-                    }
-                } finally {
-                }
-            }
-        }).start();
+    public void saveParamBoolean(int widgetId, String paramName, Boolean value) {
+        Long valueToStore;
+        if (value == null) {
+            valueToStore = null;
+        } else if (value) {
+            valueToStore = 1l;
+        } else {
+            valueToStore = 0l;
+        }
+        saveParamLongValue(widgetId, paramName, valueToStore);
     }
 
     public void saveParamLong(int widgetId, String paramName, long value) {
-        new Thread(new Runnable() {
-            public void run() {
-                SQLiteDatabase db = getWritableDatabase();
-
-                try {
-                    Long oldValue = getParamLong(widgetId, paramName);
-
-                    ContentValues values = new ContentValues();
-                    values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG, value);
-                    if (oldValue == null) {
-                        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME, paramName);
-                        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID, widgetId);
-                        db.insert(WidgetSettingsContract.WidgetSettings.TABLE_NAME, null, values);
-                    } else {
-                        db.updateWithOnConflict(WidgetSettingsContract.WidgetSettings.TABLE_NAME,
-                                values,
-                                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
-                                " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
-                                null,
-                                SQLiteDatabase.CONFLICT_IGNORE);
-                    }
-                } finally {
-                }
-            }
-        }).start();
+        saveParamLongValue(widgetId, paramName, value);
     }
 
     public Long getParamLong(int widgetId, String paramName) {
-        SQLiteDatabase db = getReadableDatabase();
-
-        String[] projection = {
-                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG
-        };
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                    WidgetSettingsContract.WidgetSettings.TABLE_NAME,
-                    projection,
-                    WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
-                    " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
-                    null,
-                    null,
-                    null,
-                    null
-            );
-
-            if (cursor.moveToNext()) {
-                return cursor.getLong(cursor.getColumnIndexOrThrow(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG));
-            } else {
-                return null;
-            }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+        return getWidgetSettings(widgetId).getParamLong(paramName);
     }
 
     public String getParamString(int widgetId, String paramName) {
-        SQLiteDatabase db = getReadableDatabase();
+        return getWidgetSettings(widgetId).getParamString(paramName);
+    }
 
-        String[] projection = {
-                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_STRING
-        };
+    public Boolean getParamBoolean(int widgetId, String paramName) {
+        return getWidgetSettings(widgetId).getParamBoolean(paramName);
+    }
 
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                    WidgetSettingsContract.WidgetSettings.TABLE_NAME,
-                    projection,
-                    WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
-                            " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
-                    null,
-                    null,
-                    null,
-                    null
-            );
+    private void saveParamLongValue(int widgetId, String paramName, Long value) {
+        ContentValues values = new ContentValues();
+        values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG, value);
+        synchronized (widgetSettingsCache) {
+            WidgetSettings widgetSettings = getWidgetSettings(widgetId);
+            saveParam(widgetSettings, paramName, new WidgetSettings.Value(value, widgetSettings.getParamString(paramName)), values);
+        }
+    }
 
-            if (cursor.moveToNext()) {
-                return cursor.getString(cursor.getColumnIndexOrThrow(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_STRING));
-            } else {
-                return null;
+    private void saveParam(WidgetSettings widgetSettings,
+                           final String paramName,
+                           WidgetSettings.Value value,
+                           final ContentValues values) {
+        final int widgetId = widgetSettings.getWidgetId();
+        final boolean storedBefore = widgetSettings.hasParam(paramName);
+        widgetSettingsCache.put(widgetId, widgetSettings.withValue(paramName, value));
+        writeExecutor.execute(new DbWriteExecutor.Write() {
+            public void run() {
+                SQLiteDatabase db = getWritableDatabase();
+                if (storedBefore && (db.updateWithOnConflict(WidgetSettingsContract.WidgetSettings.TABLE_NAME,
+                        values,
+                        WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
+                                " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
+                        null,
+                        SQLiteDatabase.CONFLICT_IGNORE) > 0)) {
+                    return;
+                }
+                // not stored before, or the cache took it for stored while its insert failed
+                values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME, paramName);
+                values.put(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID, widgetId);
+                db.insertOrThrow(WidgetSettingsContract.WidgetSettings.TABLE_NAME, null, values);
             }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+
+            @Override
+            public void onFailed(Exception e) {
+                // the cached settings have the value not written, they are read again
+                synchronized (widgetSettingsCache) {
+                    widgetSettingsCache.remove(widgetId);
+                }
             }
-        }
+        });
     }
 
-    public Boolean getParamBoolean(int widgetId, String paramName) {
+    private WidgetSettings loadWidgetSettings(int widgetId) {
         SQLiteDatabase db = getReadableDatabase();
 
         String[] projection = {
-                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG
+                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME,
+                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG,
+                WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_STRING
         };
 
+        Map<String, WidgetSettings.Value> values = new HashMap<>();
         Cursor cursor = null;
         try {
             cursor = db.query(
                     WidgetSettingsContract.WidgetSettings.TABLE_NAME,
                     projection,
-                    WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId +
-                            " AND " + WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME + "=\"" + paramName + "\"",
+                    WidgetSettingsContract.WidgetSettings.COLUMN_NAME_WIDGET_ID + "=" + widgetId,
                     null,
                     null,
                     null,
-                    null
+                    WidgetSettingsContract.WidgetSettings._ID
             );
 
-            if (cursor.moveToNext()) {
-                Long longValue = cursor.getLong(cursor.getColumnIndexOrThrow(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG));
-                if (longValue == null) {
-                    return null;
-                } else if (longValue > 0) {
-                    return true;
-                } else {
-                    return false;
+            int paramNameIndex = cursor.getColumnIndexOrThrow(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_NAME);
+            int paramLongIndex = cursor.getColumnIndexOrThrow(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_LONG);
+            int paramStringIndex = cursor.getColumnIndexOrThrow(WidgetSettingsContract.WidgetSettings.COLUMN_NAME_PARAM_STRING);
+            while (cursor.moveToNext()) {
+                String paramName = cursor.getString(paramNameIndex);
+                if (values.containsKey(paramName)) {
+                    continue;
                 }
-            } else {
-                return null;
+                Long longValue = cursor.isNull(paramLongIndex) ? null : cursor.getLong(paramLongIndex);
+                values.put(paramName, new WidgetSettings.Value(longValue, cursor.getString(paramStringIndex)));
             }
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
         }
+        return new WidgetSettings(widgetId, values);
     }
 }
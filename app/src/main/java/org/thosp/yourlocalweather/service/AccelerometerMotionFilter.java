@@ -0,0 +1,85 @@
+package org.thosp.yourlocalweather.service;
+
+import android.hardware.Sensor;
+
+/**
+ * Integrates the length moved from accelerometer events in software, used on
+ * devices without a significant motion sensor or a step counter. All state is
+ * kept in primitive fields, an event does not allocate anything, so the filter
+ * can run with every event of the sensor the whole day.
+ */
+public class AccelerometerMotionFilter extends MotionTrigger {
+
+    static final float REFERENCE_ACCELEROMETER_RESOLUTION = 104.418936291f;
+
+    private static final float LOW_PASS_ACCELERATION = 0.1f;
+    private static final float HIGH_PASS_ALPHA = 0.8f;
+
+    private float gravityX;
+    private float gravityY;
+    private float gravityZ;
+    private boolean lastMovementPresent;
+    private float lastMovementX;
+    private float lastMovementY;
+    private float lastMovementZ;
+
+    @Override
+    public int getSensorType() {
+        return Sensor.TYPE_ACCELEROMETER;
+    }
+
+    @Override
+    public boolean addSensorValues(long timestampInNs, float[] values) {
+        return addAcceleration(timestampInNs, values[0], values[1], values[2]);
+    }
+
+    /**
+     * @return false when the acceleration of the last movement was under the
+     * low pass limit and its length was not counted
+     */
+    public boolean addAcceleration(long timestampInNs, float x, float y, float z) {
+        updateDeltaTime(timestampInNs);
+
+        boolean counted = true;
+        if (lastMovementPresent) {
+            countedAcc = (float) Math.sqrt((lastMovementX * lastMovementX) + (lastMovementY * lastMovementY) + (lastMovementZ * lastMovementZ));
+            countedLength = countedAcc * deltaTime * deltaTime;
+
+            if ((countedAcc < LOW_PASS_ACCELERATION) || (deltaTime > 1000f)) {
+                currentLengthLowPassed += countedLength;
+                counted = false;
+            } else {
+                currentLength += countedLength;
+            }
+        } else {
+            countedLength = 0;
+            countedAcc = 0;
+        }
+        highPassFilter(x, y, z);
+        return counted;
+    }
+
+    @Override
+    public float getAbsCurrentLength(float sensorResolutionMultiplayer) {
+        return Math.abs(currentLength) * (REFERENCE_ACCELEROMETER_RESOLUTION + sensorResolutionMultiplayer);
+    }
+
+    @Override
+    public void clearMeasuredLength() {
+        super.clearMeasuredLength();
+        gravityX = 0;
+        gravityY = 0;
+        gravityZ = 0;
+    }
+
+    private void highPassFilter(float x, float y, float z) {
+        gravityX = HIGH_PASS_ALPHA * gravityX + (1 - HIGH_PASS_ALPHA) * x;
+        gravityY = HIGH_PASS_ALPHA * gravityY + (1 - HIGH_PASS_ALPHA) * y;
+        gravityZ = HIGH_PASS_ALPHA * gravityZ + (1 - HIGH_PASS_ALPHA) * z;
+
+        lastMovementX = x - gravityX;
+        lastMovementY = y - gravityY;
+        lastMovementZ = z - gravityZ;
+        lastMovementPresent = true;
+    }
+}
@@ -12,6 +12,7 @@ import android.os.PowerManager;
 import android.preference.PreferenceManager;
 
 import org.thosp.yourlocalweather.utils.Constants;
+import org.thosp.yourlocalweather.utils.Metrics;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +37,8 @@ public class AppWakeUpManager extends Service {
     private static final long WAKEUP_TIMEOUT_IN_MS = 30000L;
 
     private PowerManager.WakeLock wakeLock;
+    private long wakeLockAcquiredTime;
+    private static final Metrics.Histogram wakeLockHoldTime = Metrics.histogram(Metrics.WAKE_LOCK_HOLD);
     private PowerManager powerManager;
     private static List<Integer> wakeUpSources = new ArrayList<>();
     private Lock wakeUpSourcesLock = new ReentrantLock();
@@ -110,6 +113,7 @@ public class AppWakeUpManager extends Service {
         if ((wakeLock != null) && wakeLock.isHeld()) {
             try {
                 wakeLock.release();
+                wakeLockHoldTime.recordSince(wakeLockAcquiredTime);
                 appendLog(getBaseContext(), TAG, "wakeLock released");
             } catch (Throwable th) {
                 // ignoring this exception, probably wakeLock was already released
@@ -159,6 +163,7 @@ public class AppWakeUpManager extends Service {
         appendLog(getBaseContext(), TAG, "wakeLock:", wakeLock, ":", wakeLock.isHeld());
         if (!wakeLock.isHeld()) {
             wakeLock.acquire();
+            wakeLockAcquiredTime = System.nanoTime();
         }
         appendLog(getBaseContext(), TAG, "wakeLock acquired");
     }
@@ -35,6 +35,7 @@ import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.Constants;
+import org.thosp.yourlocalweather.utils.Metrics;
 import org.thosp.yourlocalweather.utils.NotificationUtils;
 import org.thosp.yourlocalweather.utils.PermissionUtil;
 import org.thosp.yourlocalweather.utils.PreferenceUtil;
@@ -72,6 +73,9 @@ public class LocationUpdateService extends AbstractCommonService implements Proc
     private String updateSource;
     private boolean forceUpdate;
     private volatile long lastLocationUpdateTime;
+    private volatile long locationRequestStartTime;
+    private static final Metrics.Histogram locationFixTime = Metrics.histogram(Metrics.LOCATION_FIX);
+    private static final Metrics.Histogram networkLocationFixTime = Metrics.histogram(Metrics.NETWORK_LOCATION_FIX);
     public static volatile boolean updateLocationInProcess;
 
     @Override
@@ -159,6 +163,7 @@ public class LocationUpdateService extends AbstractCommonService implements Proc
         lastLocationUpdateTime = System.currentTimeMillis();
         timerHandler.removeCallbacksAndMessages(null);
         removeUpdates(this);
+        recordLocationFixTime(location);
 
         /*org.thosp.yourlocalweather.model.Location autoLocation = locationsDbHelper.getLocationByOrderId(0);
         float storedLocationAccuracy = autoLocation.getAccuracy();
@@ -496,6 +501,7 @@ public class LocationUpdateService extends AbstractCommonService implements Proc
                                       boolean forceUpdate) {
         this.forceUpdate = forceUpdate;
         updateLocationInProcess = true;
+        locationRequestStartTime = System.nanoTime();
         boolean permissionsGranted = PermissionUtil.checkPermissionsAndSettings(this);
         appendLog(getBaseContext(), TAG, "updateNetworkLocation:", permissionsGranted);
         if (!permissionsGranted) {
@@ -712,6 +718,19 @@ public class LocationUpdateService extends AbstractCommonService implements Proc
         return true;
     }
 
+    private void recordLocationFixTime(Location location) {
+        long requestStartTime = locationRequestStartTime;
+        if ((location == null) || (requestStartTime == 0)) {
+            return;
+        }
+        locationRequestStartTime = 0;
+        long fixTime = System.nanoTime() - requestStartTime;
+        locationFixTime.record(fixTime);
+        if (!LocationManager.GPS_PROVIDER.equals(location.getProvider())) {
+            networkLocationFixTime.record(fixTime);
+        }
+    }
+
     private void removeUpdates(LocationListener locationListener) {
         String geocoder = AppPreference.getLocationGeocoderSource(this);
         if("location_geocoder_system".equals(geocoder) || "location_geocoder_local".equals(geocoder)/*TODO: temporary solution*/) {
@@ -725,6 +744,7 @@ public class LocationUpdateService extends AbstractCommonService implements Proc
             stopSelf();
             return;
         }
+        locationRequestStartTime = System.nanoTime();
         boolean isNetworkEnabled = locationManager.getAllProviders().contains(LocationManager.NETWORK_PROVIDER)
                 && locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER);
         appendLog(getBaseContext(), TAG, "detectLocation:isNetworkEnabled=", isNetworkEnabled);
@@ -0,0 +1,221 @@
+package org.thosp.yourlocalweather.service;
+
+import android.hardware.Sensor;
+
+/**
+ * Measures the length moved from the events of one motion sensor and decides
+ * when the location has to be updated. The decision is the same for all sensors,
+ * only the way the length is measured differs.
+ */
+public abstract class MotionTrigger {
+
+    static final float LENGTH_UPDATE_LOCATION_LIMIT = 1500;
+    static final float LENGTH_UPDATE_LOCATION_SECOND_LIMIT = 10000;
+    static final float LENGTH_UPDATE_LOCATION_LIMIT_NO_LOCATION = 200;
+    static final long ACCELEROMETER_UPDATE_TIME_SPAN = 900000l; //15 min
+    static final long ACCELEROMETER_UPDATE_TIME_SECOND_SPAN = 300000l; //5 min
+    static final long ACCELEROMETER_UPDATE_TIME_SPAN_NO_LOCATION = 300000l; //5 min
+
+    protected long lastUpdate;
+    protected float currentLength;
+    protected float currentLengthLowPassed;
+    protected float deltaTime;
+    protected double countedLength;
+    protected double countedAcc;
+
+    boolean nowIsBeforeTheLastUpdatedAndTimeSpan;
+    boolean currentLengthIsUnderLimit;
+    boolean nowIsBeforeTheLastUpdatedAndFastTimeSpan;
+    boolean currentLengthIsUnderFastLimit;
+    boolean nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation;
+    boolean currentLengthIsUnderNoLocationLimit;
+
+    /**
+     * Chooses the sensor waking the CPU the least: the significant motion
+     * sensor, which is a wake-up sensor firing only when the user starts to walk
+     * or drive, then the step counter batched in the FIFO of the sensor hub and
+     * the accelerometer as the last one, available on all devices.
+     */
+    public static MotionTrigger forAvailableSensors(boolean significantMotionAvailable,
+                                                    boolean stepCounterAvailable) {
+        if (significantMotionAvailable) {
+            return new SignificantMotionTrigger();
+        } else if (stepCounterAvailable) {
+            return new StepCounterMotionTrigger();
+        }
+        return new AccelerometerMotionFilter();
+    }
+
+    public abstract int getSensorType();
+
+    /**
+     * @return false when the values were not counted to the length moved
+     */
+    public abstract boolean addSensorValues(long timestampInNs, float[] values);
+
+    /**
+     * @return the length moved in the units of the LENGTH_UPDATE_LOCATION limits
+     */
+    public abstract float getAbsCurrentLength(float sensorResolutionMultiplayer);
+
+    /**
+     * @return true for a sensor firing once after it is requested, false for a
+     * sensor reporting events to a listener
+     */
+    public boolean isOneShot() {
+        return false;
+    }
+
+    /**
+     * @return the time the events may stay in the FIFO of the sensor before they
+     * are reported, 0 when the events are not batched in the hardware
+     */
+    public int getMaxReportLatencyInUs() {
+        return 0;
+    }
+
+    public boolean isLocationUpdateNeeded(long nowInMillis,
+                                          long lastUpdatedPosition,
+                                          boolean addressFound,
+                                          float sensorResolutionMultiplayer) {
+        float absCurrentLength = getAbsCurrentLength(sensorResolutionMultiplayer);
+        nowIsBeforeTheLastUpdatedAndTimeSpan = (nowInMillis < (lastUpdatedPosition + ACCELEROMETER_UPDATE_TIME_SPAN));
+        currentLengthIsUnderLimit = (absCurrentLength < LENGTH_UPDATE_LOCATION_LIMIT);
+        nowIsBeforeTheLastUpdatedAndFastTimeSpan = (nowInMillis < (lastUpdatedPosition + ACCELEROMETER_UPDATE_TIME_SECOND_SPAN));
+        currentLengthIsUnderFastLimit = (absCurrentLength < LENGTH_UPDATE_LOCATION_SECOND_LIMIT);
+        nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation = (nowInMillis < (lastUpdatedPosition + ACCELEROMETER_UPDATE_TIME_SPAN_NO_LOCATION));
+        currentLengthIsUnderNoLocationLimit = (absCurrentLength < LENGTH_UPDATE_LOCATION_LIMIT_NO_LOCATION);
+
+        return !((nowIsBeforeTheLastUpdatedAndTimeSpan || currentLengthIsUnderLimit)
+                && (nowIsBeforeTheLastUpdatedAndFastTimeSpan || currentLengthIsUnderFastLimit)
+                && (addressFound || nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation || currentLengthIsUnderNoLocationLimit));
+    }
+
+    public void clearMeasuredLength() {
+        currentLength = 0;
+        currentLengthLowPassed = 0;
+    }
+
+    public void reset() {
+        clearMeasuredLength();
+        lastUpdate = 0;
+    }
+
+    public long getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public float getCurrentLength() {
+        return currentLength;
+    }
+
+    public float getCurrentLengthLowPassed() {
+        return currentLengthLowPassed;
+    }
+
+    public float getDeltaTime() {
+        return deltaTime;
+    }
+
+    public double getCountedLength() {
+        return countedLength;
+    }
+
+    /**
+     * @return the acceleration of the last counted movement, 0 for the sensors
+     * not measuring it
+     */
+    public double getCountedAcc() {
+        return countedAcc;
+    }
+
+    protected void updateDeltaTime(long timestampInNs) {
+        deltaTime = (float) (timestampInNs - lastUpdate) / 1000000000.0f;
+        lastUpdate = timestampInNs;
+    }
+
+    /**
+     * Steps counted since the sensor was registered, batched in the FIFO for up
+     * to 5 minutes. A step counts as 0.75 m, so the limits are in meters.
+     */
+    public static class StepCounterMotionTrigger extends MotionTrigger {
+
+        static final float STEP_LENGTH_IN_M = 0.75f;
+        static final int MAX_REPORT_LATENCY_IN_US = 300000000;
+
+        private float firstStepCount = -1;
+        private float lastStepCount;
+
+        @Override
+        public int getSensorType() {
+            return Sensor.TYPE_STEP_COUNTER;
+        }
+
+        @Override
+        public int getMaxReportLatencyInUs() {
+            return MAX_REPORT_LATENCY_IN_US;
+        }
+
+        /**
+         * @param values the steps since the boot of the device in the first value
+         */
+        @Override
+        public boolean addSensorValues(long timestampInNs, float[] values) {
+            updateDeltaTime(timestampInNs);
+            float stepCount = values[0];
+            if ((firstStepCount < 0) || (stepCount < lastStepCount)) {
+                firstStepCount = stepCount;
+                lastStepCount = stepCount;
+                countedLength = 0;
+                return false;
+            }
+            countedLength = (stepCount - lastStepCount) * STEP_LENGTH_IN_M;
+            lastStepCount = stepCount;
+            currentLength += countedLength;
+            return countedLength > 0;
+        }
+
+        @Override
+        public float getAbsCurrentLength(float sensorResolutionMultiplayer) {
+            return Math.abs(currentLength);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            firstStepCount = -1;
+        }
+    }
+
+    /**
+     * The significant motion sensor fires once when the user starts to walk, to
+     * ride a bike or to drive, and is requested again after every trigger. The
+     * length is not measured, every trigger counts as moved by the first limit,
+     * so the location is updated at the latest after the first time span.
+     */
+    public static class SignificantMotionTrigger extends MotionTrigger {
+
+        @Override
+        public int getSensorType() {
+            return Sensor.TYPE_SIGNIFICANT_MOTION;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public boolean addSensorValues(long timestampInNs, float[] values) {
+            updateDeltaTime(timestampInNs);
+            countedLength = LENGTH_UPDATE_LOCATION_LIMIT;
+            currentLength += countedLength;
+            return true;
+        }
+
+        @Override
+        public float getAbsCurrentLength(float sensorResolutionMultiplayer) {
+            return Math.abs(currentLength);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.loopj.android.http.AsyncHttpResponseHandler;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.thosp.yourlocalweather.utils.Metrics;
 import org.thosp.yourlocalweather.utils.PreferenceUtil;
 
 import java.util.LinkedList;
@@ -35,6 +36,7 @@ public class MozillaLocationService {
     public static final String TAG = "MozillaLocationService";
 
     private static AsyncHttpClient client = new AsyncHttpClient();
+    private static final Metrics.Histogram httpTime = Metrics.histogram(Metrics.HTTP_MOZILLA_LOCATION);
 
     private static MozillaLocationService instance;
     private LocationUpdateService locationUpdateService;
@@ -85,6 +87,7 @@ public class MozillaLocationService {
             Runnable myRunnable = new Runnable() {
                 @Override
                 public void run() {
+                    final long requestStart = System.nanoTime();
                     client.post(context,
                                 String.format(SERVICE_URL, API_KEY),
                                 entity,
@@ -98,6 +101,7 @@ public class MozillaLocationService {
 
                         @Override
                         public void onSuccess(int statusCode, Header[] headers, byte[] httpResponse) {
+                            httpTime.recordSince(requestStart);
                             Location response = null;
                             try {
                                 String result = new String(httpResponse);
@@ -116,6 +120,7 @@ public class MozillaLocationService {
 
                         @Override
                         public void onFailure(int statusCode, Header[] headers, byte[] errorResponse, Throwable e) {
+                            httpTime.recordSince(requestStart);
                             appendLog(context, TAG, "onFailure:", statusCode);
                             processUpdateOfLocation(context, null);
                         }
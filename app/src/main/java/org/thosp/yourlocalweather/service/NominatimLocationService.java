@@ -1,6 +1,5 @@
 package org.thosp.yourlocalweather.service;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
@@ -8,7 +7,6 @@ import android.location.Address;
 import android.location.Location;
 import android.os.Handler;
 import android.os.Looper;
-import android.os.Parcel;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
@@ -20,11 +18,11 @@ import org.json.JSONObject;
 import org.microg.address.Formatter;
 import org.thosp.yourlocalweather.model.ReverseGeocodingCacheDbHelper;
 import org.thosp.yourlocalweather.utils.Constants;
+import org.thosp.yourlocalweather.utils.Metrics;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -43,6 +41,7 @@ public class NominatimLocationService {
     public static final String TAG = "NominatimLocationServ";
 
     private static AsyncHttpClient client = new AsyncHttpClient();
+    private static final Metrics.Histogram httpTime = Metrics.histogram(Metrics.HTTP_NOMINATIM);
 
     private static NominatimLocationService instance;
 
@@ -118,6 +117,7 @@ public class NominatimLocationService {
         Runnable myRunnable = new Runnable() {
             @Override
             public void run() {
+                final long requestStart = System.nanoTime();
                 client.get(url, null, new AsyncHttpResponseHandler() {
 
                     @Override
@@ -127,6 +127,7 @@ public class NominatimLocationService {
 
                     @Override
                     public void onSuccess(int statusCode, Header[] headers, byte[] response) {
+                        httpTime.recordSince(requestStart);
                         try {
                             String rawResult = new String(response);
                             JSONObject result = new JSONObject(rawResult);
@@ -146,6 +147,7 @@ public class NominatimLocationService {
 
                     @Override
                     public void onFailure(int statusCode, Header[] headers, byte[] errorResponse, Throwable e) {
+                        httpTime.recordSince(requestStart);
                         appendLog(context, TAG, "onFailure:", statusCode);
                         processResultFromAddressResolution.processAddresses(location, null);
                     }
@@ -222,7 +224,7 @@ public class NominatimLocationService {
             return null;
         }
 
-        Address addressFromCache = getResultFromCache(mDbHelper, latitude, longitude, locale);
+        Address addressFromCache = getResultFromCache(context, mDbHelper, latitude, longitude, locale);
         appendLog(context, TAG, "address retrieved from cache:", addressFromCache);
         if (addressFromCache == null) {
             return null;
@@ -245,77 +247,21 @@ public class NominatimLocationService {
             return;
         }
 
-        Thread thread = new Thread() {
-            @Override
-            public void run() {
-                SQLiteDatabase db = mDbHelper.getWritableDatabase();
-
-                ContentValues values = new ContentValues();
-                values.put(LocationAddressCache.COLUMN_NAME_ADDRESS, getAddressAsBytes(address));
-                values.put(LocationAddressCache.COLUMN_NAME_LONGITUDE, longitude);
-                values.put(LocationAddressCache.COLUMN_NAME_LATITUDE, latitude);
-                values.put(LocationAddressCache.COLUMN_NAME_LOCALE, locale);
-                values.put(LocationAddressCache.COLUMN_NAME_CREATED, new Date().getTime());
-
-                long newLocationRowId = db.insert(LocationAddressCache.TABLE_NAME, null, values);
-
-                appendLog(context, TAG, "storedAddress:", latitude, ", ", longitude, ", ", newLocationRowId, ", ", address);
-            }
-        };
-        thread.start();
+        int maxRows = Integer.parseInt(PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(Constants.APP_SETTINGS_LOCATION_CACHE_MAX_ROWS, String.valueOf(ReverseGeocodingCacheDbHelper.DEFAULT_MAX_ROWS)));
+        mDbHelper.saveAddress(latitude, longitude, locale, address, maxRows);
     }
 
-    private Address getResultFromCache(ReverseGeocodingCacheDbHelper mDbHelper, double latitude, double longitude, String locale) {
+    private Address getResultFromCache(Context context, ReverseGeocodingCacheDbHelper mDbHelper, double latitude, double longitude, String locale) {
 
         new DeleteOldRows(mDbHelper).start();
 
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
-
-        String[] projection = {
-                LocationAddressCache.COLUMN_NAME_ADDRESS
-        };
-
-        double latitudeLow = latitude - 0.0001;
-        double latitudeHigh = latitude + 0.0001;
-        double longitudeLow = longitude - 0.0001;
-        double longitudeHigh = longitude + 0.0001;
-
-        String selection = LocationAddressCache.COLUMN_NAME_LONGITUDE + " <= ? and " +
-                LocationAddressCache.COLUMN_NAME_LONGITUDE + " >= ? and " +
-                LocationAddressCache.COLUMN_NAME_LATITUDE + " <= ? and " +
-                LocationAddressCache.COLUMN_NAME_LATITUDE + " >= ? and " +
-                LocationAddressCache.COLUMN_NAME_LOCALE + " = ? ";
-        String[] selectionArgs = { String.valueOf(longitudeHigh),
-                String.valueOf(longitudeLow),
-                String.valueOf(latitudeHigh),
-                String.valueOf(latitudeLow),
-                locale };
-
-        Cursor cursor = null;
-        try {
-            cursor = db.query(
-                    LocationAddressCache.TABLE_NAME,
-                    projection,
-                    selection,
-                    selectionArgs,
-                    null,
-                    null,
-                    null
-            );
-
-            if (!cursor.moveToNext()) {
-                cursor.close();
-                return null;
-            }
-
-            byte[] cachedAddressBytes = cursor.getBlob(
-                    cursor.getColumnIndexOrThrow(LocationAddressCache.COLUMN_NAME_ADDRESS));
-            return ReverseGeocodingCacheDbHelper.getAddressFromBytes(cachedAddressBytes);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+        double radiusInMeters = Double.parseDouble(PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(Constants.APP_SETTINGS_LOCATION_CACHE_RADIUS, String.valueOf(ReverseGeocodingCacheDbHelper.DEFAULT_LOOKUP_RADIUS_IN_METERS)));
+        return mDbHelper.getNearestAddress(latitude,
+                longitude,
+                locale,
+                radiusInMeters);
     }
 
     private boolean recordDateIsNotValidOrIsTooOld(long recordCreatedinMilis) {
@@ -330,14 +276,6 @@ public class NominatimLocationService {
         return calendarRecordCreated.before(now);
     }
 
-    private byte[] getAddressAsBytes(Address address) {
-        final Parcel parcel = Parcel.obtain();
-        address.writeToParcel(parcel, 0);
-        byte[] addressBytes = parcel.marshall();
-        parcel.recycle();
-        return addressBytes;
-    }
-
     private class DeleteOldRows extends Thread {
 
         private ReverseGeocodingCacheDbHelper mDbHelper;
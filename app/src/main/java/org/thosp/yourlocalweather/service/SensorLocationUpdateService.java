@@ -5,6 +5,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.hardware.Sensor;
 import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
 import android.os.Binder;
 import android.os.Build;
 import android.os.IBinder;
@@ -30,6 +32,8 @@ public class SensorLocationUpdateService extends SensorLocationUpdater {
 
     private SensorManager senSensorManager;
     private Sensor senAccelerometer;
+    private Sensor motionSensor;
+    private TriggerEventListener significantMotionListener;
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -81,6 +85,7 @@ public class SensorLocationUpdateService extends SensorLocationUpdater {
             //senSensorManager.unregisterListener(SensorLocationUpdater.getInstance(getBaseContext()));
             senSensorManager = null;
             senAccelerometer = null;
+            motionSensor = null;
             receiversRegistered = false;
         } finally {
             receiversLock.unlock();
@@ -110,6 +115,7 @@ public class SensorLocationUpdateService extends SensorLocationUpdater {
                 return initialReturnValue;
             }
             SensorLocationUpdater.autolocationForSensorEventAddressFound = autoLocation.isAddressFound();
+            SensorLocationUpdater.autolocationForSensorEventLastUpdate = autoLocation.getLastLocationUpdate();
             appendLog(getBaseContext(),
                     TAG,
                     "autolocationForSensorEventAddressFound=",
@@ -130,6 +136,10 @@ public class SensorLocationUpdateService extends SensorLocationUpdater {
             receiversRegistered = false;
             if (senSensorManager != null) {
                 senSensorManager.unregisterListener(this);
+                if ((significantMotionListener != null) && (motionSensor != null)
+                        && (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)) {
+                    senSensorManager.cancelTriggerSensor(significantMotionListener, motionSensor);
+                }
             }
         } finally {
             receiversLock.unlock();
@@ -147,6 +157,37 @@ public class SensorLocationUpdateService extends SensorLocationUpdater {
             return;
         }
 
+        Sensor significantMotionSensor = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            significantMotionSensor = senSensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+        }
+        Sensor stepCounterSensor = null;
+        if (isStepCounterAllowed()) {
+            stepCounterSensor = senSensorManager.getDefaultSensor(Sensor.TYPE_STEP_COUNTER);
+        }
+        MotionTrigger selectedMotionTrigger = MotionTrigger.forAvailableSensors(
+                significantMotionSensor != null,
+                stepCounterSensor != null);
+        motionTrigger = selectedMotionTrigger;
+        appendLog(getBaseContext(),
+                TAG,
+                "Selected motion trigger:",
+                selectedMotionTrigger.getClass().getSimpleName());
+        if (selectedMotionTrigger.isOneShot()) {
+            motionSensor = significantMotionSensor;
+            requestSignificantMotion();
+            return;
+        } else if (selectedMotionTrigger.getSensorType() == Sensor.TYPE_STEP_COUNTER) {
+            motionSensor = stepCounterSensor;
+            appendLog(getBaseContext(), TAG, "Result of registering step counter listener: " + senSensorManager.registerListener(
+                    this,
+                    stepCounterSensor,
+                    SensorManager.SENSOR_DELAY_NORMAL,
+                    selectedMotionTrigger.getMaxReportLatencyInUs()));
+            return;
+        }
+        motionSensor = senAccelerometer;
+
         sensorResolutionMultiplayer = 1 / senAccelerometer.getResolution();
         int maxDelay = 10000;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
@@ -181,6 +222,44 @@ public class SensorLocationUpdateService extends SensorLocationUpdater {
         }
     }
     
+    /**
+     * From Android 10 the step counter needs the activity recognition permission,
+     * which the app does not request, so it is used on older versions only.
+     */
+    private boolean isStepCounterAllowed() {
+        return (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) &&
+                (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q);
+    }
+
+    /**
+     * The significant motion sensor is cancelled after it fires, so it is
+     * requested again after each trigger while the updates are running.
+     */
+    private void requestSignificantMotion() {
+        if ((Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) || (senSensorManager == null) || (motionSensor == null)) {
+            return;
+        }
+        if (significantMotionListener == null) {
+            significantMotionListener = new TriggerEventListener() {
+                @Override
+                public void onTrigger(TriggerEvent event) {
+                    appendLog(getBaseContext(), TAG, "Significant motion triggered");
+                    processSensorValues(event.timestamp, event.values);
+                    receiversLock.lock();
+                    try {
+                        if (receiversRegistered) {
+                            requestSignificantMotion();
+                        }
+                    } finally {
+                        receiversLock.unlock();
+                    }
+                }
+            };
+        }
+        appendLog(getBaseContext(), TAG, "Result of requesting significant motion: " +
+                senSensorManager.requestTriggerSensor(significantMotionListener, motionSensor));
+    }
+
     public class SensorLocationUpdateServiceBinder extends Binder {
         SensorLocationUpdateService getService() {
             return SensorLocationUpdateService.this;
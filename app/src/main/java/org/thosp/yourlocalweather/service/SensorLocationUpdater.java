@@ -23,34 +23,22 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
 
     private static final String TAG = "SensorLocationUpdater";
 
-    private static final float REFERENCE_ACCELEROMETER_RESOLUTION = 104.418936291f;
-    private static final float LENGTH_UPDATE_LOCATION_LIMIT = 1500;
-    private static final float LENGTH_UPDATE_LOCATION_SECOND_LIMIT = 10000;
-    private static final float LENGTH_UPDATE_LOCATION_LIMIT_NO_LOCATION = 200;
-    private static final long ACCELEROMETER_UPDATE_TIME_SPAN = 900000l; //15 min
-    private static final long ACCELEROMETER_UPDATE_TIME_SECOND_SPAN = 300000l; //5 min
-    private static final long ACCELEROMETER_UPDATE_TIME_SPAN_NO_LOCATION = 300000l; //5 min
-
-    private volatile long lastUpdate = 0;
-    private volatile float currentLength = 0;
-    private float currentLengthLowPassed = 0;
-    private float gravity[] = new float[3];
-    private MoveVector lastMovement;
+    protected volatile MotionTrigger motionTrigger = new AccelerometerMotionFilter();
     protected float sensorResolutionMultiplayer = 1;
 
     public static volatile boolean autolocationForSensorEventAddressFound;
+    /**
+     * Last update time of the auto location, pushed by the LocationsDbHelper on
+     * change, -1 until it is read from the database
+     */
+    public static volatile long autolocationForSensorEventLastUpdate = -1;
 
     private static volatile boolean processLocationUpdate;
     private static final Queue<LocationUpdateService.LocationUpdateServiceActions> locationUpdateServiceActions = new LinkedList<>();
 
     @Override
     public int onStartCommand(Intent intent, int flags, final int startId) {
-        currentLength = 0;
-        currentLengthLowPassed = 0;
-        lastUpdate = 0;
-        gravity[0] = 0;
-        gravity[1] = 0;
-        gravity[2] = 0;
+        motionTrigger.reset();
         return super.onStartCommand(intent, flags, startId);
     }
     
@@ -67,10 +55,10 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
         try {
             Sensor mySensor = sensorEvent.sensor;
 
-            if (mySensor.getType() != Sensor.TYPE_ACCELEROMETER) {
+            if (mySensor.getType() != motionTrigger.getSensorType()) {
                 return;
             }
-            processSensorEvent(sensorEvent);
+            processSensorValues(sensorEvent.timestamp, sensorEvent.values);
         } catch (Exception e) {
             appendLog(getBaseContext(), TAG, "Exception on onSensorChanged", e);
         }
@@ -80,76 +68,57 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
     public void onAccuracyChanged(Sensor sensor, int i) {
     }
 
-    private void processSensorEvent(SensorEvent sensorEvent) {
-        double countedLength;
-        double countedAcc;
-        long now = sensorEvent.timestamp;
+    protected void processSensorValues(long timestamp, float[] values) {
         try {
-            final float dT = (float) (now - lastUpdate) / 1000000000.0f;
-            lastUpdate = now;
-
-            if (lastMovement != null) {
-                countedAcc = (float) Math.sqrt((lastMovement.getX() * lastMovement.getX()) + (lastMovement.getY() * lastMovement.getY()) + (lastMovement.getZ() * lastMovement.getZ()));
-                countedLength = countedAcc * dT *dT;
-
-                float lowPassConst = 0.1f;
-
-                if ((countedAcc < lowPassConst) || (dT > 1000f)) {
-                    if (dT > 1.0f) {
-                        appendLogSensorsCheck(getBaseContext(),
-                                              TAG,
-                                  "acc under limit",
-                                              currentLength,
-                                              countedLength,
-                                              countedAcc,
-                                              dT);
-                    }
-                    currentLengthLowPassed += countedLength;
-                    lastMovement = highPassFilter(sensorEvent);
-                    return;
+            boolean counted = motionTrigger.addSensorValues(timestamp, values);
+            float dT = motionTrigger.getDeltaTime();
+            if (!counted) {
+                if (dT > 1.0f) {
+                    appendLogSensorsCheck(getBaseContext(),
+                                          TAG,
+                              "acc under limit",
+                                          motionTrigger.getCurrentLength(),
+                                          motionTrigger.getCountedLength(),
+                                          motionTrigger.getCountedAcc(),
+                                          dT);
                 }
-                currentLength += countedLength;
-            } else {
-                countedLength = 0;
-                countedAcc = 0;
+                return;
             }
-            lastMovement = highPassFilter(sensorEvent);
 
-            if ((lastUpdate%1000 < 5) || (countedLength > 10)) {
-                appendLogSensorsCheck(getBaseContext(), TAG, "current", currentLength, countedLength, countedAcc, dT);
+            if ((motionTrigger.getLastUpdate()%1000 < 5) || (motionTrigger.getCountedLength() > 10)) {
+                appendLogSensorsCheck(getBaseContext(),
+                                      TAG,
+                          "current",
+                                      motionTrigger.getCurrentLength(),
+                                      motionTrigger.getCountedLength(),
+                                      motionTrigger.getCountedAcc(),
+                                      dT);
             }
-            float absCurrentLength = Math.abs(currentLength) * (REFERENCE_ACCELEROMETER_RESOLUTION + sensorResolutionMultiplayer);
 
             long lastUpdatedPosition = getLastPossitionUodateTime();
             long nowInMillis = System.currentTimeMillis();
 
-            boolean nowIsBeforeTheLastUpdatedAndTimeSpan = (nowInMillis < (lastUpdatedPosition + ACCELEROMETER_UPDATE_TIME_SPAN));
-            boolean currentLengthIsUnderLimit = (absCurrentLength < LENGTH_UPDATE_LOCATION_LIMIT);
-            boolean nowIsBeforeTheLastUpdatedAndFastTimeSpan = (nowInMillis < (lastUpdatedPosition + ACCELEROMETER_UPDATE_TIME_SECOND_SPAN));
-            boolean currentLengthIsUnderFastLimit = (absCurrentLength < LENGTH_UPDATE_LOCATION_SECOND_LIMIT);
-            boolean nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation = (nowInMillis < (lastUpdatedPosition + ACCELEROMETER_UPDATE_TIME_SPAN_NO_LOCATION));
-            boolean currentLengthIsUnderNoLocationLimit = (absCurrentLength < LENGTH_UPDATE_LOCATION_LIMIT_NO_LOCATION);
-
             if (processLocationUpdate ||
-                    (nowIsBeforeTheLastUpdatedAndTimeSpan || currentLengthIsUnderLimit)
-                 && (nowIsBeforeTheLastUpdatedAndFastTimeSpan || currentLengthIsUnderFastLimit)
-                 && (autolocationForSensorEventAddressFound || nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation || currentLengthIsUnderNoLocationLimit)) {
+                    !motionTrigger.isLocationUpdateNeeded(nowInMillis,
+                                                         lastUpdatedPosition,
+                                                         autolocationForSensorEventAddressFound,
+                                                         sensorResolutionMultiplayer)) {
                 return;
             }
             processLocationUpdate = true;
             appendLogSensorsEnd(getBaseContext(),
                              TAG,
-                             absCurrentLength,
-                             currentLengthLowPassed,
+                             motionTrigger.getAbsCurrentLength(sensorResolutionMultiplayer),
+                             motionTrigger.getCurrentLengthLowPassed(),
                              nowInMillis,
                              lastUpdatedPosition,
-                             nowIsBeforeTheLastUpdatedAndTimeSpan,
-                             currentLengthIsUnderLimit,
-                             nowIsBeforeTheLastUpdatedAndFastTimeSpan,
-                             currentLengthIsUnderFastLimit,
+                             motionTrigger.nowIsBeforeTheLastUpdatedAndTimeSpan,
+                             motionTrigger.currentLengthIsUnderLimit,
+                             motionTrigger.nowIsBeforeTheLastUpdatedAndFastTimeSpan,
+                             motionTrigger.currentLengthIsUnderFastLimit,
                              autolocationForSensorEventAddressFound,
-                             nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation,
-                             currentLengthIsUnderNoLocationLimit);
+                             motionTrigger.nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation,
+                             motionTrigger.currentLengthIsUnderNoLocationLimit);
         } catch (Exception e) {
             appendLog(getBaseContext(), TAG, "Exception when processSensorQueue", e);
             processLocationUpdate = false;
@@ -175,11 +144,7 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
     }
 
     public void clearMeasuredLength() {
-        gravity[0] = 0;
-        gravity[1] = 0;
-        gravity[2] = 0;
-        currentLength = 0;
-        currentLengthLowPassed = 0;
+        motionTrigger.clearMeasuredLength();
     }
 
     protected boolean updateNetworkLocation() {
@@ -196,9 +161,13 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
     }
 
     private long getLastPossitionUodateTime() {
-        LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(getBaseContext().getApplicationContext());
-        org.thosp.yourlocalweather.model.Location currentLocationForSensorEvent = locationsDbHelper.getLocationByOrderId(0);
-        return currentLocationForSensorEvent.getLastLocationUpdate();
+        long lastUpdatedPosition = autolocationForSensorEventLastUpdate;
+        if (lastUpdatedPosition < 0) {
+            LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(getBaseContext().getApplicationContext());
+            lastUpdatedPosition = locationsDbHelper.getLastUpdateLocationTime();
+            autolocationForSensorEventLastUpdate = lastUpdatedPosition;
+        }
+        return lastUpdatedPosition;
     }
 
     private void bindLocationUpdateService() {
@@ -225,11 +194,7 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
             while ((bindedServiceAction = locationUpdateServiceActions.poll()) != null) {
                 if (locationUpdateService.updateNetworkLocation(false, null, 0)) {
                     processLocationUpdate = false;
-                    gravity[0] = 0;
-                    gravity[1] = 0;
-                    gravity[2] = 0;
-                    currentLength = 0;
-                    currentLengthLowPassed = 0;
+                    motionTrigger.clearMeasuredLength();
                 }
             }
         }
@@ -239,36 +204,4 @@ public class SensorLocationUpdater extends AbstractCommonService implements Sens
             locationUpdateService = null;
         }
     };
-
-    private MoveVector highPassFilter(SensorEvent sensorEvent) {
-        final float alpha = 0.8f;
-
-        gravity[0] = alpha * gravity[0] + (1 - alpha) * sensorEvent.values[0];
-        gravity[1] = alpha * gravity[1] + (1 - alpha) * sensorEvent.values[1];
-        gravity[2] = alpha * gravity[2] + (1 - alpha) * sensorEvent.values[2];
-
-        return new MoveVector(sensorEvent.values[0] - gravity[0], sensorEvent.values[1] - gravity[1], sensorEvent.values[2] - gravity[2]);
-    }
-
-    private class MoveVector {
-        private final float x;
-        private final float y;
-        private final float z;
-
-        public MoveVector(float x, float y, float z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-
-        public float getX() {
-            return x;
-        }
-        public float getY() {
-            return y;
-        }
-        public float getZ() {
-            return z;
-        }
-    }
 }
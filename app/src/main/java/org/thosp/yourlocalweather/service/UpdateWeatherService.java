@@ -8,6 +8,7 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
@@ -39,12 +40,14 @@ import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.Constants;
 import org.thosp.yourlocalweather.utils.ForecastUtil;
 import org.thosp.yourlocalweather.utils.GraphUtils;
+import org.thosp.yourlocalweather.utils.Metrics;
 import org.thosp.yourlocalweather.utils.NotificationUtils;
 import org.thosp.yourlocalweather.utils.Utils;
 import org.thosp.yourlocalweather.utils.WidgetUtils;
 
 import java.net.MalformedURLException;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.locks.Lock;
@@ -61,6 +64,7 @@ public class UpdateWeatherService extends AbstractCommonService {
 
     private static final long MIN_WEATHER_UPDATE_TIME_IN_MS = 90L; //15min
     private static final long MAX_WEATHER_UPDATE_TIME_IN_MS = 10800000L; //3H
+    private static final long LICENSED_SERVER_CALL_INTERVAL_IN_MS = 60000L;
 
     public static final int START_CURRENT_WEATHER_UPDATE = 1;
     public static final int START_CURRENT_WEATHER_RETRY = 2;
@@ -81,57 +85,115 @@ public class UpdateWeatherService extends AbstractCommonService {
 
     private static AsyncHttpClient client = new AsyncHttpClient();
 
-    private static volatile boolean gettingWeatherStarted;
+    private static final WeatherRequestDispatcher weatherRequestDispatcher = new WeatherRequestDispatcher();
+
+    private static final WeatherUpdateStatistics updateStatistics = new WeatherUpdateStatistics();
+
+    private static volatile String weatherServerUrl;
+
+    private static final Metrics.Histogram httpTime = Metrics.histogram(Metrics.HTTP_WEATHER);
+
+    static {
+        Metrics.gauge("weatherUpdate.p95Ms", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return updateStatistics.getLatencyPercentileInMs(95);
+            }
+        });
+        Metrics.gauge("weatherUpdate.requests", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return updateStatistics.getRequestCount();
+            }
+        });
+        Metrics.gauge("weatherUpdate.failed", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return updateStatistics.getFailedCount();
+            }
+        });
+        Metrics.gauge("weatherUpdate.coalescedRequests", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherRequestDispatcher.getCoalescedRequestsCount();
+            }
+        });
+    }
 
     private Messenger weatherByVoiceService;
     private Lock weatherByVoiceServiceLock = new ReentrantLock();
     private Queue<Message> weatherByvOiceUnsentMessages = new LinkedList<>();
 
-    protected static final Queue<WeatherRequestDataHolder> updateWeatherUpdateMessages = new LinkedList<>();
-
     final Messenger messenger = new Messenger(new UpdateWeatherMessageHandler());
 
     Handler timerHandler = new Handler();
-    Runnable timerRunnable = new Runnable() {
 
+    private final WeatherRequestDispatcher.RequestPolicy requestPolicy = new WeatherRequestDispatcher.RequestPolicy() {
         @Override
-        public void run() {
-
-            if (!gettingWeatherStarted) {
-                return;
-            }
-            final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(getBaseContext());
+        public String getEndpoint(WeatherRequestDataHolder request) {
+            return getRequestUri(request.getUpdateType(), ApiKeys.isWeatherForecastFeaturesFree(getBaseContext()));
+        }
 
-            WeatherRequestDataHolder updateRequest = updateWeatherUpdateMessages.peek();
-            Location currentLocation = locationsDbHelper.getLocationById(updateRequest.getLocationId());
-            if (currentLocation == null) {
-                appendLog(getBaseContext(), TAG, "timerRunnable, currentLocation is null");
-                return;
-            }
+        @Override
+        public long getMinimumCallIntervalInMs(String endpoint) {
+            return ApiKeys.isWeatherForecastFeaturesFree(getBaseContext()) ? 0 : LICENSED_SERVER_CALL_INTERVAL_IN_MS;
+        }
 
-            String originalUpdateState = currentLocation.getLocationSource();
-            if (originalUpdateState == null) {
-                originalUpdateState = getString(R.string.location_weather_update_status_update_started);
-            }
-            appendLog(getBaseContext(), TAG, "originalUpdateState:", originalUpdateState);
-            String newUpdateState = originalUpdateState;
-            if (originalUpdateState.contains(getString(R.string.location_weather_update_status_location_from_network))) {
-                appendLog(getBaseContext(), TAG, "originalUpdateState contains N");
-                newUpdateState = originalUpdateState.replace(getString(R.string.location_weather_update_status_location_from_network), getString(R.string.location_weather_update_status_location_only));
-            } else if (originalUpdateState.contains(getString(R.string.location_weather_update_status_location_from_gps))) {
-                newUpdateState = getString(R.string.location_weather_update_status_location_only);
+        @Override
+        public long getLastCallTimeInMs(String endpoint) {
+            if (ApiKeys.isWeatherForecastFeaturesFree(getBaseContext())) {
+                return 0;
             }
-            appendLog(getBaseContext(), TAG, "currentLocation:",
-                    currentLocation,
-                    ", newUpdateState:",
-                    newUpdateState);
-            if ((currentLocation != null) && (updateRequest.isUpdateWeatherOnly())) {
-                locationsDbHelper.updateLocationSource(currentLocation.getId(), newUpdateState);
+            LicenseKey licenseKey = LicenseKeysDbHelper.getInstance(getBaseContext()).getLicenseKeyByLocationRequestId(endpoint);
+            if ((licenseKey == null) || (licenseKey.getLastCallTimeInMs() == null)) {
+                return 0;
             }
-            sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), (currentLocation != null)?currentLocation.getId():null, updateRequest.getUpdateType());
+            return licenseKey.getLastCallTimeInMs();
         }
     };
 
+    private Runnable createUpdateTimeoutRunnable(final WeatherRequestDataHolder updateRequest) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+
+                if (!weatherRequestDispatcher.isInFlight(updateRequest)) {
+                    return;
+                }
+                final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(getBaseContext());
+
+                Location currentLocation = locationsDbHelper.getLocationById(updateRequest.getLocationId());
+                if (currentLocation == null) {
+                    appendLog(getBaseContext(), TAG, "timerRunnable, currentLocation is null");
+                    sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), null, updateRequest);
+                    return;
+                }
+
+                String originalUpdateState = currentLocation.getLocationSource();
+                if (originalUpdateState == null) {
+                    originalUpdateState = getString(R.string.location_weather_update_status_update_started);
+                }
+                appendLog(getBaseContext(), TAG, "originalUpdateState:", originalUpdateState);
+                String newUpdateState = originalUpdateState;
+                if (originalUpdateState.contains(getString(R.string.location_weather_update_status_location_from_network))) {
+                    appendLog(getBaseContext(), TAG, "originalUpdateState contains N");
+                    newUpdateState = originalUpdateState.replace(getString(R.string.location_weather_update_status_location_from_network), getString(R.string.location_weather_update_status_location_only));
+                } else if (originalUpdateState.contains(getString(R.string.location_weather_update_status_location_from_gps))) {
+                    newUpdateState = getString(R.string.location_weather_update_status_location_only);
+                }
+                appendLog(getBaseContext(), TAG, "currentLocation:",
+                        currentLocation,
+                        ", newUpdateState:",
+                        newUpdateState);
+                if (updateRequest.isUpdateWeatherOnly()) {
+                    locationsDbHelper.updateLocationSource(currentLocation.getId(), newUpdateState);
+                }
+                sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), currentLocation.getId(), updateRequest);
+            }
+        };
+    }
+
     @Override
     public IBinder onBind(Intent intent) {
         return messenger.getBinder();
@@ -171,39 +233,34 @@ public class UpdateWeatherService extends AbstractCommonService {
             updateType = intent.getIntExtra("updateType", WEATHER_FORECAST_TYPE);
         }
         if (locationId != null) {
-            updateWeatherUpdateMessages.add(new WeatherRequestDataHolder(locationId, updateSource, forceUpdate, updateWeatherOnly, updateType));
+            weatherRequestDispatcher.add(new WeatherRequestDataHolder(locationId, updateSource, forceUpdate, updateWeatherOnly, updateType));
         }
         startWeatherUpdate();
         return ret;
     }
 
     public void startWeatherUpdate() {
-        if (gettingWeatherStarted) {
-            return;
+        long now = System.currentTimeMillis();
+        List<WeatherRequestDataHolder> requestsToStart = weatherRequestDispatcher.dispatch(requestPolicy, now);
+        appendLog(getBaseContext(), TAG, "startWeatherUpdate, requests to start: ", requestsToStart);
+        appendLog(getBaseContext(), TAG, "startWeatherUpdate, requests: ", weatherRequestDispatcher);
+        for (WeatherRequestDataHolder updateRequest: requestsToStart) {
+            startWeatherUpdate(updateRequest);
+        }
+        if (requestsToStart.isEmpty() &&
+                (weatherRequestDispatcher.getRequestsInFlight() == 0) &&
+                weatherRequestDispatcher.hasPendingRequests()) {
+            long delay = weatherRequestDispatcher.getDelayUntilNextAllowedCallInMs(requestPolicy, now);
+            appendLog(getBaseContext(), TAG, "Calls to licensed server are too recent, next attempt in ms:", delay);
+            resendTheIntentInSeveralSeconds((int) Math.max(1, (delay + 999) / 1000));
         }
-        gettingWeatherStarted = true;
-        appendLog(getBaseContext(), TAG, "startCurrentWeatherUpdate");
+    }
+
+    private void startWeatherUpdate(final WeatherRequestDataHolder updateRequest) {
+        appendLog(getBaseContext(), TAG, "startCurrentWeatherUpdate:", updateRequest);
         final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(getBaseContext());
         final LicenseKeysDbHelper licenseKeysDbHelper = LicenseKeysDbHelper.getInstance(getBaseContext());
 
-        appendLog(getBaseContext(),
-                TAG,
-                "currentWeatherUpdateMessages.size before peek = ", updateWeatherUpdateMessages);
-
-        final WeatherRequestDataHolder updateRequest = updateWeatherUpdateMessages.peek();
-
-        appendLog(getBaseContext(),
-                TAG,
-                "currentWeatherUpdateMessages.size after peek = ", updateWeatherUpdateMessages);
-
-        if (updateRequest == null) {
-            appendLog(getBaseContext(),
-                    TAG,
-                    "updateRequest is null");
-            gettingWeatherStarted = false;
-            return;
-        }
-
         final int updateType = updateRequest.getUpdateType();
 
         Location locationToCheck = locationsDbHelper.getLocationById(updateRequest.getLocationId());
@@ -212,11 +269,7 @@ public class UpdateWeatherService extends AbstractCommonService {
             appendLog(getBaseContext(),
                     TAG,
                     "current location is null");
-            updateWeatherUpdateMessages.poll();
-            appendLog(getBaseContext(),
-                    TAG,
-                    "currentWeatherUpdateMessages.size when current location is null = ", updateWeatherUpdateMessages);
-            gettingWeatherStarted = false;
+            weatherRequestDispatcher.finished(updateRequest);
             startWeatherUpdate();
             return;
         }
@@ -276,13 +329,10 @@ public class UpdateWeatherService extends AbstractCommonService {
             appendLog(getBaseContext(),
                     TAG,
                     "Current weather is recent enough");
-            WeatherRequestDataHolder request = updateWeatherUpdateMessages.poll();
+            List<WeatherRequestDataHolder> waitingRequests = weatherRequestDispatcher.finished(updateRequest);
             sendMessageToReconciliationDbService(false);
             WidgetUtils.updateWidgets(this);
-            gettingWeatherStarted = false;
-            if (request != null) {
-                updateResultInUI(request.getLocationId(), ACTION_WEATHER_UPDATE_OK, updateRequest);
-            }
+            updateResultInUI(updateRequest.getLocationId(), ACTION_WEATHER_UPDATE_OK, updateRequest, waitingRequests);
             startWeatherUpdate();
             return;
         }
@@ -301,48 +351,43 @@ public class UpdateWeatherService extends AbstractCommonService {
                 }
                 appendLog(getBaseContext(),
                         TAG,
-                        "currentWeatherUpdateMessages.size when attempts is more than 2 = ",
-                        updateWeatherUpdateMessages);
-                sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), locationToCheck.getId(), updateType);
+                        "attempts is more than 2: ",
+                        weatherRequestDispatcher);
+                sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), locationToCheck.getId(), updateRequest);
                 return;
             }
             updateRequest.increaseAttempts();
             resendTheIntentInSeveralSeconds(20);
-            gettingWeatherStarted = false;
-            sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), locationToCheck.getId(), updateType);
+            sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), locationToCheck.getId(), updateRequest);
             return;
         }
 
         boolean freeWeather = ApiKeys.isWeatherForecastFeaturesFree(getBaseContext());
 
         final String serviceURL;
-        String requestUri = null;
+        final String requestUri = getRequestUri(updateType, freeWeather);
         if (isCurrentWeather(updateType)) {
             if (freeWeather) {
                 serviceURL = Constants.WEATHER_ENDPOINT;
             } else {
                 serviceURL = Constants.SERVICE_WEATHER_ENDPOINT;
             }
-            requestUri = "weather";
         } else if (isWeatherForecast(updateType)) {
             if (freeWeather) {
                 serviceURL = Constants.WEATHER_FORECAST_ENDPOINT;
             } else {
                 serviceURL = Constants.SERVICE_WEATHER_FORECAST_ENDPOINT;
             }
-            requestUri = "forecast";
         } else if (isLongWeatherForecast(updateType)) {
             if (freeWeather) {
                 serviceURL = Constants.WEATHER_FORECAST_ENDPOINT;
-                requestUri = "forecast";
             } else {
                 serviceURL = Constants.SERVICE_WEATHER_FORECAST_ENDPOINT_DAILY;
-                requestUri = "forecast/daily";
             }
         } else {
             appendLog(getBaseContext(), TAG, "serviceURL is null !!!");
-            gettingWeatherStarted = false;
-            updateWeatherUpdateMessages.poll();
+            weatherRequestDispatcher.finished(updateRequest);
+            startWeatherUpdate();
             return;
         }
 
@@ -353,8 +398,7 @@ public class UpdateWeatherService extends AbstractCommonService {
                 appendLog(getBaseContext(), TAG, "LicenseKey last call time in ms:", licenseKey.getLastCallTimeInMs());
                 appendLog(getBaseContext(), TAG, "Last call to licensed server is too recent.");
                 resendTheIntentInSeveralSeconds(10);
-                gettingWeatherStarted = false;
-                sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), locationToCheck.getId(), updateType);
+                sendResult(ACTION_WEATHER_UPDATE_FAIL, getBaseContext(), locationToCheck.getId(), updateRequest);
                 return;
             }
             license = ApiKeys.getLicenseKey(getBaseContext(), licenseKey);
@@ -369,7 +413,8 @@ public class UpdateWeatherService extends AbstractCommonService {
         }
         final Location currentLocation = locationToCheck;
 
-        timerHandler.postDelayed(timerRunnable, 20000);
+        final Runnable updateTimeoutRunnable = createUpdateTimeoutRunnable(updateRequest);
+        timerHandler.postDelayed(updateTimeoutRunnable, 20000);
         final Context context = this;
         appendLog(getBaseContext(), TAG, "startRefreshRotation");
 
@@ -403,9 +448,11 @@ public class UpdateWeatherService extends AbstractCommonService {
                         );
                     }
 
+                    weatherRequestDispatcher.callStarted(requestUri, System.currentTimeMillis());
+                    final long requestStart = System.nanoTime();
                     client.get(Utils.getOwmUrl(
                             context,
-                            serviceURL,
+                            getServerUrl(serviceURL),
                             currentLocation,
                             "metric",
                             locale,
@@ -418,11 +465,15 @@ public class UpdateWeatherService extends AbstractCommonService {
 
                         @Override
                         public void onSuccess(int statusCode, Header[] headers, byte[] response) {
+                            httpTime.recordSince(requestStart);
+                            if (!weatherRequestDispatcher.isInFlight(updateRequest)) {
+                                appendLog(context, TAG, "Late result of a finished request is ignored:", updateRequest);
+                                return;
+                            }
                             try {
-                                String weatherRaw = new String(response);
-                                appendLog(context, TAG, "weather got, result:", weatherRaw);
+                                appendLog(context, TAG, "weather got, result:", response);
 
-                                timerHandler.removeCallbacksAndMessages(null);
+                                timerHandler.removeCallbacks(updateTimeoutRunnable);
 
                                 final String locale = currentLocation.getLocaleAbbrev();
 
@@ -431,35 +482,35 @@ public class UpdateWeatherService extends AbstractCommonService {
                                     appendLog(context, TAG, "Current weather type");
                                     Weather weather;
                                     if (ApiKeys.isWeatherForecastFeaturesFree(context)) {
-                                        weather = WeatherJSONParser.getWeather(weatherRaw, locale);
+                                        weather = WeatherJSONParser.getWeather(response, locale);
                                     } else {
-                                        WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(weatherRaw);
+                                        WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(response);
                                         licenseKeysDbHelper.updateToken("weather", parseResult.getToken());
                                         appendLog(getBaseContext(), TAG, "new token for weather:" + parseResult.getToken());
                                         weather = WeatherJSONParser.getWeather(parseResult.getOwmResponse(), locale);
                                     }
-                                    saveWeatherAndSendResult(context, weather, currentLocation, updateType);
+                                    saveWeatherAndSendResult(context, weather, currentLocation, updateRequest);
                                 } else if (isWeatherForecast(updateType)) {
                                     appendLog(context, TAG, "Weather forecast type");
                                     CompleteWeatherForecast completeWeatherForecast;
                                     if (ApiKeys.isWeatherForecastFeaturesFree(context)) {
-                                        completeWeatherForecast = WeatherJSONParser.getWeatherForecast(weatherRaw);
+                                        completeWeatherForecast = WeatherJSONParser.getWeatherForecast(response);
                                     } else {
-                                        WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(weatherRaw);
+                                        WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(response);
                                         licenseKeysDbHelper.updateToken("forecast", parseResult.getToken());
                                         appendLog(getBaseContext(), TAG, "new token for forecast:" + parseResult.getToken());
                                         completeWeatherForecast = WeatherJSONParser.getWeatherForecast(parseResult.getOwmResponse());
                                     }
-                                    saveWeatherAndSendResult(context, completeWeatherForecast, WEATHER_FORECAST_TYPE, updateType);
+                                    saveWeatherAndSendResult(context, completeWeatherForecast, WEATHER_FORECAST_TYPE, updateRequest);
                                 } else if (isLongWeatherForecast(updateType)) {
                                     appendLog(context, TAG, "Weather long forecast type");
-                                    WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(weatherRaw);
+                                    WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(response);
                                     licenseKeysDbHelper.updateToken("forecast/daily", parseResult.getToken());
                                     appendLog(getBaseContext(), TAG, "new token for forecast/daily:" + parseResult.getToken());
                                     CompleteWeatherForecast completeWeatherForecast = WeatherJSONParser.getLongWeatherForecast(parseResult.getOwmResponse());
-                                    saveWeatherAndSendResult(context, completeWeatherForecast, LONG_WEATHER_FORECAST_TYPE, updateType);
+                                    saveWeatherAndSendResult(context, completeWeatherForecast, LONG_WEATHER_FORECAST_TYPE, updateRequest);
                                 } else {
-                                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType);
+                                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest);
                                 }
 
                             } catch (TooEarlyUpdateException teue) {
@@ -468,15 +519,15 @@ public class UpdateWeatherService extends AbstractCommonService {
                                             currentLocation.getId(),
                                             getString(R.string.location_weather_update_status_too_early_update));
                                 //}
-                                timerHandler.removeCallbacksAndMessages(null);
+                                timerHandler.removeCallbacks(updateTimeoutRunnable);
                                 resendTheIntentInSeveralSeconds(70);
-                                sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType);
+                                sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest);
                             } catch (LicenseNotValidException lnve) {
                                 if ((license == null) || license.equals(ApiKeys.getInitialLicenseKey(getBaseContext()))) {
-                                    timerHandler.removeCallbacksAndMessages(null);
+                                    timerHandler.removeCallbacks(updateTimeoutRunnable);
                                     locationsDbHelper.updateLastUpdatedAndLocationSource(currentLocation.getId(),
                                             System.currentTimeMillis(), "$");
-                                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType);
+                                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest);
                                 } else {
                                     appendLog(context, TAG, "license not valid, going to try it by initial license key");
                                     if (isCurrentWeather(updateType)) {
@@ -486,21 +537,26 @@ public class UpdateWeatherService extends AbstractCommonService {
                                     } else if (isLongWeatherForecast(updateType)) {
                                         licenseKeysDbHelper.updateToken("forecast/daily", null);
                                     }
-                                    timerHandler.removeCallbacksAndMessages(null);
+                                    timerHandler.removeCallbacks(updateTimeoutRunnable);
                                     resendTheIntentInSeveralSeconds(5);
-                                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType);
+                                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest);
                                 }
                             } catch (JSONException e) {
                                 appendLog(context, TAG, "JSONException:", e);
-                                timerHandler.removeCallbacksAndMessages(null);
-                                sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType);
+                                timerHandler.removeCallbacks(updateTimeoutRunnable);
+                                sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest);
                             }
                         }
 
                         @Override
                         public void onFailure(int statusCode, Header[] headers, byte[] errorResponse, Throwable e) {
+                            httpTime.recordSince(requestStart);
+                            if (!weatherRequestDispatcher.isInFlight(updateRequest)) {
+                                appendLog(context, TAG, "Late result of a finished request is ignored:", updateRequest);
+                                return;
+                            }
                             appendLog(context, TAG, "onFailure:", statusCode, ":currentLocation=", currentLocation);
-                            timerHandler.removeCallbacksAndMessages(null);
+                            timerHandler.removeCallbacks(updateTimeoutRunnable);
                             Long nextAllowedAttemptToUpdateTime = null;
                             if (currentLocation != null) {
                                 final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(getBaseContext());
@@ -524,7 +580,7 @@ public class UpdateWeatherService extends AbstractCommonService {
                                         break;
                                 }
                             }
-                            sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType, nextAllowedAttemptToUpdateTime);
+                            sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest, nextAllowedAttemptToUpdateTime);
                         }
 
                         @Override
@@ -534,7 +590,7 @@ public class UpdateWeatherService extends AbstractCommonService {
                     });
                 } catch (MalformedURLException mue) {
                     appendLog(context, TAG, "MalformedURLException:", mue);
-                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateType);
+                    sendResult(ACTION_WEATHER_UPDATE_FAIL, context, currentLocation.getId(), updateRequest);
                 }
             }
         };
@@ -545,8 +601,8 @@ public class UpdateWeatherService extends AbstractCommonService {
         return new Double((MAX_WEATHER_UPDATE_TIME_IN_MS * Math.random()*100)/100).longValue();
     }
 
-    private void sendResult(String result, Context context, Long locationId, int updateType) {
-        sendResult(result, context, locationId, updateType, null);
+    private void sendResult(String result, Context context, Long locationId, WeatherRequestDataHolder updateRequest) {
+        sendResult(result, context, locationId, updateRequest, null);
     }
 
     private void updateNextAllowedAttemptToUpdateTimeForUpdate(Context context, Long locationId, int updateType, Long nextAllowedAttemptToUpdateTime) {
@@ -563,16 +619,28 @@ public class UpdateWeatherService extends AbstractCommonService {
         weatherForecastDbHelper.updateNextAllowedAttemptToUpdateTime(locationId, LONG_WEATHER_FORECAST_TYPE, nextAllowedAttemptToUpdateTimeForUpdate);
     }
 
-    private void sendResult(String result, Context context, Long locationId, int updateType, Long nextAllowedAttemptToUpdateTime) {
+    private void sendResult(String result, Context context, Long locationId, WeatherRequestDataHolder updateRequest, Long nextAllowedAttemptToUpdateTime) {
+        if (!weatherRequestDispatcher.isInFlight(updateRequest)) {
+            appendLog(context, TAG, "Result of a finished request is ignored:", updateRequest);
+            return;
+        }
+        int updateType = updateRequest.getUpdateType();
         if (ACTION_WEATHER_UPDATE_FAIL.equals(result) && (locationId != null)) {
             updateNextAllowedAttemptToUpdateTimeForUpdate(context, locationId, updateType, nextAllowedAttemptToUpdateTime);
         }
+        List<WeatherRequestDataHolder> waitingRequests = weatherRequestDispatcher.finished(updateRequest);
+        updateStatistics.addUpdate(ACTION_WEATHER_UPDATE_OK.equals(result),
+                System.currentTimeMillis() - updateRequest.getTimestamp());
+        boolean freeWeather = ApiKeys.isWeatherForecastFeaturesFree(context);
         if (isCurrentWeather(updateType)) {
-            sendMessageToWakeUpService(
-                    AppWakeUpManager.FALL_DOWN,
-                    AppWakeUpManager.SOURCE_CURRENT_WEATHER
-            );
-        } else {
+            if (weatherRequestDispatcher.getRequestsInFlight(getRequestUri(START_CURRENT_WEATHER_UPDATE, freeWeather)) == 0) {
+                sendMessageToWakeUpService(
+                        AppWakeUpManager.FALL_DOWN,
+                        AppWakeUpManager.SOURCE_CURRENT_WEATHER
+                );
+            }
+        } else if ((weatherRequestDispatcher.getRequestsInFlight(getRequestUri(START_WEATHER_FORECAST_UPDATE, freeWeather)) == 0) &&
+                (weatherRequestDispatcher.getRequestsInFlight(getRequestUri(START_LONG_WEATHER_FORECAST_UPDATE, freeWeather)) == 0)) {
             sendMessageToWakeUpService(
                     AppWakeUpManager.FALL_DOWN,
                     AppWakeUpManager.SOURCE_WEATHER_FORECAST
@@ -580,19 +648,18 @@ public class UpdateWeatherService extends AbstractCommonService {
         }
         NotificationUtils.cancelNotification(getBaseContext(), 1);
 
-        gettingWeatherStarted = false;
-        WeatherRequestDataHolder updateRequest = updateWeatherUpdateMessages.poll();
         appendLog(getBaseContext(),
                   TAG,
                 "Update request: " + updateRequest);
         appendLog(getBaseContext(),
                   TAG,
-                "currentWeatherUpdateMessages.size after pull when sending result = ", updateWeatherUpdateMessages);
+                "requests after sending result = ", weatherRequestDispatcher);
+        appendLog(getBaseContext(),
+                  TAG,
+                "update statistics = ", updateStatistics);
         try {
-            updateResultInUI(locationId, result, updateRequest);
-            if (!updateWeatherUpdateMessages.isEmpty()) {
-                resendTheIntentInSeveralSeconds(5);
-            }
+            updateResultInUI(locationId, result, updateRequest, waitingRequests);
+            startWeatherUpdate();
             WidgetUtils.updateWidgets(getBaseContext());
             sendMessageToReconciliationDbService(false);
         } catch (Throwable exception) {
@@ -600,12 +667,15 @@ public class UpdateWeatherService extends AbstractCommonService {
         }
     }
 
-    private void updateResultInUI(Long locationId, String result, WeatherRequestDataHolder updateRequest) {
+    private void updateResultInUI(Long locationId,
+                                  String result,
+                                  WeatherRequestDataHolder updateRequest,
+                                  List<WeatherRequestDataHolder> waitingRequests) {
         if (updateRequest == null) {
             return;
         }
         int updateType = updateRequest.getUpdateType();
-        appendLog(getBaseContext(), TAG, "Sending result with updateType:", updateType);
+        appendLog(getBaseContext(), TAG, "Sending result with updateType:", updateType, ", to requests:", waitingRequests.size());
         if (isCurrentWeather(updateType)) {
             sendIntentToMain(result);
         } else if (isWeatherForecast(updateType) || isLongWeatherForecast(updateType)) {
@@ -613,11 +683,17 @@ public class UpdateWeatherService extends AbstractCommonService {
             sendIntentToGraphs(result);
         }
         if (ACTION_WEATHER_UPDATE_OK.equals(result)) {
-            weatherNotification(locationId, updateRequest.getUpdateSource());
+            String updateSource = updateRequest.getUpdateSource();
+            for (WeatherRequestDataHolder waitingRequest: waitingRequests) {
+                if ("NOTIFICATION".equals(waitingRequest.getUpdateSource())) {
+                    updateSource = waitingRequest.getUpdateSource();
+                }
+            }
+            weatherNotification(locationId, updateSource);
         }
     }
 
-    private void saveWeatherAndSendResult(Context context, Weather weather, Location location, int updateType) {
+    private void saveWeatherAndSendResult(Context context, Weather weather, Location location, WeatherRequestDataHolder updateRequest) {
         final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
         appendLog(getBaseContext(), TAG, "saveWeatherAndSendResult:locationId:", location.getId());
         String locationSource = location.getLocationSource();
@@ -635,22 +711,16 @@ public class UpdateWeatherService extends AbstractCommonService {
         long now = System.currentTimeMillis();
         final CurrentWeatherDbHelper currentWeatherDbHelper = CurrentWeatherDbHelper.getInstance(context);
         currentWeatherDbHelper.saveWeather(location.getId(), now, now + MIN_WEATHER_UPDATE_TIME_IN_MS, weather);
+        updateStatistics.addDbWrite();
 
         sendMessageToWeatherByVoiceService(location, weather, now);
         locationsDbHelper.updateLastUpdatedAndLocationSource(location.getId(), now, locationSource);
-        sendResult(ACTION_WEATHER_UPDATE_OK, context, location.getId(), updateType);
+        sendResult(ACTION_WEATHER_UPDATE_OK, context, location.getId(), updateRequest);
     }
 
-    private void saveWeatherAndSendResult(Context context, CompleteWeatherForecast completeWeatherForecast, int forecastType, int updateType) {
+    private void saveWeatherAndSendResult(Context context, CompleteWeatherForecast completeWeatherForecast, int forecastType, WeatherRequestDataHolder updateRequest) {
         WeatherForecastDbHelper weatherForecastDbHelper = WeatherForecastDbHelper.getInstance(context);
         long lastUpdate = System.currentTimeMillis();
-        WeatherRequestDataHolder updateRequest = updateWeatherUpdateMessages.peek();
-        if (updateRequest == null) {
-            appendLog(context,
-                    TAG,
-                    "Update request is null");
-            return;
-        }
         appendLog(context,
                 TAG,
                 "Going to store forecast for locationId: ",
@@ -660,14 +730,16 @@ public class UpdateWeatherService extends AbstractCommonService {
                 lastUpdate,
                 lastUpdate + MIN_WEATHER_UPDATE_TIME_IN_MS,
                 completeWeatherForecast);
+        updateStatistics.addDbWrite();
         appendLog(context,
                 TAG,
                 "Forecast has been saved");
-        GraphUtils.invalidateGraph();
+        GraphUtils.invalidateGraphsOfLocation(updateRequest.getLocationId());
         appendLog(context,
                 TAG,
                 "Graphs invalidated");
-        sendResult(ACTION_WEATHER_UPDATE_OK, context, updateRequest.getLocationId(), updateType);
+        Utils.prewarmWeatherIcons(context, completeWeatherForecast);
+        sendResult(ACTION_WEATHER_UPDATE_OK, context, updateRequest.getLocationId(), updateRequest);
 
         appendLog(context,
                 TAG,
@@ -718,6 +790,38 @@ public class UpdateWeatherService extends AbstractCommonService {
         }
     }
 
+    public static WeatherUpdateStatistics getUpdateStatistics() {
+        return updateStatistics;
+    }
+
+    /**
+     * Sends the requests to the server at the URL, with the paths of the
+     * endpoints, instead of the weather servers. The benchmarks replay the
+     * responses on a local server with it, null restores the weather servers.
+     */
+    public static void setWeatherServerUrl(String serverUrl) {
+        weatherServerUrl = serverUrl;
+    }
+
+    private static String getServerUrl(String endpoint) {
+        String serverUrl = weatherServerUrl;
+        if (serverUrl == null) {
+            return endpoint;
+        }
+        return serverUrl + Uri.parse(endpoint).getPath();
+    }
+
+    private String getRequestUri(int updateType, boolean freeWeather) {
+        if (isCurrentWeather(updateType)) {
+            return "weather";
+        } else if (isWeatherForecast(updateType)) {
+            return "forecast";
+        } else if (isLongWeatherForecast(updateType)) {
+            return freeWeather ? "forecast" : "forecast/daily";
+        }
+        return null;
+    }
+
     private boolean isCurrentWeather(int updateType) {
         return (START_CURRENT_WEATHER_UPDATE == updateType) || (START_CURRENT_WEATHER_RETRY == updateType);
     }
@@ -825,14 +929,12 @@ public class UpdateWeatherService extends AbstractCommonService {
         public void handleMessage(Message msg) {
             WeatherRequestDataHolder weatherRequestDataHolder = (WeatherRequestDataHolder) msg.obj;
             appendLog(getBaseContext(), TAG, "handleMessage:", msg.what, ":", weatherRequestDataHolder);
-            if ((weatherRequestDataHolder == null) && (updateWeatherUpdateMessages.isEmpty())) {
+            if ((weatherRequestDataHolder == null) && weatherRequestDispatcher.isEmpty()) {
                 return;
-            } else if (weatherRequestDataHolder == null) {
-                weatherRequestDataHolder = updateWeatherUpdateMessages.poll();
             }
             appendLog(getBaseContext(),
                     TAG,
-                    "currentWeatherUpdateMessages.size when adding new message = ", updateWeatherUpdateMessages);
+                    "requests when adding new message = ", weatherRequestDispatcher);
             switch (msg.what) {
                 case START_PROCESS_CURRENT_QUEUE:
                 case START_LONG_WEATHER_FORECAST_RETRY:
@@ -841,8 +943,8 @@ public class UpdateWeatherService extends AbstractCommonService {
                 case START_WEATHER_FORECAST_UPDATE:
                 case START_CURRENT_WEATHER_UPDATE:
                 case START_LONG_WEATHER_FORECAST_UPDATE:
-                    if (!updateWeatherUpdateMessages.contains(weatherRequestDataHolder)) {
-                        updateWeatherUpdateMessages.add(weatherRequestDataHolder);
+                    if (weatherRequestDataHolder != null) {
+                        weatherRequestDispatcher.add(weatherRequestDataHolder);
                     }
                     startWeatherUpdate();
                     break;
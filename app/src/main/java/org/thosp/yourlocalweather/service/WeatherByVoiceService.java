@@ -21,6 +21,7 @@ import org.thosp.yourlocalweather.model.VoiceSettingParametersDbHelper;
 import org.thosp.yourlocalweather.model.Weather;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.ForecastUtil;
+import org.thosp.yourlocalweather.utils.Metrics;
 import org.thosp.yourlocalweather.utils.PreferenceUtil;
 import org.thosp.yourlocalweather.utils.TemperatureUtil;
 import org.thosp.yourlocalweather.utils.TimeUtils;
@@ -50,6 +51,7 @@ public class WeatherByVoiceService extends Service {
     private static String TTS_DELAY_BETWEEN_ITEM = "...---...";
     private static String TTS_END = "_________";
     private static long TTS_DELAY_BETWEEN_ITEM_IN_MS = 200;
+    private static final Metrics.Histogram voiceForecastTime = Metrics.histogram(Metrics.VOICE_FORECAST);
 
     private static final Queue<WeatherByVoiceRequestDataHolder> weatherByVoiceMessages = new LinkedList<>();
     final Messenger messenger = new Messenger(new WeatherByVoiceMessageHandler());
@@ -247,6 +249,7 @@ public class WeatherByVoiceService extends Service {
                                    Long voiceSettingId,
                                    boolean initiatedFromBtDevice) {
         appendLog(getBaseContext(), TAG, "sayCurrentWeather voiceSettingIdFromSettings: " + voiceSettingId + ":" + now + ":" + currentLocation);
+        long preparationStart = System.nanoTime();
         Long voiceSettingIdFromSettings = isAnySettingValidToTellWeather(voiceSettingId, initiatedFromBtDevice);
         appendLog(getBaseContext(), TAG, "sayCurrentWeather voiceSettingIdFromSettings: " + voiceSettingIdFromSettings);
         if (voiceSettingIdFromSettings == null) {
@@ -493,6 +496,7 @@ public class WeatherByVoiceService extends Service {
             }
         }
         textToSay.add(TTS_END);
+        voiceForecastTime.recordSince(preparationStart);
         sayWeather(textToSay);
     }
 
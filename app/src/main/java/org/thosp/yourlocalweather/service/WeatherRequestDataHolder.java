@@ -41,6 +41,20 @@ public class WeatherRequestDataHolder implements Serializable {
         this.updateType = updateType;
     }
 
+    private WeatherRequestDataHolder(WeatherRequestDataHolder first, WeatherRequestDataHolder second) {
+        this.locationId = first.locationId;
+        this.updateSource = (first.updateSource != null) ? first.updateSource : second.updateSource;
+        this.attempts = Math.max(first.attempts, second.attempts);
+        this.timestamp = Math.min(first.timestamp, second.timestamp);
+        this.forceUpdate = first.forceUpdate || second.forceUpdate;
+        this.updateWeatherOnly = first.updateWeatherOnly || second.updateWeatherOnly;
+        this.updateType = first.updateType;
+    }
+
+    public WeatherRequestDataHolder mergeWith(WeatherRequestDataHolder request) {
+        return new WeatherRequestDataHolder(this, request);
+    }
+
     public void increaseAttempts() {
         attempts++;
     }
@@ -0,0 +1,257 @@
+package org.thosp.yourlocalweather.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which of the queued weather requests may be sent right now. At most
+ * maxRequestsInFlight requests run at once, at most maxRequestsInFlightPerEndpoint
+ * of them against one endpoint, and an endpoint with a minimum call interval
+ * (licensed server) is not called again before the interval is over.
+ *
+ * Requests for the same location and update type are coalesced into one request
+ * with the strongest flags, all the original requests are returned as waiters
+ * when the coalesced request is finished. A request with stronger flags than the
+ * request in flight is queued to be sent after it.
+ *
+ * A request is finished only by the instance that was dispatched, a late call for
+ * a request that was already finished (e.g. after a timeout) does not finish a
+ * newer request in flight for the same location and update type.
+ */
+public class WeatherRequestDispatcher {
+
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 4;
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT_PER_ENDPOINT = 2;
+
+    public interface RequestPolicy {
+        String getEndpoint(WeatherRequestDataHolder request);
+        long getMinimumCallIntervalInMs(String endpoint);
+        long getLastCallTimeInMs(String endpoint);
+    }
+
+    private final int maxRequestsInFlight;
+    private final int maxRequestsInFlightPerEndpoint;
+    private final Map<RequestKey, WeatherRequestDataHolder> pendingRequests = new LinkedHashMap<>();
+    private final Map<RequestKey, String> requestsInFlight = new HashMap<>();
+    private final Map<RequestKey, WeatherRequestDataHolder> inFlightRequests = new HashMap<>();
+    private final Map<RequestKey, List<WeatherRequestDataHolder>> waitingRequests = new HashMap<>();
+    private final Map<RequestKey, List<WeatherRequestDataHolder>> pendingWaitingRequests = new HashMap<>();
+    private final Map<String, Integer> requestsInFlightPerEndpoint = new HashMap<>();
+    private final Map<String, Long> lastCallTimePerEndpoint = new HashMap<>();
+    private long receivedRequestsCount;
+    private long coalescedRequestsCount;
+
+    public WeatherRequestDispatcher() {
+        this(DEFAULT_MAX_REQUESTS_IN_FLIGHT, DEFAULT_MAX_REQUESTS_IN_FLIGHT_PER_ENDPOINT);
+    }
+
+    public WeatherRequestDispatcher(int maxRequestsInFlight, int maxRequestsInFlightPerEndpoint) {
+        this.maxRequestsInFlight = maxRequestsInFlight;
+        this.maxRequestsInFlightPerEndpoint = maxRequestsInFlightPerEndpoint;
+    }
+
+    public synchronized boolean add(WeatherRequestDataHolder request) {
+        RequestKey requestKey = new RequestKey(request);
+        receivedRequestsCount++;
+        WeatherRequestDataHolder inFlightRequest = inFlightRequests.get(requestKey);
+        if ((inFlightRequest != null) && !hasStrongerFlags(request, inFlightRequest)) {
+            coalescedRequestsCount++;
+            addWaiter(waitingRequests, requestKey, request);
+            return false;
+        }
+        addWaiter(pendingWaitingRequests, requestKey, request);
+        WeatherRequestDataHolder pendingRequest = pendingRequests.get(requestKey);
+        if (pendingRequest != null) {
+            coalescedRequestsCount++;
+            pendingRequests.put(requestKey, pendingRequest.mergeWith(request));
+            return false;
+        }
+        pendingRequests.put(requestKey, request);
+        return true;
+    }
+
+    public synchronized List<WeatherRequestDataHolder> dispatch(RequestPolicy requestPolicy, long now) {
+        List<WeatherRequestDataHolder> requestsToStart = new ArrayList<>();
+        Iterator<Map.Entry<RequestKey, WeatherRequestDataHolder>> pendingIterator = pendingRequests.entrySet().iterator();
+        while (pendingIterator.hasNext() && (requestsInFlight.size() < maxRequestsInFlight)) {
+            Map.Entry<RequestKey, WeatherRequestDataHolder> pendingRequest = pendingIterator.next();
+            WeatherRequestDataHolder request = pendingRequest.getValue();
+            if (requestsInFlight.containsKey(pendingRequest.getKey())) {
+                continue;
+            }
+            String endpoint = requestPolicy.getEndpoint(request);
+            if (endpoint == null) {
+                pendingIterator.remove();
+                startRequest(pendingRequest.getKey(), request, null);
+                requestsToStart.add(request);
+                continue;
+            }
+            if (getRequestsInFlight(endpoint) >= maxRequestsInFlightPerEndpoint) {
+                continue;
+            }
+            long minimumCallInterval = requestPolicy.getMinimumCallIntervalInMs(endpoint);
+            if (minimumCallInterval > 0) {
+                if (getRequestsInFlight(endpoint) > 0) {
+                    continue;
+                }
+                if (now <= (getLastCallTime(requestPolicy, endpoint) + minimumCallInterval)) {
+                    continue;
+                }
+            }
+            pendingIterator.remove();
+            startRequest(pendingRequest.getKey(), request, endpoint);
+            requestsInFlightPerEndpoint.put(endpoint, getRequestsInFlight(endpoint) + 1);
+            requestsToStart.add(request);
+        }
+        return requestsToStart;
+    }
+
+    public synchronized List<WeatherRequestDataHolder> finished(WeatherRequestDataHolder request) {
+        List<WeatherRequestDataHolder> waiters = new ArrayList<>();
+        if (request == null) {
+            return waiters;
+        }
+        RequestKey requestKey = new RequestKey(request);
+        if (inFlightRequests.get(requestKey) != request) {
+            return waiters;
+        }
+        String endpoint = requestsInFlight.remove(requestKey);
+        inFlightRequests.remove(requestKey);
+        List<WeatherRequestDataHolder> requestWaiters = waitingRequests.remove(requestKey);
+        if (requestWaiters != null) {
+            waiters.addAll(requestWaiters);
+        }
+        if (endpoint == null) {
+            return waiters;
+        }
+        int endpointRequestsInFlight = getRequestsInFlight(endpoint) - 1;
+        if (endpointRequestsInFlight > 0) {
+            requestsInFlightPerEndpoint.put(endpoint, endpointRequestsInFlight);
+        } else {
+            requestsInFlightPerEndpoint.remove(endpoint);
+        }
+        return waiters;
+    }
+
+    public synchronized void callStarted(String endpoint, long now) {
+        lastCallTimePerEndpoint.put(endpoint, now);
+    }
+
+    public synchronized long getDelayUntilNextAllowedCallInMs(RequestPolicy requestPolicy, long now) {
+        long delay = Long.MAX_VALUE;
+        for (WeatherRequestDataHolder request: pendingRequests.values()) {
+            String endpoint = requestPolicy.getEndpoint(request);
+            if (endpoint == null) {
+                return 0;
+            }
+            long nextAllowedCallTime = getLastCallTime(requestPolicy, endpoint) +
+                    requestPolicy.getMinimumCallIntervalInMs(endpoint) + 1;
+            delay = Math.min(delay, Math.max(0, nextAllowedCallTime - now));
+        }
+        return (delay == Long.MAX_VALUE) ? 0 : delay;
+    }
+
+    public synchronized boolean isInFlight(WeatherRequestDataHolder request) {
+        return (request != null) && (inFlightRequests.get(new RequestKey(request)) == request);
+    }
+
+    public synchronized int getRequestsInFlight(String endpoint) {
+        Integer endpointRequestsInFlight = requestsInFlightPerEndpoint.get(endpoint);
+        return (endpointRequestsInFlight != null) ? endpointRequestsInFlight : 0;
+    }
+
+    public synchronized int getRequestsInFlight() {
+        return requestsInFlight.size();
+    }
+
+    public synchronized long getReceivedRequestsCount() {
+        return receivedRequestsCount;
+    }
+
+    public synchronized long getCoalescedRequestsCount() {
+        return coalescedRequestsCount;
+    }
+
+    public synchronized boolean hasPendingRequests() {
+        return !pendingRequests.isEmpty();
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingRequests.isEmpty() && requestsInFlight.isEmpty();
+    }
+
+    private void startRequest(RequestKey requestKey, WeatherRequestDataHolder request, String endpoint) {
+        requestsInFlight.put(requestKey, endpoint);
+        inFlightRequests.put(requestKey, request);
+        List<WeatherRequestDataHolder> waiters = pendingWaitingRequests.remove(requestKey);
+        if (waiters != null) {
+            waitingRequests.put(requestKey, waiters);
+        }
+    }
+
+    private static void addWaiter(Map<RequestKey, List<WeatherRequestDataHolder>> waitersByKey,
+                                  RequestKey requestKey,
+                                  WeatherRequestDataHolder request) {
+        List<WeatherRequestDataHolder> waiters = waitersByKey.get(requestKey);
+        if (waiters == null) {
+            waiters = new ArrayList<>();
+            waitersByKey.put(requestKey, waiters);
+        }
+        waiters.add(request);
+    }
+
+    private static boolean hasStrongerFlags(WeatherRequestDataHolder request, WeatherRequestDataHolder inFlightRequest) {
+        return (request.isForceUpdate() && !inFlightRequest.isForceUpdate()) ||
+                (request.isUpdateWeatherOnly() && !inFlightRequest.isUpdateWeatherOnly());
+    }
+
+    private long getLastCallTime(RequestPolicy requestPolicy, String endpoint) {
+        long lastCallTime = requestPolicy.getLastCallTimeInMs(endpoint);
+        Long lastDispatchedCallTime = lastCallTimePerEndpoint.get(endpoint);
+        if ((lastDispatchedCallTime != null) && (lastDispatchedCallTime > lastCallTime)) {
+            return lastDispatchedCallTime;
+        }
+        return lastCallTime;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "WeatherRequestDispatcher:pending=" + pendingRequests.values() +
+                ", inFlight=" + requestsInFlight.keySet() +
+                ", received=" + receivedRequestsCount +
+                ", coalesced=" + coalescedRequestsCount;
+    }
+
+    private static class RequestKey {
+        private final long locationId;
+        private final int updateType;
+
+        RequestKey(WeatherRequestDataHolder request) {
+            this.locationId = request.getLocationId();
+            this.updateType = request.getUpdateType();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey objToCompareTo = (RequestKey) obj;
+            return (locationId == objToCompareTo.locationId) && (updateType == objToCompareTo.updateType);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (31 * locationId + updateType);
+        }
+
+        @Override
+        public String toString() {
+            return locationId + ":" + updateType;
+        }
+    }
+}
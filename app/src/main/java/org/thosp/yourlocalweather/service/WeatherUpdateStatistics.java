@@ -0,0 +1,100 @@
+package org.thosp.yourlocalweather.service;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of weather updates from the request received by the service to the
+ * result sent, with the counts of requests, failures and database writes. The
+ * last latencies are kept in a ring, the percentiles are calculated from them.
+ */
+public class WeatherUpdateStatistics {
+
+    public static final int DEFAULT_LATENCIES_KEPT = 512;
+
+    private final long[] latenciesInMs;
+    private int latenciesCount;
+    private int nextLatency;
+    private long requestCount;
+    private long failedCount;
+    private long dbWriteCount;
+    private long maxLatencyInMs;
+
+    public WeatherUpdateStatistics() {
+        this(DEFAULT_LATENCIES_KEPT);
+    }
+
+    public WeatherUpdateStatistics(int latenciesKept) {
+        latenciesInMs = new long[latenciesKept];
+    }
+
+    public synchronized void addUpdate(boolean success, long latencyInMs) {
+        requestCount++;
+        if (!success) {
+            failedCount++;
+        }
+        latenciesInMs[nextLatency] = latencyInMs;
+        nextLatency = (nextLatency + 1) % latenciesInMs.length;
+        if (latenciesCount < latenciesInMs.length) {
+            latenciesCount++;
+        }
+        if (latencyInMs > maxLatencyInMs) {
+            maxLatencyInMs = latencyInMs;
+        }
+    }
+
+    public synchronized void addDbWrite() {
+        dbWriteCount++;
+    }
+
+    public synchronized void reset() {
+        latenciesCount = 0;
+        nextLatency = 0;
+        requestCount = 0;
+        failedCount = 0;
+        dbWriteCount = 0;
+        maxLatencyInMs = 0;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return latency of the kept updates at the percentile (nearest rank), 0 when
+     * there is none
+     */
+    public synchronized long getLatencyPercentileInMs(double percentile) {
+        if (latenciesCount == 0) {
+            return 0;
+        }
+        long[] sortedLatencies = Arrays.copyOf(latenciesInMs, latenciesCount);
+        Arrays.sort(sortedLatencies);
+        int rank = (int) Math.ceil((percentile / 100) * latenciesCount);
+        return sortedLatencies[Math.min(latenciesCount - 1, Math.max(0, rank - 1))];
+    }
+
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    public synchronized long getDbWriteCount() {
+        return dbWriteCount;
+    }
+
+    public synchronized long getMaxLatencyInMs() {
+        return maxLatencyInMs;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "WeatherUpdateStatistics{requests=" + requestCount +
+                ", failed=" + failedCount +
+                ", dbWrites=" + dbWriteCount +
+                ", p50=" + getLatencyPercentileInMs(50) +
+                ", p95=" + getLatencyPercentileInMs(95) +
+                ", p99=" + getLatencyPercentileInMs(99) +
+                ", max=" + maxLatencyInMs +
+                "}";
+    }
+}
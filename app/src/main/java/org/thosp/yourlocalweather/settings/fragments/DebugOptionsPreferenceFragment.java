@@ -1,6 +1,7 @@
 package org.thosp.yourlocalweather.settings.fragments;
 
 import android.Manifest;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
@@ -20,6 +21,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
@@ -28,6 +30,7 @@ import com.obsez.android.lib.filechooser.ChooserDialog;
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.utils.Constants;
 import org.thosp.yourlocalweather.utils.LogToFile;
+import org.thosp.yourlocalweather.utils.Metrics;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
@@ -36,6 +39,7 @@ import java.nio.charset.StandardCharsets;
 
 import static org.thosp.yourlocalweather.utils.Constants.KEY_DEBUG_FILE;
 import static org.thosp.yourlocalweather.utils.Constants.KEY_DEBUG_FILE_LASTING_HOURS;
+import static org.thosp.yourlocalweather.utils.Constants.KEY_DEBUG_METRICS;
 import static org.thosp.yourlocalweather.utils.Constants.KEY_DEBUG_TO_FILE;
 import static org.thosp.yourlocalweather.utils.Constants.KEY_DEBUG_URI_AUTHORITY;
 import static org.thosp.yourlocalweather.utils.Constants.KEY_DEBUG_URI_PATH;
@@ -49,6 +53,7 @@ public class DebugOptionsPreferenceFragment extends PreferenceFragment {
         addPreferencesFromResource(R.xml.pref_debug);
         initLogFileChooser();
         initLogFileLasting();
+        initMetrics();
     }
 
     @Override
@@ -205,6 +210,42 @@ public class DebugOptionsPreferenceFragment extends PreferenceFragment {
         });
     }
 
+    private void initMetrics() {
+        Preference metrics = findPreference(KEY_DEBUG_METRICS);
+        metrics.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                showMetrics();
+                return true;
+            }
+        });
+    }
+
+    private void showMetrics() {
+        final String metrics = Metrics.dump();
+        new AlertDialog.Builder(getActivity())
+                .setTitle(R.string.debug_metrics)
+                .setMessage(metrics)
+                .setPositiveButton(R.string.debug_metrics_export, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        Intent intent = new Intent(Intent.ACTION_SEND);
+                        intent.setType("text/plain");
+                        intent.putExtra(Intent.EXTRA_SUBJECT, "yourlocalweather-metrics.txt");
+                        intent.putExtra(Intent.EXTRA_TEXT, metrics);
+                        startActivity(Intent.createChooser(intent, getString(R.string.debug_metrics_export)));
+                    }
+                })
+                .setNeutralButton(R.string.debug_metrics_reset, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        Metrics.reset();
+                    }
+                })
+                .setNegativeButton(R.string.ok, null)
+                .show();
+    }
+
     private int getLogFileLastingLabel(int logFileLastingValue) {
         int logFileLastingId;
         switch (logFileLastingValue) {
@@ -138,8 +138,7 @@ public class PowerSavePreferenceFragment extends PreferenceFragment implements
             @Override
             public boolean onPreferenceClick(Preference preference) {
                 ReverseGeocodingCacheDbHelper mDbHelper = ReverseGeocodingCacheDbHelper.getInstance(preference.getContext());
-                SQLiteDatabase db = mDbHelper.getWritableDatabase();
-                mDbHelper.onUpgrade(db, 0, 0);
+                mDbHelper.deleteAllRecords();
                 return true;
             }
         });
@@ -224,7 +223,25 @@ public class PowerSavePreferenceFragment extends PreferenceFragment implements
 
         lastRowsFromDB.append("There are ");
         lastRowsFromDB.append(numberOfRowsInAddress);
-        lastRowsFromDB.append(" of rows in cache.\n\n");
+        lastRowsFromDB.append(" of rows in cache.\n");
+
+        long memoryHits = mDbHelper.getMemoryHits();
+        long databaseHits = mDbHelper.getDatabaseHits();
+        long lookups = memoryHits + databaseHits + mDbHelper.getMisses();
+        lastRowsFromDB.append(mDbHelper.getMemoryCacheSize());
+        lastRowsFromDB.append(" addresses in memory, ");
+        lastRowsFromDB.append(lookups);
+        lastRowsFromDB.append(" lookups since start: ");
+        lastRowsFromDB.append(memoryHits);
+        lastRowsFromDB.append(" from memory, ");
+        lastRowsFromDB.append(databaseHits);
+        lastRowsFromDB.append(" from database");
+        if (lookups > 0) {
+            lastRowsFromDB.append(", hit rate ");
+            lastRowsFromDB.append((memoryHits + databaseHits) * 100 / lookups);
+            lastRowsFromDB.append("%");
+        }
+        lastRowsFromDB.append(".\n\n");
 
         String[] projection = {
                 ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_ADDRESS,
@@ -254,7 +271,7 @@ public class PowerSavePreferenceFragment extends PreferenceFragment implements
 
             byte[] cachedAddressBytes = cursor.getBlob(
                     cursor.getColumnIndexOrThrow(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_ADDRESS));
-            Address address = ReverseGeocodingCacheDbHelper.getAddressFromBytes(cachedAddressBytes);
+            Address address = ReverseGeocodingCacheDbHelper.getAddressFromBytes(getActivity(), cachedAddressBytes);
 
             long recordCreatedinMilis = cursor.getLong(cursor.getColumnIndexOrThrow(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_CREATED));
             String recordCreatedTxt = iso8601Format.format(new Date(recordCreatedinMilis));
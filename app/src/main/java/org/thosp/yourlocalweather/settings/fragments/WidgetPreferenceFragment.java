@@ -14,6 +14,7 @@ import android.view.ViewGroup;
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.utils.Constants;
 import org.thosp.yourlocalweather.utils.GraphUtils;
+import org.thosp.yourlocalweather.utils.Utils;
 
 public class WidgetPreferenceFragment extends PreferenceFragment implements
         SharedPreferences.OnSharedPreferenceChangeListener {
@@ -41,6 +42,7 @@ public class WidgetPreferenceFragment extends PreferenceFragment implements
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
         switch (key) {
             case Constants.KEY_PREF_WIDGET_THEME:
+                Utils.getWeatherIconCache().invalidateAll();
                 Intent intent = new Intent(Constants.ACTION_APPWIDGET_THEME_CHANGED);
                 intent.setPackage("org.thosp.yourlocalweather");
                 getActivity().sendBroadcast(intent);
@@ -54,6 +56,7 @@ public class WidgetPreferenceFragment extends PreferenceFragment implements
                 getActivity().sendBroadcast(intent);
                 break;
             case Constants.KEY_PREF_WIDGET_TEXT_COLOR:
+                Utils.getWeatherIconCache().invalidateAll();
                 intent = new Intent(Constants.ACTION_APPWIDGET_THEME_CHANGED);
                 intent.setPackage("org.thosp.yourlocalweather");
                 getActivity().sendBroadcast(intent);
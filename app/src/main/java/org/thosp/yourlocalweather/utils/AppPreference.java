@@ -24,8 +24,7 @@ import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
 public class AppPreference {
 
     public static String getLocalizedTime(Context context, Date inputTime, Locale locale) {
-        String timeStylePreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TIME_STYLE, "system");
+        String timeStylePreferences = PreferenceSnapshot.get(context).getTimeStyle();
         if ("system".equals(timeStylePreferences)) {
             return DateFormat.getTimeFormat(context).format(inputTime);
         } else if ("12h".equals(timeStylePreferences)) {
@@ -38,8 +37,7 @@ public class AppPreference {
     }
 
     public static String getLocalizedHour(Context context, Date inputTime, Locale locale) {
-        String timeStylePreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TIME_STYLE, "system");
+        String timeStylePreferences = PreferenceSnapshot.get(context).getTimeStyle();
         if ("system".equals(timeStylePreferences)) {
             return DateFormat.getTimeFormat(context).format(inputTime);
         } else if ("12h".equals(timeStylePreferences)) {
@@ -52,8 +50,7 @@ public class AppPreference {
     }
 
     public static String getLocalizedDateTime(Context context, Date inputTime, boolean showYear, Locale locale) {
-        String dateStylePreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_DATE_STYLE, "system");
+        String dateStylePreferences = PreferenceSnapshot.get(context).getDateStyle();
         switch (dateStylePreferences) {
             case "date_style_dots": return getSimpleDateFormatForDate("dd.MM.", "dd.MM.yy", showYear, locale).format(inputTime) +
                                         " " + getLocalizedTime(context, inputTime, locale);
@@ -76,8 +73,7 @@ public class AppPreference {
     }
 
     public static boolean is12TimeStyle(Context context) {
-        String timeStylePreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TIME_STYLE, "system");
+        String timeStylePreferences = PreferenceSnapshot.get(context).getTimeStyle();
         if ("system".equals(timeStylePreferences)) {
             return !DateFormat.is24HourFormat(context);
         } else if ("12h".equals(timeStylePreferences)) {
@@ -87,7 +83,7 @@ public class AppPreference {
         }
     }
 
-    private static short mpsToBft(double speed) {
+    static short mpsToBft(double speed) {
         if (speed < 0.51d) {
             return 0;
         } else if (speed < 2.06d) {
@@ -118,8 +114,7 @@ public class AppPreference {
     }
 
     public static WindWithUnit getWindWithUnit(Context context, float value, float direction, Locale locale) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_WIND_UNITS, "m_per_second");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getWindUnits();
         if (unitsFromPreferences.contains("km_per_hour") ) {
             double kmhValue = 3.6d * value;
             return new WindWithUnit(context, kmhValue, context.getString(R.string.wind_speed_kilometers), direction, locale);
@@ -138,9 +133,7 @@ public class AppPreference {
     }
 
     public static double getRainOrSnow(Context context, double value) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_RAIN_SNOW_UNITS, "mm");
-        if (unitsFromPreferences.contains("inches") ) {
+        if (PreferenceSnapshot.get(context).isRainSnowInInches()) {
             return 0.03937007874d * value;
         } else {
             return value;
@@ -148,9 +141,7 @@ public class AppPreference {
     }
 
     public static int getGraphFormatterForRainOrSnow(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_RAIN_SNOW_UNITS, "mm");
-        if (unitsFromPreferences.contains("inches") ) {
+        if (PreferenceSnapshot.get(context).isRainSnowInInches()) {
             return 3;
         } else {
             return 2;
@@ -158,10 +149,8 @@ public class AppPreference {
     }
 
     public static String getFormatedRainOrSnow(Context context, double value, Locale locale) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_RAIN_SNOW_UNITS, "mm");
         String format;
-        if (unitsFromPreferences.contains("inches") ) {
+        if (PreferenceSnapshot.get(context).isRainSnowInInches()) {
             format = "%.3f";
         } else {
             format = "%.1f";
@@ -170,9 +159,7 @@ public class AppPreference {
     }
 
     public static int getRainOrSnowUnit(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_RAIN_SNOW_UNITS, "mm");
-        if (unitsFromPreferences.contains("inches") ) {
+        if (PreferenceSnapshot.get(context).isRainSnowInInches()) {
             return R.string.inches_label;
         } else {
             return R.string.millimetre_label;
@@ -180,9 +167,7 @@ public class AppPreference {
     }
 
     public static int getRainOrSnowForecastWeadherWidth(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_RAIN_SNOW_UNITS, "mm");
-        if (unitsFromPreferences.contains("inches") ) {
+        if (PreferenceSnapshot.get(context).isRainSnowInInches()) {
             return 60;
         } else {
             return 40;
@@ -194,8 +179,7 @@ public class AppPreference {
     }
 
     private static String getWindFormat(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_WIND_UNITS, "m_per_second");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getWindUnits();
         if (unitsFromPreferences.contains("beaufort") ) {
             return "%.0f";
         } else {
@@ -208,8 +192,7 @@ public class AppPreference {
     }
 
     public static double getWind(Context context, double windSpeed) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_WIND_UNITS, "m_per_second");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getWindUnits();
         if (unitsFromPreferences.contains("km_per_hour") ) {
             return 3.6d * windSpeed;
         } else if (unitsFromPreferences.contains("miles_per_hour") ) {
@@ -224,8 +207,7 @@ public class AppPreference {
     }
 
     public static String getWindUnit(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_WIND_UNITS, "m_per_second");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getWindUnits();
         if (unitsFromPreferences.contains("km_per_hour") ) {
             return context.getString(R.string.wind_speed_kilometers);
         } else if (unitsFromPreferences.contains("miles_per_hour") ) {
@@ -240,8 +222,7 @@ public class AppPreference {
     }
 
     public static String getPressureUnit(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_PRESSURE_UNITS, "hpa");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getPressureUnits();
         switch (unitsFromPreferences) {
             case "mmhg": return context.getString(R.string.pressure_measurement_mmhg);
             case "inhg": return context.getString(R.string.pressure_measurement_inhg);
@@ -253,8 +234,7 @@ public class AppPreference {
     }
 
     public static int getPressureDecimalPlaces(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_PRESSURE_UNITS, "hpa");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getPressureUnits();
         switch (unitsFromPreferences) {
             case "mmhg": return 2;
             case "inhg": return 2;
@@ -271,8 +251,7 @@ public class AppPreference {
     }
 
     public static PressureWithUnit getPressureWithUnit(Context context, double value, Locale locale) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_PRESSURE_UNITS, "hpa");
+        String unitsFromPreferences = PreferenceSnapshot.get(context).getPressureUnits();
         switch (unitsFromPreferences) {
             case "mmhg": return new PressureWithUnit(value * 0.75f,
                                                  context.getString(R.string.pressure_measurement_mmhg), locale);
@@ -289,8 +268,7 @@ public class AppPreference {
     }
 
     public static boolean hideDescription(Context context) {
-        return PreferenceManager.getDefaultSharedPreferences(context).getBoolean(
-                Constants.KEY_PREF_HIDE_DESCRIPTION, false);
+        return PreferenceSnapshot.get(context).isHideDescription();
     }
 
     public static long getLastNotificationTimeInMs(Context context) {
@@ -365,13 +343,11 @@ public class AppPreference {
     }
 
     public static boolean isWidgetGraphNativeScaled(Context context) {
-        return PreferenceManager.getDefaultSharedPreferences(context).getBoolean(
-                Constants.KEY_PREF_WIDGET_GRAPH_NATIVE_SCALE, false);
+        return PreferenceSnapshot.get(context).isWidgetGraphNativeScaled();
     }
 
     public static boolean isShowControls(Context context) {
-        return PreferenceManager.getDefaultSharedPreferences(context).getBoolean(
-                Constants.KEY_PREF_WIDGET_SHOW_CONTROLS, false);
+        return PreferenceSnapshot.get(context).isShowControls();
     }
 
     public static boolean isUpdateLocationEnabled(Context context, Location currentLocation) {
@@ -394,18 +370,15 @@ public class AppPreference {
     }
 
     public static String getIconSet(Context context) {
-        return PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_WEATHER_ICON_SET, "weather_icon_set_merlin_the_red");
+        return PreferenceSnapshot.get(context).getIconSet();
     }
 
     public static boolean showLabelsOnWidget(Context context) {
-        return PreferenceManager.getDefaultSharedPreferences(context)
-                .getBoolean(Constants.KEY_PREF_WIDGET_SHOW_LABELS, false);
+        return PreferenceSnapshot.get(context).isShowLabelsOnWidget();
     }
 
     public static String getWidgetTheme(Context context) {
-        return PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_WIDGET_THEME, "dark");
+        return PreferenceSnapshot.get(context).getWidgetTheme();
     }
 
     public static Set<Integer> getForecastActivityColumns(Context context) {
@@ -469,11 +442,7 @@ public class AppPreference {
     }
 
     public static Set<Integer> getCombinedGraphValues(Context context) {
-        Set<String> defaultVisibleGraphs = new HashSet<>();
-        defaultVisibleGraphs.add("0");
-        defaultVisibleGraphs.add("2");
-        Set<String> visibleColumns = PreferenceManager.getDefaultSharedPreferences(context).getStringSet(
-                Constants.KEY_PREF_COMBINED_GRAPH_VALUES, defaultVisibleGraphs);
+        Set<String> visibleColumns = PreferenceSnapshot.get(context).getCombinedGraphValues();
         Set<Integer> result = new HashSet<>();
         for (String visibleColumn: visibleColumns) {
             result.add(Integer.valueOf(visibleColumn));
@@ -491,11 +460,11 @@ public class AppPreference {
     }
 
     public static int getWidgetTextColor(Context context) {
-        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
-        if (!sharedPreferences.contains(Constants.KEY_PREF_WIDGET_TEXT_COLOR)) {
+        Integer widgetTextColor = PreferenceSnapshot.get(context).getWidgetTextColor();
+        if (widgetTextColor == null) {
             return getTextColor(context);
         }
-        return sharedPreferences.getInt(Constants.KEY_PREF_WIDGET_TEXT_COLOR, 0);
+        return widgetTextColor;
     }
 
     public static int getTextColor(Context context) {
@@ -513,8 +482,8 @@ public class AppPreference {
     }
 
     public static GraphGridColors getWidgetGraphGridColor(Context context) {
-        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
-        if (!sharedPreferences.contains(Constants.KEY_PREF_WIDGET_TEXT_COLOR)) {
+        Integer widgetTextColor = PreferenceSnapshot.get(context).getWidgetTextColor();
+        if (widgetTextColor == null) {
             String theme = getWidgetTheme(context);
             if (null == theme) {
                 return new GraphGridColors(Color.parseColor("#333333"), Color.LTGRAY);
@@ -527,7 +496,7 @@ public class AppPreference {
                     return new GraphGridColors(Color.WHITE, Color.GRAY);
             }
         } else {
-            return new GraphGridColors(sharedPreferences.getInt(Constants.KEY_PREF_WIDGET_TEXT_COLOR, 0), Color.GRAY);
+            return new GraphGridColors(widgetTextColor, Color.GRAY);
         }
     }
 
@@ -0,0 +1,133 @@
+package org.thosp.yourlocalweather.utils;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU of bitmaps bounded by the bytes of the bitmaps. The least recently used
+ * bitmaps are evicted when a put goes over the bytes, the bitmap put is never
+ * evicted by its own put. Removed bitmaps are neither recycled nor reused, as a
+ * RemoteViews or an ImageView may still hold them.
+ */
+public class BitmapLruCache<K> {
+
+    public interface KeyMatcher<K> {
+        boolean matches(K key);
+    }
+
+    private final String name;
+    private final long maxBytes;
+    private final LinkedHashMap<K, Bitmap> bitmaps = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BitmapLruCache(String name, long maxBytes) {
+        this.name = name;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Bitmap get(K key) {
+        Bitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return bitmap;
+    }
+
+    public synchronized boolean contains(K key) {
+        return bitmaps.containsKey(key);
+    }
+
+    public synchronized void put(K key, Bitmap bitmap) {
+        Bitmap previous = bitmaps.put(key, bitmap);
+        if (previous == bitmap) {
+            return;
+        }
+        if (previous != null) {
+            currentBytes -= getBytes(previous);
+        }
+        currentBytes += getBytes(bitmap);
+        Iterator<Map.Entry<K, Bitmap>> iterator = bitmaps.entrySet().iterator();
+        while ((currentBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<K, Bitmap> eldest = iterator.next();
+            if (eldest.getValue() == bitmap) {
+                continue;
+            }
+            iterator.remove();
+            currentBytes -= getBytes(eldest.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the bitmaps of the keys matched.
+     */
+    public synchronized void invalidate(KeyMatcher<K> keyMatcher) {
+        Iterator<Map.Entry<K, Bitmap>> iterator = bitmaps.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Bitmap> entry = iterator.next();
+            if (keyMatcher.matches(entry.getKey())) {
+                iterator.remove();
+                currentBytes -= getBytes(entry.getValue());
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        bitmaps.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return bitmaps.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + "{" + getStatistics() + "}";
+    }
+
+    protected synchronized String getStatistics() {
+        return "size=" + bitmaps.size() +
+                ", bytes=" + currentBytes +
+                ", maxBytes=" + maxBytes +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions;
+    }
+
+    private static long getBytes(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+}
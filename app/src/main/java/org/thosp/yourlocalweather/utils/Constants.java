@@ -26,6 +26,8 @@ public class Constants {
     public static final String APP_SETTINGS_UPDATE_SOURCE = "update_source";
     public static final String APP_SETTINGS_LOCATION_CACHE_LASTING_HOURS = "location.cache.lasting";
     public static final String APP_SETTINGS_LOCATION_CACHE_ENABLED = "location.cache.enabled";
+    public static final String APP_SETTINGS_LOCATION_CACHE_MAX_ROWS = "location.cache.max.rows";
+    public static final String APP_SETTINGS_LOCATION_CACHE_RADIUS = "location.cache.radius";
     public static final String LAST_UPDATE_TIME_IN_MS = "last_update";
     public static final String LAST_FORECAST_UPDATE_TIME_IN_MS = "last_forecast_update";
     public static final String LAST_LOCATION_UPDATE_TIME_IN_MS = "last_location_update";
@@ -74,6 +76,7 @@ public class Constants {
     public static final String KEY_DEBUG_FILE = "debug.log.file";
     public static final String KEY_DEBUG_TO_FILE = "debug.to.file";
     public static final String KEY_DEBUG_FILE_LASTING_HOURS = "debug.file.lasting.hours";
+    public static final String KEY_DEBUG_METRICS = "debug.metrics";
     public static final String KEY_WAKE_UP_STRATEGY = "wake.up.strategy";
     public static final String KEY_PREF_FORECAST_TYPE = "forecast_type_pref_key";
     public static final String KEY_PREF_FORECAST_ACTIVITY_COLUMNS = "forecast_activity_columns_pref_key";
@@ -0,0 +1,186 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
+
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Forecast times of one forecast grouped by local calendar day, with the
+ * aggregates of every day and of the periods of the first day. Days are
+ * told apart by their date, not by the day of year, so a forecast over the
+ * end of a (leap) year keeps its days in order. The index is built once per
+ * forecast and time zone and kept with the forecast columns.
+ */
+public class ForecastDayIndex {
+
+    public static final int DAY_PERIOD_NIGHT = 0;
+    public static final int DAY_PERIOD_MORNING = 1;
+    public static final int DAY_PERIOD_AFTERNOON = 2;
+    public static final int DAY_PERIOD_EVENING = 3;
+    private static final int DAY_PERIODS = 4;
+
+    private static final long DAY_IN_MS = 86400000;
+
+    private final TimeZone timeZone;
+    private final int[][] forecastIndexesForDays;
+    private final int[] years;
+    private final int[] daysOfYear;
+    private final ForecastUtil.WeatherMaxMinForDay[] weatherMaxMinForDays;
+    private final ForecastUtil.WeatherIdsForDay[] weatherIdsForDays;
+    private final String[] iconIdsForDays;
+    private final int[][] forecastIndexesForDayPeriods = new int[DAY_PERIODS][];
+    private final ForecastUtil.WeatherMaxMinForDay[] weatherMaxMinForDayPeriods = new ForecastUtil.WeatherMaxMinForDay[DAY_PERIODS];
+    private final ForecastUtil.WeatherIdsForDay[] weatherIdsForDayPeriods = new ForecastUtil.WeatherIdsForDay[DAY_PERIODS];
+
+    private ForecastDayIndex(ColumnarWeatherForecast forecast, TimeZone timeZone) {
+        this.timeZone = timeZone;
+        int forecastsCount = forecast.size();
+        long[] localDays = new long[forecastsCount];
+        Map<Long, Integer> forecastsInDays = new TreeMap<>();
+        for (int i = 0; i < forecastsCount; i++) {
+            long forecastTime = forecast.getDateTime(i) * 1000;
+            long localDay = floorDiv(forecastTime + timeZone.getOffset(forecastTime), DAY_IN_MS);
+            localDays[i] = localDay;
+            Integer forecastsInDay = forecastsInDays.get(localDay);
+            forecastsInDays.put(localDay, (forecastsInDay == null) ? 1 : forecastsInDay + 1);
+        }
+
+        int daysCount = forecastsInDays.size();
+        forecastIndexesForDays = new int[daysCount][];
+        years = new int[daysCount];
+        daysOfYear = new int[daysCount];
+        weatherMaxMinForDays = new ForecastUtil.WeatherMaxMinForDay[daysCount];
+        weatherIdsForDays = new ForecastUtil.WeatherIdsForDay[daysCount];
+        iconIdsForDays = new String[daysCount];
+        Map<Long, Integer> dayPositions = new TreeMap<>();
+        int dayPosition = 0;
+        for (Map.Entry<Long, Integer> forecastsInDay: forecastsInDays.entrySet()) {
+            forecastIndexesForDays[dayPosition] = new int[forecastsInDay.getValue()];
+            dayPositions.put(forecastsInDay.getKey(), dayPosition++);
+        }
+        int[] filledInDays = new int[daysCount];
+        for (int i = 0; i < forecastsCount; i++) {
+            int day = dayPositions.get(localDays[i]);
+            forecastIndexesForDays[day][filledInDays[day]++] = i;
+        }
+
+        Calendar forecastCalendar = Calendar.getInstance(timeZone);
+        for (int day = 0; day < daysCount; day++) {
+            int[] forecastIndexesForDay = forecastIndexesForDays[day];
+            forecastCalendar.setTimeInMillis(forecast.getDateTime(forecastIndexesForDay[0]) * 1000);
+            years[day] = forecastCalendar.get(Calendar.YEAR);
+            daysOfYear[day] = forecastCalendar.get(Calendar.DAY_OF_YEAR);
+            weatherMaxMinForDays[day] = ForecastUtil.calculateWeatherMaxMinForDay(forecast, forecastIndexesForDay);
+            weatherIdsForDays[day] = ForecastUtil.getWeatherIdForDay(forecast, forecastIndexesForDay, weatherMaxMinForDays[day]);
+            iconIdsForDays[day] = ForecastUtil.getWeatherIconId(weatherIdsForDays[day].mainWeatherId, forecast, forecastIndexesForDay);
+        }
+        if (daysCount > 0) {
+            indexDayPeriods(forecast, forecastIndexesForDays[0], forecastCalendar);
+        }
+    }
+
+    private void indexDayPeriods(ColumnarWeatherForecast forecast, int[] forecastIndexesForDay, Calendar forecastCalendar) {
+        int[] dayPeriods = new int[forecastIndexesForDay.length];
+        int[] forecastsInDayPeriods = new int[DAY_PERIODS];
+        for (int i = 0; i < forecastIndexesForDay.length; i++) {
+            forecastCalendar.setTimeInMillis(forecast.getDateTime(forecastIndexesForDay[i]) * 1000);
+            int hourOfDay = forecastCalendar.get(Calendar.HOUR_OF_DAY);
+            int dayPeriod;
+            if (hourOfDay < 6) {
+                dayPeriod = DAY_PERIOD_NIGHT;
+            } else if (hourOfDay <= 12) {
+                dayPeriod = DAY_PERIOD_MORNING;
+            } else if (hourOfDay <= 19) {
+                dayPeriod = DAY_PERIOD_AFTERNOON;
+            } else {
+                dayPeriod = DAY_PERIOD_EVENING;
+            }
+            dayPeriods[i] = dayPeriod;
+            forecastsInDayPeriods[dayPeriod]++;
+        }
+        for (int dayPeriod = 0; dayPeriod < DAY_PERIODS; dayPeriod++) {
+            if (forecastsInDayPeriods[dayPeriod] > 0) {
+                forecastIndexesForDayPeriods[dayPeriod] = new int[forecastsInDayPeriods[dayPeriod]];
+                forecastsInDayPeriods[dayPeriod] = 0;
+            }
+        }
+        for (int i = 0; i < forecastIndexesForDay.length; i++) {
+            int dayPeriod = dayPeriods[i];
+            forecastIndexesForDayPeriods[dayPeriod][forecastsInDayPeriods[dayPeriod]++] = forecastIndexesForDay[i];
+        }
+        for (int dayPeriod = 0; dayPeriod < DAY_PERIODS; dayPeriod++) {
+            if (forecastIndexesForDayPeriods[dayPeriod] != null) {
+                weatherMaxMinForDayPeriods[dayPeriod] = ForecastUtil.calculateWeatherMaxMinForDay(
+                        forecast, forecastIndexesForDayPeriods[dayPeriod]);
+                weatherIdsForDayPeriods[dayPeriod] = ForecastUtil.getWeatherIdForDay(
+                        forecast, forecastIndexesForDayPeriods[dayPeriod], weatherMaxMinForDayPeriods[dayPeriod]);
+            }
+        }
+    }
+
+    public static ForecastDayIndex create(ColumnarWeatherForecast forecast, TimeZone timeZone) {
+        return new ForecastDayIndex(forecast, timeZone);
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long result = value / divisor;
+        if ((value % divisor != 0) && ((value < 0) != (divisor < 0))) {
+            result--;
+        }
+        return result;
+    }
+
+    public boolean isFor(TimeZone timeZone) {
+        return this.timeZone.getID().equals(timeZone.getID()) && this.timeZone.hasSameRules(timeZone);
+    }
+
+    public int getDaysCount() {
+        return forecastIndexesForDays.length;
+    }
+
+    /**
+     * @return indexes into the forecast columns of the forecast times of the day
+     */
+    public int[] getForecastIndexes(int day) {
+        return forecastIndexesForDays[day];
+    }
+
+    public int getYear(int day) {
+        return years[day];
+    }
+
+    public int getDayOfYear(int day) {
+        return daysOfYear[day];
+    }
+
+    public ForecastUtil.WeatherMaxMinForDay getWeatherMaxMin(int day) {
+        return weatherMaxMinForDays[day];
+    }
+
+    public ForecastUtil.WeatherIdsForDay getWeatherIds(int day) {
+        return weatherIdsForDays[day];
+    }
+
+    public String getIconId(int day) {
+        return iconIdsForDays[day];
+    }
+
+    /**
+     * @return indexes of the forecast times of the first day in the period,
+     * null when the first day has none
+     */
+    public int[] getForecastIndexesForDayPeriod(int dayPeriod) {
+        return forecastIndexesForDayPeriods[dayPeriod];
+    }
+
+    public ForecastUtil.WeatherMaxMinForDay getWeatherMaxMinForDayPeriod(int dayPeriod) {
+        return weatherMaxMinForDayPeriods[dayPeriod];
+    }
+
+    public ForecastUtil.WeatherIdsForDay getWeatherIdsForDayPeriod(int dayPeriod) {
+        return weatherIdsForDayPeriods[dayPeriod];
+    }
+}
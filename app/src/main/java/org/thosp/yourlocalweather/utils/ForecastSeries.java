@@ -0,0 +1,236 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
+import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Forecast series converted in one pass into primitive columns in the units
+ * chosen in the preferences. The preferences are read once per series, the
+ * solar declination once per day and the latitude terms once per series, so
+ * charts and widgets read the values without converting point by point.
+ */
+public class ForecastSeries {
+
+    private static final long DAY_IN_MS = 86400000;
+    private static final long MINUTE_IN_MS = 60000;
+
+    private final long[] dateTimes;
+    private final float[] temperatures;
+    private final float[] minTemperatures;
+    private final float[] maxTemperatures;
+    private final float[] apparentTemperatures;
+    private final float[] dewPoints;
+    private final float[] winds;
+    private final float[] pressures;
+    private final float[] rains;
+    private final float[] snows;
+
+    private ForecastSeries(int size, boolean withApparentTemperatures) {
+        dateTimes = new long[size];
+        temperatures = new float[size];
+        minTemperatures = new float[size];
+        maxTemperatures = new float[size];
+        apparentTemperatures = withApparentTemperatures ? new float[size] : null;
+        dewPoints = new float[size];
+        winds = new float[size];
+        pressures = new float[size];
+        rains = new float[size];
+        snows = new float[size];
+    }
+
+    public static ForecastSeries convert(PreferenceSnapshot preferences,
+                                         List<DetailedWeatherForecast> weatherForecastList) {
+        return convert(preferences, ColumnarWeatherForecast.of(weatherForecastList), false, 0);
+    }
+
+    public static ForecastSeries convert(PreferenceSnapshot preferences,
+                                         ColumnarWeatherForecast forecast) {
+        return convert(preferences, forecast, false, 0);
+    }
+
+    /**
+     * Converts the series including the apparent temperature with solar
+     * irradiation, which depends on the latitude of the location.
+     */
+    public static ForecastSeries convert(PreferenceSnapshot preferences,
+                                         List<DetailedWeatherForecast> weatherForecastList,
+                                         double latitude) {
+        return convert(preferences, ColumnarWeatherForecast.of(weatherForecastList), true, latitude);
+    }
+
+    public static ForecastSeries convert(PreferenceSnapshot preferences,
+                                         ColumnarWeatherForecast forecast,
+                                         double latitude) {
+        return convert(preferences, forecast, true, latitude);
+    }
+
+    private static ForecastSeries convert(PreferenceSnapshot preferences,
+                                          ColumnarWeatherForecast forecast,
+                                          boolean withApparentTemperatures,
+                                          double latitude) {
+        int size = forecast.size();
+        ForecastSeries series = new ForecastSeries(size, withApparentTemperatures);
+        boolean apparentTemperaturePrimary = preferences.isApparentTemperaturePrimary();
+        int temperatureUnit = preferences.getTemperatureUnit();
+        String windUnits = preferences.getWindUnits();
+        boolean windInBeaufort = windUnits.contains("beaufort");
+        double windFactor = getWindFactor(windUnits);
+        double pressureFactor = getPressureFactor(preferences.getPressureUnits());
+        double rainSnowFactor = preferences.isRainSnowInInches() ? 0.03937007874d : 1;
+
+        double latitudeInRadians = Math.toRadians(latitude);
+        double sinOfLatitude = Math.sin(latitudeInRadians);
+        double cosOfLatitude = Math.cos(latitudeInRadians);
+        TimeZone timeZone = TimeZone.getDefault();
+        Calendar dayCalendar = null;
+        long lastLocalDay = Long.MIN_VALUE;
+        double sinOfDeclination = 0;
+        double cosOfDeclination = 0;
+
+        for (int i = 0; i < size; i++) {
+            double temperature = forecast.getTemperature(i);
+            int humidity = forecast.getHumidity(i);
+            double windSpeed = forecast.getWindSpeed(i);
+            long dateTime = forecast.getDateTime(i);
+            series.dateTimes[i] = dateTime;
+
+            double vapourPressure = (humidity / 100f) * 6.105 * Math.exp((17.27 * temperature) / (237.7 + temperature));
+            double primaryTemperature = temperature;
+            if (apparentTemperaturePrimary) {
+                primaryTemperature = temperature + (0.33 * vapourPressure) - (0.70 * windSpeed) - 4.00;
+            }
+            series.temperatures[i] = (float) toUnit(temperatureUnit, primaryTemperature);
+            series.minTemperatures[i] = (float) toUnit(temperatureUnit, forecast.getTemperatureMin(i));
+            series.maxTemperatures[i] = (float) toUnit(temperatureUnit, forecast.getTemperatureMax(i));
+
+            if (withApparentTemperatures) {
+                long timestamp = dateTime * 1000;
+                long localTime = timestamp + timeZone.getOffset(timestamp);
+                long localDay = floorDiv(localTime, DAY_IN_MS);
+                if (localDay != lastLocalDay) {
+                    if (dayCalendar == null) {
+                        dayCalendar = Calendar.getInstance();
+                    }
+                    dayCalendar.setTimeInMillis(timestamp);
+                    double declination = Math.toRadians(-23.44 * Math.cos(Math.toRadians(
+                            (360f/365f) * (9 + dayCalendar.get(Calendar.DAY_OF_YEAR)))));
+                    sinOfDeclination = Math.sin(declination);
+                    cosOfDeclination = Math.cos(declination);
+                    lastLocalDay = localDay;
+                }
+                long minuteOfDay = (localTime - localDay * DAY_IN_MS) / MINUTE_IN_MS;
+                double hourAngle = ((12 * 60) - minuteOfDay) * 0.25;
+                double cosOfZenithAngle = sinOfLatitude * sinOfDeclination +
+                        (cosOfLatitude * cosOfDeclination * Math.cos(Math.toRadians(hourAngle)));
+                double calculatedIrradiation = 0;
+                if (cosOfZenithAngle > 0) {
+                    double transmissionCoefficient = 0.81 - (0.81 - 0.62) * (forecast.getCloudiness(i) / 100f);
+                    calculatedIrradiation = (1395 * cosOfZenithAngle * Math.pow(transmissionCoefficient, 1 / cosOfZenithAngle)) / 10;
+                }
+                double apparentTemperature = temperature + (0.348 * vapourPressure) - (0.70 * windSpeed) +
+                        ((0.70 * calculatedIrradiation) / (windSpeed + 10)) - 4.25;
+                series.apparentTemperatures[i] = (float) toUnit(temperatureUnit, (float) apparentTemperature);
+            }
+
+            double humidityLogarithm = Math.log(humidity / 100.0);
+            double dewPointPart = humidityLogarithm + ((17.67 * temperature) / (243.5 + temperature));
+            series.dewPoints[i] = (float) toUnit(temperatureUnit, (243.5 * dewPointPart) / (17.67 - dewPointPart));
+
+            series.winds[i] = (float) (windInBeaufort ? AppPreference.mpsToBft(windSpeed) : windFactor * windSpeed);
+            series.pressures[i] = (float) (pressureFactor * forecast.getPressure(i));
+            series.rains[i] = (float) (rainSnowFactor * forecast.getRain(i));
+            series.snows[i] = (float) (rainSnowFactor * forecast.getSnow(i));
+        }
+        return series;
+    }
+
+    private static double toUnit(int temperatureUnit, double value) {
+        switch (temperatureUnit) {
+            case PreferenceSnapshot.TEMPERATURE_UNIT_FAHRENHEIT: return (value * 1.8d) + 32;
+            case PreferenceSnapshot.TEMPERATURE_UNIT_KELVIN: return value + 273.15;
+            default: return value;
+        }
+    }
+
+    private static double getWindFactor(String windUnits) {
+        if (windUnits.contains("km_per_hour")) {
+            return 3.6d;
+        } else if (windUnits.contains("miles_per_hour")) {
+            return 2.2369d;
+        } else if (windUnits.contains("knots")) {
+            return 1.9438445d;
+        } else {
+            return 1;
+        }
+    }
+
+    private static double getPressureFactor(String pressureUnits) {
+        switch (pressureUnits) {
+            case "mmhg": return 0.75f;
+            case "inhg": return 0.029529983071445f;
+            case "psi": return 0.0145037738f;
+            case "kpa": return 0.1d;
+            default: return 1;
+        }
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long result = value / divisor;
+        if ((value % divisor != 0) && ((value < 0) != (divisor < 0))) {
+            result--;
+        }
+        return result;
+    }
+
+    public int size() {
+        return dateTimes.length;
+    }
+
+    public long[] getDateTimes() {
+        return dateTimes;
+    }
+
+    public float[] getTemperatures() {
+        return temperatures;
+    }
+
+    public float[] getMinTemperatures() {
+        return minTemperatures;
+    }
+
+    public float[] getMaxTemperatures() {
+        return maxTemperatures;
+    }
+
+    /**
+     * @return apparent temperatures with solar irradiation, null when the
+     * series was converted without latitude
+     */
+    public float[] getApparentTemperatures() {
+        return apparentTemperatures;
+    }
+
+    public float[] getDewPoints() {
+        return dewPoints;
+    }
+
+    public float[] getWinds() {
+        return winds;
+    }
+
+    public float[] getPressures() {
+        return pressures;
+    }
+
+    public float[] getRains() {
+        return rains;
+    }
+
+    public float[] getSnows() {
+        return snows;
+    }
+}
@@ -2,13 +2,12 @@ package org.thosp.yourlocalweather.utils;
 
 import android.content.Context;
 
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
 import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
-import org.thosp.yourlocalweather.model.WeatherCondition;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
 
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -56,76 +55,81 @@ public class ForecastUtil {
 
     public static Set<WeatherForecastPerDay> calculateWeatherForDays(WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord) {
         Set<WeatherForecastPerDay> result = new HashSet<>();
-        Calendar forecastCalendar = Calendar.getInstance();
-        int initialYearForTheList = forecastCalendar.get(Calendar.YEAR);
-        Map<Integer, List<DetailedWeatherForecast>> weatherList = createWeatherList(weatherForecastRecord);
-        Integer firstDayOfYear = Collections.min(weatherList.keySet());
+        ColumnarWeatherForecast forecast = getColumns(weatherForecastRecord);
+        if (forecast == null) {
+            return result;
+        }
+        ForecastDayIndex dayIndex = forecast.getDayIndex();
         int dayCounter = 0;
-        int daysInList = firstDayOfYear + weatherList.keySet().size();
-        for (int dayInYear = firstDayOfYear; dayInYear < daysInList; dayInYear++) {
-            int dayInYearForList;
-            int yearForList;
-            if (dayInYear > 365) {
-                dayInYearForList = dayInYear - 365;
-                yearForList = initialYearForTheList + 1;
-            } else {
-                dayInYearForList = dayInYear;
-                yearForList = initialYearForTheList;
-            }
-            if ((weatherList.get(dayInYear) == null) || (weatherList.get(dayInYear).size() < 3)) {
+        for (int day = 0; day < dayIndex.getDaysCount(); day++) {
+            if (dayIndex.getForecastIndexes(day).length < 3) {
                 continue;
             }
             dayCounter++;
-            WeatherMaxMinForDay weatherMaxMinForDay = calculateWeatherMaxMinForDay(weatherList.get(dayInYear));
+            WeatherMaxMinForDay weatherMaxMinForDay = dayIndex.getWeatherMaxMin(day);
             if (weatherMaxMinForDay == null) {
                 continue;
             }
-            WeatherIdsForDay weatherIdsForTheDay = getWeatherIdForDay(weatherList.get(dayInYear), weatherMaxMinForDay);
-            result.add(new WeatherForecastPerDay(dayCounter, weatherIdsForTheDay, weatherMaxMinForDay, getWeatherIconId(weatherIdsForTheDay.mainWeatherId, weatherList.get(dayInYear)), dayInYearForList, yearForList));
+            result.add(new WeatherForecastPerDay(
+                    dayCounter,
+                    dayIndex.getWeatherIds(day),
+                    weatherMaxMinForDay,
+                    dayIndex.getIconId(day),
+                    dayIndex.getDayOfYear(day),
+                    dayIndex.getYear(day)));
         }
         return result;
     }
 
-    public static Map<Integer, List<DetailedWeatherForecast>> createWeatherList(WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord) {
-        Map<Integer, List<DetailedWeatherForecast>> weatherList = new HashMap<>();
-        Calendar forecastCalendar = Calendar.getInstance();
-        int maxForecastDay = 0;
+    private static ColumnarWeatherForecast getColumns(WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord) {
         if ((weatherForecastRecord == null) || (weatherForecastRecord.getCompleteWeatherForecast() == null)) {
-            return weatherList;
+            return null;
         }
-        for (DetailedWeatherForecast detailedWeatherForecast : weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList()) {
-            forecastCalendar.setTimeInMillis(detailedWeatherForecast.getDateTime() * 1000);
-            int forecastDay = forecastCalendar.get(Calendar.DAY_OF_YEAR);
-            if (maxForecastDay > forecastDay) {
-                forecastDay += 365;
-            }
-            maxForecastDay = forecastDay;
-            if (!weatherList.keySet().contains(forecastDay)) {
-                List<DetailedWeatherForecast> dayForecastList = new ArrayList<>();
-                weatherList.put(forecastDay, dayForecastList);
-            }
-            //appendLog(context, TAG, "preLoadWeather:forecastDay=" + forecastDay + ":detailedWeatherForecast=" + detailedWeatherForecast);
-            weatherList.get(forecastDay).add(detailedWeatherForecast);
+        return ColumnarWeatherForecast.of(weatherForecastRecord.getCompleteWeatherForecast());
+    }
+
+    private static List<DetailedWeatherForecast> getForecasts(List<DetailedWeatherForecast> weatherForecastList,
+                                                              int[] forecastIndexes) {
+        List<DetailedWeatherForecast> forecasts = new ArrayList<>(forecastIndexes.length);
+        for (int forecastIndex: forecastIndexes) {
+            forecasts.add(weatherForecastList.get(forecastIndex));
+        }
+        return forecasts;
+    }
+
+    private static int[] getAllIndexes(int size) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
         }
-        return weatherList;
+        return indexes;
     }
 
     public static WeatherIdsForDay getWeatherIdForDay(List<DetailedWeatherForecast> weatherListForDay,
                                                       WeatherMaxMinForDay weatherMaxMinForDay) {
+        return getWeatherIdForDay(
+                ColumnarWeatherForecast.of(weatherListForDay),
+                getAllIndexes(weatherListForDay.size()),
+                weatherMaxMinForDay);
+    }
+
+    public static WeatherIdsForDay getWeatherIdForDay(ColumnarWeatherForecast forecast,
+                                                      int[] forecastIndexesForDay,
+                                                      WeatherMaxMinForDay weatherMaxMinForDay) {
         Map<Integer, String> weatherDescriptionsInDay = new HashMap<>();
         Map<Integer, Integer> weatherIdsInDay = new HashMap<>();
-        for (DetailedWeatherForecast weatherForecastForDay : weatherListForDay) {
-            WeatherCondition weatherCondition = weatherForecastForDay.getFirstWeatherCondition();
-                /*appendLog(context, TAG, "preLoadWeather:dayInYear=" + dayInYearForList + ":dayCounter=" + dayCounter +
-                        ":weatherCondition.getWeatherId()=" + weatherCondition.getWeatherId() +
-                        ":weatherIdsInDay.get(weatherCondition.getWeatherId())=" + weatherIdsInDay.get(weatherCondition.getWeatherId()));*/
-            if (weatherIdsInDay.get(weatherCondition.getWeatherId()) == null) {
-                weatherIdsInDay.put(weatherCondition.getWeatherId(), 1);
+        for (int forecastIndex: forecastIndexesForDay) {
+            Integer weatherId = forecast.getWeatherId(forecastIndex);
+            if (weatherId == null) {
+                continue;
+            }
+            if (weatherIdsInDay.get(weatherId) == null) {
+                weatherIdsInDay.put(weatherId, 1);
             } else {
-                weatherIdsInDay.put(weatherCondition.getWeatherId(), 1 + weatherIdsInDay.get(weatherCondition.getWeatherId()));
+                weatherIdsInDay.put(weatherId, 1 + weatherIdsInDay.get(weatherId));
             }
-            if (!weatherDescriptionsInDay.containsKey(weatherCondition.getWeatherId())) {
-                weatherDescriptionsInDay.put(weatherCondition.getWeatherId(), weatherCondition.getDescription());
+            if (!weatherDescriptionsInDay.containsKey(weatherId)) {
+                weatherDescriptionsInDay.put(weatherId, forecast.getDescription(forecastIndex));
             }
         }
         Integer maxWeatherIdWithRain = 0;
@@ -167,10 +171,11 @@ public class ForecastUtil {
     public static WeatherForecastForVoice calculateWeatherVoiceForecast(Context context, Long locationId) {
         final WeatherForecastDbHelper weatherForecastDbHelper = WeatherForecastDbHelper.getInstance(context);
         WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord = weatherForecastDbHelper.getWeatherForecast(locationId);
-        Map<Integer, List<DetailedWeatherForecast>> weatherListForOneDay = getOneDayForecast(weatherForecastRecord);
-        if (weatherListForOneDay == null) {
+        ColumnarWeatherForecast forecast = getColumns(weatherForecastRecord);
+        if ((forecast == null) || (forecast.size() == 0)) {
             return null;
         }
+        ForecastDayIndex dayIndex = forecast.getDayIndex();
         WeatherForecastForVoice result = new WeatherForecastForVoice();
         double maxTemp = -Double.MAX_VALUE;
         double minTemp = Double.MAX_VALUE;
@@ -182,15 +187,11 @@ public class ForecastUtil {
         Long minTempTime = null;
         Long maxWindTime = null;
         for (int i = 0; i < 4; i++) {
-            List<DetailedWeatherForecast> periodWeatherCondition = weatherListForOneDay.get(i);
-            if (periodWeatherCondition == null) {
-                continue;
-            }
-            WeatherMaxMinForDay weatherMaxMinForPeriod = calculateWeatherMaxMinForDay(periodWeatherCondition);
+            WeatherMaxMinForDay weatherMaxMinForPeriod = dayIndex.getWeatherMaxMinForDayPeriod(i);
             if (weatherMaxMinForPeriod == null) {
                 continue;
             }
-            WeatherIdsForDay weatherIdsForPeriod = getWeatherIdForDay(periodWeatherCondition, weatherMaxMinForPeriod);
+            WeatherIdsForDay weatherIdsForPeriod = dayIndex.getWeatherIdsForDayPeriod(i);
             if (i == 0) {
                 result.nightWeatherIds = weatherIdsForPeriod;
                 result.nightWeatherMaxMin = weatherMaxMinForPeriod;
@@ -273,36 +274,30 @@ public class ForecastUtil {
     }
 
     public static Map<Integer, List<DetailedWeatherForecast>> getOneDayForecast(WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord) {
-        Map<Integer, List<DetailedWeatherForecast>> weatherList = createWeatherList(weatherForecastRecord);
-        if (weatherList.keySet().isEmpty()) {
+        ColumnarWeatherForecast forecast = getColumns(weatherForecastRecord);
+        if ((forecast == null) || (forecast.size() == 0)) {
             return null;
         }
-        Integer firstDayInForecast = Collections.min(weatherList.keySet());
-        List<DetailedWeatherForecast> wholeDayForecast = weatherList.get(firstDayInForecast);
+        ForecastDayIndex dayIndex = forecast.getDayIndex();
+        List<DetailedWeatherForecast> weatherForecastList = weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList();
         Map<Integer, List<DetailedWeatherForecast>> oneDayForecastMap = new HashMap<>();
-        Calendar forecastCalendar = Calendar.getInstance();
-        for (DetailedWeatherForecast detailedWeatherForecast: wholeDayForecast) {
-            forecastCalendar.setTimeInMillis(detailedWeatherForecast.getDateTime() * 1000);
-            int hourOfDay = forecastCalendar.get(Calendar.HOUR_OF_DAY);
-            int dayPeriodIndex;
-            if (hourOfDay < 6) {
-                dayPeriodIndex = 0;
-            } else if (hourOfDay <= 12) {
-                dayPeriodIndex = 1;
-            } else if (hourOfDay <= 19) {
-                dayPeriodIndex = 2;
-            } else {
-                dayPeriodIndex = 3;
+        for (int dayPeriod = 0; dayPeriod < 4; dayPeriod++) {
+            int[] forecastIndexesForDayPeriod = dayIndex.getForecastIndexesForDayPeriod(dayPeriod);
+            if (forecastIndexesForDayPeriod != null) {
+                oneDayForecastMap.put(dayPeriod, getForecasts(weatherForecastList, forecastIndexesForDayPeriod));
             }
-            if (oneDayForecastMap.get(dayPeriodIndex) == null) {
-                oneDayForecastMap.put(dayPeriodIndex, new ArrayList<DetailedWeatherForecast>());
-            }
-            oneDayForecastMap.get(dayPeriodIndex).add(detailedWeatherForecast);
         }
         return oneDayForecastMap;
     }
 
     public static WeatherMaxMinForDay calculateWeatherMaxMinForDay(List<DetailedWeatherForecast> forecastListForDay) {
+        return calculateWeatherMaxMinForDay(
+                ColumnarWeatherForecast.of(forecastListForDay),
+                getAllIndexes(forecastListForDay.size()));
+    }
+
+    public static WeatherMaxMinForDay calculateWeatherMaxMinForDay(ColumnarWeatherForecast forecast,
+                                                                   int[] forecastIndexesForDay) {
         double maxRain = Double.MIN_VALUE;
         double maxSnow = Double.MIN_VALUE;
         double maxTemp = -Double.MAX_VALUE;
@@ -315,22 +310,19 @@ public class ForecastUtil {
         Long maxWindTime = null;
         Integer dayOfYear = null;
 
-        if (forecastListForDay.isEmpty()) {
+        if (forecastIndexesForDay.length == 0) {
             return null;
         }
 
         Map <Double, Integer> windDirectionCounter = new HashMap<>();
-        for (DetailedWeatherForecast weatherForecastForDay : forecastListForDay) {
-                //WeatherCondition weatherCondition = weatherForecastForDay.getFirstWeatherCondition();
-                /*appendLog(context, TAG, "preLoadWeather:weatherIdForTheDay=" + weatherIdForTheDay +
-                        ":weatherForecastForDay.getTemperature()=" + weatherForecastForDay.getTemperature());*/
-            long currentWeatherForecastDateTime = weatherForecastForDay.getDateTime() * 1000;
+        for (int forecastIndex: forecastIndexesForDay) {
+            long currentWeatherForecastDateTime = forecast.getDateTime(forecastIndex) * 1000;
             if (dayOfYear == null) {
                 Calendar calendar = Calendar.getInstance();
                 calendar.setTimeInMillis(currentWeatherForecastDateTime);
                 dayOfYear = calendar.get(Calendar.DAY_OF_YEAR);
             }
-            double currentTemp = weatherForecastForDay.getTemperature();
+            double currentTemp = forecast.getTemperature(forecastIndex);
             if (maxTemp < currentTemp) {
                 maxTemp = currentTemp;
                 maxTempTime = currentWeatherForecastDateTime;
@@ -339,20 +331,22 @@ public class ForecastUtil {
                 minTemp = currentTemp;
                 minTempTime = currentWeatherForecastDateTime;
             }
-            if (maxWind < weatherForecastForDay.getWindSpeed()) {
-                maxWind = weatherForecastForDay.getWindSpeed();
+            double windSpeed = forecast.getWindSpeed(forecastIndex);
+            if (maxWind < windSpeed) {
+                maxWind = windSpeed;
                 maxWindTime = currentWeatherForecastDateTime;
             }
-            if (!windDirectionCounter.containsKey(weatherForecastForDay.getWindDegree())) {
-                windDirectionCounter.put(weatherForecastForDay.getWindDegree(), 0);
-            }
-            windDirectionCounter.put(weatherForecastForDay.getWindDegree(), 1 + windDirectionCounter.get(weatherForecastForDay.getWindDegree()));
-            if (maxRain < weatherForecastForDay.getRain()) {
-                maxRain = weatherForecastForDay.getRain();
+            double windDegree = forecast.getWindDegree(forecastIndex);
+            Integer windDirectionCount = windDirectionCounter.get(windDegree);
+            windDirectionCounter.put(windDegree, (windDirectionCount == null) ? 1 : windDirectionCount + 1);
+            double rain = forecast.getRain(forecastIndex);
+            if (maxRain < rain) {
+                maxRain = rain;
                 maxRainTime = currentWeatherForecastDateTime;
             }
-            if (maxSnow < weatherForecastForDay.getSnow()) {
-                maxSnow = weatherForecastForDay.getSnow();
+            double snow = forecast.getSnow(forecastIndex);
+            if (maxSnow < snow) {
+                maxSnow = snow;
                 maxSnowTime = currentWeatherForecastDateTime;
             }
         }
@@ -369,10 +363,16 @@ public class ForecastUtil {
     }
 
     public static String getWeatherIconId(int weatherId, List<DetailedWeatherForecast> forecastListForDay) {
-        for (DetailedWeatherForecast weatherForecastForDay : forecastListForDay) {
-            WeatherCondition weatherCondition = weatherForecastForDay.getFirstWeatherCondition();
-            if (weatherCondition.getWeatherId().equals(weatherId)) {
-                return weatherCondition.getIcon();
+        return getWeatherIconId(
+                weatherId,
+                ColumnarWeatherForecast.of(forecastListForDay),
+                getAllIndexes(forecastListForDay.size()));
+    }
+
+    public static String getWeatherIconId(int weatherId, ColumnarWeatherForecast forecast, int[] forecastIndexesForDay) {
+        for (int forecastIndex: forecastIndexesForDay) {
+            if (forecast.getWeatherIdOrNone(forecastIndex) == weatherId) {
+                return forecast.getIcon(forecastIndex);
             }
         }
         return null;
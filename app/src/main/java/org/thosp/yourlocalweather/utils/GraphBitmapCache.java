@@ -0,0 +1,74 @@
+package org.thosp.yourlocalweather.utils;
+
+/**
+ * LRU of rendered widget graphs bounded by the bytes of the bitmaps. Entries are
+ * keyed by everything the graph depends on, so a changed size, setting or
+ * forecast is a miss.
+ */
+public class GraphBitmapCache extends BitmapLruCache<GraphBitmapCache.Key> {
+
+    public static class Key {
+        final int widgetId;
+        final long locationId;
+        final int width;
+        final int height;
+        final int settingsHash;
+        final long forecastVersion;
+
+        public Key(int widgetId, long locationId, int width, int height, int settingsHash, long forecastVersion) {
+            this.widgetId = widgetId;
+            this.locationId = locationId;
+            this.width = width;
+            this.height = height;
+            this.settingsHash = settingsHash;
+            this.forecastVersion = forecastVersion;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (widgetId == other.widgetId) &&
+                    (locationId == other.locationId) &&
+                    (width == other.width) &&
+                    (height == other.height) &&
+                    (settingsHash == other.settingsHash) &&
+                    (forecastVersion == other.forecastVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = widgetId;
+            result = 31 * result + (int) (locationId ^ (locationId >>> 32));
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + settingsHash;
+            result = 31 * result + (int) (forecastVersion ^ (forecastVersion >>> 32));
+            return result;
+        }
+    }
+
+    public GraphBitmapCache(long maxBytes) {
+        super("GraphBitmapCache", maxBytes);
+    }
+
+    public void invalidateWidget(final int widgetId) {
+        invalidate(new KeyMatcher<Key>() {
+            @Override
+            public boolean matches(Key key) {
+                return key.widgetId == widgetId;
+            }
+        });
+    }
+
+    public void invalidateLocation(final long locationId) {
+        invalidate(new KeyMatcher<Key>() {
+            @Override
+            public boolean matches(Key key) {
+                return key.locationId == locationId;
+            }
+        });
+    }
+}
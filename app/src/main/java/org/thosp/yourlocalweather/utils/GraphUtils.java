@@ -8,7 +8,6 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.os.Build;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.Display;
@@ -43,22 +42,52 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
 
 public class GraphUtils {
 
-    private static Map<Integer, Bitmap> combinedGraphs = new HashMap<>();
+    private static final String TAG = "GraphUtils";
+
+    private static final long MAX_GRAPH_CACHE_BYTES = 16 * 1024 * 1024;
+
+    private static final GraphBitmapCache combinedGraphs = new GraphBitmapCache(
+            Math.min(MAX_GRAPH_CACHE_BYTES, Runtime.getRuntime().maxMemory() / 16));
+
+    static {
+        Metrics.gauge("cache.graph.hits", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return combinedGraphs.getHits();
+            }
+        });
+        Metrics.gauge("cache.graph.misses", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return combinedGraphs.getMisses();
+            }
+        });
+        Metrics.gauge("cache.graph.evictions", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return combinedGraphs.getEvictions();
+            }
+        });
+        Metrics.gauge("cache.graph.bytes", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return combinedGraphs.getCurrentBytes();
+            }
+        });
+    }
 
     public static Bitmap getCombinedChart(Context context,
                                           int widgetId,
                                           Float heightMultiplier,
                                           List<DetailedWeatherForecast> weatherForecastList,
+                                          long forecastVersion,
                                           long locationId,
                                           Locale locale) {
 
-        if (combinedGraphs.get(widgetId) != null) {
-            return combinedGraphs.get(widgetId);
-        }
-
         WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
         Boolean showLegend = widgetSettingsDbHelper.getParamBoolean(widgetId, "combinedGraphShowLegend");
 
@@ -75,6 +104,28 @@ public class GraphUtils {
             height = (int) (width * heightMultiplier);
         }
 
+        Set<Integer> combinedGraphValues = getCombinedGraphValuesFromSettings(context, widgetSettingsDbHelper, widgetId);
+        int textColor = AppPreference.getWidgetTextColor(context);
+        int backgroundColor = AppPreference.getWidgetBackgroundColor(context);
+        AppPreference.GraphGridColors gridColors = AppPreference.getWidgetGraphGridColor(context);
+        int settingsHash = getGraphSettingsHash(context,
+                                                combinedGraphValues,
+                                                showLegend,
+                                                textColor,
+                                                backgroundColor,
+                                                gridColors,
+                                                locale);
+        GraphBitmapCache.Key graphKey = new GraphBitmapCache.Key(widgetId,
+                                                                 locationId,
+                                                                 width,
+                                                                 height,
+                                                                 settingsHash,
+                                                                 forecastVersion);
+        Bitmap cachedGraph = combinedGraphs.get(graphKey);
+        if (cachedGraph != null) {
+            return cachedGraph;
+        }
+
         int yAxisValues = 4;
         if (height > 800) {
             yAxisValues += 6;
@@ -86,16 +137,16 @@ public class GraphUtils {
 
         CombinedChart combinedChart = generateCombinedGraph(context,
                                     null,
-                                                            getCombinedGraphValuesFromSettings(context, widgetSettingsDbHelper, widgetId),
+                                                            combinedGraphValues,
                                                             weatherForecastList,
                                                             locationId,
                                                             locale,
                                                             18f,
                                                             yAxisValues,
                                                             0,
-                                                            AppPreference.getWidgetTextColor(context),
-                                                            AppPreference.getWidgetBackgroundColor(context),
-                                                            AppPreference.getWidgetGraphGridColor(context),
+                                                            textColor,
+                                                            backgroundColor,
+                                                            gridColors,
                                                             showLegend);
 
         combinedChart.setBackgroundColor(ContextCompat.getColor(context,
@@ -107,18 +158,52 @@ public class GraphUtils {
             bitmapHeight += 20;
         }
 
-        Bitmap.Config bitmapConfig = Bitmap.Config.ARGB_8888;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            bitmapConfig = Bitmap.Config.RGBA_F16;
-        }
-        Bitmap combinedChartBitmap = Bitmap.createBitmap(width, bitmapHeight, bitmapConfig);
+        Bitmap combinedChartBitmap = Bitmap.createBitmap(width, bitmapHeight, getGraphBitmapConfig(context));
         Canvas combinedChartCanvas = new Canvas(combinedChartBitmap);
         combinedChart.layout(0, 0, width, height);
         combinedChart.draw(combinedChartCanvas);
-        combinedGraphs.put(widgetId, combinedChartBitmap);
+        combinedGraphs.put(graphKey, combinedChartBitmap);
+        appendLog(context, TAG, "graph rendered for widget ", widgetId, ", cache: ", combinedGraphs.toString());
         return combinedChartBitmap;
     }
 
+    /**
+     * RGBA_F16 takes 8 bytes per pixel, it is used only when the display can show
+     * the wider color gamut.
+     */
+    private static Bitmap.Config getGraphBitmapConfig(Context context) {
+        if ((Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) &&
+                context.getResources().getConfiguration().isScreenWideColorGamut()) {
+            return Bitmap.Config.RGBA_F16;
+        }
+        return Bitmap.Config.ARGB_8888;
+    }
+
+    private static int getGraphSettingsHash(Context context,
+                                            Set<Integer> combinedGraphValues,
+                                            boolean showLegend,
+                                            int textColor,
+                                            int backgroundColor,
+                                            AppPreference.GraphGridColors gridColors,
+                                            Locale locale) {
+        int result = combinedGraphValues.hashCode();
+        result = 31 * result + (showLegend ? 1 : 0);
+        result = 31 * result + textColor;
+        result = 31 * result + backgroundColor;
+        result = 31 * result + gridColors.getMainGridColor();
+        result = 31 * result + gridColors.getSecondaryGridColor();
+        result = 31 * result + String.valueOf(locale).hashCode();
+        result = 31 * result + String.valueOf(TemperatureUtil.getTemperatureUnit(context)).hashCode();
+        result = 31 * result + String.valueOf(AppPreference.getWindUnit(context)).hashCode();
+        result = 31 * result + String.valueOf(AppPreference.getPressureUnit(context)).hashCode();
+        result = 31 * result + AppPreference.getRainOrSnowUnit(context);
+        return result;
+    }
+
+    public static GraphBitmapCache getGraphCache() {
+        return combinedGraphs;
+    }
+
     protected static int[] getWidgetSize(Context context, int appWidgetId) {
         AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(
                 context.getApplicationContext());
@@ -215,7 +300,15 @@ public class GraphUtils {
     }
 
     public static void invalidateGraph() {
-        combinedGraphs = new HashMap<>();
+        combinedGraphs.invalidateAll();
+    }
+
+    public static void invalidateGraph(int widgetId) {
+        combinedGraphs.invalidateWidget(widgetId);
+    }
+
+    public static void invalidateGraphsOfLocation(long locationId) {
+        combinedGraphs.invalidateLocation(locationId);
     }
 
     public static CombinedChart generateCombinedGraph(Context context,
@@ -294,13 +387,14 @@ public class GraphUtils {
 
         setupXAxis(combinedChart.getXAxis(), weatherForecastList, textColorId, textSize, gridColorId, locale);
 
-        int temperatureListSize = weatherForecastList.size();
-        double[] temperatures = new double[temperatureListSize];
+        PreferenceSnapshot preferences = PreferenceSnapshot.get(context);
+        ForecastSeries forecastSeries = ForecastSeries.convert(preferences, weatherForecastList);
+        int seriesSize = forecastSeries.size();
+        float[] temperatures = forecastSeries.getTemperatures();
         double minTemperatureValue = Double.MAX_VALUE;
         double maxTemperatureValue = Double.MIN_VALUE;
-        for (int i = 0; i < temperatureListSize; i++) {
-            double temperatureValue = TemperatureUtil.getTemperature(context, weatherForecastList.get(i));
-            temperatures[i] = temperatureValue;
+        for (int i = 0; i < seriesSize; i++) {
+            double temperatureValue = temperatures[i];
             if (temperatureValue < minTemperatureValue) {
                 minTemperatureValue = temperatureValue;
             }
@@ -313,11 +407,8 @@ public class GraphUtils {
         minTemperatureValue -= 1;
 
         List<Entry> temperatureEntries = new ArrayList<>();
-        int entryCounter = 0;
-        for (double temperatureForEntry: temperatures) {
-            temperatureEntries.add(new Entry(
-                    entryCounter++,
-                    (float) temperatureForEntry));
+        for (int i = 0; i < seriesSize; i++) {
+            temperatureEntries.add(new Entry(i, temperatures[i]));
         }
 
         LineDataSet set = new LineDataSet(temperatureEntries, context.getString(R.string.graph_temperature_day_label));
@@ -333,24 +424,16 @@ public class GraphUtils {
         set.setValueTextColor(textColorId);
 
         double multiplier;
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_PRESSURE_UNITS, "hpa");
-        switch (unitsFromPreferences) {
+        switch (preferences.getPressureUnits()) {
             case "inhg": multiplier = 50; break;
             default: multiplier = 1;
         }
 
-        int pressuresSize = weatherForecastList.size();
-        double[] pressures = new double[pressuresSize];
+        float[] pressures = forecastSeries.getPressures();
         double minPressureValue = Double.MAX_VALUE;
         double maxPressureValue = Double.MIN_VALUE;
-        for (int i = 0; i < pressuresSize; i++) {
-            PressureWithUnit pressureWithUnit = AppPreference.getPressureWithUnit(
-                    context,
-                    weatherForecastList.get(i).getPressure(),
-                    locale);
-            double pressureValue = multiplier * pressureWithUnit.getPressure();
-            pressures[i] = pressureValue;
+        for (int i = 0; i < seriesSize; i++) {
+            double pressureValue = multiplier * pressures[i];
             if (pressureValue < minPressureValue) {
                 minPressureValue = pressureValue;
             }
@@ -360,11 +443,8 @@ public class GraphUtils {
         }
 
         List<Entry> pressureEntries = new ArrayList<>();
-        entryCounter = 0;
-        for (double pressureForEntry: pressures) {
-            pressureEntries.add(new Entry(
-                    entryCounter++,
-                    (float) pressureForEntry));
+        for (int i = 0; i < seriesSize; i++) {
+            pressureEntries.add(new Entry(i, (float) (multiplier * pressures[i])));
         }
 
         double negativeValue = 0 - minTemperatureValue;
@@ -386,22 +466,20 @@ public class GraphUtils {
         pressureSet.setAxisIndex(3);
 
         List<BarEntry> rainEntries = new ArrayList<>();
-        int rainSnowSize = weatherForecastList.size();
-        float[] rains = new float[rainSnowSize];
-        float[] snows = new float[rainSnowSize];
+        float[] rainValues = forecastSeries.getRains();
+        float[] snowValues = forecastSeries.getSnows();
+        float[] rains = new float[seriesSize];
+        float[] snows = new float[seriesSize];
         double minRainSnowValue = Double.MAX_VALUE;
         double maxRainSnowValue = Double.MIN_VALUE;
         boolean isRain = false;
         boolean isSnow = false;
-        for (int i = 0; i < weatherForecastList.size(); i++) {
-            DetailedWeatherForecast detailedWeatherForecast = weatherForecastList.get(i);
-            double rainValue = AppPreference.getRainOrSnow(
-                    context, detailedWeatherForecast.getRain());
+        for (int i = 0; i < seriesSize; i++) {
+            double rainValue = rainValues[i];
             if (!isRain && (rainValue > 0)) {
                 isRain = true;
             }
-            double snowValue = AppPreference.getRainOrSnow(
-                    context, detailedWeatherForecast.getSnow());
+            double snowValue = snowValues[i];
             if (!isSnow && (snowValue > 0)) {
                 isSnow = true;
             }
@@ -424,7 +502,7 @@ public class GraphUtils {
         }
 
         boolean isRainSnowVector = isRain && isSnow;
-        for (int i = 0; i < weatherForecastList.size(); i++) {
+        for (int i = 0; i < seriesSize; i++) {
             if (isRainSnowVector) {
                 float[] rainsnowBarData = new float[2];
                 rainsnowBarData[0] = rains[i];
@@ -467,11 +545,11 @@ public class GraphUtils {
         }
 
         List<Entry> windEntries = new ArrayList<>();
-        int windSize = weatherForecastList.size();
+        float[] winds = forecastSeries.getWinds();
         double minWindValue = Double.MAX_VALUE;
         double maxWindValue = Double.MIN_VALUE;
-        for (int i = 0; i < windSize; i++) {
-            double windSpeed = AppPreference.getWind(context, weatherForecastList.get(i).getWindSpeed());
+        for (int i = 0; i < seriesSize; i++) {
+            double windSpeed = winds[i];
             if (windSpeed < minWindValue) {
                 minWindValue = windSpeed;
             }
@@ -0,0 +1,358 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.json.JSONException;
+
+import java.nio.charset.Charset;
+
+/**
+ * Pull reader of JSON tokens working directly on the UTF-8 bytes of a response.
+ * Values are read in document order without building a tree, names can be
+ * matched against a list of expected names without creating strings.
+ * The reader is lenient about separators, it does not check commas and colons.
+ */
+public class JsonByteReader {
+
+    public static final int BEGIN_OBJECT = 1;
+    public static final int END_OBJECT = 2;
+    public static final int BEGIN_ARRAY = 3;
+    public static final int END_ARRAY = 4;
+    public static final int STRING = 5;
+    public static final int NUMBER = 6;
+    public static final int BOOLEAN = 7;
+    public static final int NULL = 8;
+    public static final int END_DOCUMENT = 9;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_EXACT_MANTISSA_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    public JsonByteReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public JsonByteReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int peek() throws JSONException {
+        skipSeparators();
+        if (position >= limit) {
+            return END_DOCUMENT;
+        }
+        switch (data[position]) {
+            case '{': return BEGIN_OBJECT;
+            case '}': return END_OBJECT;
+            case '[': return BEGIN_ARRAY;
+            case ']': return END_ARRAY;
+            case '"': return STRING;
+            case 't':
+            case 'f': return BOOLEAN;
+            case 'n': return NULL;
+            default: return NUMBER;
+        }
+    }
+
+    public void beginObject() throws JSONException {
+        expect('{');
+    }
+
+    public void endObject() throws JSONException {
+        expect('}');
+    }
+
+    public void beginArray() throws JSONException {
+        expect('[');
+    }
+
+    public void endArray() throws JSONException {
+        expect(']');
+    }
+
+    public boolean hasNext() throws JSONException {
+        skipSeparators();
+        if (position >= limit) {
+            throw syntaxError("Unexpected end of document");
+        }
+        return (data[position] != '}') && (data[position] != ']');
+    }
+
+    public String nextName() throws JSONException {
+        return nextString();
+    }
+
+    /**
+     * Reads the next name and returns its index in names or -1 when the name
+     * is not one of them. Expected names have to be ASCII.
+     */
+    public int nextName(String[] names) throws JSONException {
+        skipSeparators();
+        int start = position + 1;
+        int end = findStringEnd(start);
+        boolean escaped = containsEscape(start, end);
+        String decodedName = escaped ? decodeString(start, end) : null;
+        position = end + 1;
+        for (int nameIndex = 0; nameIndex < names.length; nameIndex++) {
+            if (escaped) {
+                if (names[nameIndex].equals(decodedName)) {
+                    return nameIndex;
+                }
+            } else if (asciiEquals(names[nameIndex], start, end)) {
+                return nameIndex;
+            }
+        }
+        return -1;
+    }
+
+    public String nextString() throws JSONException {
+        int token = peek();
+        if (token == NULL) {
+            skipLiteral();
+            return null;
+        }
+        if (token != STRING) {
+            int start = position;
+            skipLiteral();
+            return new String(data, start, position - start, UTF_8);
+        }
+        int start = position + 1;
+        int end = findStringEnd(start);
+        position = end + 1;
+        if (!containsEscape(start, end)) {
+            return new String(data, start, end - start, UTF_8);
+        }
+        return decodeString(start, end);
+    }
+
+    public double nextDouble() throws JSONException {
+        int token = peek();
+        if (token == STRING) {
+            String value = nextString();
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw syntaxError("Not a number: " + value);
+            }
+        }
+        if (token != NUMBER) {
+            throw syntaxError("Number expected");
+        }
+        return readNumber();
+    }
+
+    public long nextLong() throws JSONException {
+        return (long) nextDouble();
+    }
+
+    public int nextInt() throws JSONException {
+        return (int) nextDouble();
+    }
+
+    public boolean nextBoolean() throws JSONException {
+        if (peek() != BOOLEAN) {
+            throw syntaxError("Boolean expected");
+        }
+        boolean value = data[position] == 't';
+        skipLiteral();
+        return value;
+    }
+
+    public void skipValue() throws JSONException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    depth++;
+                    position++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    position++;
+                    break;
+                case STRING:
+                    position = findStringEnd(position + 1) + 1;
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of document");
+                default:
+                    skipLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    private double readNumber() throws JSONException {
+        int start = position;
+        boolean negative = false;
+        if ((position < limit) && ((data[position] == '-') || (data[position] == '+'))) {
+            negative = data[position] == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean exactPossible = true;
+        while (position < limit) {
+            byte currentByte = data[position];
+            if ((currentByte >= '0') && (currentByte <= '9')) {
+                if (mantissaDigits < MAX_EXACT_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (currentByte - '0');
+                    if (mantissa > 0) {
+                        mantissaDigits++;
+                    }
+                    if (inFraction) {
+                        fractionDigits++;
+                    }
+                } else {
+                    exactPossible = false;
+                }
+            } else if ((currentByte == '.') && !inFraction) {
+                inFraction = true;
+            } else if ((currentByte == 'e') || (currentByte == 'E') || (currentByte == '-') || (currentByte == '+')) {
+                exactPossible = false;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (position == start) {
+            throw syntaxError("Number expected");
+        }
+        if (exactPossible && (fractionDigits < POWERS_OF_TEN.length)) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        String number = new String(data, start, position - start, UTF_8);
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Not a number: " + number);
+        }
+    }
+
+    private void skipLiteral() {
+        while (position < limit) {
+            byte currentByte = data[position];
+            if ((currentByte == ',') || (currentByte == '}') || (currentByte == ']') || (currentByte == ':') ||
+                    isWhitespace(currentByte)) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void skipSeparators() {
+        while (position < limit) {
+            byte currentByte = data[position];
+            if ((currentByte != ',') && (currentByte != ':') && !isWhitespace(currentByte)) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean isWhitespace(byte value) {
+        return (value == ' ') || (value == '\n') || (value == '\r') || (value == '\t');
+    }
+
+    private void expect(char expected) throws JSONException {
+        skipSeparators();
+        if ((position >= limit) || (data[position] != expected)) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private int findStringEnd(int start) throws JSONException {
+        if ((start > limit) || (data[start - 1] != '"')) {
+            throw syntaxError("String expected");
+        }
+        int current = start;
+        while (current < limit) {
+            if (data[current] == '\\') {
+                current += 2;
+                continue;
+            }
+            if (data[current] == '"') {
+                return current;
+            }
+            current++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private boolean containsEscape(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean asciiEquals(String name, int start, int end) {
+        if (name.length() != (end - start)) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != data[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decodeString(int start, int end) throws JSONException {
+        StringBuilder result = new StringBuilder(end - start);
+        int segmentStart = start;
+        int current = start;
+        while (current < end) {
+            if (data[current] != '\\') {
+                current++;
+                continue;
+            }
+            result.append(new String(data, segmentStart, current - segmentStart, UTF_8));
+            if (current + 1 >= end) {
+                throw syntaxError("Unterminated escape sequence");
+            }
+            byte escaped = data[current + 1];
+            current += 2;
+            switch (escaped) {
+                case 'b': result.append('\b'); break;
+                case 'f': result.append('\f'); break;
+                case 'n': result.append('\n'); break;
+                case 'r': result.append('\r'); break;
+                case 't': result.append('\t'); break;
+                case 'u':
+                    if (current + 4 > end) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(new String(data, current, 4, UTF_8), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError("Invalid escape sequence");
+                    }
+                    current += 4;
+                    break;
+                default: result.append((char) escaped);
+            }
+            segmentStart = current;
+        }
+        result.append(new String(data, segmentStart, end - segmentStart, UTF_8));
+        return result.toString();
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at position " + position);
+    }
+}
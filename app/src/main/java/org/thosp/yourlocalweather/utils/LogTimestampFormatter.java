@@ -0,0 +1,58 @@
+package org.thosp.yourlocalweather.utils;
+
+import java.util.Calendar;
+
+/**
+ * Formats times as "yyyy-MM-dd HH:mm:ss.SSS" into a reused buffer. The date and
+ * hour part is computed with Calendar once per hour, minutes, seconds and
+ * milliseconds are computed from the offset into the hour, so formatting does
+ * not allocate. Not thread safe, used by the log writer thread only.
+ */
+class LogTimestampFormatter {
+
+    static final int LENGTH = 23;
+
+    private static final long HOUR_IN_MS = 3600000L;
+
+    private final char[] buffer = new char[LENGTH];
+    private final Calendar calendar = Calendar.getInstance();
+    private long currentHourStart = Long.MIN_VALUE;
+
+    char[] format(long timeInMs) {
+        if ((timeInMs < currentHourStart) || (timeInMs >= currentHourStart + HOUR_IN_MS)) {
+            initHour(timeInMs);
+        }
+        int offsetInHour = (int) (timeInMs - currentHourStart);
+        int minutes = offsetInHour / 60000;
+        int seconds = (offsetInHour / 1000) % 60;
+        int millis = offsetInHour % 1000;
+        writeDigits(minutes, 14, 2);
+        writeDigits(seconds, 17, 2);
+        writeDigits(millis, 20, 3);
+        return buffer;
+    }
+
+    private void initHour(long timeInMs) {
+        calendar.setTimeInMillis(timeInMs);
+        currentHourStart = timeInMs - calendar.get(Calendar.MINUTE) * 60000L
+                - calendar.get(Calendar.SECOND) * 1000L
+                - calendar.get(Calendar.MILLISECOND);
+        writeDigits(calendar.get(Calendar.YEAR), 0, 4);
+        buffer[4] = '-';
+        writeDigits(calendar.get(Calendar.MONTH) + 1, 5, 2);
+        buffer[7] = '-';
+        writeDigits(calendar.get(Calendar.DAY_OF_MONTH), 8, 2);
+        buffer[10] = ' ';
+        writeDigits(calendar.get(Calendar.HOUR_OF_DAY), 11, 2);
+        buffer[13] = ':';
+        buffer[16] = ':';
+        buffer[19] = '.';
+    }
+
+    private void writeDigits(int value, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+    }
+}
@@ -29,18 +29,18 @@ import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
 import org.thosp.yourlocalweather.service.Cell;
 import org.thosp.yourlocalweather.service.WeatherByVoiceRequestDataHolder;
 import org.thosp.yourlocalweather.service.WeatherRequestDataHolder;
+import org.thosp.yourlocalweather.service.WeatherRequestDispatcher;
+import org.thosp.yourlocalweather.service.WeatherUpdateStatistics;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Queue;
@@ -57,19 +57,25 @@ public class LogToFile {
     public static Uri logFileUri;
     public static Boolean logToFileEnabled;
     public static int logFileHoursOfLasting;
-    private static Calendar logFileAtTheEndOfLive;
-    private static Calendar nextCheckPreferencesCheck;
+    private static final long CHECK_PREFERENCES_INTERVAL_IN_MS = 300000L;
+    private static volatile long nextCheckPreferencesCheckInMs;
+    private static volatile LogWriter logWriter;
 
     public static void appendLogWithParams(Context context, String tag, String text, List<String> params) {
-        if (!logToFileEnabled || ((logFilePathname == null) && (logFileUri == null))) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        StringBuilder paramDescription = new StringBuilder();
-        for (String param: params) {
-            paramDescription.append(param);
-            paramDescription.append(":");
+        try {
+            event.text(text);
+            if (params != null) {
+                for (String param: params) {
+                    event.text(param).text(":");
+                }
+            }
+        } finally {
+            event.publish();
         }
-        appendLog(context, tag, text, paramDescription.toString());
     }
 
     public static void appendLogSensorsCheck(Context context,
@@ -79,14 +85,17 @@ public class LogToFile {
                                              double countedLength,
                                              double countedAcc,
                                              float dT) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, reasonText, ", currentLength = ", String.format("%.8f", currentLength),
-                ":counted length = ", String.format("%.8f", countedLength), ":countedAcc = ",
-                String.format("%.8f", countedAcc),
-                ", dT = ", String.format("%.8f", dT));
+        try {
+            event.text(reasonText).text(", currentLength = ").decimal(currentLength)
+                    .text(":counted length = ").decimal(countedLength).text(":countedAcc = ")
+                    .decimal(countedAcc).text(", dT = ").decimal(dT);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLogSensorsEnd(Context context,
@@ -102,143 +111,204 @@ public class LogToFile {
                                            boolean autolocationForSensorEventAddressFound,
                                            boolean nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation,
                                            boolean currentLengthIsUnderNoLocationLimit) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, "end currentLength = ", String.format("%.8f", absCurrentLength),
-                ", currentLengthLowPassed = ", String.format("%.8f", currentLengthLowPassed),
-                ", lastUpdate=", String.valueOf(nowInMillis), ", lastUpdatePosition=", String.valueOf(lastUpdatedPosition),
-                ", nowIsBeforeTheLastUpdatedAndTimeSpan=", String.valueOf(nowIsBeforeTheLastUpdatedAndTimeSpan),
-                ", currentLengthIsUnderLimit=", String.valueOf(currentLengthIsUnderLimit),
-                ", nowIsBeforeTheLastUpdatedAndFastTimeSpan=", String.valueOf(nowIsBeforeTheLastUpdatedAndFastTimeSpan),
-                ", currentLengthIsUnderFastLimit=", String.valueOf(currentLengthIsUnderFastLimit),
-                ", autolocationForSensorEventAddressFound=", String.valueOf(autolocationForSensorEventAddressFound),
-                ", nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation=", String.valueOf(nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation),
-                ", currentLengthIsUnderNoLocationLimit=", String.valueOf(currentLengthIsUnderNoLocationLimit)
-        );
+        try {
+            event.text("end currentLength = ").decimal(absCurrentLength)
+                    .text(", currentLengthLowPassed = ").decimal(currentLengthLowPassed)
+                    .text(", lastUpdate=").value(nowInMillis).text(", lastUpdatePosition=")
+                    .value(lastUpdatedPosition).text(", nowIsBeforeTheLastUpdatedAndTimeSpan=")
+                    .value(nowIsBeforeTheLastUpdatedAndTimeSpan).text(", currentLengthIsUnderLimit=")
+                    .value(currentLengthIsUnderLimit)
+                    .text(", nowIsBeforeTheLastUpdatedAndFastTimeSpan=")
+                    .value(nowIsBeforeTheLastUpdatedAndFastTimeSpan)
+                    .text(", currentLengthIsUnderFastLimit=").value(currentLengthIsUnderFastLimit)
+                    .text(", autolocationForSensorEventAddressFound=")
+                    .value(autolocationForSensorEventAddressFound)
+                    .text(", nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation=")
+                    .value(nowIsBeforeTheLastUpdatedAndTimeSpanNoLocation)
+                    .text(", currentLengthIsUnderNoLocationLimit=")
+                    .value(currentLengthIsUnderNoLocationLimit);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Sensor value1, String text2, float value2, String text3, int value3) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3);
+        } finally {
+            event.publish();
+        }
     }
     
     public static void appendLog(Context context, String tag, String text1, Sensor value1, String text2, float value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
     
     public static void appendLog(Context context, String tag, String text1, int value1, String text2, int value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1, String text2, boolean value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1, String text2, int value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Intent value1, String text2, Class value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
 
     public static void appendLog(Context context, String tag, String text1, long value1, String text2, Class value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Sensor value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLogWakeupSources(Context context, String tag, String wakeupdown, List<Integer> wakeUpSources) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        StringBuilder wakeupSourcesList = new StringBuilder();
-        wakeupSourcesList.append(wakeupdown);
-        wakeupSourcesList.append(", wakeUpSources.size=");
-        wakeupSourcesList.append(wakeUpSources.size());
-        wakeupSourcesList.append(", WakeUp source list: ");
-        for (Integer wakeupSource: wakeUpSources) {
-            wakeupSourcesList.append(wakeupSource);
-            wakeupSourcesList.append(",");
+        try {
+            event.text(wakeupdown).text("wakeUpSources:").text(wakeupdown)
+                    .text(", wakeUpSources.size=").value(wakeUpSources.size()).text(", WakeUp source list: ");
+            for (Integer wakeupSource: wakeUpSources) {
+                event.value(wakeupSource).text(",");
+            }
+        } finally {
+            event.publish();
         }
-        appendLog(context, tag, wakeupdown, "wakeUpSources:", wakeupSourcesList.toString());
     }
 
     public static void appendLog(Context context, String tag, String text1, SensorManager value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, PowerManager.WakeLock value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, PowerManager.WakeLock value1, String text2, boolean value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Long value1, Long value2, double value3, double value4) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1 + ":" + value1 + ":" + value2 + ":" + value3 + ":" + value4);
+        try {
+            event.text(text1).text(":").value(value1).text(":").value(value2)
+                    .text(":").value(value3).text(":").value(value4);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1, String text2, long value2, String text3, long value3, String text4, long value4) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3), text4, String.valueOf(value4));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3)
+                    .text(text4).value(value4);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context,
@@ -253,232 +323,410 @@ public class LogToFile {
                                  long value4,
                                  String text5,
                                  long value5) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3), text4, String.valueOf(value4), text5, String.valueOf(value5));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3)
+                    .text(text4).value(value4).text(text5).value(value5);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1, int value2, int value3, int value4, int value5) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.format("%d|%s|%d|%d|%s", value1, value2, value3, value4, value5));
+        try {
+            event.text(text1).value(value1).text("|").value(value2).text("|").value(value3)
+                    .text("|").value(value4).text("|").value(value5);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1, int value2, int value3, int value4, int value5, int value6) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.format("%d|%s|%d|%d|%s|%d", value1, value2, value3, value4, value5, value6));
+        try {
+            event.text(text1).value(value1).text("|").value(value2).text("|").value(value3)
+                    .text("|").value(value4).text("|").value(value5).text("|").value(value6);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, PowerManager value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Messenger value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Intent value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Queue value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? String.valueOf(value1.size()) : "null");
+        try {
+            event.text(text1);
+            if (value1 != null) {
+                event.value(value1.size());
+            } else {
+                event.text("null");
+            }
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, List value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? (value1 + ":" + String.valueOf(value1.size())) : "null");
+        try {
+            addListValue(event.text(text1), value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, List value1, String text2, List value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? (value1 + ":" + String.valueOf(value1.size())) : "null", text2, (value2 != null)? (value2 + ":" + String.valueOf(value2.size())) : "null");
+        try {
+            addListValue(event.text(text1), value1);
+            addListValue(event.text(text2), value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, CellLocation value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Cell value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, double value1, String text2, double value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, double value1, String text2, double value2, String text3, String text4) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, text4);
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).text(text4);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Calendar value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? String.valueOf(value1.getTimeInMillis()) : "null");
+        try {
+            event.text(text1);
+            if (value1 != null) {
+                event.value(value1.getTimeInMillis());
+            } else {
+                event.text("null");
+            }
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1, String text2, Location value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, NetworkInfo value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Network value1, String text2, boolean value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, android.location.Location value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, double value1, String text2, double value2, String text3, long value3, String text4, Address value4) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3), text4, (value4 != null)? value4.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3)
+                    .text(text4).value(value4);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, double value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1));
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Address value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, WeatherForecastDbHelper.WeatherForecastRecord value1, String text2, Switch value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, android.location.Location value1, String text2, Address value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, android.location.Location value1, String text2, double value2, String text3, double value3, String text4, String text5) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, String.valueOf(value2), text3, String.valueOf(value3), text4, text5);
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3)
+                    .text(text4).text(text5);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1, String text2, WeatherRequestDataHolder value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
+            return;
+        }
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
+    }
+
+    public static void appendLog(Context context, String tag, String text1, WeatherRequestDataHolder value1) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
+    }
+
+    /**
+     * The bytes are converted to text only when the line is logged.
+     */
+    public static void appendLog(Context context, String tag, String text1, byte[] value1) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
+            return;
+        }
+        try {
+            event.text(text1).text((value1 != null) ? new String(value1) : "null");
+        } finally {
+            event.publish();
+        }
+    }
+
+    public static void appendLog(Context context, String tag, String text1, WeatherRequestDispatcher value1) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
+            return;
+        }
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
+    }
+
+    public static void appendLog(Context context, String tag, String text1, WeatherUpdateStatistics value1) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
+            return;
+        }
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1, String text2, WeatherByVoiceRequestDataHolder value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, (value2 != null)? value2.toString() : "null");
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, long value1, String text2, long value2, String text3, long value3) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLogLocale(Context context, String tag, String text1, String[] localeParts, String text2, String value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        StringBuilder s = new StringBuilder();
-        for (String pa: localeParts) {
-            s.append(pa);
-            s.append(":");
+        try {
+            event.text(text1);
+            for (String pa: localeParts) {
+                event.text(pa).text(":");
+            }
+            event.text(text2).text(value2);
+        } finally {
+            event.publish();
         }
-        appendLog(context, tag, text1, s.toString(), text2, value2);
     }
 
     public static void appendLogLastUpdateTime(Context context,
@@ -489,131 +737,202 @@ public class LogToFile {
                                                long value2,
                                                String text3,
                                                long value3) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? String.valueOf(value1.getLastUpdatedTime()) : "null", text2, String.valueOf(value2), text3, String.valueOf(value3));
+        try {
+            event.text(text1);
+            if (value1 != null) {
+                event.value(value1.getLastUpdatedTime());
+            } else {
+                event.text("null");
+            }
+            event.text(text2).value(value2).text(text3).value(value3);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, long value1, String text2, String text3) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, text3);
+        try {
+            event.text(text1).value(value1).text(text2).text(text3);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, CurrentWeatherDbHelper.WeatherRecord value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, WeatherForecastDbHelper.WeatherForecastRecord value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Location value1, String text2, String value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Location value1, String text2, boolean value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null", text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, Location value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, ServiceConnection value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, (value1 != null)? value1.toString() : "null");
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1, String text2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2);
+        try {
+            event.text(text1).value(value1).text(text2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1));
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1, String text2, boolean value2, String text3, boolean value3) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1, String text2, boolean value2, String text3, boolean value3, String text4, boolean value4) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2), text3, String.valueOf(value3), text4, String.valueOf(value4));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2).text(text3).value(value3)
+                    .text(text4).value(value4);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, boolean value1, String text2, long value2) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1), text2, String.valueOf(value2));
+        try {
+            event.text(text1).value(value1).text(text2).value(value2);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLogWithDate(Context context, String tag, String text1, long value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, DATE_FORMATTER.format(new Date(value1)));
+        try {
+            event.text(text1).date(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, long value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1));
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String text1, int value1) {
-        checkPreferences(context);
-        if (!isLoggingAvailable()) {
+        LogWriter.LogEvent event = startLogEvent(context, tag);
+        if (event == null) {
             return;
         }
-        appendLog(context, tag, text1, String.valueOf(value1));
+        try {
+            event.text(text1).value(value1);
+        } finally {
+            event.publish();
+        }
     }
 
     public static void appendLog(Context context, String tag, String... texts) {
@@ -629,134 +948,120 @@ public class LogToFile {
         if (!isLoggingAvailable()) {
             return;
         }
-        ParcelFileDescriptor pfd = null;
-        try {
-            Date now = new Date();
-            BufferedWriter buf;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                if (logFileAtTheEndOfLive == null) {
-                    initFileLogging(context, null);
-                }
-                if (Calendar.getInstance().after(logFileAtTheEndOfLive)) {
-                    pfd = context.getContentResolver().
-                            openFileDescriptor(logFileUri, "wt");
-                    FileOutputStream fos = new FileOutputStream(pfd.getFileDescriptor());
-                    StringBuilder initialDate = new StringBuilder();
-                    initialDate.append(DATE_FORMATTER.format(now));
-                    initialDate.append(" rotated\n");
-                    fos.write(initialDate.toString().getBytes(StandardCharsets.UTF_8));
-                    fos.close();
-                }
+        getLogWriter(context).append(tag, throwable, texts);
+    }
 
-                pfd = context.getContentResolver().
-                        openFileDescriptor(logFileUri, "wa");
+    public static boolean flushLog(long timeoutInMs) {
+        LogWriter currentLogWriter = logWriter;
+        return (currentLogWriter == null) || currentLogWriter.flush(timeoutInMs);
+    }
 
-                buf = new BufferedWriter(new FileWriter(pfd.getFileDescriptor()));
-            } else {
-                File logFile = new File(logFilePathname);
-                if (logFile.exists()) {
-                    if (logFileAtTheEndOfLive == null) {
-                        boolean succeeded = initFileLogging(context, logFile);
-                        if (!succeeded) {
-                            createNewLogFile(logFile, now);
-                        }
-                    } else if (Calendar.getInstance().after(logFileAtTheEndOfLive)) {
-                        logFile.delete();
-                        createNewLogFile(logFile, now);
-                    }
-                } else {
-                    createNewLogFile(logFile, now);
-                }
-                buf = new BufferedWriter(new FileWriter(logFile, true));
-            }
-            buf.append(DATE_FORMATTER.format(now));
-            buf.append(" ");
-            buf.append(tag);
-            buf.append(" - ");
-            if (texts != null) {
-                for (String text : texts) {
-                    buf.append(text);
-                }
-            }
-            if (throwable != null) {
-                buf.append("\n");
-                buf.append(throwable.getMessage());
-                for (StackTraceElement ste : throwable.getStackTrace()) {
-                    buf.newLine();
-                    buf.append(ste.toString());
-                }
-            }
-            buf.newLine();
-            buf.close();
-        } catch (IOException e) {
-            Log.e(TAG, e.getMessage());
-        } finally {
-            if (pfd != null) {
-                try {
-                    pfd.close();
-                } catch (IOException e) {
-                    Log.e(TAG, e.getMessage());
+    private static LogWriter.LogEvent startLogEvent(Context context, String tag) {
+        checkPreferences(context);
+        if (!isLoggingAvailable()) {
+            return null;
+        }
+        return getLogWriter(context).claimEvent(tag, null);
+    }
+
+    private static void addListValue(LogWriter.LogEvent event, List<?> value) {
+        if (value != null) {
+            event.value(value).text(":").value(value.size());
+        } else {
+            event.text("null");
+        }
+    }
+
+    private static LogWriter getLogWriter(Context context) {
+        if (logWriter == null) {
+            synchronized (LogToFile.class) {
+                if (logWriter == null) {
+                    logWriter = new LogWriter(new LogFileDestination(context.getApplicationContext()));
                 }
             }
         }
+        return logWriter;
     }
 
-    private static boolean initFileLogging(Context context, File logFile) {
-        char[] logFileDateCreatedBytes = new char[TIME_DATE_PATTERN.length()];
-        Date logFileDateCreated;
+    private static class LogFileDestination implements LogWriter.LogDestination {
 
-        ParcelFileDescriptor pfd = null;
-        FileReader logFileReader = null;
-        try {
+        private final Context context;
+
+        LogFileDestination(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public Object getId() {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                pfd = context.getContentResolver().
-                        openFileDescriptor(logFileUri, "r");
-                logFileReader = new FileReader(pfd.getFileDescriptor());
-            } else {
-                logFileReader = new FileReader(logFile);
+                return logFileUri;
             }
+            return logFilePathname;
+        }
 
-            logFileReader.read(logFileDateCreatedBytes);
-            logFileDateCreated = DATE_FORMATTER.parse(new String(logFileDateCreatedBytes));
-        } catch (Exception e) {
-            return false;
-        } finally {
+        @Override
+        public long readCreationTime() {
+            char[] logFileDateCreatedBytes = new char[TIME_DATE_PATTERN.length()];
+            ParcelFileDescriptor pfd = null;
+            FileReader logFileReader = null;
             try {
-                if (logFileReader != null) {
-                    logFileReader.close();
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                    pfd = context.getContentResolver().
+                            openFileDescriptor(logFileUri, "r");
+                    logFileReader = new FileReader(pfd.getFileDescriptor());
+                } else {
+                    File logFile = new File(logFilePathname);
+                    if (!logFile.exists()) {
+                        return -1;
+                    }
+                    logFileReader = new FileReader(logFile);
                 }
-                if (pfd != null) {
-                    pfd.close();
+
+                logFileReader.read(logFileDateCreatedBytes);
+                return new SimpleDateFormat(TIME_DATE_PATTERN, new Locale("en")).parse(new String(logFileDateCreatedBytes)).getTime();
+            } catch (Exception e) {
+                return -1;
+            } finally {
+                try {
+                    if (logFileReader != null) {
+                        logFileReader.close();
+                    }
+                    if (pfd != null) {
+                        pfd.close();
+                    }
+                } catch (IOException ex) {
+                    Log.e(TAG, ex.getMessage());
                 }
-            } catch (IOException ex) {
-                Log.e(TAG, ex.getMessage());
             }
         }
-        initEndOfLive(logFileDateCreated);
-        return true;
-    }
 
-    private static boolean isLoggingAvailable() {
-        return logToFileEnabled && ((logFilePathname == null) || logFileUri != null);
-    }
+        @Override
+        public Writer open(boolean truncate) throws IOException {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                final ParcelFileDescriptor pfd = context.getContentResolver().
+                        openFileDescriptor(logFileUri, truncate ? "wt" : "wa");
+                if (pfd == null) {
+                    throw new IOException("Log file " + logFileUri + " can not be opened");
+                }
+                return new OutputStreamWriter(new ParcelFileDescriptor.AutoCloseOutputStream(pfd), StandardCharsets.UTF_8);
+            }
+            return new OutputStreamWriter(new FileOutputStream(logFilePathname, !truncate), StandardCharsets.UTF_8);
+        }
 
-    private static void initEndOfLive(Date logFileDateCreated) {
-        logFileAtTheEndOfLive = Calendar.getInstance();
-        logFileAtTheEndOfLive.setTime(logFileDateCreated);
-        logFileAtTheEndOfLive.add(Calendar.HOUR_OF_DAY, logFileHoursOfLasting);
+        @Override
+        public long getLastingInMs() {
+            return logFileHoursOfLasting * 3600000L;
+        }
     }
 
-    private static void createNewLogFile(File logFile, Date dateOfCreation) throws IOException {
-        logFile.createNewFile();
-        initEndOfLive(dateOfCreation);
+    private static boolean isLoggingAvailable() {
+        return logToFileEnabled && ((logFilePathname == null) || logFileUri != null);
     }
 
     private static void checkPreferences(Context context) {
-        if (nextCheckPreferencesCheck != null) {
-            Calendar now = Calendar.getInstance();
-            if (nextCheckPreferencesCheck.after(now)) {
-                return;
-            }
+        long now = System.currentTimeMillis();
+        if (now < nextCheckPreferencesCheckInMs) {
+            return;
         }
         SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
 
@@ -773,7 +1078,6 @@ public class LogToFile {
                 logFileUri = uriBuilder.build();
             }
         }
-        nextCheckPreferencesCheck = Calendar.getInstance();
-        nextCheckPreferencesCheck.add(Calendar.MINUTE, 5);
+        nextCheckPreferencesCheckInMs = now + CHECK_PREFERENCES_INTERVAL_IN_MS;
     }
 }
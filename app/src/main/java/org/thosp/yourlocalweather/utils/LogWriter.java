@@ -0,0 +1,521 @@
+package org.thosp.yourlocalweather.utils;
+
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log lines on a background thread. Callers put their lines into a
+ * bounded lock-free ring of reused events, the writer thread keeps the log open
+ * and writes the lines through a buffer that is flushed when full, after
+ * FLUSH_INTERVAL_IN_MS, or immediately for lines with a throwable. When the
+ * ring is full the line is dropped and counted. The writer thread parks while
+ * the ring is empty and is unparked by the caller publishing the next line.
+ */
+public class LogWriter {
+
+    private static final String TAG = "LogWriter";
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    static final long FLUSH_INTERVAL_IN_MS = 1000;
+    private static final int WRITE_BUFFER_SIZE = 8192;
+
+    /**
+     * The log the lines are written to. Methods are called on the writer thread.
+     */
+    public interface LogDestination {
+        /**
+         * Identifies the currently configured log, the log is reopened when the id
+         * changes. Null when there is nothing to write to.
+         */
+        Object getId();
+
+        /**
+         * Time when the log was started or -1 when it is not known.
+         */
+        long readCreationTime();
+
+        Writer open(boolean truncate) throws IOException;
+
+        long getLastingInMs();
+    }
+
+    /**
+     * A line of the log claimed by LogWriter.claimEvent. Primitives are stored in
+     * the reused event and converted to text on the writer thread, objects are
+     * converted when they are added as they can change after the call. The event
+     * must not be used after publish.
+     */
+    public class LogEvent {
+        private static final byte KIND_TEXT = 0;
+        private static final byte KIND_LONG = 1;
+        private static final byte KIND_BOOLEAN = 2;
+        private static final byte KIND_FLOAT = 3;
+        private static final byte KIND_DOUBLE = 4;
+        private static final byte KIND_DECIMAL = 5;
+        private static final byte KIND_DATE = 6;
+
+        private static final int INITIAL_ITEMS_CAPACITY = 16;
+
+        long position;
+        long timeInMs;
+        String tag;
+        Throwable throwable;
+        String[] texts;
+        int itemsCount;
+        byte[] kinds;
+        long[] values;
+        String[] strings;
+
+        public LogEvent text(String text) {
+            int index = add(KIND_TEXT, 0);
+            strings[index] = text;
+            return this;
+        }
+
+        /**
+         * A value failing to convert, as a list changed while it is converted, is
+         * written as the name of the exception, so the line is still published.
+         */
+        public LogEvent value(Object value) {
+            String text;
+            try {
+                text = String.valueOf(value);
+            } catch (RuntimeException e) {
+                text = "<" + e.getClass().getSimpleName() + ">";
+            }
+            return text(text);
+        }
+
+        public LogEvent value(long value) {
+            add(KIND_LONG, value);
+            return this;
+        }
+
+        public LogEvent value(boolean value) {
+            add(KIND_BOOLEAN, value ? 1 : 0);
+            return this;
+        }
+
+        public LogEvent value(float value) {
+            add(KIND_FLOAT, Float.floatToRawIntBits(value));
+            return this;
+        }
+
+        public LogEvent value(double value) {
+            add(KIND_DOUBLE, Double.doubleToRawLongBits(value));
+            return this;
+        }
+
+        /**
+         * Written with eight fraction digits as String.format("%.8f") does.
+         */
+        public LogEvent decimal(double value) {
+            add(KIND_DECIMAL, Double.doubleToRawLongBits(value));
+            return this;
+        }
+
+        /**
+         * Written in the format of the log timestamps.
+         */
+        public LogEvent date(long timeInMs) {
+            add(KIND_DATE, timeInMs);
+            return this;
+        }
+
+        public void publish() {
+            LogWriter.this.publish(this);
+        }
+
+        private int add(byte kind, long value) {
+            if (kinds == null) {
+                kinds = new byte[INITIAL_ITEMS_CAPACITY];
+                values = new long[INITIAL_ITEMS_CAPACITY];
+                strings = new String[INITIAL_ITEMS_CAPACITY];
+            } else if (itemsCount == kinds.length) {
+                kinds = Arrays.copyOf(kinds, itemsCount * 2);
+                values = Arrays.copyOf(values, itemsCount * 2);
+                strings = Arrays.copyOf(strings, itemsCount * 2);
+            }
+            int index = itemsCount++;
+            kinds[index] = kind;
+            values[index] = value;
+            return index;
+        }
+
+        void clear() {
+            tag = null;
+            throwable = null;
+            texts = null;
+            for (int i = 0; i < itemsCount; i++) {
+                strings[i] = null;
+            }
+            itemsCount = 0;
+        }
+    }
+
+    private final LogDestination destination;
+    private final LogEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final LogTimestampFormatter timestampFormatter = new LogTimestampFormatter();
+    private final LogTimestampFormatter dateFormatter = new LogTimestampFormatter();
+    private final StringBuilder decimalText = new StringBuilder();
+    private final Formatter decimalFormatter = new Formatter(decimalText);
+    private final AtomicLong flushRequestedUpTo = new AtomicLong(-1);
+    private final AtomicInteger flushWaitersCount = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private volatile long flushedUpTo = -1;
+    private volatile boolean writerParked;
+    private volatile Thread writerThread;
+    private long head;
+    private Writer writer;
+    private Object openedDestinationId;
+    private long logCreationTime;
+    private long lastFlushTime;
+    private boolean unflushed;
+    private long reportedDroppedCount;
+
+    public LogWriter(LogDestination destination) {
+        this(destination, DEFAULT_CAPACITY);
+    }
+
+    public LogWriter(LogDestination destination, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity has to be a power of two: " + capacity);
+        }
+        this.destination = destination;
+        events = new LogEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new LogEvent();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    public boolean append(String tag, Throwable throwable, String... texts) {
+        LogEvent event = claimEvent(tag, throwable);
+        if (event == null) {
+            return false;
+        }
+        event.texts = texts;
+        publish(event);
+        return true;
+    }
+
+    /**
+     * Claims the next line of the log, returns null when the ring is full and the
+     * line is dropped. The line is written after LogEvent.publish is called.
+     */
+    public LogEvent claimEvent(String tag, Throwable throwable) {
+        long position = claim();
+        if (position < 0) {
+            return null;
+        }
+        LogEvent event = events[(int) (position & mask)];
+        event.position = position;
+        event.timeInMs = System.currentTimeMillis();
+        event.tag = tag;
+        event.throwable = throwable;
+        return event;
+    }
+
+    /**
+     * Waits until all lines appended before this call are written to the log.
+     */
+    public boolean flush(long timeoutInMs) {
+        long target = tail.get() - 1;
+        if (target < 0) {
+            return true;
+        }
+        startWriterThread();
+        if (Thread.currentThread() == writerThread) {
+            return flushedUpTo >= target;
+        }
+        requestFlush(target);
+        LockSupport.unpark(writerThread);
+        long deadline = System.currentTimeMillis() + timeoutInMs;
+        flushWaitersCount.incrementAndGet();
+        try {
+            synchronized (flushLock) {
+                while (flushedUpTo < target) {
+                    long remainingInMs = deadline - System.currentTimeMillis();
+                    if (remainingInMs <= 0) {
+                        return false;
+                    }
+                    flushLock.wait(remainingInMs);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            flushWaitersCount.decrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getAppendedCount() {
+        return tail.get();
+    }
+
+    private long claim() {
+        startWriterThread();
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (difference < 0) {
+                droppedCount.incrementAndGet();
+                LockSupport.unpark(writerThread);
+                return -1;
+            }
+            position = tail.get();
+        }
+    }
+
+    private void publish(LogEvent event) {
+        long position = event.position;
+        boolean withThrowable = event.throwable != null;
+        sequences.set((int) (position & mask), position + 1);
+        if (withThrowable) {
+            requestFlush(position);
+            LockSupport.unpark(writerThread);
+        } else if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void requestFlush(long position) {
+        while (true) {
+            long requested = flushRequestedUpTo.get();
+            if ((requested >= position) || flushRequestedUpTo.compareAndSet(requested, position)) {
+                return;
+            }
+        }
+    }
+
+    private void startWriterThread() {
+        if (writerThread != null) {
+            return;
+        }
+        synchronized (this) {
+            if (writerThread != null) {
+                return;
+            }
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    processEvents();
+                }
+            }, TAG);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            writerThread = thread;
+            thread.start();
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            int written = writeAvailableEvents();
+            long now = System.currentTimeMillis();
+            long requestedFlush = flushRequestedUpTo.get();
+            boolean flushRequested = (requestedFlush > flushedUpTo) && (requestedFlush < head);
+            if (flushRequested || (unflushed && (now - lastFlushTime >= FLUSH_INTERVAL_IN_MS))) {
+                flushWriter(now);
+                flushedUpTo = head - 1;
+                if (flushWaitersCount.get() > 0) {
+                    synchronized (flushLock) {
+                        flushLock.notifyAll();
+                    }
+                }
+            }
+            if (written == 0) {
+                parkWriter(now);
+            }
+        }
+    }
+
+    /**
+     * Parks until a line is published, only until the next flush is due while
+     * written lines are not flushed. writerParked is set before the ring is
+     * checked, so a line published meanwhile either is seen here or unparks.
+     */
+    private void parkWriter(long now) {
+        writerParked = true;
+        if (sequences.get((int) (head & mask)) != head + 1) {
+            if (unflushed) {
+                long remainingInMs = lastFlushTime + FLUSH_INTERVAL_IN_MS - now;
+                if (remainingInMs > 0) {
+                    LockSupport.parkNanos(this, remainingInMs * 1000000L);
+                }
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        writerParked = false;
+    }
+
+    private int writeAvailableEvents() {
+        int written = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return written;
+            }
+            LogEvent event = events[index];
+            try {
+                writeEvent(event);
+            } catch (IOException e) {
+                Log.e(TAG, "Log line not written: " + e.getMessage());
+                closeWriter();
+            }
+            event.clear();
+            sequences.lazySet(index, head + events.length);
+            head++;
+            written++;
+        }
+    }
+
+    private void writeEvent(LogEvent event) throws IOException {
+        if (!prepareWriter(event.timeInMs)) {
+            return;
+        }
+        long currentDroppedCount = droppedCount.get();
+        if (currentDroppedCount != reportedDroppedCount) {
+            writeTimestamp(event.timeInMs);
+            writer.write(" " + TAG + " - lines dropped: " + (currentDroppedCount - reportedDroppedCount) + "\n");
+            reportedDroppedCount = currentDroppedCount;
+        }
+        writeTimestamp(event.timeInMs);
+        writer.write(' ');
+        writer.write(String.valueOf(event.tag));
+        writer.write(" - ");
+        if (event.texts != null) {
+            for (String text: event.texts) {
+                writer.write(String.valueOf(text));
+            }
+        }
+        for (int i = 0; i < event.itemsCount; i++) {
+            writeItem(event, i);
+        }
+        if (event.throwable != null) {
+            writer.write('\n');
+            writer.write(String.valueOf(event.throwable.getMessage()));
+            for (StackTraceElement stackTraceElement: event.throwable.getStackTrace()) {
+                writer.write('\n');
+                writer.write(stackTraceElement.toString());
+            }
+        }
+        writer.write('\n');
+        unflushed = true;
+    }
+
+    private void writeItem(LogEvent event, int index) throws IOException {
+        long value = event.values[index];
+        switch (event.kinds[index]) {
+            case LogEvent.KIND_TEXT:
+                writer.write(String.valueOf(event.strings[index]));
+                break;
+            case LogEvent.KIND_LONG:
+                writer.write(Long.toString(value));
+                break;
+            case LogEvent.KIND_BOOLEAN:
+                writer.write((value != 0) ? "true" : "false");
+                break;
+            case LogEvent.KIND_FLOAT:
+                writer.write(Float.toString(Float.intBitsToFloat((int) value)));
+                break;
+            case LogEvent.KIND_DOUBLE:
+                writer.write(Double.toString(Double.longBitsToDouble(value)));
+                break;
+            case LogEvent.KIND_DECIMAL:
+                decimalText.setLength(0);
+                decimalFormatter.format("%.8f", Double.longBitsToDouble(value));
+                writer.append(decimalText);
+                break;
+            case LogEvent.KIND_DATE:
+                writer.write(dateFormatter.format(value), 0, LogTimestampFormatter.LENGTH);
+                break;
+        }
+    }
+
+    private boolean prepareWriter(long now) throws IOException {
+        Object destinationId = destination.getId();
+        if ((writer != null) && ((destinationId == null) || !destinationId.equals(openedDestinationId))) {
+            closeWriter();
+        }
+        if (destinationId == null) {
+            return false;
+        }
+        if (writer == null) {
+            logCreationTime = destination.readCreationTime();
+            if (logCreationTime < 0) {
+                logCreationTime = now;
+            }
+            writer = new BufferedWriter(destination.open(false), WRITE_BUFFER_SIZE);
+            openedDestinationId = destinationId;
+            lastFlushTime = now;
+        }
+        if (now >= logCreationTime + destination.getLastingInMs()) {
+            closeWriter();
+            writer = new BufferedWriter(destination.open(true), WRITE_BUFFER_SIZE);
+            openedDestinationId = destinationId;
+            logCreationTime = now;
+            writeTimestamp(now);
+            writer.write(" rotated\n");
+        }
+        return true;
+    }
+
+    private void writeTimestamp(long timeInMs) throws IOException {
+        writer.write(timestampFormatter.format(timeInMs), 0, LogTimestampFormatter.LENGTH);
+    }
+
+    private void flushWriter(long now) {
+        lastFlushTime = now;
+        unflushed = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Log not flushed: " + e.getMessage());
+            closeWriter();
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Log not closed: " + e.getMessage());
+        }
+        writer = null;
+        openedDestinationId = null;
+    }
+}
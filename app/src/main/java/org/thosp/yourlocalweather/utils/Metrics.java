@@ -0,0 +1,222 @@
+package org.thosp.yourlocalweather.utils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process registry of counters, gauges and latency histograms shown in the
+ * debug options. Metrics are looked up by name once and kept in static fields
+ * by the code recording them, recording itself only updates atomics.
+ */
+public class Metrics {
+
+    public static final String HTTP_WEATHER = "http.weather";
+    public static final String HTTP_MOZILLA_LOCATION = "http.mozillaLocation";
+    public static final String HTTP_NOMINATIM = "http.nominatim";
+    public static final String PARSE_WEATHER = "parse.weather";
+    public static final String DB_READ_WEATHER = "db.read.weather";
+    public static final String DB_WRITE_WEATHER = "db.write.weather";
+    public static final String DB_READ_FORECAST = "db.read.forecast";
+    public static final String DB_WRITE_FORECAST = "db.write.forecast";
+    public static final String WAKE_LOCK_HOLD = "wakeLock.hold";
+    public static final String LOCATION_FIX = "location.fix";
+    public static final String NETWORK_LOCATION_FIX = "location.networkFix";
+    public static final String WIDGET_RENDER = "widget.render";
+    public static final String VOICE_FORECAST = "voice.forecast";
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public interface Gauge {
+        long getValue();
+    }
+
+    public static class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        void reset() {
+            value.set(0);
+        }
+    }
+
+    /**
+     * Histogram of values in nanoseconds with buckets growing by powers of two,
+     * each split into 8 linear sub-buckets, so a recorded value is kept with a
+     * precision of 12.5% over the whole range of long values.
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long valueInNs) {
+            long value = Math.max(0, valueInNs);
+            buckets.incrementAndGet(getBucket(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long currentMax;
+            do {
+                currentMax = max.get();
+            } while ((value > currentMax) && !max.compareAndSet(currentMax, value));
+        }
+
+        /**
+         * Records the time elapsed since the start taken with System.nanoTime().
+         */
+        public void recordSince(long startInNs) {
+            record(System.nanoTime() - startInNs);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public long getMean() {
+            long recorded = count.get();
+            return (recorded > 0) ? (sum.get() / recorded) : 0;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return highest value of the bucket holding the percentile, 0 when
+         * nothing has been recorded
+         */
+        public long getPercentile(double percentile) {
+            long recorded = 0;
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                recorded += counts[i];
+            }
+            if (recorded == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil((percentile / 100) * recorded));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(getHighestValue(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        static int getBucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long getHighestValue(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = bucket % SUB_BUCKETS;
+            long lowestValue = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+            return lowestValue + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counters.putIfAbsent(name, new Counter());
+            counter = counters.get(name);
+        }
+        return counter;
+    }
+
+    public static Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histograms.putIfAbsent(name, new Histogram());
+            histogram = histograms.get(name);
+        }
+        return histogram;
+    }
+
+    /**
+     * Registers the gauge under the name, replacing a gauge registered before.
+     */
+    public static void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public static void reset() {
+        for (Counter counter: counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram: histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * @return all metrics sorted by name, one per line, durations in ms
+     */
+    public static String dump() {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry: new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            result.append(entry.getKey())
+                    .append(": count=").append(histogram.getCount())
+                    .append(" mean=").append(toMs(histogram.getMean()))
+                    .append(" p50=").append(toMs(histogram.getPercentile(50)))
+                    .append(" p95=").append(toMs(histogram.getPercentile(95)))
+                    .append(" p99=").append(toMs(histogram.getPercentile(99)))
+                    .append(" max=").append(toMs(histogram.getMax()))
+                    .append(" ms\n");
+        }
+        for (Map.Entry<String, Counter> entry: new TreeMap<>(counters).entrySet()) {
+            result.append(entry.getKey()).append(": ").append(entry.getValue().get()).append("\n");
+        }
+        for (Map.Entry<String, Gauge> entry: new TreeMap<>(gauges).entrySet()) {
+            result.append(entry.getKey()).append(": ").append(entry.getValue().getValue()).append("\n");
+        }
+        return result.toString();
+    }
+
+    private static String toMs(long valueInNs) {
+        return String.format(Locale.US, "%.2f", valueInNs / 1000000d);
+    }
+}
@@ -0,0 +1,250 @@
+package org.thosp.yourlocalweather.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of the display preferences read on every rendered value
+ * (units, temperature type, time and date style, widget colors, graph values).
+ * The snapshot is rebuilt when one of its preferences changes, so the hot paths
+ * read fields instead of going through SharedPreferences and parsing the values
+ * each time.
+ */
+public class PreferenceSnapshot {
+
+    public static final int TEMPERATURE_UNIT_CELSIUS = 0;
+    public static final int TEMPERATURE_UNIT_FAHRENHEIT = 1;
+    public static final int TEMPERATURE_UNIT_KELVIN = 2;
+
+    private static final Set<String> SNAPSHOT_KEYS = new HashSet<>(Arrays.asList(
+            Constants.KEY_PREF_TEMPERATURE_UNITS,
+            Constants.KEY_PREF_TEMPERATURE_TYPE,
+            Constants.KEY_PREF_WIND_UNITS,
+            Constants.KEY_PREF_RAIN_SNOW_UNITS,
+            Constants.KEY_PREF_PRESSURE_UNITS,
+            Constants.KEY_PREF_TIME_STYLE,
+            Constants.KEY_PREF_DATE_STYLE,
+            Constants.KEY_PREF_HIDE_DESCRIPTION,
+            Constants.KEY_PREF_WIDGET_THEME,
+            Constants.KEY_PREF_WIDGET_TEXT_COLOR,
+            Constants.KEY_PREF_WIDGET_SHOW_LABELS,
+            Constants.KEY_PREF_WIDGET_SHOW_CONTROLS,
+            Constants.KEY_PREF_WIDGET_GRAPH_NATIVE_SCALE,
+            Constants.KEY_PREF_WEATHER_ICON_SET,
+            Constants.KEY_PREF_COMBINED_GRAPH_VALUES));
+
+    private static final Set<String> DEFAULT_COMBINED_GRAPH_VALUES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("0", "2")));
+
+    private static volatile PreferenceSnapshot currentSnapshot;
+    private static SharedPreferences.OnSharedPreferenceChangeListener preferenceChangeListener;
+
+    private final int temperatureUnit;
+    private final String temperatureType;
+    private final boolean apparentTemperaturePrimary;
+    private final boolean secondTemperatureShown;
+    private final String windUnits;
+    private final boolean rainSnowInInches;
+    private final String pressureUnits;
+    private final String timeStyle;
+    private final String dateStyle;
+    private final boolean hideDescription;
+    private final String widgetTheme;
+    private final Integer widgetTextColor;
+    private final boolean showLabelsOnWidget;
+    private final boolean showControls;
+    private final boolean widgetGraphNativeScaled;
+    private final String iconSet;
+    private final Set<String> combinedGraphValues;
+    private final long contentHash;
+
+    PreferenceSnapshot(Map<String, ?> preferences) {
+        String temperatureUnits = getString(preferences, Constants.KEY_PREF_TEMPERATURE_UNITS, "celsius");
+        if (temperatureUnits.contains("fahrenheit")) {
+            temperatureUnit = TEMPERATURE_UNIT_FAHRENHEIT;
+        } else if (temperatureUnits.contains("kelvin")) {
+            temperatureUnit = TEMPERATURE_UNIT_KELVIN;
+        } else {
+            temperatureUnit = TEMPERATURE_UNIT_CELSIUS;
+        }
+        temperatureType = getString(preferences, Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
+        apparentTemperaturePrimary = "appearance_only".equals(temperatureType) ||
+                "measured_appearance_primary_appearance".equals(temperatureType);
+        secondTemperatureShown = !"measured_only".equals(temperatureType) &&
+                !"appearance_only".equals(temperatureType);
+        windUnits = getString(preferences, Constants.KEY_PREF_WIND_UNITS, "m_per_second");
+        rainSnowInInches = getString(preferences, Constants.KEY_PREF_RAIN_SNOW_UNITS, "mm").contains("inches");
+        pressureUnits = getString(preferences, Constants.KEY_PREF_PRESSURE_UNITS, "hpa");
+        timeStyle = getString(preferences, Constants.KEY_PREF_TIME_STYLE, "system");
+        dateStyle = getString(preferences, Constants.KEY_PREF_DATE_STYLE, "system");
+        hideDescription = getBoolean(preferences, Constants.KEY_PREF_HIDE_DESCRIPTION, false);
+        widgetTheme = getString(preferences, Constants.KEY_PREF_WIDGET_THEME, "dark");
+        Object textColor = preferences.get(Constants.KEY_PREF_WIDGET_TEXT_COLOR);
+        widgetTextColor = (textColor instanceof Integer) ? (Integer) textColor : null;
+        showLabelsOnWidget = getBoolean(preferences, Constants.KEY_PREF_WIDGET_SHOW_LABELS, false);
+        showControls = getBoolean(preferences, Constants.KEY_PREF_WIDGET_SHOW_CONTROLS, false);
+        widgetGraphNativeScaled = getBoolean(preferences, Constants.KEY_PREF_WIDGET_GRAPH_NATIVE_SCALE, false);
+        iconSet = getString(preferences, Constants.KEY_PREF_WEATHER_ICON_SET, "weather_icon_set_merlin_the_red");
+        combinedGraphValues = getStringSet(preferences, Constants.KEY_PREF_COMBINED_GRAPH_VALUES, DEFAULT_COMBINED_GRAPH_VALUES);
+        contentHash = computeContentHash();
+    }
+
+    private long computeContentHash() {
+        long hash = temperatureUnit;
+        hash = 31 * hash + temperatureType.hashCode();
+        hash = 31 * hash + windUnits.hashCode();
+        hash = 31 * hash + (rainSnowInInches ? 1 : 0);
+        hash = 31 * hash + pressureUnits.hashCode();
+        hash = 31 * hash + timeStyle.hashCode();
+        hash = 31 * hash + dateStyle.hashCode();
+        hash = 31 * hash + (hideDescription ? 1 : 0);
+        hash = 31 * hash + widgetTheme.hashCode();
+        hash = 31 * hash + ((widgetTextColor != null) ? widgetTextColor : 0);
+        hash = 31 * hash + (showLabelsOnWidget ? 1 : 0);
+        hash = 31 * hash + (showControls ? 1 : 0);
+        hash = 31 * hash + (widgetGraphNativeScaled ? 1 : 0);
+        hash = 31 * hash + iconSet.hashCode();
+        hash = 31 * hash + combinedGraphValues.hashCode();
+        return hash;
+    }
+
+    public static PreferenceSnapshot get(Context context) {
+        PreferenceSnapshot snapshot = currentSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (PreferenceSnapshot.class) {
+            if (currentSnapshot == null) {
+                final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+                preferenceChangeListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+                        if ((key == null) || isSnapshotKey(key)) {
+                            currentSnapshot = new PreferenceSnapshot(sharedPreferences.getAll());
+                        }
+                    }
+                };
+                preferences.registerOnSharedPreferenceChangeListener(preferenceChangeListener);
+                currentSnapshot = new PreferenceSnapshot(preferences.getAll());
+            }
+            return currentSnapshot;
+        }
+    }
+
+    static boolean isSnapshotKey(String key) {
+        return SNAPSHOT_KEYS.contains(key);
+    }
+
+    private static String getString(Map<String, ?> preferences, String key, String defaultValue) {
+        Object value = preferences.get(key);
+        return (value instanceof String) ? (String) value : defaultValue;
+    }
+
+    private static Set<String> getStringSet(Map<String, ?> preferences, String key, Set<String> defaultValue) {
+        Object value = preferences.get(key);
+        if (!(value instanceof Set)) {
+            return defaultValue;
+        }
+        Set<String> values = new HashSet<>();
+        for (Object element: (Set<?>) value) {
+            values.add(String.valueOf(element));
+        }
+        return Collections.unmodifiableSet(values);
+    }
+
+    private static boolean getBoolean(Map<String, ?> preferences, String key, boolean defaultValue) {
+        Object value = preferences.get(key);
+        return (value instanceof Boolean) ? (Boolean) value : defaultValue;
+    }
+
+    public double getTemperatureInPreferredUnit(double inputValue) {
+        switch (temperatureUnit) {
+            case TEMPERATURE_UNIT_FAHRENHEIT: return (inputValue * 1.8d) + 32;
+            case TEMPERATURE_UNIT_KELVIN: return inputValue + 273.15;
+            default: return inputValue;
+        }
+    }
+
+    public int getTemperatureUnit() {
+        return temperatureUnit;
+    }
+
+    public String getTemperatureType() {
+        return temperatureType;
+    }
+
+    public boolean isApparentTemperaturePrimary() {
+        return apparentTemperaturePrimary;
+    }
+
+    public boolean isSecondTemperatureShown() {
+        return secondTemperatureShown;
+    }
+
+    public String getWindUnits() {
+        return windUnits;
+    }
+
+    public boolean isRainSnowInInches() {
+        return rainSnowInInches;
+    }
+
+    public String getPressureUnits() {
+        return pressureUnits;
+    }
+
+    public String getTimeStyle() {
+        return timeStyle;
+    }
+
+    public String getDateStyle() {
+        return dateStyle;
+    }
+
+    public boolean isHideDescription() {
+        return hideDescription;
+    }
+
+    public String getWidgetTheme() {
+        return widgetTheme;
+    }
+
+    public Integer getWidgetTextColor() {
+        return widgetTextColor;
+    }
+
+    public boolean isShowLabelsOnWidget() {
+        return showLabelsOnWidget;
+    }
+
+    public boolean isShowControls() {
+        return showControls;
+    }
+
+    public boolean isWidgetGraphNativeScaled() {
+        return widgetGraphNativeScaled;
+    }
+
+    public String getIconSet() {
+        return iconSet;
+    }
+
+    public Set<String> getCombinedGraphValues() {
+        return combinedGraphValues;
+    }
+
+    /**
+     * @return hash of the preferences in the snapshot, the same for snapshots
+     * rendering the same, whatever other preferences are stored
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+}
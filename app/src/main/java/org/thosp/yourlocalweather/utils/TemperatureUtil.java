@@ -1,7 +1,6 @@
 package org.thosp.yourlocalweather.utils;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
@@ -72,13 +71,12 @@ public class TemperatureUtil {
         if (weather == null) {
             return null;
         }
-        String temperatureTypeFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
-        if ("measured_only".equals(temperatureTypeFromPreferences) || "appearance_only".equals(temperatureTypeFromPreferences)) {
+        PreferenceSnapshot preferences = PreferenceSnapshot.get(context);
+        if (!preferences.isSecondTemperatureShown()) {
             return null;
         }
         int label = R.string.label_measured_temperature;
-        if ("measured_appearance_primary_measured".equals(temperatureTypeFromPreferences)) {
+        if ("measured_appearance_primary_measured".equals(preferences.getTemperatureType())) {
             label = R.string.label_apparent_temperature;
         }
         return context.getString(label,
@@ -94,14 +92,13 @@ public class TemperatureUtil {
         if (weather == null) {
             return null;
         }
-        String temperatureTypeFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
-        if ("measured_only".equals(temperatureTypeFromPreferences) || "appearance_only".equals(temperatureTypeFromPreferences)) {
+        PreferenceSnapshot preferences = PreferenceSnapshot.get(context);
+        if (!preferences.isSecondTemperatureShown()) {
             return null;
         }
         String apparentSign = "";
         double value = weather.getTemperature();
-        if ("measured_appearance_primary_measured".equals(temperatureTypeFromPreferences)) {
+        if ("measured_appearance_primary_measured".equals(preferences.getTemperatureType())) {
             apparentSign = "~";
             value = TemperatureUtil.getApparentTemperature(
                     weather.getTemperature(),
@@ -128,12 +125,9 @@ public class TemperatureUtil {
         if (weather == null) {
             return null;
         }
-        String temperatureTypeFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
         String apparentSign = "";
         double value = weather.getTemperature();
-        if ("appearance_only".equals(temperatureTypeFromPreferences) ||
-                ("measured_appearance_primary_appearance".equals(temperatureTypeFromPreferences))) {
+        if (PreferenceSnapshot.get(context).isApparentTemperaturePrimary()) {
             apparentSign = "~";
             value = getApparentTemperature(
                     weather.getTemperature(),
@@ -171,65 +165,56 @@ public class TemperatureUtil {
                 getTemperatureInPreferredUnit(context, value)) + getTemperatureUnit(context);
     }
 
+    /**
+     * @param apparentTemperature in the preferred unit, as converted by ForecastSeries
+     */
     public static String getForecastedApparentTemperatureWithUnit(
             Context context,
-            double latitude,
-            DetailedWeatherForecast weather,
+            float apparentTemperature,
             Locale locale) {
-
-        if (weather == null) {
-            return null;
-        }
         String apparentSign = "";
-        double value = getApparentTemperatureWithSolarIrradiation(
-                    weather.getTemperature(),
-                    weather.getHumidity(),
-                    weather.getWindSpeed(),
-                    weather.getCloudiness(),
-                    latitude,
-                    weather.getDateTime()
-                );
-        if (value > 0) {
+        if (apparentTemperature > 0) {
             apparentSign += "+";
         }
         return apparentSign + String.format(locale, "%d",
-                Math.round(getTemperatureInPreferredUnit(context, value))) + getTemperatureUnit(context);
+                Math.round(apparentTemperature)) + getTemperatureUnit(context);
     }
 
     public static String getTemperatureUnit(Context context) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_UNITS, "celsius");
-        if (unitsFromPreferences.contains("fahrenheit") ) {
-            return context.getString(R.string.temperature_unit_fahrenheit);
-        } else if (unitsFromPreferences.contains("kelvin")) {
-            return context.getString(R.string.temperature_unit_kelvin);
-        } else {
-            return context.getString(R.string.temperature_unit_celsius);
+        switch (PreferenceSnapshot.get(context).getTemperatureUnit()) {
+            case PreferenceSnapshot.TEMPERATURE_UNIT_FAHRENHEIT:
+                return context.getString(R.string.temperature_unit_fahrenheit);
+            case PreferenceSnapshot.TEMPERATURE_UNIT_KELVIN:
+                return context.getString(R.string.temperature_unit_kelvin);
+            default:
+                return context.getString(R.string.temperature_unit_celsius);
         }
     }
 
     public static boolean isTemperatureUnitKelvin(Context context) {
-        return "kelvin".equals(PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_UNITS, "celsius"));
+        return PreferenceSnapshot.get(context).getTemperatureUnit() == PreferenceSnapshot.TEMPERATURE_UNIT_KELVIN;
     }
 
     public static double getTemperatureInPreferredUnit(Context context, double inputValue) {
-        String unitsFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_UNITS, "celsius");
-        if (unitsFromPreferences.contains("fahrenheit")) {
-            return (inputValue * 1.8d) + 32;
-        } else if (unitsFromPreferences.contains("kelvin")) {
-            return inputValue + 273.15;
-        } else {
-            return inputValue;
-        }
+        return PreferenceSnapshot.get(context).getTemperatureInPreferredUnit(inputValue);
     }
 
     public static double getTemperature(Context context, DetailedWeatherForecast weather) {
+        return getTemperature(PreferenceSnapshot.get(context), weather);
+    }
+
+    public static double getTemperature(PreferenceSnapshot preferences, DetailedWeatherForecast weather) {
         if (weather == null) {
             return 0;
         }
-        return getTemperatureInPreferredUnit(context, getTemperatureInCelsius(context, weather));
+        double value = weather.getTemperature();
+        if (preferences.isApparentTemperaturePrimary()) {
+            value = getApparentTemperatureWithoutSolarIrradiation(
+                    weather.getTemperature(),
+                    weather.getHumidity(),
+                    weather.getWindSpeed());
+        }
+        return preferences.getTemperatureInPreferredUnit(value);
     }
 
     public static double getTemperature(Context context, Weather weather) {
@@ -243,11 +228,8 @@ public class TemperatureUtil {
         if (weather == null) {
             return 0;
         }
-        String temperatureTypeFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
         double value = weather.getTemperature();
-        if ("appearance_only".equals(temperatureTypeFromPreferences) ||
-                ("measured_appearance_primary_appearance".equals(temperatureTypeFromPreferences))) {
+        if (PreferenceSnapshot.get(context).isApparentTemperaturePrimary()) {
             value = getApparentTemperatureWithoutSolarIrradiation(
                     weather.getTemperature(),
                     weather.getHumidity(),
@@ -260,11 +242,8 @@ public class TemperatureUtil {
         if (weather == null) {
             return 0;
         }
-        String temperatureTypeFromPreferences = PreferenceManager.getDefaultSharedPreferences(context).getString(
-                Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
         double value = weather.getTemperature();
-        if ("appearance_only".equals(temperatureTypeFromPreferences) ||
-                ("measured_appearance_primary_appearance".equals(temperatureTypeFromPreferences))) {
+        if (PreferenceSnapshot.get(context).isApparentTemperaturePrimary()) {
             value = getApparentTemperatureWithoutSolarIrradiation(
                     weather.getTemperature(),
                     weather.getHumidity(),
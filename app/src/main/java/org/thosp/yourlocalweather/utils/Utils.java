@@ -26,6 +26,8 @@ import android.widget.ImageView;
 import android.widget.RemoteViews;
 
 import org.thosp.yourlocalweather.R;
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
+import org.thosp.yourlocalweather.model.CompleteWeatherForecast;
 import org.thosp.yourlocalweather.model.CurrentWeather;
 import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
 import org.thosp.yourlocalweather.model.Location;
@@ -55,28 +57,123 @@ public class Utils {
 
     private static final String TAG = "Utils";
 
+    private static final int WEATHER_ICON_SIZE = 256;
+    private static final long MAX_WEATHER_ICON_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final WeatherIconCache weatherIcons = new WeatherIconCache(
+            Math.min(MAX_WEATHER_ICON_CACHE_BYTES, Runtime.getRuntime().maxMemory() / 32));
+
+    private static volatile Typeface weatherFont;
+
+    static {
+        Metrics.gauge("cache.icon.hits", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherIcons.getHits();
+            }
+        });
+        Metrics.gauge("cache.icon.misses", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherIcons.getMisses();
+            }
+        });
+        Metrics.gauge("cache.icon.evictions", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherIcons.getEvictions();
+            }
+        });
+        Metrics.gauge("cache.icon.bytes", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherIcons.getCurrentBytes();
+            }
+        });
+        Metrics.gauge("cache.icon.averageRenderNs", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return weatherIcons.getAverageRenderTimeInNs();
+            }
+        });
+    }
+
     public static Bitmap createWeatherIcon(Context context, String text) {
         return createWeatherIconWithColor(context, text, AppPreference.getWidgetTextColor(context));
     }
 
     public static Bitmap createWeatherIconWithColor(Context context, String text, int iconColor) {
-        Bitmap bitmap = Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_4444);
+        return createWeatherIconWithColor(context, text, iconColor, WEATHER_ICON_SIZE);
+    }
+
+    public static Bitmap createWeatherIconWithColor(Context context, String text, int iconColor, int size) {
+        WeatherIconCache.Key key = new WeatherIconCache.Key(text, iconColor, size);
+        Bitmap bitmap = weatherIcons.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        long start = System.nanoTime();
+        bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_4444);
         Canvas canvas = new Canvas(bitmap);
         Paint paint = new Paint();
-        Typeface weatherFont = Typeface.createFromAsset(context.getAssets(),
-                                                        "fonts/weathericons-regular-webfont.ttf");
 
         paint.setAntiAlias(true);
         paint.setSubpixelText(true);
-        paint.setTypeface(weatherFont);
+        paint.setTypeface(getWeatherFont(context));
         paint.setStyle(Paint.Style.FILL);
         paint.setColor(iconColor);
-        paint.setTextSize(180);
+        paint.setTextSize(size * 180f / WEATHER_ICON_SIZE);
         paint.setTextAlign(Paint.Align.CENTER);
-        canvas.drawText(text, 128, 200, paint);
+        canvas.drawText(text, size / 2f, size * 200f / WEATHER_ICON_SIZE, paint);
+        weatherIcons.put(key, bitmap, System.nanoTime() - start);
         return bitmap;
     }
 
+    public static Typeface getWeatherFont(Context context) {
+        Typeface font = weatherFont;
+        if (font == null) {
+            synchronized (Utils.class) {
+                font = weatherFont;
+                if (font == null) {
+                    font = Typeface.createFromAsset(context.getApplicationContext().getAssets(),
+                                                    "fonts/weathericons-regular-webfont.ttf");
+                    weatherFont = font;
+                }
+            }
+        }
+        return font;
+    }
+
+    /**
+     * Draws the icons of the forecast in the forecast widget color ahead of the
+     * widget update, when the font based icon set is used.
+     */
+    public static void prewarmWeatherIcons(Context context, CompleteWeatherForecast completeWeatherForecast) {
+        if ((completeWeatherForecast == null) ||
+                !"weather_icon_set_fontbased".equals(AppPreference.getIconSet(context))) {
+            return;
+        }
+        ColumnarWeatherForecast forecast = ColumnarWeatherForecast.of(completeWeatherForecast);
+        int iconColor = AppPreference.getTextColor(context);
+        Set<String> iconIds = new HashSet<>();
+        for (int i = 0; i < forecast.size(); i++) {
+            iconIds.add(forecast.getIcon(i));
+        }
+        int rendered = 0;
+        for (String iconId: iconIds) {
+            WeatherIconCache.Key key = new WeatherIconCache.Key(getStrIcon(context, iconId), iconColor, WEATHER_ICON_SIZE);
+            if (!weatherIcons.contains(key)) {
+                createWeatherIconWithColor(context, key.glyph, iconColor);
+                rendered++;
+            }
+        }
+        appendLog(context, TAG, "Weather icons prewarmed: ", rendered, ", cache: ", weatherIcons.toString());
+    }
+
+    public static WeatherIconCache getWeatherIconCache() {
+        return weatherIcons;
+    }
+
     public static String getStrIcon(Context context, CurrentWeatherDbHelper.WeatherRecord weatherRecord) {
         if ((weatherRecord == null) || (weatherRecord.getWeather() == null)) {
             return context.getString(R.string.icon_clear_sky_day);
@@ -0,0 +1,80 @@
+package org.thosp.yourlocalweather.utils;
+
+import android.graphics.Bitmap;
+
+/**
+ * LRU of weather font icons rendered into bitmaps, bounded by the bytes of the
+ * bitmaps and keyed by the glyph, its color and the bitmap size. The same few
+ * icons are drawn by every widget, notification and forecast row, so most of
+ * them are drawn once.
+ */
+public class WeatherIconCache extends BitmapLruCache<WeatherIconCache.Key> {
+
+    public static class Key {
+        final String glyph;
+        final int color;
+        final int size;
+
+        public Key(String glyph, int color, int size) {
+            this.glyph = glyph;
+            this.color = color;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (color == other.color) &&
+                    (size == other.size) &&
+                    glyph.equals(other.glyph);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = glyph.hashCode();
+            result = 31 * result + color;
+            result = 31 * result + size;
+            return result;
+        }
+    }
+
+    private long renderCount;
+    private long totalRenderTimeInNs;
+    private long maxRenderTimeInNs;
+
+    public WeatherIconCache(long maxBytes) {
+        super("WeatherIconCache", maxBytes);
+    }
+
+    public synchronized void put(Key key, Bitmap bitmap, long renderTimeInNs) {
+        renderCount++;
+        totalRenderTimeInNs += renderTimeInNs;
+        if (renderTimeInNs > maxRenderTimeInNs) {
+            maxRenderTimeInNs = renderTimeInNs;
+        }
+        put(key, bitmap);
+    }
+
+    public synchronized long getRenderCount() {
+        return renderCount;
+    }
+
+    public synchronized long getAverageRenderTimeInNs() {
+        return (renderCount > 0) ? (totalRenderTimeInNs / renderCount) : 0;
+    }
+
+    public synchronized long getMaxRenderTimeInNs() {
+        return maxRenderTimeInNs;
+    }
+
+    @Override
+    protected synchronized String getStatistics() {
+        return super.getStatistics() +
+                ", renders=" + renderCount +
+                ", averageRenderNs=" + getAverageRenderTimeInNs() +
+                ", maxRenderNs=" + maxRenderTimeInNs;
+    }
+}
@@ -2,8 +2,6 @@ package org.thosp.yourlocalweather.utils;
 
 import android.app.AlarmManager;
 import android.app.PendingIntent;
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
@@ -14,21 +12,15 @@ import android.widget.RemoteViews;
 import android.widget.TextView;
 
 import org.thosp.yourlocalweather.R;
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
 import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
-import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
 import org.thosp.yourlocalweather.model.Location;
 import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.Weather;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
+import org.thosp.yourlocalweather.model.WidgetSettings;
 import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
-import org.thosp.yourlocalweather.widget.ExtLocationWidgetProvider;
-import org.thosp.yourlocalweather.widget.ExtLocationWithForecastGraphWidgetProvider;
-import org.thosp.yourlocalweather.widget.ExtLocationWithForecastWidgetProvider;
-import org.thosp.yourlocalweather.widget.ExtLocationWithGraphWidgetProvider;
-import org.thosp.yourlocalweather.widget.LessWidgetProvider;
-import org.thosp.yourlocalweather.widget.MoreWidgetProvider;
-import org.thosp.yourlocalweather.widget.WeatherForecastWidgetProvider;
-import org.thosp.yourlocalweather.widget.WeatherGraphWidgetProvider;
+import org.thosp.yourlocalweather.widget.WidgetRefreshCoordinator;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -39,6 +31,7 @@ import java.util.Set;
 public class WidgetUtils {
 
     private static final String TAG = "WidgetUtils";
+    private static final int FORECAST_HOURS_SHOWN = 5;
 
     public static void setSunset(Context context, RemoteViews remoteViews, Calendar calendar, Locale locale,
                                  int widgetSunsetId, int widgetSunsetIconId, Set<Integer> enabledDetails) {
@@ -210,7 +203,8 @@ public class WidgetUtils {
 
     public static WeatherForecastDbHelper.WeatherForecastRecord updateWeatherForecast(
             Context context,
-            long locationId,
+            Location location,
+            WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord,
             Integer widgetId,
             RemoteViews remoteViews,
             Integer forecast_1_widget_day_layout,
@@ -235,7 +229,8 @@ public class WidgetUtils {
             int forecast_5_widget_temperatures) {
         return updateWeatherForecast(
                 context,
-                locationId,
+                location,
+                weatherForecastRecord,
                 AppPreference.getTextColor(context),
                 widgetId,
                 remoteViews,
@@ -287,27 +282,84 @@ public class WidgetUtils {
             int forecast_5_widget_icon,
             int forecast_5_widget_day,
             int forecast_5_widget_temperatures) {
-        final WeatherForecastDbHelper weatherForecastDbHelper = WeatherForecastDbHelper.getInstance(context);
         final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
         Location location = locationsDbHelper.getLocationById(locationId);
         if (location == null) {
             return null;
         }
+        final WeatherForecastDbHelper weatherForecastDbHelper = WeatherForecastDbHelper.getInstance(context);
+        return updateWeatherForecast(
+                context,
+                location,
+                weatherForecastDbHelper.getWeatherForecast(locationId),
+                fontColorId,
+                widgetId,
+                remoteViews,
+                forecast_1_widget_day_layout,
+                forecast_1_widget_icon,
+                forecast_1_widget_day,
+                forecast_1_widget_temperatures,
+                forecast_2_widget_day_layout,
+                forecast_2_widget_icon,
+                forecast_2_widget_day,
+                forecast_2_widget_temperatures,
+                forecast_3_widget_day_layout,
+                forecast_3_widget_icon,
+                forecast_3_widget_day,
+                forecast_3_widget_temperatures,
+                forecast_4_widget_day_layout,
+                forecast_4_widget_icon,
+                forecast_4_widget_day,
+                forecast_4_widget_temperatures,
+                forecast_5_widget_day_layout,
+                forecast_5_widget_icon,
+                forecast_5_widget_day,
+                forecast_5_widget_temperatures);
+    }
+
+    private static WeatherForecastDbHelper.WeatherForecastRecord updateWeatherForecast(
+            Context context,
+            Location location,
+            WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord,
+            int fontColorId,
+            Integer widgetId,
+            RemoteViews remoteViews,
+            Integer forecast_1_widget_day_layout,
+            int forecast_1_widget_icon,
+            int forecast_1_widget_day,
+            int forecast_1_widget_temperatures,
+            Integer forecast_2_widget_day_layout,
+            int forecast_2_widget_icon,
+            int forecast_2_widget_day,
+            int forecast_2_widget_temperatures,
+            Integer forecast_3_widget_day_layout,
+            int forecast_3_widget_icon,
+            int forecast_3_widget_day,
+            int forecast_3_widget_temperatures,
+            Integer forecast_4_widget_day_layout,
+            int forecast_4_widget_icon,
+            int forecast_4_widget_day,
+            int forecast_4_widget_temperatures,
+            Integer forecast_5_widget_day_layout,
+            int forecast_5_widget_icon,
+            int forecast_5_widget_day,
+            int forecast_5_widget_temperatures) {
+        if (location == null) {
+            return null;
+        }
         SimpleDateFormat sdfDayOfWeek = getDaysFormatter(context, widgetId, location.getLocale());
 
         Long daysCount = 5l;
         Boolean hoursForecast = null;
-        final WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
         if (widgetId != null) {
-            daysCount = widgetSettingsDbHelper.getParamLong(widgetId, "forecastDaysCount");
-            hoursForecast = widgetSettingsDbHelper.getParamBoolean(widgetId, "hoursForecast");
+            WidgetSettings widgetSettings = WidgetSettingsDbHelper.getInstance(context).getWidgetSettings(widgetId);
+            daysCount = widgetSettings.getForecastDaysCount();
+            hoursForecast = widgetSettings.getHoursForecast();
             if (daysCount == null) {
                 daysCount = 5l;
             }
         }
 
-        WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord = weatherForecastDbHelper.getWeatherForecast(locationId);
-        //appendLog(context, TAG, "updateWeatherForecast:locationId=" + locationId + ", weatherForecastRecord=" + weatherForecastRecord);
         if (weatherForecastRecord == null) {
             return null;
         }
@@ -500,9 +552,14 @@ public class WidgetUtils {
             int forecast_5_widget_day,
             int forecast_5_widget_temperatures) {
 
-        int hourCounter = 0;
-        for (DetailedWeatherForecast detailedWeatherForecast: weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList()) {
-            switch (++hourCounter) {
+        ColumnarWeatherForecast forecast = ColumnarWeatherForecast.of(weatherForecastRecord.getCompleteWeatherForecast());
+        ForecastSeries forecastSeries = ForecastSeries.convert(PreferenceSnapshot.get(context), forecast);
+        float[] minTemperatures = forecastSeries.getMinTemperatures();
+        float[] maxTemperatures = forecastSeries.getMaxTemperatures();
+        int hoursInForecast = Math.min(FORECAST_HOURS_SHOWN, forecast.size());
+        for (int hourIndex = 0; hourIndex < hoursInForecast; hourIndex++) {
+            int hourCounter = hourIndex + 1;
+            switch (hourCounter) {
                 case 1:
                     setForecastHourInfo(
                             context,
@@ -512,14 +569,15 @@ public class WidgetUtils {
                             remoteViews,
                             forecast_1_widget_day_layout,
                             forecast_1_widget_icon,
-                            detailedWeatherForecast.getFirstWeatherCondition().getWeatherId(),
+                            forecast.getWeatherId(hourIndex),
                             forecast_1_widget_day,
                             forecast_1_widget_temperatures,
-                            detailedWeatherForecast.getFirstWeatherCondition().getIcon(),
-                            detailedWeatherForecast.getDateTime(),
-                            detailedWeatherForecast.getTemperatureMax(),
-                            detailedWeatherForecast.getTemperatureMin(),
-                            detailedWeatherForecast.getWindSpeed(),
+                            forecast.getIcon(hourIndex),
+                            forecast.getDateTime(hourIndex),
+                            forecast.getTemperatureMax(hourIndex),
+                            minTemperatures[hourIndex],
+                            maxTemperatures[hourIndex],
+                            forecast.getWindSpeed(hourIndex),
                             location);
                     break;
                 case 2:
@@ -531,14 +589,15 @@ public class WidgetUtils {
                             remoteViews,
                             forecast_2_widget_day_layout,
                             forecast_2_widget_icon,
-                            detailedWeatherForecast.getFirstWeatherCondition().getWeatherId(),
+                            forecast.getWeatherId(hourIndex),
                             forecast_2_widget_day,
                             forecast_2_widget_temperatures,
-                            detailedWeatherForecast.getFirstWeatherCondition().getIcon(),
-                            detailedWeatherForecast.getDateTime(),
-                            detailedWeatherForecast.getTemperatureMax(),
-                            detailedWeatherForecast.getTemperatureMin(),
-                            detailedWeatherForecast.getWindSpeed(),
+                            forecast.getIcon(hourIndex),
+                            forecast.getDateTime(hourIndex),
+                            forecast.getTemperatureMax(hourIndex),
+                            minTemperatures[hourIndex],
+                            maxTemperatures[hourIndex],
+                            forecast.getWindSpeed(hourIndex),
                             location);
                     break;
                 case 3:
@@ -550,14 +609,15 @@ public class WidgetUtils {
                             remoteViews,
                             forecast_3_widget_day_layout,
                             forecast_3_widget_icon,
-                            detailedWeatherForecast.getFirstWeatherCondition().getWeatherId(),
+                            forecast.getWeatherId(hourIndex),
                             forecast_3_widget_day,
                             forecast_3_widget_temperatures,
-                            detailedWeatherForecast.getFirstWeatherCondition().getIcon(),
-                            detailedWeatherForecast.getDateTime(),
-                            detailedWeatherForecast.getTemperatureMax(),
-                            detailedWeatherForecast.getTemperatureMin(),
-                            detailedWeatherForecast.getWindSpeed(),
+                            forecast.getIcon(hourIndex),
+                            forecast.getDateTime(hourIndex),
+                            forecast.getTemperatureMax(hourIndex),
+                            minTemperatures[hourIndex],
+                            maxTemperatures[hourIndex],
+                            forecast.getWindSpeed(hourIndex),
                             location);
                     break;
                 case 4:
@@ -569,14 +629,15 @@ public class WidgetUtils {
                             remoteViews,
                             forecast_4_widget_day_layout,
                             forecast_4_widget_icon,
-                            detailedWeatherForecast.getFirstWeatherCondition().getWeatherId(),
+                            forecast.getWeatherId(hourIndex),
                             forecast_4_widget_day,
                             forecast_4_widget_temperatures,
-                            detailedWeatherForecast.getFirstWeatherCondition().getIcon(),
-                            detailedWeatherForecast.getDateTime(),
-                            detailedWeatherForecast.getTemperatureMax(),
-                            detailedWeatherForecast.getTemperatureMin(),
-                            detailedWeatherForecast.getWindSpeed(),
+                            forecast.getIcon(hourIndex),
+                            forecast.getDateTime(hourIndex),
+                            forecast.getTemperatureMax(hourIndex),
+                            minTemperatures[hourIndex],
+                            maxTemperatures[hourIndex],
+                            forecast.getWindSpeed(hourIndex),
                             location);
                     break;
                 case 5:
@@ -588,14 +649,15 @@ public class WidgetUtils {
                             remoteViews,
                             forecast_5_widget_day_layout,
                             forecast_5_widget_icon,
-                            detailedWeatherForecast.getFirstWeatherCondition().getWeatherId(),
+                            forecast.getWeatherId(hourIndex),
                             forecast_5_widget_day,
                             forecast_5_widget_temperatures,
-                            detailedWeatherForecast.getFirstWeatherCondition().getIcon(),
-                            detailedWeatherForecast.getDateTime(),
-                            detailedWeatherForecast.getTemperatureMax(),
-                            detailedWeatherForecast.getTemperatureMin(),
-                            detailedWeatherForecast.getWindSpeed(),
+                            forecast.getIcon(hourIndex),
+                            forecast.getDateTime(hourIndex),
+                            forecast.getTemperatureMax(hourIndex),
+                            minTemperatures[hourIndex],
+                            maxTemperatures[hourIndex],
+                            forecast.getWindSpeed(hourIndex),
                             location);
                     break;
             }
@@ -617,7 +679,8 @@ public class WidgetUtils {
             String iconId,
             long forecastTime,
             double maxTemp,
-            double minTemp,
+            float minTempInUnit,
+            float maxTempInUnit,
             double maxWind,
             Location location) {
 
@@ -646,9 +709,9 @@ public class WidgetUtils {
                 AppPreference.getLocalizedHour(context, forecastCalendar.getTime(), location.getLocale()));
         remoteViews.setTextViewText(
                 weatherIdForTemperatures,
-                Math.round(TemperatureUtil.getTemperatureInPreferredUnit(context, minTemp)) +
+                Math.round(minTempInUnit) +
                  "/" +
-                 Math.round(TemperatureUtil.getTemperatureInPreferredUnit(context, maxTemp)) +
+                 Math.round(maxTempInUnit) +
                  TemperatureUtil.getTemperatureUnit(context));
     }
 
@@ -734,25 +797,8 @@ public class WidgetUtils {
         }
     }
 
-    private static void updateWidgetForType(Context context, Class<?> widgetProvider) {
-        AppWidgetManager widgetManager = AppWidgetManager.getInstance(context);
-        Intent intentToUpdate = new Intent(context, widgetProvider);
-        ComponentName widgetComponent = new ComponentName(context, widgetProvider);
-        int[] widgetIds = widgetManager.getAppWidgetIds(widgetComponent);
-        intentToUpdate.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-        intentToUpdate.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, widgetIds);
-        context.sendBroadcast(intentToUpdate);
-    }
-
     public static void updateWidgets(Context context) {
-        updateWidgetForType(context, LessWidgetProvider.class);
-        updateWidgetForType(context, MoreWidgetProvider.class);
-        updateWidgetForType(context, ExtLocationWidgetProvider.class);
-        updateWidgetForType(context, ExtLocationWithForecastWidgetProvider.class);
-        updateWidgetForType(context, WeatherForecastWidgetProvider.class);
-        updateWidgetForType(context, ExtLocationWithGraphWidgetProvider.class);
-        updateWidgetForType(context, WeatherGraphWidgetProvider.class);
-        updateWidgetForType(context, ExtLocationWithForecastGraphWidgetProvider.class);
+        WidgetRefreshCoordinator.refreshWidgets(context);
     }
 
     public static void startBackgroundService(Context context, Intent intent) {
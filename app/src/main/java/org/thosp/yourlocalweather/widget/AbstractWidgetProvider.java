@@ -23,6 +23,7 @@ import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.WidgetSettingsDialogue;
 import org.thosp.yourlocalweather.model.Location;
 import org.thosp.yourlocalweather.model.LocationsDbHelper;
+import org.thosp.yourlocalweather.model.WidgetSettings;
 import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
 import org.thosp.yourlocalweather.service.LocationUpdateService;
 import org.thosp.yourlocalweather.service.UpdateWeatherService;
@@ -35,6 +36,7 @@ import org.thosp.yourlocalweather.utils.Utils;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -53,8 +55,13 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
     LocationUpdateService locationUpdateService;
 
     protected Location currentLocation;
+    protected WidgetDataSnapshot dataSnapshot;
     volatile boolean servicesStarted = false;
 
+    private final Object renderStateLock = new Object();
+    private PendingResult pendingRenderResult;
+    private int pendingRenders;
+
     @Override
     public void onEnabled(Context context) {
         appendLog(context, TAG, "onEnabled:start");
@@ -164,7 +171,7 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
         } else if (intent.getAction().startsWith(Constants.ACTION_APPWIDGET_CHANGE_LOCATION)) {
             WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
             changeLocation(widgetId, locationsDbHelper, widgetSettingsDbHelper);
-            GraphUtils.invalidateGraph();
+            GraphUtils.invalidateGraph(widgetId);
             onUpdate(context, widgetManager, new int[]{widgetId});
         } else if (intent.getAction().startsWith(Constants.ACTION_FORCED_APPWIDGET_UPDATE)) {
             sendWeatherUpdate(context, widgetId);
@@ -179,49 +186,104 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
         ComponentName componentName = new ComponentName(context, getWidgetClass());
         int[] appWidgetIdsForWidget = appWidgetManager.getAppWidgetIds(componentName);
 
+        List<Integer> appWidgetIdsToRender = new ArrayList<>();
         for (int appWidgetId : appWidgetIds) {
-
-            updateCurrentLocation(context, appWidgetId);
-            boolean found = false;
             for (int widgetIdToSearch: appWidgetIdsForWidget) {
                 if (widgetIdToSearch == appWidgetId) {
-                    found = true;
+                    appWidgetIdsToRender.add(appWidgetId);
+                    break;
                 }
             }
-            if (!found) {
-                continue;
-            }
+        }
+        if (appWidgetIdsToRender.isEmpty()) {
+            appendLog(context, TAG, "onUpdate:end");
+            return;
+        }
+        int[] renderedWidgetIds = new int[appWidgetIdsToRender.size()];
+        for (int i = 0; i < renderedWidgetIds.length; i++) {
+            renderedWidgetIds[i] = appWidgetIdsToRender.get(i);
+        }
+        startRender();
+        WidgetRenderPipeline.render(
+                context.getApplicationContext(),
+                appWidgetManager,
+                this,
+                renderedWidgetIds,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        finishRender();
+                    }
+                });
+        appendLog(context, TAG, "onUpdate:end");
+    }
 
-            RemoteViews remoteViews = new RemoteViews(context.getPackageName(),
-                    getWidgetLayout());
-
-            if (ExtLocationWidgetProvider.class.equals(getWidgetClass())) {
-                ExtLocationWidgetProvider.setWidgetTheme(context, remoteViews);
-            } else if (MoreWidgetProvider.class.equals(getWidgetClass())) {
-                MoreWidgetProvider.setWidgetTheme(context, remoteViews);
-            } else if (LessWidgetProvider.class.equals(getWidgetClass())) {
-                LessWidgetProvider.setWidgetTheme(context, remoteViews);
-            } else if (ExtLocationWithForecastWidgetProvider.class.equals(getWidgetClass())) {
-                ExtLocationWithForecastWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
-            } else if (WeatherForecastWidgetProvider.class.equals(getWidgetClass())) {
-                WeatherForecastWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
-            } else if (ExtLocationWithGraphWidgetProvider.class.equals(getWidgetClass())) {
-                ExtLocationWithGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
-            } else if (WeatherGraphWidgetProvider.class.equals(getWidgetClass())) {
-                WeatherGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
-            } else if (ExtLocationWithForecastGraphWidgetProvider.class.equals(getWidgetClass())) {
-                ExtLocationWithForecastGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
+    void renderWidget(Context context,
+                      AppWidgetManager appWidgetManager,
+                      int appWidgetId,
+                      WidgetDataSnapshot snapshot) {
+        dataSnapshot = snapshot;
+        currentLocation = snapshot.getLocation();
+
+        RemoteViews remoteViews = new RemoteViews(context.getPackageName(),
+                getWidgetLayout());
+
+        if (ExtLocationWidgetProvider.class.equals(getWidgetClass())) {
+            ExtLocationWidgetProvider.setWidgetTheme(context, remoteViews);
+        } else if (MoreWidgetProvider.class.equals(getWidgetClass())) {
+            MoreWidgetProvider.setWidgetTheme(context, remoteViews);
+        } else if (LessWidgetProvider.class.equals(getWidgetClass())) {
+            LessWidgetProvider.setWidgetTheme(context, remoteViews);
+        } else if (ExtLocationWithForecastWidgetProvider.class.equals(getWidgetClass())) {
+            ExtLocationWithForecastWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
+        } else if (WeatherForecastWidgetProvider.class.equals(getWidgetClass())) {
+            WeatherForecastWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
+        } else if (ExtLocationWithGraphWidgetProvider.class.equals(getWidgetClass())) {
+            ExtLocationWithGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
+        } else if (WeatherGraphWidgetProvider.class.equals(getWidgetClass())) {
+            WeatherGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
+        } else if (ExtLocationWithForecastGraphWidgetProvider.class.equals(getWidgetClass())) {
+            ExtLocationWithForecastGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
+        }
+        setWidgetIntents(context, remoteViews, getWidgetClass(), appWidgetId);
+        preLoadWeather(context, remoteViews, appWidgetId);
+
+        try {
+            appWidgetManager.updateAppWidget(appWidgetId, remoteViews);
+        } catch (Exception e) {
+            appendLog(context, TAG, e.getMessage(), e);
+        }
+    }
+
+    AbstractWidgetProvider createRenderer() {
+        try {
+            return (AbstractWidgetProvider) getWidgetClass().getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            return this;
+        }
+    }
+
+    private void startRender() {
+        synchronized (renderStateLock) {
+            if (pendingRenders == 0) {
+                pendingRenderResult = goAsync();
             }
-            setWidgetIntents(context, remoteViews, getWidgetClass(), appWidgetId);
-            preLoadWeather(context, remoteViews, appWidgetId);
+            pendingRenders++;
+        }
+    }
 
-            try {
-                appWidgetManager.updateAppWidget(appWidgetId, remoteViews);
-            } catch (Exception e) {
-                appendLog(context, TAG, e.getMessage(), e);
+    private void finishRender() {
+        PendingResult renderResult = null;
+        synchronized (renderStateLock) {
+            pendingRenders--;
+            if (pendingRenders == 0) {
+                renderResult = pendingRenderResult;
+                pendingRenderResult = null;
             }
         }
-        appendLog(context, TAG, "onUpdate:end");
+        if (renderResult != null) {
+            renderResult.finish();
+        }
     }
 
     @Override
@@ -230,6 +292,7 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
         WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
         for (int widgetId: appWidgetIds) {
             widgetSettingsDbHelper.deleteRecordFromTable(widgetId);
+            WidgetRenderPipeline.removeWidget(widgetId);
         }
         unbindCurrentWeatherService(context);
         startLocationAndWeatherUpdate(context);
@@ -308,9 +371,9 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
         remoteViews.setOnClickPendingIntent(R.id.widget_more_3x3_widget_last_update, pendingIntent);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_forecast_graph_3x3_widget_last_update, pendingIntent);
 
-        final WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
+        final WidgetSettings widgetSettings = WidgetSettingsDbHelper.getInstance(context).getWidgetSettings(widgetId);
 
-        WidgetActions mainIconAction = WidgetActions.getById(widgetSettingsDbHelper.getParamLong(widgetId, "action_current_weather_icon"), "action_current_weather_icon");
+        WidgetActions mainIconAction = WidgetActions.getById(widgetSettings.getParamLong("action_current_weather_icon"), "action_current_weather_icon");
         PendingIntent pendingIntentMainIconAction = getActionIntent(context, mainIconAction, widgetClass, widgetId);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_3x3_widget_icon, pendingIntentMainIconAction);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_forecast_3x3_widget_icon, pendingIntentMainIconAction);
@@ -319,13 +382,13 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
         remoteViews.setOnClickPendingIntent(R.id.widget_more_3x3_widget_icon, pendingIntentMainIconAction);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_forecast_graph_3x3_widget_icon, pendingIntentMainIconAction);
 
-        WidgetActions graphAction = WidgetActions.getById(widgetSettingsDbHelper.getParamLong(widgetId, "action_graph"), "action_graph");
+        WidgetActions graphAction = WidgetActions.getById(widgetSettings.getParamLong("action_graph"), "action_graph");
         PendingIntent pendingIntentGraphAction = getActionIntent(context, graphAction, widgetClass, widgetId);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_graph_3x3_forecast_graph, pendingIntentGraphAction);
         remoteViews.setOnClickPendingIntent(R.id.widget_weather_graph_1x3_forecast_graph, pendingIntentGraphAction);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_forecast_graph_3x3_forecast_graph, pendingIntentGraphAction);
 
-        WidgetActions forecastAction = WidgetActions.getById(widgetSettingsDbHelper.getParamLong(widgetId, "action_forecast"), "action_forecast");
+        WidgetActions forecastAction = WidgetActions.getById(widgetSettings.getParamLong("action_forecast"), "action_forecast");
         PendingIntent pendingIntentForecastAction = getActionIntent(context, forecastAction, widgetClass, widgetId);
         remoteViews.setOnClickPendingIntent(R.id.widget_ext_loc_forecast_3x3_forecast_layout, pendingIntentForecastAction);
         remoteViews.setOnClickPendingIntent(R.id.widget_weather_forecast_1x3_forecast_layout, pendingIntentForecastAction);
@@ -333,7 +396,7 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
 
         Integer cityViewId = getCityViewId(widgetClass);
         if (cityViewId != null) {
-            WidgetActions cityAction = WidgetActions.getById(widgetSettingsDbHelper.getParamLong(widgetId, "action_city"), "action_city");
+            WidgetActions cityAction = WidgetActions.getById(widgetSettings.getParamLong("action_city"), "action_city");
             PendingIntent pendingIntentCityAction = getActionIntent(context, cityAction, widgetClass, widgetId);
             remoteViews.setOnClickPendingIntent(getCityViewId(widgetClass), pendingIntentCityAction);
         }
@@ -442,19 +505,22 @@ public abstract class AbstractWidgetProvider extends AppWidgetProvider {
     protected abstract int getWidgetLayout();
 
     protected void updateCurrentLocation(Context context, int appWidgetId) {
-        final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
         WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
+        currentLocation = getWidgetLocation(context, widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId"));
+    }
 
-        Long locationId = widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId");
-
+    static Location getWidgetLocation(Context context, Long locationId) {
+        final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
+        Location location;
         if (locationId == null) {
-            currentLocation = locationsDbHelper.getLocationByOrderId(0);
-            if ((currentLocation != null) && !currentLocation.isEnabled()) {
-                currentLocation = locationsDbHelper.getLocationByOrderId(1);
+            location = locationsDbHelper.getLocationByOrderId(0);
+            if ((location != null) && !location.isEnabled()) {
+                location = locationsDbHelper.getLocationByOrderId(1);
             }
         } else {
-            currentLocation = locationsDbHelper.getLocationById(locationId);
+            location = locationsDbHelper.getLocationById(locationId);
         }
+        return location;
     }
 
     private void changeLocation(int widgetId,
@@ -6,9 +6,7 @@ import android.widget.RemoteViews;
 
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
-import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.Weather;
-import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.TemperatureUtil;
 import org.thosp.yourlocalweather.utils.Utils;
@@ -30,26 +28,12 @@ public class ExtLocationWidgetProvider extends AbstractWidgetProvider {
     @Override
     protected void preLoadWeather(Context context, RemoteViews remoteViews, int appWidgetId) {
         appendLog(context, TAG, "preLoadWeather:start");
-        final CurrentWeatherDbHelper currentWeatherDbHelper = CurrentWeatherDbHelper.getInstance(context);
-        final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
-        WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
-
-        Long locationId = widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId");
-
-        if (locationId == null) {
-            currentLocation = locationsDbHelper.getLocationByOrderId(0);
-            if ((currentLocation != null) && !currentLocation.isEnabled()) {
-                currentLocation = locationsDbHelper.getLocationByOrderId(1);
-            }
-        } else {
-            currentLocation = locationsDbHelper.getLocationById(locationId);
-        }
 
         if (currentLocation == null) {
             return;
         }
 
-        CurrentWeatherDbHelper.WeatherRecord weatherRecord = currentWeatherDbHelper.getWeather(currentLocation.getId());
+        CurrentWeatherDbHelper.WeatherRecord weatherRecord = dataSnapshot.getWeatherRecord();
 
         WidgetUtils.updateCurrentWeatherDetails(
                 context,
@@ -7,10 +7,8 @@ import android.widget.RemoteViews;
 
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
-import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.Weather;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
-import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
 import org.thosp.yourlocalweather.service.UpdateWeatherService;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.GraphUtils;
@@ -34,15 +32,12 @@ public class ExtLocationWithForecastGraphWidgetProvider extends AbstractWidgetPr
     @Override
     protected void preLoadWeather(Context context, RemoteViews remoteViews, int appWidgetId) {
         appendLog(context, TAG, "preLoadWeather:start");
-        final CurrentWeatherDbHelper currentWeatherDbHelper = CurrentWeatherDbHelper.getInstance(context);
-
-        updateCurrentLocation(context, appWidgetId);
 
         if (currentLocation == null) {
             return;
         }
 
-        CurrentWeatherDbHelper.WeatherRecord weatherRecord = currentWeatherDbHelper.getWeather(currentLocation.getId());
+        CurrentWeatherDbHelper.WeatherRecord weatherRecord = dataSnapshot.getWeatherRecord();
 
         WidgetUtils.updateCurrentWeatherDetails(
                 context,
@@ -112,7 +107,8 @@ public class ExtLocationWithForecastGraphWidgetProvider extends AbstractWidgetPr
         try {
             weatherForecastRecord = WidgetUtils.updateWeatherForecast(
                     context,
-                    currentLocation.getId(),
+                    currentLocation,
+                    dataSnapshot.getWeatherForecastRecord(),
                     appWidgetId,
                     remoteViews,
                     R.id.widget_ext_loc_forecast_graph_3x3_forecast_day_1,
@@ -139,7 +135,8 @@ public class ExtLocationWithForecastGraphWidgetProvider extends AbstractWidgetPr
             if (weatherForecastRecord != null) {
                 remoteViews.setImageViewBitmap(R.id.widget_ext_loc_forecast_graph_3x3_widget_combined_chart,
                         GraphUtils.getCombinedChart(context, appWidgetId,
-                                0.4f, weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList(), currentLocation.getId(), currentLocation.getLocale()));
+                                0.4f, weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList(),
+                                weatherForecastRecord.getLastUpdatedTime(), currentLocation.getId(), currentLocation.getLocale()));
             }
         } catch (Exception e) {
             appendLog(context, TAG, "preLoadWeather:error updating weather forecast", e);
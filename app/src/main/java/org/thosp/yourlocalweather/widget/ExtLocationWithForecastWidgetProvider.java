@@ -7,10 +7,8 @@ import android.widget.RemoteViews;
 
 import org.thosp.yourlocalweather.R;
 import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
-import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.Weather;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
-import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
 import org.thosp.yourlocalweather.service.UpdateWeatherService;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.TemperatureUtil;
@@ -33,26 +31,12 @@ public class ExtLocationWithForecastWidgetProvider extends AbstractWidgetProvide
     @Override
     protected void preLoadWeather(Context context, RemoteViews remoteViews, int appWidgetId) {
         appendLog(context, TAG, "preLoadWeather:start");
-        final CurrentWeatherDbHelper currentWeatherDbHelper = CurrentWeatherDbHelper.getInstance(context);
-        final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
-        WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
-
-        Long locationId = widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId");
-
-        if (locationId == null) {
-            currentLocation = locationsDbHelper.getLocationByOrderId(0);
-            if ((currentLocation != null) && !currentLocation.isEnabled()) {
-                currentLocation = locationsDbHelper.getLocationByOrderId(1);
-            }
-        } else {
-            currentLocation = locationsDbHelper.getLocationById(locationId);
-        }
 
         if (currentLocation == null) {
             return;
         }
 
-        CurrentWeatherDbHelper.WeatherRecord weatherRecord = currentWeatherDbHelper.getWeather(currentLocation.getId());
+        CurrentWeatherDbHelper.WeatherRecord weatherRecord = dataSnapshot.getWeatherRecord();
 
         WidgetUtils.updateCurrentWeatherDetails(
                 context,
@@ -122,7 +106,8 @@ public class ExtLocationWithForecastWidgetProvider extends AbstractWidgetProvide
         try {
             weatherForecastRecord = WidgetUtils.updateWeatherForecast(
                     context,
-                    currentLocation.getId(),
+                    currentLocation,
+                    dataSnapshot.getWeatherForecastRecord(),
                     appWidgetId,
                     remoteViews,
                     R.id.widget_ext_loc_forecast_3x3_forecast_day_1,
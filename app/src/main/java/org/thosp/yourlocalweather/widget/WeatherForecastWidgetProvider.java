@@ -5,7 +5,6 @@ import android.view.View;
 import android.widget.RemoteViews;
 
 import org.thosp.yourlocalweather.R;
-import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
 import org.thosp.yourlocalweather.utils.AppPreference;
 import org.thosp.yourlocalweather.utils.Utils;
@@ -24,31 +23,17 @@ public class WeatherForecastWidgetProvider extends AbstractWidgetProvider {
     @Override
     protected void preLoadWeather(Context context, RemoteViews remoteViews, int appWidgetId) {
         appendLog(context, TAG, "preLoadWeather:start");
-        final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
-        WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
-
-        Long locationId = widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId");
-
-        if (locationId == null) {
-            currentLocation = locationsDbHelper.getLocationByOrderId(0);
-            if ((currentLocation != null) && !currentLocation.isEnabled()) {
-                currentLocation = locationsDbHelper.getLocationByOrderId(1);
-            }
-        } else {
-            currentLocation = locationsDbHelper.getLocationById(locationId);
-        }
 
         if (currentLocation == null) {
             return;
         }
 
-        WeatherForecastWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
-        WeatherForecastWidgetProvider.setWidgetIntents(context, remoteViews, WeatherForecastWidgetProvider.class, appWidgetId);
         remoteViews.setTextViewText(R.id.widget_weather_forecast_1x3_widget_city, Utils.getCityAndCountry(context, currentLocation.getOrderId()));
         try {
             WidgetUtils.updateWeatherForecast(
                     context,
-                    currentLocation.getId(),
+                    currentLocation,
+                    dataSnapshot.getWeatherForecastRecord(),
                     appWidgetId,
                     remoteViews,
                     R.id.widget_weather_forecast_1x3_forecast_day_1,
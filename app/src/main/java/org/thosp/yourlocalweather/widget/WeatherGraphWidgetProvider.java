@@ -1,13 +1,12 @@
 package org.thosp.yourlocalweather.widget;
 
+import android.appwidget.AppWidgetManager;
 import android.content.Context;
 import android.content.Intent;
 import android.view.View;
 import android.widget.RemoteViews;
 
 import org.thosp.yourlocalweather.R;
-import org.thosp.yourlocalweather.model.Location;
-import org.thosp.yourlocalweather.model.LocationsDbHelper;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
 import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
 import org.thosp.yourlocalweather.utils.AppPreference;
@@ -30,7 +29,12 @@ public class WeatherGraphWidgetProvider extends AbstractWidgetProvider {
         super.onReceive(context, intent);
         if (intent.getAction().equals("android.appwidget.action.APPWIDGET_UPDATE_OPTIONS") ||
                 intent.getAction().equals(Constants.ACTION_APPWIDGET_CHANGE_GRAPH_SCALE)) {
-            GraphUtils.invalidateGraph();
+            if (intent.getAction().equals(Constants.ACTION_APPWIDGET_CHANGE_GRAPH_SCALE) &&
+                    !intent.hasExtra(AppWidgetManager.EXTRA_APPWIDGET_ID)) {
+                GraphUtils.invalidateGraph();
+            } else {
+                GraphUtils.invalidateGraph(intent.getIntExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID));
+            }
             refreshWidgetValues(context);
         }
     }
@@ -39,38 +43,19 @@ public class WeatherGraphWidgetProvider extends AbstractWidgetProvider {
     protected void preLoadWeather(Context context, RemoteViews remoteViews, int appWidgetId) {
         appendLog(context, TAG, "preLoadWeather:start");
 
-        final LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
-        WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
-
-        Long locationId = widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId");
-
-        if (locationId == null) {
-            currentLocation = locationsDbHelper.getLocationByOrderId(0);
-            if ((currentLocation != null) && !currentLocation.isEnabled()) {
-                currentLocation = locationsDbHelper.getLocationByOrderId(1);
-            }
-        } else {
-            currentLocation = locationsDbHelper.getLocationById(locationId);
-        }
-
         if (currentLocation == null) {
             return;
         }
 
-        WeatherGraphWidgetProvider.setWidgetTheme(context, remoteViews, appWidgetId);
-        WeatherGraphWidgetProvider.setWidgetIntents(context, remoteViews, WeatherGraphWidgetProvider.class, appWidgetId);
         remoteViews.setTextViewText(R.id.widget_weather_graph_1x3_widget_city, Utils.getCityAndCountry(context, currentLocation.getOrderId()));
         WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord = null;
         try {
-            final WeatherForecastDbHelper weatherForecastDbHelper = WeatherForecastDbHelper.getInstance(context);
-            Location location = locationsDbHelper.getLocationById(currentLocation.getId());
-            if (location != null) {
-                weatherForecastRecord = weatherForecastDbHelper.getWeatherForecast(currentLocation.getId());
-                if (weatherForecastRecord != null) {
-                    remoteViews.setImageViewBitmap(R.id.widget_weather_graph_1x3_widget_combined_chart,
-                            GraphUtils.getCombinedChart(context, appWidgetId,null,
-                                    weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList(), currentLocation.getId(), currentLocation.getLocale()));
-                }
+            weatherForecastRecord = dataSnapshot.getWeatherForecastRecord();
+            if (weatherForecastRecord != null) {
+                remoteViews.setImageViewBitmap(R.id.widget_weather_graph_1x3_widget_combined_chart,
+                        GraphUtils.getCombinedChart(context, appWidgetId,null,
+                                weatherForecastRecord.getCompleteWeatherForecast().getWeatherForecastList(),
+                                weatherForecastRecord.getLastUpdatedTime(), currentLocation.getId(), currentLocation.getLocale()));
             }
         } catch (Exception e) {
             appendLog(context, TAG, "preLoadWeather:error updating weather forecast", e);
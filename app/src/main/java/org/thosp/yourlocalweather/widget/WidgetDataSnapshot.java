@@ -0,0 +1,109 @@
+package org.thosp.yourlocalweather.widget;
+
+import android.content.Context;
+import android.location.Address;
+
+import org.thosp.yourlocalweather.model.BinaryCodec;
+import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
+import org.thosp.yourlocalweather.model.Location;
+import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
+import org.thosp.yourlocalweather.utils.PreferenceSnapshot;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Location, current weather and forecast read once for all widgets showing the
+ * same location. The content hash covers the location with its address, the
+ * update times of the weather and the display preferences in the
+ * PreferenceSnapshot, so a widget rendered from a snapshot with the same hash
+ * and unchanged widget settings does not change.
+ */
+public class WidgetDataSnapshot {
+
+    private static final long CONTENT_HASH_PERIOD_IN_MS = 3600000;
+
+    private final Location location;
+    private final CurrentWeatherDbHelper.WeatherRecord weatherRecord;
+    private final WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord;
+    private final long contentHash;
+
+    private WidgetDataSnapshot(Location location,
+                               CurrentWeatherDbHelper.WeatherRecord weatherRecord,
+                               WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord,
+                               long contentHash) {
+        this.location = location;
+        this.weatherRecord = weatherRecord;
+        this.weatherForecastRecord = weatherForecastRecord;
+        this.contentHash = contentHash;
+    }
+
+    public static WidgetDataSnapshot load(Context context, Location location) {
+        long preferencesHash = PreferenceSnapshot.get(context).getContentHash();
+        if (location == null) {
+            return create(null, null, null, preferencesHash, System.currentTimeMillis());
+        }
+        return create(location,
+                CurrentWeatherDbHelper.getInstance(context).getWeather(location.getId()),
+                WeatherForecastDbHelper.getInstance(context).getWeatherForecast(location.getId()),
+                preferencesHash,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * @param preferencesHash content hash of the display preferences the
+     *                        widgets render with
+     */
+    static WidgetDataSnapshot create(Location location,
+                                     CurrentWeatherDbHelper.WeatherRecord weatherRecord,
+                                     WeatherForecastDbHelper.WeatherForecastRecord weatherForecastRecord,
+                                     long preferencesHash,
+                                     long now) {
+        long period = (now + TimeZone.getDefault().getOffset(now)) / CONTENT_HASH_PERIOD_IN_MS;
+        if (location == null) {
+            return new WidgetDataSnapshot(null, null, null, 31 * preferencesHash + period);
+        }
+        long contentHash = location.getId();
+        contentHash = 31 * contentHash + location.getOrderId();
+        contentHash = 31 * contentHash + (location.isEnabled() ? 1 : 0);
+        contentHash = 31 * contentHash + (location.isAddressFound() ? 1 : 0);
+        contentHash = 31 * contentHash + location.getLastLocationUpdate();
+        contentHash = 31 * contentHash + hashCode(location.getNickname());
+        contentHash = 31 * contentHash + hashCode(location.getLocaleAbbrev());
+        contentHash = 31 * contentHash + hashCode(location.getLocationSource());
+        contentHash = 31 * contentHash + hashCode(location.getAddress());
+        contentHash = 31 * contentHash + ((weatherRecord != null) ? weatherRecord.getLastUpdatedTime() : 0);
+        contentHash = 31 * contentHash + ((weatherForecastRecord != null) ? weatherForecastRecord.getLastUpdatedTime() : 0);
+        contentHash = 31 * contentHash + preferencesHash;
+        contentHash = 31 * contentHash + period;
+        return new WidgetDataSnapshot(location, weatherRecord, weatherForecastRecord, contentHash);
+    }
+
+    /**
+     * Address does not implement hashCode, the hash is taken over its encoded
+     * fields.
+     */
+    private static int hashCode(Address address) {
+        return (address != null) ? Arrays.hashCode(BinaryCodec.encodeAddress(address)) : 0;
+    }
+
+    private static int hashCode(Object value) {
+        return (value != null) ? value.hashCode() : 0;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public CurrentWeatherDbHelper.WeatherRecord getWeatherRecord() {
+        return weatherRecord;
+    }
+
+    public WeatherForecastDbHelper.WeatherForecastRecord getWeatherForecastRecord() {
+        return weatherForecastRecord;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+}
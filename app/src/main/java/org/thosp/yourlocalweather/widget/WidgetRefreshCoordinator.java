@@ -0,0 +1,124 @@
+package org.thosp.yourlocalweather.widget;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import org.thosp.yourlocalweather.model.Location;
+import org.thosp.yourlocalweather.model.WidgetSettings;
+import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
+
+/**
+ * Refreshes the widgets of all providers in one pass on the render pipeline.
+ * The data of a location is read once into a snapshot shared by every widget
+ * showing it, widgets already rendered from the same content and widget
+ * settings are skipped.
+ */
+public class WidgetRefreshCoordinator {
+
+    private static final String TAG = "WidgetRefreshCoordinator";
+
+    private static final long DEFAULT_LOCATION_KEY = -1;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private static final Class<?>[] WIDGET_PROVIDERS = {
+            LessWidgetProvider.class,
+            MoreWidgetProvider.class,
+            ExtLocationWidgetProvider.class,
+            ExtLocationWithForecastWidgetProvider.class,
+            WeatherForecastWidgetProvider.class,
+            ExtLocationWithGraphWidgetProvider.class,
+            WeatherGraphWidgetProvider.class,
+            ExtLocationWithForecastGraphWidgetProvider.class
+    };
+
+    public static void refreshWidgets(Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        final Runnable refresh = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshWidgetsNow(applicationContext);
+                } catch (Exception e) {
+                    appendLog(applicationContext, TAG, "Error refreshing widgets", e);
+                }
+            }
+        };
+        // refreshes requested from a preference change listener start after all
+        // listeners of that change ran, so the preference snapshot is rebuilt
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                WidgetRenderPipeline.execute(refresh);
+            }
+        });
+    }
+
+    private static void refreshWidgetsNow(Context context) {
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
+        Map<Long, WidgetDataSnapshot> snapshots = new HashMap<>();
+        int renderedWidgets = 0;
+        int skippedWidgets = 0;
+        for (Class<?> widgetProvider: WIDGET_PROVIDERS) {
+            int[] appWidgetIds = appWidgetManager.getAppWidgetIds(new ComponentName(context, widgetProvider));
+            if (appWidgetIds.length == 0) {
+                continue;
+            }
+            AbstractWidgetProvider provider;
+            try {
+                provider = (AbstractWidgetProvider) widgetProvider.getDeclaredConstructor().newInstance();
+            } catch (Exception e) {
+                appendLog(context, TAG, "Error creating widget provider", e);
+                continue;
+            }
+            for (int appWidgetId: appWidgetIds) {
+                Long locationId = widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId");
+                long locationKey = (locationId != null) ? locationId : DEFAULT_LOCATION_KEY;
+                WidgetDataSnapshot snapshot = snapshots.get(locationKey);
+                if (snapshot == null) {
+                    Location location = AbstractWidgetProvider.getWidgetLocation(context, locationId);
+                    snapshot = WidgetDataSnapshot.load(context, location);
+                    snapshots.put(locationKey, snapshot);
+                }
+                if (refreshWidget(context, appWidgetManager, provider, appWidgetId, snapshot,
+                        widgetSettingsDbHelper.getWidgetSettings(appWidgetId))) {
+                    renderedWidgets++;
+                } else {
+                    skippedWidgets++;
+                }
+            }
+        }
+        appendLog(context, TAG, "Widgets refreshed from snapshots:", snapshots.size(),
+                ", rendered:", renderedWidgets,
+                ", skipped:", skippedWidgets);
+    }
+
+    /**
+     * Renders the widget unless it was last rendered from the same snapshot and
+     * widget settings.
+     *
+     * @return true when the widget was rendered
+     */
+    static boolean refreshWidget(Context context,
+                                 AppWidgetManager appWidgetManager,
+                                 AbstractWidgetProvider provider,
+                                 int appWidgetId,
+                                 WidgetDataSnapshot snapshot,
+                                 WidgetSettings widgetSettings) {
+        long renderHash = WidgetRenderPipeline.getRenderHash(snapshot, widgetSettings);
+        if (WidgetRenderPipeline.isRendered(appWidgetId, renderHash)) {
+            return false;
+        }
+        WidgetRenderPipeline.renderWidget(context, appWidgetManager, provider, appWidgetId, snapshot, renderHash);
+        return true;
+    }
+}
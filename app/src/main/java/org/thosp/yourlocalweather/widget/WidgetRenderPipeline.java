@@ -0,0 +1,285 @@
+package org.thosp.yourlocalweather.widget;
+
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import org.thosp.yourlocalweather.model.Location;
+import org.thosp.yourlocalweather.model.WidgetSettings;
+import org.thosp.yourlocalweather.model.WidgetSettingsDbHelper;
+import org.thosp.yourlocalweather.utils.Metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.thosp.yourlocalweather.utils.LogToFile.appendLog;
+
+/**
+ * Renders widgets on a small worker pool shared by all widget providers. Every
+ * widget is rendered by its own provider instance, so the per render state of
+ * the provider (current location) is not shared between threads. A render
+ * request that does not finish within the deadline is released, so the
+ * broadcast holding it does not time out, and its remaining widgets are skipped.
+ */
+public class WidgetRenderPipeline {
+
+    private static final String TAG = "WidgetRenderPipeline";
+
+    static final long RENDER_DEADLINE_IN_MS = 8000;
+    private static final int RENDER_THREADS = 2;
+    private static final long IDLE_THREAD_KEEP_ALIVE_IN_S = 30;
+
+    private static final ThreadPoolExecutor renderExecutor = new ThreadPoolExecutor(
+            RENDER_THREADS,
+            RENDER_THREADS,
+            IDLE_THREAD_KEEP_ALIVE_IN_S,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "WidgetRender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static {
+        renderExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static Handler deadlineHandler;
+
+    private static final ConcurrentHashMap<Integer, RenderTiming> renderTimings = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Long> renderedContentHashes = new ConcurrentHashMap<>();
+    private static final AtomicLong deadlineMisses = new AtomicLong();
+    private static final Metrics.Histogram renderTime = Metrics.histogram(Metrics.WIDGET_RENDER);
+
+    static {
+        Metrics.gauge("widget.deadlineMisses", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return deadlineMisses.get();
+            }
+        });
+    }
+
+    static void render(final Context context,
+                       final AppWidgetManager appWidgetManager,
+                       final AbstractWidgetProvider provider,
+                       final int[] appWidgetIds,
+                       final Runnable onFinished) {
+        final RenderRequest request = new RenderRequest(appWidgetIds, onFinished) {
+            @Override
+            void renderWidget(int appWidgetId) {
+                WidgetRenderPipeline.renderWidget(context, appWidgetManager, provider, appWidgetId);
+            }
+
+            @Override
+            void skipWidget(int appWidgetId) {
+                appendLog(context, TAG, "Render deadline exceeded, skipping widget ", appWidgetId);
+            }
+        };
+        final Runnable deadline = new Runnable() {
+            @Override
+            public void run() {
+                if (request.expire()) {
+                    deadlineMisses.incrementAndGet();
+                    appendLog(context, TAG, "Render deadline exceeded for widget ", provider.getWidgetName());
+                }
+            }
+        };
+        getDeadlineHandler().postDelayed(deadline, RENDER_DEADLINE_IN_MS);
+        renderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    request.run();
+                } finally {
+                    getDeadlineHandler().removeCallbacks(deadline);
+                }
+            }
+        });
+    }
+
+    private static void renderWidget(Context context,
+                                     AppWidgetManager appWidgetManager,
+                                     AbstractWidgetProvider provider,
+                                     int appWidgetId) {
+        WidgetSettingsDbHelper widgetSettingsDbHelper = WidgetSettingsDbHelper.getInstance(context);
+        Location location = AbstractWidgetProvider.getWidgetLocation(
+                context,
+                widgetSettingsDbHelper.getParamLong(appWidgetId, "locationId"));
+        WidgetDataSnapshot snapshot = WidgetDataSnapshot.load(context, location);
+        renderWidget(context, appWidgetManager, provider, appWidgetId, snapshot,
+                getRenderHash(snapshot, widgetSettingsDbHelper.getWidgetSettings(appWidgetId)));
+    }
+
+    static void renderWidget(Context context,
+                             AppWidgetManager appWidgetManager,
+                             AbstractWidgetProvider provider,
+                             int appWidgetId,
+                             WidgetDataSnapshot snapshot,
+                             long renderHash) {
+        long start = System.nanoTime();
+        try {
+            provider.createRenderer().renderWidget(context, appWidgetManager, appWidgetId, snapshot);
+            rendered(appWidgetId, renderHash);
+        } catch (Exception e) {
+            renderedContentHashes.remove(appWidgetId);
+            appendLog(context, TAG, "Error rendering widget " + appWidgetId, e);
+        }
+        long renderTimeInNs = System.nanoTime() - start;
+        renderTime.record(renderTimeInNs);
+        long renderTimeInMs = TimeUnit.NANOSECONDS.toMillis(renderTimeInNs);
+        RenderTiming renderTiming = renderTimings.get(appWidgetId);
+        if (renderTiming == null) {
+            renderTiming = new RenderTiming();
+            RenderTiming existingTiming = renderTimings.putIfAbsent(appWidgetId, renderTiming);
+            if (existingTiming != null) {
+                renderTiming = existingTiming;
+            }
+        }
+        renderTiming.addRenderTime(renderTimeInMs);
+        appendLog(context, TAG, "Widget ", appWidgetId, " rendered in ms ", renderTimeInMs,
+                ", max in ms ", renderTiming.getMaxRenderTimeInMs());
+    }
+
+    static void execute(Runnable task) {
+        renderExecutor.execute(task);
+    }
+
+    /**
+     * @return hash of everything a widget is rendered from, the snapshot of its
+     * location and its own settings
+     */
+    static long getRenderHash(WidgetDataSnapshot snapshot, WidgetSettings widgetSettings) {
+        return 31 * snapshot.getContentHash() + widgetSettings.getContentHash();
+    }
+
+    static void rendered(int appWidgetId, long renderHash) {
+        renderedContentHashes.put(appWidgetId, renderHash);
+    }
+
+    static boolean isRendered(int appWidgetId, long renderHash) {
+        Long renderedContentHash = renderedContentHashes.get(appWidgetId);
+        return (renderedContentHash != null) && (renderedContentHash == renderHash);
+    }
+
+    private static synchronized Handler getDeadlineHandler() {
+        if (deadlineHandler == null) {
+            deadlineHandler = new Handler(Looper.getMainLooper());
+        }
+        return deadlineHandler;
+    }
+
+    public static RenderTiming getRenderTiming(int appWidgetId) {
+        return renderTimings.get(appWidgetId);
+    }
+
+    public static long getDeadlineMisses() {
+        return deadlineMisses.get();
+    }
+
+    static void removeWidget(int appWidgetId) {
+        renderTimings.remove(appWidgetId);
+        renderedContentHashes.remove(appWidgetId);
+    }
+
+    /**
+     * Renders the widgets of one render request. The request is released once,
+     * when all widgets are rendered or when it expires at the deadline, the
+     * widgets not rendered before it expired are skipped.
+     */
+    abstract static class RenderRequest implements Runnable {
+        private final int[] appWidgetIds;
+        private final Runnable onFinished;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        RenderRequest(int[] appWidgetIds, Runnable onFinished) {
+            this.appWidgetIds = appWidgetIds;
+            this.onFinished = onFinished;
+        }
+
+        abstract void renderWidget(int appWidgetId);
+
+        abstract void skipWidget(int appWidgetId);
+
+        /**
+         * @return true when the request was released by this call, false when it
+         * had finished before
+         */
+        boolean expire() {
+            if (released.getAndSet(true)) {
+                return false;
+            }
+            onFinished.run();
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int appWidgetId: appWidgetIds) {
+                    if (released.get()) {
+                        skipWidget(appWidgetId);
+                        continue;
+                    }
+                    renderWidget(appWidgetId);
+                }
+            } finally {
+                if (!released.getAndSet(true)) {
+                    onFinished.run();
+                }
+            }
+        }
+    }
+
+    public static class RenderTiming {
+        private long renderCount;
+        private long lastRenderTimeInMs;
+        private long maxRenderTimeInMs;
+        private long totalRenderTimeInMs;
+
+        synchronized void addRenderTime(long renderTimeInMs) {
+            renderCount++;
+            lastRenderTimeInMs = renderTimeInMs;
+            totalRenderTimeInMs += renderTimeInMs;
+            if (renderTimeInMs > maxRenderTimeInMs) {
+                maxRenderTimeInMs = renderTimeInMs;
+            }
+        }
+
+        public synchronized long getRenderCount() {
+            return renderCount;
+        }
+
+        public synchronized long getLastRenderTimeInMs() {
+            return lastRenderTimeInMs;
+        }
+
+        public synchronized long getMaxRenderTimeInMs() {
+            return maxRenderTimeInMs;
+        }
+
+        public synchronized long getAverageRenderTimeInMs() {
+            return (renderCount == 0) ? 0 : totalRenderTimeInMs / renderCount;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.thosp.yourlocalweather;
+
+import org.junit.Assume;
+
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks are skipped in the normal unit test run, they run only when the
+ * benchmarks system property is set: ./gradlew testDebugUnitTest -Dbenchmarks=true
+ */
+public final class Benchmarks {
+
+    public static final String PROPERTY = "benchmarks";
+
+    private static final Logger LOGGER = Logger.getLogger("Benchmarks");
+
+    private Benchmarks() {
+    }
+
+    public static void assumeRequested() {
+        Assume.assumeTrue("Benchmarks run with -D" + PROPERTY + "=true", Boolean.getBoolean(PROPERTY));
+    }
+
+    public static void report(String result) {
+        LOGGER.info(result);
+    }
+}
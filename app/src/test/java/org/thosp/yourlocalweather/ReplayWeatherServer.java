@@ -0,0 +1,127 @@
+package org.thosp.yourlocalweather;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the OpenWeatherMap server. Replies with recorded responses
+ * by the path of the request, after a configurable latency, and fails every
+ * n-th request with the configured status code.
+ */
+class ReplayWeatherServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ConcurrentHashMap<String, byte[]> responses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> requestsPerPath = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private final Random random = new Random(1);
+    private volatile long latencyInMs;
+    private volatile long latencyJitterInMs;
+    private volatile int failEveryNthRequest;
+    private volatile int failureStatusCode = 500;
+
+    private ReplayWeatherServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new ReplayHandler());
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static ReplayWeatherServer start() throws IOException {
+        return new ReplayWeatherServer();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    void replay(String endpoint, byte[] response) throws MalformedURLException {
+        responses.put(new URL(endpoint).getPath(), response);
+    }
+
+    void setLatency(long latencyInMs, long latencyJitterInMs) {
+        this.latencyInMs = latencyInMs;
+        this.latencyJitterInMs = latencyJitterInMs;
+    }
+
+    void setFailures(int failEveryNthRequest, int failureStatusCode) {
+        this.failEveryNthRequest = failEveryNthRequest;
+        this.failureStatusCode = failureStatusCode;
+    }
+
+    /**
+     * @return the URL of this server, the endpoints are replayed by their path on it
+     */
+    String getServerUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    int getRequestCount(String endpoint) throws MalformedURLException {
+        AtomicInteger count = requestsPerPath.get(new URL(endpoint).getPath());
+        return (count != null) ? count.get() : 0;
+    }
+
+    int getFailedCount() {
+        return failedCount.get();
+    }
+
+    private long nextLatencyInMs() {
+        if (latencyJitterInMs <= 0) {
+            return latencyInMs;
+        }
+        synchronized (random) {
+            return latencyInMs + (long) (random.nextDouble() * latencyJitterInMs);
+        }
+    }
+
+    private class ReplayHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            int request = requestCount.incrementAndGet();
+            requestsPerPath.putIfAbsent(path, new AtomicInteger());
+            requestsPerPath.get(path).incrementAndGet();
+            try {
+                Thread.sleep(nextLatencyInMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = responses.get(path);
+            int statusCode = 200;
+            if (response == null) {
+                statusCode = 404;
+            } else if ((failEveryNthRequest > 0) && (request % failEveryNthRequest == 0)) {
+                statusCode = failureStatusCode;
+            }
+            if (statusCode != 200) {
+                failedCount.incrementAndGet();
+                exchange.sendResponseHeaders(statusCode, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(statusCode, response.length);
+            OutputStream responseBody = exchange.getResponseBody();
+            responseBody.write(response);
+            responseBody.close();
+        }
+    }
+}
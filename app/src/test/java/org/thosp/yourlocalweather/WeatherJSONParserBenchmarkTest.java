@@ -0,0 +1,67 @@
+package org.thosp.yourlocalweather;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.thosp.yourlocalweather.model.CompleteWeatherForecast;
+import org.thosp.yourlocalweather.model.Weather;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures parsing time of the recorded responses. The numbers are logged,
+ * the test only fails when the parser breaks.
+ */
+public class WeatherJSONParserBenchmarkTest {
+
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 5000;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeRequested();
+    }
+
+    @Test
+    public void weatherForecastParsingSpeed() throws Exception {
+        //given
+        byte[] response = WeatherJSONParserTest.readResource("owm/forecast.json");
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            WeatherJSONParser.getWeatherForecast(response);
+        }
+
+        //when
+        CompleteWeatherForecast completeWeatherForecast = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            completeWeatherForecast = WeatherJSONParser.getWeatherForecast(response);
+        }
+        long duration = System.nanoTime() - start;
+        Benchmarks.report("Forecast of 40 items (" + response.length + " bytes): " +
+                (duration / MEASURED_ITERATIONS) + " ns per response");
+
+        //then
+        assertEquals(40, completeWeatherForecast.getWeatherForecastList().size());
+    }
+
+    @Test
+    public void currentWeatherParsingSpeed() throws Exception {
+        //given
+        byte[] response = WeatherJSONParserTest.readResource("owm/weather.json");
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            WeatherJSONParser.getWeather(response, "en");
+        }
+
+        //when
+        Weather weather = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            weather = WeatherJSONParser.getWeather(response, "en");
+        }
+        long duration = System.nanoTime() - start;
+        Benchmarks.report("Current weather (" + response.length + " bytes): " +
+                (duration / MEASURED_ITERATIONS) + " ns per response");
+
+        //then
+        assertEquals(2, weather.getCurrentWeathers().size());
+    }
+}
@@ -0,0 +1,153 @@
+package org.thosp.yourlocalweather;
+
+import org.junit.Test;
+import org.thosp.yourlocalweather.model.CompleteWeatherForecast;
+import org.thosp.yourlocalweather.model.CurrentWeather;
+import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+import org.thosp.yourlocalweather.model.Weather;
+import org.thosp.yourlocalweather.model.WeatherCondition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses responses recorded from OpenWeatherMap and compares the result with the
+ * golden files written from the output of the previous org.json based parser.
+ */
+public class WeatherJSONParserTest {
+
+    @Test
+    public void currentWeatherMatchesGoldenFile() throws Exception {
+        //given
+        byte[] response = readResource("owm/weather.json");
+
+        //when
+        Weather weather = WeatherJSONParser.getWeather(response, "en");
+
+        //then
+        assertEquals(readResourceAsString("owm/weather.expected"), dump(weather));
+    }
+
+    @Test
+    public void descriptionIsSkippedForLocallyTranslatedLanguage() throws Exception {
+        //given
+        byte[] response = readResource("owm/weather.json");
+
+        //when
+        Weather weather = WeatherJSONParser.getWeather(response, "pl");
+
+        //then
+        assertNull(weather.getCurrentWeathers().get(0).getDescription());
+        assertEquals("10d", weather.getCurrentWeathers().get(0).getIdIcon());
+    }
+
+    @Test
+    public void weatherForecastMatchesGoldenFile() throws Exception {
+        //given
+        byte[] response = readResource("owm/forecast.json");
+
+        //when
+        CompleteWeatherForecast completeWeatherForecast = WeatherJSONParser.getWeatherForecast(response);
+
+        //then
+        assertEquals(40, completeWeatherForecast.getWeatherForecastList().size());
+        assertEquals(readResourceAsString("owm/forecast.expected"), dump(completeWeatherForecast));
+    }
+
+    @Test
+    public void longWeatherForecastMatchesGoldenFile() throws Exception {
+        //given
+        byte[] response = readResource("owm/forecast_daily.json");
+
+        //when
+        CompleteWeatherForecast completeWeatherForecast = WeatherJSONParser.getLongWeatherForecast(response);
+
+        //then
+        assertEquals(16, completeWeatherForecast.getWeatherForecastList().size());
+        assertEquals(readResourceAsString("owm/forecast_daily.expected"), dump(completeWeatherForecast));
+    }
+
+    @Test
+    public void licensedServerResponseMatchesGoldenFile() throws Exception {
+        //given
+        byte[] response = readResource("owm/licensed_weather.json");
+
+        //when
+        WeatherJSONParser.JSONParseResult parseResult = WeatherJSONParser.parseServerResult(response);
+        Weather weather = WeatherJSONParser.getWeather(parseResult.getOwmResponse(), "fr");
+
+        //then
+        assertEquals("5f2c1a0e-7b64-4c2d-9a53-0e1f8d6b2c11", parseResult.getToken());
+        assertEquals(readResourceAsString("owm/licensed_weather.expected"), dump(weather));
+    }
+
+    static String dump(Weather weather) {
+        StringBuilder result = new StringBuilder();
+        result.append("temperature=").append(weather.getTemperature())
+                .append(" pressure=").append(weather.getPressure())
+                .append(" humidity=").append(weather.getHumidity())
+                .append(" windSpeed=").append(weather.getWindSpeed())
+                .append(" windDirection=").append(weather.getWindDirection())
+                .append(" clouds=").append(weather.getClouds())
+                .append(" sunrise=").append(weather.getSunrise())
+                .append(" sunset=").append(weather.getSunset())
+                .append(" lon=").append(weather.getLon())
+                .append(" lat=").append(weather.getLat())
+                .append('\n');
+        for (CurrentWeather currentWeather: weather.getCurrentWeathers()) {
+            result.append("weather id=").append(currentWeather.getWeatherId())
+                    .append(" icon=").append(currentWeather.getIdIcon())
+                    .append(" description=").append(currentWeather.getDescription())
+                    .append('\n');
+        }
+        return result.toString();
+    }
+
+    static String dump(CompleteWeatherForecast completeWeatherForecast) {
+        StringBuilder result = new StringBuilder();
+        for (DetailedWeatherForecast forecast: completeWeatherForecast.getWeatherForecastList()) {
+            result.append("dt=").append(forecast.getDateTime())
+                    .append(" temperature=").append(forecast.getTemperature())
+                    .append(" min=").append(forecast.getTemperatureMin())
+                    .append(" max=").append(forecast.getTemperatureMax())
+                    .append(" pressure=").append(forecast.getPressure())
+                    .append(" humidity=").append(forecast.getHumidity())
+                    .append(" windSpeed=").append(forecast.getWindSpeed())
+                    .append(" windDegree=").append(forecast.getWindDegree())
+                    .append(" cloudiness=").append(forecast.getCloudiness())
+                    .append(" rain=").append(forecast.getRain())
+                    .append(" snow=").append(forecast.getSnow())
+                    .append('\n');
+            for (WeatherCondition weatherCondition: forecast.getWeatherConditions()) {
+                result.append("  condition id=").append(weatherCondition.getWeatherId())
+                        .append(" icon=").append(weatherCondition.getIcon())
+                        .append(" description=").append(weatherCondition.getDescription())
+                        .append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    static byte[] readResource(String name) throws IOException {
+        InputStream inputStream = WeatherJSONParserTest.class.getClassLoader().getResourceAsStream(name);
+        assertNotNull("Missing test resource " + name, inputStream);
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    static String readResourceAsString(String name) throws IOException {
+        return new String(readResource(name), "UTF-8");
+    }
+}
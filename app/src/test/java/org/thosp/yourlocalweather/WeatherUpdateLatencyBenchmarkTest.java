@@ -0,0 +1,155 @@
+package org.thosp.yourlocalweather;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.DatabaseUtils;
+import android.location.Address;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.thosp.yourlocalweather.model.CurrentWeatherContract;
+import org.thosp.yourlocalweather.model.CurrentWeatherDbHelper;
+import org.thosp.yourlocalweather.model.Location;
+import org.thosp.yourlocalweather.model.LocationsDbHelper;
+import org.thosp.yourlocalweather.model.WeatherForecastContract;
+import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
+import org.thosp.yourlocalweather.service.UpdateWeatherService;
+import org.thosp.yourlocalweather.service.WeatherUpdateStatistics;
+import org.thosp.yourlocalweather.utils.Constants;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Starts weather updates for a number of locations through
+ * UpdateWeatherService.onStartCommand against the replay server and runs the
+ * main looper until every update has sent its result. The latencies are the
+ * ones the service records from the request received to the result sent, the
+ * stored records are counted in the current weather and forecast databases.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WeatherUpdateLatencyBenchmarkTest {
+
+    private static final int LOCATIONS = 25;
+    private static final long RESULTS_TIMEOUT_IN_MS = 120000;
+    private static final long WRITES_TIMEOUT_IN_MS = 10000;
+
+    private Context context;
+    private ReplayWeatherServer server;
+    private int results;
+
+    private final BroadcastReceiver resultReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            results++;
+        }
+    };
+
+    @Before
+    public void setup() throws IOException {
+        Benchmarks.assumeRequested();
+        context = RuntimeEnvironment.getApplication();
+        server = ReplayWeatherServer.start();
+        server.replay(Constants.WEATHER_ENDPOINT, WeatherJSONParserTest.readResource("owm/weather.json"));
+        server.replay(Constants.WEATHER_FORECAST_ENDPOINT, WeatherJSONParserTest.readResource("owm/forecast.json"));
+        UpdateWeatherService.setWeatherServerUrl(server.getServerUrl());
+        UpdateWeatherService.getUpdateStatistics().reset();
+        IntentFilter resultFilter = new IntentFilter(UpdateWeatherService.ACTION_WEATHER_UPDATE_RESULT);
+        resultFilter.addAction(UpdateWeatherService.ACTION_FORECAST_UPDATE_RESULT);
+        context.registerReceiver(resultReceiver, resultFilter);
+    }
+
+    @After
+    public void tearDown() {
+        UpdateWeatherService.setWeatherServerUrl(null);
+        if (server != null) {
+            context.unregisterReceiver(resultReceiver);
+            server.stop();
+        }
+    }
+
+    @Test
+    public void updatesFromOpenWeatherMap() throws Exception {
+        //given
+        server.setLatency(20, 60);
+        server.setFailures(20, 500);
+        LocationsDbHelper locationsDbHelper = LocationsDbHelper.getInstance(context);
+        UpdateWeatherService service = Robolectric.setupService(UpdateWeatherService.class);
+        int startId = 0;
+
+        //when
+        for (int i = 0; i < LOCATIONS; i++) {
+            Location location = locationsDbHelper.addLocation(createAddress(i), 13.4, 52 + i / 100.0, "en");
+            for (int updateType: new int[] {
+                    UpdateWeatherService.START_CURRENT_WEATHER_UPDATE,
+                    UpdateWeatherService.START_WEATHER_FORECAST_UPDATE}) {
+                Intent intent = new Intent(context, UpdateWeatherService.class);
+                intent.putExtra("locationId", location.getId());
+                intent.putExtra("updateType", updateType);
+                service.onStartCommand(intent, 0, ++startId);
+            }
+        }
+        runMainLooperUntilResults(LOCATIONS * 2);
+        assertTrue(CurrentWeatherDbHelper.getInstance(context).flushPendingWrites(WRITES_TIMEOUT_IN_MS));
+        assertTrue(WeatherForecastDbHelper.getInstance(context).flushPendingWrites(WRITES_TIMEOUT_IN_MS));
+
+        //then
+        WeatherUpdateStatistics statistics = UpdateWeatherService.getUpdateStatistics();
+        long storedRecords = countStoredWeather() + countStoredForecasts();
+        Benchmarks.report("Updates from OpenWeatherMap: " + statistics +
+                ", server requests=" + server.getRequestCount() +
+                ", server failures=" + server.getFailedCount() +
+                ", stored records=" + storedRecords);
+        assertEquals(LOCATIONS * 2, results);
+        assertEquals(server.getRequestCount(), statistics.getRequestCount());
+        assertEquals(server.getFailedCount(), statistics.getFailedCount());
+        assertEquals(server.getRequestCount() - server.getFailedCount(), storedRecords);
+        assertEquals(storedRecords, statistics.getDbWriteCount());
+        assertTrue(statistics.getLatencyPercentileInMs(50) <= statistics.getLatencyPercentileInMs(99));
+    }
+
+    /**
+     * The HTTP responses are delivered to the main looper, which is only run
+     * when the test idles it.
+     */
+    private void runMainLooperUntilResults(int expectedResults) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + RESULTS_TIMEOUT_IN_MS;
+        while ((results < expectedResults) && (System.currentTimeMillis() < deadline)) {
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(5);
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private long countStoredWeather() {
+        return DatabaseUtils.queryNumEntries(
+                CurrentWeatherDbHelper.getInstance(context).getReadableDatabase(),
+                CurrentWeatherContract.CurrentWeather.TABLE_NAME,
+                CurrentWeatherContract.CurrentWeather.COLUMN_NAME_WEATHER + " is not null");
+    }
+
+    private long countStoredForecasts() {
+        return DatabaseUtils.queryNumEntries(
+                WeatherForecastDbHelper.getInstance(context).getReadableDatabase(),
+                WeatherForecastContract.WeatherForecast.TABLE_NAME,
+                WeatherForecastContract.WeatherForecast.COLUMN_NAME_WEATHER_FORECAST + " is not null");
+    }
+
+    private static Address createAddress(int index) {
+        Address address = new Address(Locale.ENGLISH);
+        address.setLocality("Location " + index);
+        address.setCountryCode("DE");
+        return address;
+    }
+}
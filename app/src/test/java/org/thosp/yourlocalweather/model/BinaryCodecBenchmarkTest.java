@@ -0,0 +1,92 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+import org.thosp.yourlocalweather.Benchmarks;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the size of the binary codec records with the size of the Parcel
+ * records they replace and measures encoding and decoding time. Parcel can not
+ * be used on the JVM, so its size is computed from the layout written by
+ * the writeToParcel methods.
+ */
+public class BinaryCodecBenchmarkTest {
+
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 5000;
+
+    @Test
+    public void encodedForecastIsSmallerThanParcel() {
+        //given
+        CompleteWeatherForecast completeWeatherForecast = BinaryCodecTest.createCompleteWeatherForecast(40);
+        Weather weather = BinaryCodecTest.createWeather();
+
+        //when
+        int forecastSize = BinaryCodec.encodeCompleteWeatherForecast(completeWeatherForecast).length;
+        int forecastParcelSize = getParcelSize(completeWeatherForecast);
+        int weatherSize = BinaryCodec.encodeWeather(weather).length;
+        int weatherParcelSize = getParcelSize(weather);
+        Benchmarks.report("Forecast of 40 items: codec " + forecastSize + " bytes, parcel " + forecastParcelSize + " bytes");
+        Benchmarks.report("Current weather: codec " + weatherSize + " bytes, parcel " + weatherParcelSize + " bytes");
+
+        //then
+        assertTrue(forecastSize * 2 < forecastParcelSize);
+        assertTrue(weatherSize < weatherParcelSize);
+    }
+
+    @Test
+    public void encodingAndDecodingSpeed() {
+        Benchmarks.assumeRequested();
+        //given
+        CompleteWeatherForecast completeWeatherForecast = BinaryCodecTest.createCompleteWeatherForecast(40);
+        byte[] forecastBytes = BinaryCodec.encodeCompleteWeatherForecast(completeWeatherForecast);
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            BinaryCodec.decodeCompleteWeatherForecast(BinaryCodec.encodeCompleteWeatherForecast(completeWeatherForecast));
+        }
+
+        //when
+        long encodingStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            forecastBytes = BinaryCodec.encodeCompleteWeatherForecast(completeWeatherForecast);
+        }
+        long encodingTime = System.nanoTime() - encodingStart;
+        long decodingStart = System.nanoTime();
+        CompleteWeatherForecast decodedForecast = null;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            decodedForecast = BinaryCodec.decodeCompleteWeatherForecast(forecastBytes);
+        }
+        long decodingTime = System.nanoTime() - decodingStart;
+        Benchmarks.report("Forecast of 40 items: encoding " + (encodingTime / MEASURED_ITERATIONS) +
+                " ns, decoding " + (decodingTime / MEASURED_ITERATIONS) + " ns");
+
+        //then
+        assertEquals(40, decodedForecast.getWeatherForecastList().size());
+    }
+
+    private int getParcelSize(Weather weather) {
+        int size = 6 * 4 + 2 * 4 + 2 * 8 + 4;
+        for (CurrentWeather currentWeather: weather.getCurrentWeathers()) {
+            size += 4 + 4 + getParcelSize(currentWeather.getDescription()) + getParcelSize(currentWeather.getIdIcon());
+        }
+        return size;
+    }
+
+    private int getParcelSize(CompleteWeatherForecast completeWeatherForecast) {
+        int size = 4;
+        for (DetailedWeatherForecast forecast: completeWeatherForecast.getWeatherForecastList()) {
+            size += 4 + 8 + 8 * 8 + 2 * 4 + 4;
+            for (WeatherCondition weatherCondition: forecast.getWeatherConditions()) {
+                size += 4 + 4 + getParcelSize(weatherCondition.getIcon()) + getParcelSize(weatherCondition.getDescription());
+            }
+        }
+        return size;
+    }
+
+    private int getParcelSize(String value) {
+        if (value == null) {
+            return 4;
+        }
+        return 4 + (((value.length() + 1) * 2 + 3) & ~3);
+    }
+}
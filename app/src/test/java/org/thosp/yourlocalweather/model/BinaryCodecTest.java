@@ -0,0 +1,214 @@
+package org.thosp.yourlocalweather.model;
+
+import android.location.Address;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class BinaryCodecTest {
+
+    @Test
+    public void weatherIsDecodedAsEncoded() {
+        //given
+        Weather weather = createWeather();
+
+        //when
+        byte[] weatherBytes = BinaryCodec.encodeWeather(weather);
+        Weather decodedWeather = BinaryCodec.decodeWeather(weatherBytes);
+
+        //then
+        assertTrue(BinaryCodec.isEncoded(weatherBytes));
+        assertEquals(weather.getTemperature(), decodedWeather.getTemperature(), 0);
+        assertEquals(weather.getLon(), decodedWeather.getLon(), 0);
+        assertEquals(weather.getLat(), decodedWeather.getLat(), 0);
+        assertEquals(weather.getWindSpeed(), decodedWeather.getWindSpeed(), 0);
+        assertEquals(weather.getWindDirection(), decodedWeather.getWindDirection(), 0);
+        assertEquals(weather.getPressure(), decodedWeather.getPressure(), 0);
+        assertEquals(weather.getHumidity(), decodedWeather.getHumidity());
+        assertEquals(weather.getClouds(), decodedWeather.getClouds());
+        assertEquals(weather.getSunrise(), decodedWeather.getSunrise());
+        assertEquals(weather.getSunset(), decodedWeather.getSunset());
+        assertEquals(2, decodedWeather.getCurrentWeathers().size());
+        assertEquals(Integer.valueOf(500), decodedWeather.getCurrentWeathers().get(0).getWeatherId());
+        assertEquals("light rain", decodedWeather.getCurrentWeathers().get(0).getDescription());
+        assertEquals("10d", decodedWeather.getCurrentWeathers().get(0).getIdIcon());
+        assertNull(decodedWeather.getCurrentWeathers().get(1).getWeatherId());
+        assertNull(decodedWeather.getCurrentWeathers().get(1).getDescription());
+    }
+
+    @Test
+    public void completeWeatherForecastIsDecodedAsEncoded() {
+        //given
+        CompleteWeatherForecast completeWeatherForecast = createCompleteWeatherForecast(40);
+
+        //when
+        byte[] forecastBytes = BinaryCodec.encodeCompleteWeatherForecast(completeWeatherForecast);
+        CompleteWeatherForecast decodedForecast = BinaryCodec.decodeCompleteWeatherForecast(forecastBytes);
+
+        //then
+        assertEquals(40, decodedForecast.getWeatherForecastList().size());
+        for (int i = 0; i < 40; i++) {
+            DetailedWeatherForecast expected = completeWeatherForecast.getWeatherForecastList().get(i);
+            DetailedWeatherForecast actual = decodedForecast.getWeatherForecastList().get(i);
+            assertEquals(expected.getDateTime(), actual.getDateTime());
+            assertEquals(expected.getTemperatureMin(), actual.getTemperatureMin(), 0.001);
+            assertEquals(expected.getTemperatureMax(), actual.getTemperatureMax(), 0.001);
+            assertEquals(expected.getTemperature(), actual.getTemperature(), 0.001);
+            assertEquals(expected.getPressure(), actual.getPressure(), 0.001);
+            assertEquals(expected.getWindSpeed(), actual.getWindSpeed(), 0.001);
+            assertEquals(expected.getWindDegree(), actual.getWindDegree(), 0.001);
+            assertEquals(expected.getRain(), actual.getRain(), 0.001);
+            assertEquals(expected.getSnow(), actual.getSnow(), 0.001);
+            assertEquals(expected.getHumidity(), actual.getHumidity());
+            assertEquals(expected.getCloudiness(), actual.getCloudiness());
+            assertEquals(expected.getWeatherConditions().size(), actual.getWeatherConditions().size());
+            assertEquals(expected.getFirstWeatherCondition().getWeatherId(), actual.getFirstWeatherCondition().getWeatherId());
+            assertEquals(expected.getFirstWeatherCondition().getIcon(), actual.getFirstWeatherCondition().getIcon());
+            assertEquals(expected.getFirstWeatherCondition().getDescription(), actual.getFirstWeatherCondition().getDescription());
+        }
+    }
+
+    @Test
+    public void addressIsDecodedAsEncoded() {
+        //given
+        Address address = new Address(new Locale("de", "DE"));
+        address.setAddressLine(0, "Unter den Linden 77");
+        address.setAddressLine(1, "10117 Berlin");
+        address.setFeatureName("77");
+        address.setAdminArea("Berlin");
+        address.setLocality("Berlin");
+        address.setSubLocality("Mitte");
+        address.setThoroughfare("Unter den Linden");
+        address.setSubThoroughfare("77");
+        address.setPostalCode("10117");
+        address.setCountryCode("DE");
+        address.setCountryName("Deutschland");
+        address.setLatitude(52.5163);
+
+        //when
+        byte[] addressBytes = BinaryCodec.encodeAddress(address);
+        Address decodedAddress = BinaryCodec.decodeAddress(addressBytes);
+
+        //then
+        assertTrue(BinaryCodec.isEncoded(addressBytes));
+        assertEquals(address.getLocale(), decodedAddress.getLocale());
+        assertEquals(1, decodedAddress.getMaxAddressLineIndex());
+        assertEquals("Unter den Linden 77", decodedAddress.getAddressLine(0));
+        assertEquals("10117 Berlin", decodedAddress.getAddressLine(1));
+        assertEquals("77", decodedAddress.getFeatureName());
+        assertEquals("Berlin", decodedAddress.getAdminArea());
+        assertNull(decodedAddress.getSubAdminArea());
+        assertEquals("Berlin", decodedAddress.getLocality());
+        assertEquals("Mitte", decodedAddress.getSubLocality());
+        assertEquals("Unter den Linden", decodedAddress.getThoroughfare());
+        assertEquals("77", decodedAddress.getSubThoroughfare());
+        assertEquals("10117", decodedAddress.getPostalCode());
+        assertEquals("DE", decodedAddress.getCountryCode());
+        assertEquals("Deutschland", decodedAddress.getCountryName());
+        assertTrue(decodedAddress.hasLatitude());
+        assertEquals(52.5163, decodedAddress.getLatitude(), 0);
+        assertFalse(decodedAddress.hasLongitude());
+    }
+
+    @Test
+    public void legacyParcelBytesAreNotTakenForEncodedRecord() {
+        //given
+        byte[] legacyWeatherBytes = {0x66, 0x66, (byte) 0x8e, 0x43, 0, 0, 0, 0};
+        byte[] legacyForecastBytes = {40, 0, 0, 0, 1, 0, 0, 0};
+
+        //then
+        assertFalse(BinaryCodec.isEncoded(legacyWeatherBytes));
+        assertFalse(BinaryCodec.isEncoded(legacyForecastBytes));
+        assertFalse(BinaryCodec.isEncoded(null));
+        assertFalse(BinaryCodec.isEncoded(new byte[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newerFormatVersionIsRejected() {
+        //given
+        byte[] weatherBytes = BinaryCodec.encodeWeather(createWeather());
+        weatherBytes[3] = (byte) (BinaryCodecWriter.FORMAT_VERSION + 1);
+
+        //when
+        BinaryCodec.decodeWeather(weatherBytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedRecordIsRejected() {
+        //given
+        byte[] forecastBytes = BinaryCodec.encodeCompleteWeatherForecast(createCompleteWeatherForecast(8));
+        byte[] truncatedBytes = new byte[forecastBytes.length - 10];
+        System.arraycopy(forecastBytes, 0, truncatedBytes, 0, truncatedBytes.length);
+
+        //when
+        BinaryCodec.decodeCompleteWeatherForecast(truncatedBytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forecastCountLargerThanRecordIsRejected() {
+        //given
+        BinaryCodecWriter writer = new BinaryCodecWriter();
+        writer.writeVarLong(Integer.MAX_VALUE);
+        byte[] forecastBytes = writer.toByteArray(BinaryCodec.RECORD_TYPE_COMPLETE_WEATHER_FORECAST);
+
+        //when
+        BinaryCodec.decodeCompleteWeatherForecast(forecastBytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stringCountLargerThanRecordIsRejected() {
+        //given
+        byte[] weatherBytes = {'Y', 'L', 'W', BinaryCodecWriter.FORMAT_VERSION, BinaryCodec.RECORD_TYPE_WEATHER,
+                (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07};
+
+        //when
+        BinaryCodec.decodeWeather(weatherBytes);
+    }
+
+    static Weather createWeather() {
+        Weather weather = new Weather();
+        weather.setTemperature(284.8f);
+        weather.setLon(13.41f);
+        weather.setLat(52.52f);
+        weather.setWindSpeed(4.6f);
+        weather.setWindDirection(230f);
+        weather.setPressure(1012f);
+        weather.setHumidity(81);
+        weather.setClouds(75);
+        weather.setSunrise(1539840615L);
+        weather.setSunset(1539878450L);
+        weather.addCurrentWeather(500, "light rain", "10d");
+        weather.addCurrentWeather(null, null, "50d");
+        return weather;
+    }
+
+    static CompleteWeatherForecast createCompleteWeatherForecast(int forecastsCount) {
+        String[] descriptions = {"clear sky", "few clouds", "light rain"};
+        String[] icons = {"01d", "02d", "10d"};
+        int[] weatherIds = {800, 801, 500};
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        for (int i = 0; i < forecastsCount; i++) {
+            DetailedWeatherForecast forecast = new DetailedWeatherForecast();
+            forecast.setDateTime(1539853200L + i * 10800L);
+            forecast.setTemperatureMin(280.15 + (i % 7));
+            forecast.setTemperatureMax(284.65 + (i % 5));
+            forecast.setTemperature(282.4 + (i % 6));
+            forecast.setPressure(1013.25 - (i % 4));
+            forecast.setHumidity(60 + (i % 30));
+            forecast.setWindSpeed(3.1 + (i % 3));
+            forecast.setWindDegree(200 + i);
+            forecast.setCloudiness(i % 100);
+            forecast.setRain((i % 3 == 2) ? 0.35 : 0);
+            forecast.setSnow(0);
+            forecast.addWeatherCondition(weatherIds[i % 3], icons[i % 3], descriptions[i % 3]);
+            completeWeatherForecast.addDetailedWeatherForecast(forecast);
+        }
+        return completeWeatherForecast;
+    }
+}
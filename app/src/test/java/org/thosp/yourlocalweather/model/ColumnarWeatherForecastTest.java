@@ -0,0 +1,88 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ColumnarWeatherForecastTest {
+
+    @Test
+    public void columnsKeepForecastValuesAndInternDescriptions() {
+        //given
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        for (int i = 0; i < 8; i++) {
+            DetailedWeatherForecast forecast = new DetailedWeatherForecast();
+            forecast.setDateTime(1577000000 + i * 10800);
+            forecast.setTemperature(-2.5 + i);
+            forecast.setPressure(1012);
+            forecast.setHumidity(80 - i);
+            forecast.setWindDegree(270);
+            forecast.setRain(i % 2);
+            forecast.addWeatherCondition((i < 4) ? 500 : 800, (i < 4) ? "10d" : "01d",
+                    new String((i < 4) ? "light rain" : "clear sky"));
+            completeWeatherForecast.addDetailedWeatherForecast(forecast);
+        }
+
+        //when
+        ColumnarWeatherForecast columns = ColumnarWeatherForecast.of(completeWeatherForecast);
+        DetailedWeatherForecast restored = columns.getDetailedWeatherForecast(5);
+
+        //then
+        assertEquals(8, columns.size());
+        assertEquals(1577000000 + 5 * 10800, restored.getDateTime());
+        assertEquals(2.5, restored.getTemperature(), 0);
+        assertEquals(75, restored.getHumidity());
+        assertEquals(Integer.valueOf(800), restored.getFirstWeatherCondition().getWeatherId());
+        assertEquals("01d", restored.getFirstWeatherCondition().getIcon());
+        assertSame(columns.getDescription(0), columns.getDescription(3));
+        assertSame(columns.getDescription(4), columns.getDescription(7));
+        assertEquals("light rain", columns.getDescription(0));
+    }
+
+    @Test
+    public void columnsAreKeptUntilForecastChanges() {
+        //given
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        completeWeatherForecast.addDetailedWeatherForecast(new DetailedWeatherForecast());
+        ColumnarWeatherForecast columns = ColumnarWeatherForecast.of(completeWeatherForecast);
+
+        //when
+        ColumnarWeatherForecast sameColumns = ColumnarWeatherForecast.of(completeWeatherForecast);
+        completeWeatherForecast.addDetailedWeatherForecast(new DetailedWeatherForecast());
+        ColumnarWeatherForecast changedColumns = ColumnarWeatherForecast.of(completeWeatherForecast);
+
+        //then
+        assertSame(columns, sameColumns);
+        assertNotSame(columns, changedColumns);
+        assertEquals(2, changedColumns.size());
+        assertNull(changedColumns.getWeatherId(1));
+        assertNull(changedColumns.getDetailedWeatherForecast(1).getFirstWeatherCondition());
+    }
+
+    @Test
+    public void columnsAreRebuiltWhenForecastTimeChanges() {
+        //given
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+        DetailedWeatherForecast detailedWeatherForecast = new DetailedWeatherForecast();
+        detailedWeatherForecast.setTemperature(280);
+        completeWeatherForecast.addDetailedWeatherForecast(detailedWeatherForecast);
+        ColumnarWeatherForecast columns = ColumnarWeatherForecast.of(completeWeatherForecast);
+
+        //when
+        completeWeatherForecast.getWeatherForecastList().get(0).setTemperature(290);
+        ColumnarWeatherForecast changedColumns = ColumnarWeatherForecast.of(completeWeatherForecast);
+
+        //then
+        assertNotSame(columns, changedColumns);
+        assertEquals(290, changedColumns.getTemperature(0), 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void forecastListCanNotBeChangedDirectly() {
+        //given
+        CompleteWeatherForecast completeWeatherForecast = new CompleteWeatherForecast();
+
+        //when
+        completeWeatherForecast.getWeatherForecastList().add(new DetailedWeatherForecast());
+    }
+}
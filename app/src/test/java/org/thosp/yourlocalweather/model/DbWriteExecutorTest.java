@@ -0,0 +1,251 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DbWriteExecutorTest {
+
+    @Test
+    public void writesAreCommittedInSubmittedOrder() {
+        //given
+        RecordingExecutor executor = new RecordingExecutor();
+
+        //when
+        for (int i = 0; i < 250; i++) {
+            executor.execute(executor.write(String.valueOf(i)));
+        }
+        boolean flushed = executor.flush(5000);
+
+        //then
+        assertTrue(flushed);
+        assertEquals(250, executor.committed.size());
+        for (int i = 0; i < 250; i++) {
+            assertEquals(String.valueOf(i), executor.committed.get(i));
+        }
+    }
+
+    @Test
+    public void writesQueuedDuringTransactionAreCommittedTogether() throws InterruptedException {
+        //given
+        final RecordingExecutor executor = new RecordingExecutor();
+        final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                firstWriteStarted.countDown();
+                try {
+                    releaseFirstWrite.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                executor.uncommitted.add("first");
+            }
+        });
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        //when
+        for (int i = 0; i < 5; i++) {
+            executor.execute(executor.write(String.valueOf(i)));
+        }
+        releaseFirstWrite.countDown();
+        executor.flush(5000);
+
+        //then
+        assertEquals(Arrays.asList(1, 5), executor.committedBatchSizes);
+    }
+
+    @Test
+    public void failedWriteIsRolledBackAndOtherWritesAreCommitted() {
+        //given
+        final RecordingExecutor executor = new RecordingExecutor();
+        final List<String> failures = new ArrayList<>();
+        final List<String> commits = new ArrayList<>();
+        final List<String> runs = new ArrayList<>();
+        final IllegalStateException failure = new IllegalStateException("failure");
+        List<Runnable> batch = new ArrayList<>();
+        batch.add(executor.toldWrite("before", runs, commits, failures));
+        batch.add(new DbWriteExecutor.Write() {
+            @Override
+            public void run() {
+                runs.add("failing");
+                executor.uncommitted.add("failing");
+                throw failure;
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                assertSame(failure, e);
+                failures.add("failing");
+            }
+        });
+        batch.add(executor.toldWrite("after", runs, commits, failures));
+
+        //when
+        executor.executeInTransaction(batch);
+
+        //then
+        assertEquals(Arrays.asList("before", "after"), executor.committed);
+        assertEquals(1, executor.rolledBackTransactions);
+        assertEquals(Arrays.asList("before", "failing", "before", "after"), runs);
+        assertEquals(Arrays.asList("failing"), failures);
+        assertEquals(Arrays.asList("before", "after"), commits);
+        assertEquals(1, executor.loggedFailures);
+    }
+
+    @Test
+    public void flushReportsFailedWrite() {
+        //given
+        RecordingExecutor executor = new RecordingExecutor();
+        executor.execute(executor.write("before"));
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("failure");
+            }
+        });
+
+        //when
+        boolean flushedWithFailure = executor.flush(5000);
+        executor.execute(executor.write("after"));
+        boolean flushed = executor.flush(5000);
+
+        //then
+        assertFalse(flushedWithFailure);
+        assertTrue(flushed);
+        assertEquals(Arrays.asList("before", "after"), executor.committed);
+    }
+
+    @Test
+    public void writeIsToldWhenItsTransactionIsCommitted() {
+        //given
+        final RecordingExecutor executor = new RecordingExecutor();
+        final List<String> committedWhenTold = new ArrayList<>();
+        List<Runnable> batch = new ArrayList<>();
+        batch.add(new DbWriteExecutor.Write() {
+            @Override
+            public void run() {
+                executor.uncommitted.add("write");
+            }
+
+            @Override
+            public void onCommitted() {
+                committedWhenTold.addAll(executor.committed);
+            }
+        });
+
+        //when
+        executor.executeInTransaction(batch);
+
+        //then
+        assertEquals(Arrays.asList("write"), committedWhenTold);
+    }
+
+    @Test
+    public void failedTransactionIsReportedToWrites() {
+        //given
+        RecordingExecutor executor = new RecordingExecutor();
+        executor.failCommit = true;
+        final List<Exception> failures = new ArrayList<>();
+        final List<String> commits = new ArrayList<>();
+        List<Runnable> batch = new ArrayList<>();
+        batch.add(new DbWriteExecutor.Write() {
+            @Override
+            public void run() {
+            }
+
+            @Override
+            public void onCommitted() {
+                commits.add("write");
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                failures.add(e);
+            }
+        });
+
+        //when
+        executor.executeInTransaction(batch);
+
+        //then
+        assertTrue(executor.committed.isEmpty());
+        assertTrue(commits.isEmpty());
+        assertEquals(1, failures.size());
+    }
+
+    private static class RecordingExecutor extends DbWriteExecutor {
+        final List<String> uncommitted = new ArrayList<>();
+        final List<String> committed = new ArrayList<>();
+        final List<Integer> committedBatchSizes = new ArrayList<>();
+        int rolledBackTransactions;
+        int loggedFailures;
+        boolean failCommit;
+
+        RecordingExecutor() {
+            super(null, null, "test");
+        }
+
+        Runnable write(final String value) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    uncommitted.add(value);
+                }
+            };
+        }
+
+        Runnable toldWrite(final String value,
+                           final List<String> runs,
+                           final List<String> commits,
+                           final List<String> failures) {
+            return new DbWriteExecutor.Write() {
+                @Override
+                public void run() {
+                    runs.add(value);
+                    uncommitted.add(value);
+                }
+
+                @Override
+                public void onCommitted() {
+                    commits.add(value);
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    failures.add(value);
+                }
+            };
+        }
+
+        @Override
+        protected void beginTransaction() {
+            uncommitted.clear();
+        }
+
+        @Override
+        protected void endTransaction(boolean successful) {
+            if (!successful) {
+                rolledBackTransactions++;
+                return;
+            }
+            if (failCommit) {
+                throw new IllegalStateException("disk full");
+            }
+            committed.addAll(uncommitted);
+            committedBatchSizes.add(uncommitted.size());
+        }
+
+        @Override
+        protected void logFailure(String text, Exception e) {
+            loggedFailures++;
+        }
+    }
+}
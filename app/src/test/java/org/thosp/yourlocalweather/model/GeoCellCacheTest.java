@@ -0,0 +1,111 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class GeoCellCacheTest {
+
+    @Test
+    public void nearestEntryWithinRadiusIsReturned() {
+        //given
+        GeoCellCache<String> cache = new GeoCellCache<>(8);
+        cache.put(new GeoCellCache.Entry<>(50.0000, 20.0000, "en", 1, "first", 0));
+        cache.put(new GeoCellCache.Entry<>(50.0011, 20.0000, "en", 2, "second", 0));
+
+        //when
+        GeoCellCache.Entry<String> nearFirst = cache.getNearest(50.00005, 20.0000, "en", 15);
+        GeoCellCache.Entry<String> nearSecond = cache.getNearest(50.00105, 20.0000, "en", 15);
+        GeoCellCache.Entry<String> betweenThem = cache.getNearest(50.0005, 20.0000, "en", 15);
+
+        //then
+        assertEquals("first", nearFirst.value);
+        assertEquals("second", nearSecond.value);
+        assertNull(betweenThem);
+    }
+
+    @Test
+    public void nearestEntryWithinWideRadiusIsReturnedFarFromEquator() {
+        //given
+        GeoCellCache<String> cache = new GeoCellCache<>(8);
+        cache.put(new GeoCellCache.Entry<>(60.0000, 20.0000, "en", 1, "outside", 0));
+        cache.put(new GeoCellCache.Entry<>(60.0015, 20.0030, "en", 2, "nearest", 0));
+        cache.put(new GeoCellCache.Entry<>(60.0015, 20.0030, "de", 3, "german", 0));
+        cache.put(new GeoCellCache.Entry<>(60.0100, 20.0000, "en", 4, "far", 0));
+        cache.put(new GeoCellCache.Entry<>(64.0015, 20.0030, "en", 5, "north", 0));
+
+        //when
+        GeoCellCache.Entry<String> entry = cache.getNearest(60.0020, 20.0040, "en", 250);
+        GeoCellCache.Entry<String> northEntry = cache.getNearest(64.0020, 20.0040, "en", 250);
+
+        //then
+        assertEquals("nearest", entry.value);
+        assertEquals("north", northEntry.value);
+        assertNull(cache.getNearest(60.0050, 20.0100, "en", 250));
+    }
+
+    @Test
+    public void entryOfOtherLocaleIsNotReturned() {
+        //given
+        GeoCellCache<String> cache = new GeoCellCache<>(8);
+        cache.put(new GeoCellCache.Entry<>(50.0000, 20.0000, "en", 1, "english", 0));
+
+        //when
+        GeoCellCache.Entry<String> entry = cache.getNearest(50.0000, 20.0000, "de", 15);
+
+        //then
+        assertNull(entry);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        //given
+        GeoCellCache<String> cache = new GeoCellCache<>(2);
+        cache.put(new GeoCellCache.Entry<>(10, 10, "en", 1, "a", 0));
+        cache.put(new GeoCellCache.Entry<>(20, 20, "en", 2, "b", 0));
+        cache.getNearest(10, 10, "en", 15);
+
+        //when
+        cache.put(new GeoCellCache.Entry<>(30, 30, "en", 3, "c", 0));
+
+        //then
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getNearest(10, 10, "en", 15));
+        assertNull(cache.getNearest(20, 20, "en", 15));
+        assertNotNull(cache.getNearest(30, 30, "en", 15));
+    }
+
+    @Test
+    public void entriesOfLocalesInSameCellAreKeptApart() {
+        //given
+        GeoCellCache<String> cache = new GeoCellCache<>(8);
+
+        //when
+        cache.put(new GeoCellCache.Entry<>(50.0000, 20.0000, "en", 1, "english", 0));
+        cache.put(new GeoCellCache.Entry<>(50.0000, 20.0000, "de", 2, "german", 0));
+
+        //then
+        assertEquals(2, cache.size());
+        assertEquals("english", cache.getNearest(50.0000, 20.0000, "en", 15).value);
+        assertEquals("german", cache.getNearest(50.0000, 20.0000, "de", 15).value);
+    }
+
+    @Test
+    public void onlyEntriesOfDeletedRowsAreRemoved() {
+        //given
+        GeoCellCache<String> cache = new GeoCellCache<>(8);
+        cache.put(new GeoCellCache.Entry<>(10, 10, "en", 1, "a", 0));
+        cache.put(new GeoCellCache.Entry<>(20, 20, "en", 2, "b", 0));
+        cache.put(new GeoCellCache.Entry<>(30, 30, "en", 3, "c", 0));
+
+        //when
+        cache.removeRows(Arrays.asList(1L, 3L));
+
+        //then
+        assertEquals(1, cache.size());
+        assertNull(cache.getNearest(10, 10, "en", 15));
+        assertNotNull(cache.getNearest(20, 20, "en", 15));
+    }
+}
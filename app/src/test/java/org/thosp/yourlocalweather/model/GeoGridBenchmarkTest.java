@@ -0,0 +1,162 @@
+package org.thosp.yourlocalweather.model;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.location.Address;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.thosp.yourlocalweather.Benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fills the reverse geocoding cache database with 100k synthetic rows and
+ * compares the lookup of ReverseGeocodingCacheDbHelper through the geo cell
+ * index with the previous query scanning all rows with a bounding box. The
+ * numbers are logged, the test only fails when the helper misses an address
+ * the previous query found.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GeoGridBenchmarkTest {
+
+    private static final int ROWS = 100000;
+    private static final int LOOKUPS = 2000;
+    private static final String LOCALE = "en";
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeRequested();
+    }
+
+    @Test
+    public void lookupSpeed() {
+        //given
+        ReverseGeocodingCacheDbHelper dbHelper = ReverseGeocodingCacheDbHelper.getInstance(RuntimeEnvironment.getApplication());
+        Random random = new Random(11);
+        double[] latitudes = new double[ROWS];
+        double[] longitudes = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            latitudes[i] = 45 + random.nextDouble() * 10;
+            longitudes[i] = 5 + random.nextDouble() * 20;
+        }
+        insertRows(dbHelper.getWritableDatabase(), latitudes, longitudes);
+        double[] lookupLatitudes = new double[LOOKUPS];
+        double[] lookupLongitudes = new double[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int row = random.nextInt(ROWS);
+            lookupLatitudes[i] = latitudes[row] + (random.nextDouble() - 0.5) * 0.0002;
+            lookupLongitudes[i] = longitudes[row] + (random.nextDouble() - 0.5) * 0.0002;
+        }
+
+        //when
+        boolean[] scanFound = new boolean[LOOKUPS];
+        int scanFoundCount = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            scanFound[i] = scanWithBoundingBox(dbHelper.getReadableDatabase(), lookupLatitudes[i], lookupLongitudes[i]) != null;
+            if (scanFound[i]) {
+                scanFoundCount++;
+            }
+        }
+        long scanDuration = System.nanoTime() - start;
+        boolean[] indexFound = new boolean[LOOKUPS];
+        int indexFoundCount = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            indexFound[i] = dbHelper.getNearestAddress(lookupLatitudes[i],
+                    lookupLongitudes[i],
+                    LOCALE,
+                    ReverseGeocodingCacheDbHelper.DEFAULT_LOOKUP_RADIUS_IN_METERS) != null;
+            if (indexFound[i]) {
+                indexFoundCount++;
+            }
+        }
+        long indexDuration = System.nanoTime() - start;
+        dbHelper.flushPendingWrites(10000);
+        Benchmarks.report("Lookups in " + ROWS + " rows, full scan with box: " + (scanDuration / LOOKUPS) +
+                " ns (" + scanFoundCount + " found), cell index: " + (indexDuration / LOOKUPS) +
+                " ns (" + indexFoundCount + " found, " + dbHelper.getMemoryHits() + " from memory)");
+
+        //then
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (scanFound[i]) {
+                assertTrue(indexFound[i]);
+            }
+        }
+    }
+
+    private static void insertRows(SQLiteDatabase db, double[] latitudes, double[] longitudes) {
+        Address address = new Address(Locale.ENGLISH);
+        address.setLocality("Berlin");
+        address.setCountryCode("DE");
+        byte[] addressBytes = BinaryCodec.encodeAddress(address);
+        long now = System.currentTimeMillis();
+        ContentValues values = new ContentValues();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < latitudes.length; i++) {
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_ADDRESS, addressBytes);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LONGITUDE, longitudes[i]);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LATITUDE, latitudes[i]);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LOCALE, LOCALE);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_CREATED, now);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LAST_USED, now);
+                values.put(ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_GEO_CELL,
+                        ReverseGeocodingCacheDbHelper.getGeoCell(latitudes[i], longitudes[i]));
+                db.insert(ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * The lookup of the cache before the geo cell index was added.
+     */
+    private static Address scanWithBoundingBox(SQLiteDatabase db, double latitude, double longitude) {
+        String[] projection = {
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_ADDRESS
+        };
+        String selection = ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LONGITUDE + " <= ? and " +
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LONGITUDE + " >= ? and " +
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LATITUDE + " <= ? and " +
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LATITUDE + " >= ? and " +
+                ReverseGeocodingCacheContract.LocationAddressCache.COLUMN_NAME_LOCALE + " = ? ";
+        String[] selectionArgs = {
+                String.valueOf(longitude + 0.0001),
+                String.valueOf(longitude - 0.0001),
+                String.valueOf(latitude + 0.0001),
+                String.valueOf(latitude - 0.0001),
+                LOCALE
+        };
+        Cursor cursor = null;
+        try {
+            cursor = db.query(
+                    ReverseGeocodingCacheContract.LocationAddressCache.TABLE_NAME,
+                    projection,
+                    selection,
+                    selectionArgs,
+                    null,
+                    null,
+                    null
+            );
+            if (!cursor.moveToNext()) {
+                return null;
+            }
+            return ReverseGeocodingCacheDbHelper.getAddressFromBytes(RuntimeEnvironment.getApplication(), cursor.getBlob(0));
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoGridTest {
+
+    @Test
+    public void pointsWithinRadiusAreInCellRanges() {
+        //given
+        Random random = new Random(7);
+        double radiusInMeters = 50;
+
+        for (int i = 0; i < 10000; i++) {
+            double latitude = random.nextDouble() * 170 - 85;
+            double longitude = random.nextDouble() * 360 - 180;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double distance = random.nextDouble() * radiusInMeters;
+            double otherLatitude = latitude + Math.cos(bearing) * distance / 111195;
+            double otherLongitude = longitude + Math.sin(bearing) * distance / (111195 * Math.cos(Math.toRadians(latitude)));
+            if (otherLongitude >= 180) {
+                otherLongitude -= 360;
+            } else if (otherLongitude < -180) {
+                otherLongitude += 360;
+            }
+
+            //when
+            long[] ranges = GeoGrid.getCellRanges(latitude, longitude, radiusInMeters);
+
+            //then
+            assertTrue(isInRanges(GeoGrid.getCell(otherLatitude, otherLongitude), ranges));
+        }
+    }
+
+    @Test
+    public void cellRangesWrapAroundAntimeridian() {
+        //given
+        double latitude = 10;
+        double longitude = 179.9999;
+
+        //when
+        long[] ranges = GeoGrid.getCellRanges(latitude, longitude, 100);
+
+        //then
+        assertTrue(isInRanges(GeoGrid.getCell(latitude, -179.9999), ranges));
+        assertTrue(isInRanges(GeoGrid.getCell(latitude, longitude), ranges));
+        assertFalse(isInRanges(GeoGrid.getCell(latitude, 0), ranges));
+    }
+
+    @Test
+    public void distanceOfOneDegreeOfLatitude() {
+        //when
+        double distance = GeoGrid.getDistanceInMeters(50, 20, 51, 20);
+
+        //then
+        assertEquals(111195, distance, 1);
+    }
+
+    private static boolean isInRanges(long cell, long[] ranges) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if ((cell >= ranges[i]) && (cell <= ranges[i + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,252 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LocationChangeJournalTest {
+
+    @Test
+    public void mergesChangesOfOneLocation() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false), location(2, 1, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 100);
+        registry.addListener(journal);
+
+        //when
+        registry.update(2, enable(true));
+        registry.update(2, enable(false));
+        registry.update(2, enable(true));
+        int written = journal.flush();
+
+        //then
+        assertEquals(1, written);
+        LocationChangeJournal.Change change = writer.changes.get(0);
+        assertFalse(change.getWritten().isEnabled());
+        assertTrue(change.getCurrent().isEnabled());
+        assertEquals(0, journal.getPendingChangesCount());
+        assertEquals(0, journal.flush());
+    }
+
+    @Test
+    public void recordsInsertsAndDeletes() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false), location(2, 1, false), location(3, 2, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 100);
+        registry.addListener(journal);
+
+        //when
+        registry.put(location(4, 3, false));
+        registry.put(location(5, 4, false));
+        registry.remove(5);
+        registry.remove(2);
+        journal.flush();
+
+        //then
+        assertEquals(3, writer.changes.size());
+        assertTrue(writer.changes.get(0).isInsert());
+        assertEquals(Long.valueOf(4), writer.changes.get(0).getCurrent().getId());
+        assertEquals(2, writer.changes.get(0).getCurrent().getOrderId());
+        assertTrue(writer.changes.get(1).isDelete());
+        assertEquals(Long.valueOf(2), writer.changes.get(1).getWritten().getId());
+        assertEquals(2, writer.changes.get(2).getWritten().getOrderId());
+        assertEquals(1, writer.changes.get(2).getCurrent().getOrderId());
+    }
+
+    @Test
+    public void writesWhenThresholdIsReached() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false), location(2, 1, false), location(3, 2, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 2);
+        registry.addListener(journal);
+
+        //when
+        registry.update(1, enable(true));
+        registry.update(2, enable(true));
+        registry.update(3, enable(true));
+
+        //then
+        assertEquals(1, writer.writes);
+        assertEquals(2, writer.changes.size());
+        assertEquals(1, journal.getPendingChangesCount());
+    }
+
+    @Test
+    public void writesShortlyAfterChange() throws InterruptedException {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 50, 100);
+        registry.addListener(journal);
+
+        //when
+        registry.update(1, enable(true));
+
+        //then
+        assertTrue(writer.written.await(1, TimeUnit.SECONDS));
+        assertEquals(1, writer.changes.size());
+    }
+
+    @Test
+    public void failedChangesAreWrittenAgainWithNewerChanges() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false), location(2, 1, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 100);
+        registry.addListener(journal);
+        registry.update(1, enable(true));
+        registry.update(2, enable(true));
+        journal.flush();
+        List<LocationChangeJournal.Change> failedChanges = new ArrayList<>(writer.changes);
+        writer.changes.clear();
+
+        //when
+        registry.update(2, enable(false));
+        journal.requeue(failedChanges);
+        journal.flush();
+
+        //then
+        assertEquals(2, writer.changes.size());
+        assertEquals(Long.valueOf(1), writer.changes.get(0).getCurrent().getId());
+        assertTrue(writer.changes.get(0).getCurrent().isEnabled());
+        assertFalse(writer.changes.get(0).getWritten().isEnabled());
+        assertEquals(Long.valueOf(2), writer.changes.get(1).getCurrent().getId());
+        assertFalse(writer.changes.get(1).getWritten().isEnabled());
+        assertFalse(writer.changes.get(1).getCurrent().isEnabled());
+    }
+
+    @Test
+    public void failedChangeIsWrittenAgainWithLocationInRegistry() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false), location(2, 1, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 100);
+        registry.addListener(journal);
+        registry.update(1, enable(true));
+        registry.update(2, enable(true));
+        journal.flush();
+        List<LocationChangeJournal.Change> failedChanges = new ArrayList<>(writer.changes);
+        registry.update(1, enable(false));
+        registry.remove(2);
+        journal.flush();
+        writer.changes.clear();
+
+        //when
+        journal.requeue(failedChanges);
+        journal.flush();
+
+        //then
+        assertEquals(2, writer.changes.size());
+        assertEquals(Long.valueOf(1), writer.changes.get(0).getCurrent().getId());
+        assertFalse(writer.changes.get(0).getCurrent().isEnabled());
+        assertTrue(writer.changes.get(1).isDelete());
+        assertEquals(Long.valueOf(2), writer.changes.get(1).getWritten().getId());
+    }
+
+    @Test
+    public void insertFailedInTwoBatchesIsWrittenAgainAsInsert() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 100);
+        registry.addListener(journal);
+        registry.put(location(2, 1, false));
+        journal.flush();
+        List<LocationChangeJournal.Change> firstFailedChanges = new ArrayList<>(writer.changes);
+        writer.changes.clear();
+        registry.update(2, enable(true));
+        journal.flush();
+        List<LocationChangeJournal.Change> secondFailedChanges = new ArrayList<>(writer.changes);
+        writer.changes.clear();
+
+        //when
+        journal.requeue(firstFailedChanges);
+        journal.requeue(secondFailedChanges);
+        journal.flush();
+
+        //then
+        assertEquals(1, writer.changes.size());
+        assertTrue(writer.changes.get(0).isInsert());
+        assertEquals(Long.valueOf(2), writer.changes.get(0).getCurrent().getId());
+        assertTrue(writer.changes.get(0).getCurrent().isEnabled());
+    }
+
+    @Test
+    public void updateFailedInTwoBatchesIsWrittenAgainFromLocationOnDisk() {
+        //given
+        RecordingWriter writer = new RecordingWriter();
+        LocationRegistry registry = registry(location(1, 0, false));
+        LocationChangeJournal journal = new LocationChangeJournal(registry, writer, 60000, 100);
+        registry.addListener(journal);
+        registry.update(1, enable(true));
+        journal.flush();
+        List<LocationChangeJournal.Change> firstFailedChanges = new ArrayList<>(writer.changes);
+        writer.changes.clear();
+        registry.update(1, moveTo(5));
+        journal.flush();
+        List<LocationChangeJournal.Change> secondFailedChanges = new ArrayList<>(writer.changes);
+        writer.changes.clear();
+
+        //when
+        journal.requeue(firstFailedChanges);
+        journal.requeue(secondFailedChanges);
+        journal.flush();
+
+        //then
+        assertEquals(1, writer.changes.size());
+        assertFalse(writer.changes.get(0).getWritten().isEnabled());
+        assertEquals(0, writer.changes.get(0).getWritten().getOrderId());
+        assertTrue(writer.changes.get(0).getCurrent().isEnabled());
+        assertEquals(5, writer.changes.get(0).getCurrent().getOrderId());
+    }
+
+    private static LocationRegistry registry(Location... locations) {
+        LocationRegistry registry = new LocationRegistry();
+        registry.putAll(Arrays.asList(locations));
+        return registry;
+    }
+
+    private static LocationRegistry.Mutation enable(final boolean enabled) {
+        return new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location(location.getId(), location.getOrderId(), enabled);
+            }
+        };
+    }
+
+    private static LocationRegistry.Mutation moveTo(final int orderId) {
+        return new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location.withOrderId(orderId);
+            }
+        };
+    }
+
+    private static Location location(long id, int orderId, boolean enabled) {
+        return new Location(id, orderId, null, "en", 10, 50, 0, "", 0, true, enabled, null);
+    }
+
+    private static class RecordingWriter implements LocationChangeJournal.Writer {
+        final List<LocationChangeJournal.Change> changes = new ArrayList<>();
+        final CountDownLatch written = new CountDownLatch(1);
+        int writes;
+
+        @Override
+        public synchronized void write(List<LocationChangeJournal.Change> changes) {
+            this.changes.addAll(changes);
+            writes++;
+            written.countDown();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocationRegistryTest {
+
+    @Test
+    public void findsLocationsByIdAndOrderId() {
+        //given
+        LocationRegistry registry = new LocationRegistry();
+
+        //when
+        registry.putAll(Arrays.asList(location(3, 1), location(1, 0), location(7, 2)));
+
+        //then
+        assertEquals(3, registry.size());
+        assertEquals(Long.valueOf(7), registry.getById(7).getId());
+        assertEquals(Long.valueOf(3), registry.getByOrderId(1).getId());
+        assertEquals(0, registry.getAll().get(0).getOrderId());
+        assertEquals(2, registry.getMaxOrderId());
+        assertEquals(7, registry.getMaxId());
+    }
+
+    @Test
+    public void updatePublishesNewSnapshot() {
+        //given
+        LocationRegistry registry = new LocationRegistry();
+        registry.putAll(Arrays.asList(location(1, 0), location(2, 1)));
+        List<Location> before = registry.getAll();
+
+        //when
+        registry.update(2, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location(location.getId(), location.getOrderId(), true);
+            }
+        });
+
+        //then
+        assertFalse(before.get(1).isEnabled());
+        assertTrue(registry.getById(2).isEnabled());
+        assertTrue(registry.getByOrderId(1).isEnabled());
+        assertNull(registry.update(5, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location;
+            }
+        }));
+    }
+
+    @Test
+    public void removeMovesFollowingLocations() {
+        //given
+        LocationRegistry registry = new LocationRegistry();
+        registry.putAll(Arrays.asList(location(1, 0), location(2, 1), location(3, 2)));
+
+        //when
+        registry.remove(2);
+
+        //then
+        assertEquals(2, registry.size());
+        assertNull(registry.getById(2));
+        assertEquals(1, registry.getById(3).getOrderId());
+        assertEquals(Long.valueOf(3), registry.getByOrderId(1).getId());
+        assertNull(registry.getByOrderId(2));
+    }
+
+    @Test
+    public void listenersAreNotifiedOfChangedLocationsOnly() {
+        //given
+        LocationRegistry registry = new LocationRegistry();
+        registry.putAll(Arrays.asList(location(1, 0), location(2, 1)));
+        final List<Location> changes = new ArrayList<>();
+        registry.addListener(new LocationRegistry.Listener() {
+            @Override
+            public void onLocationChanged(Location previous, Location current) {
+                changes.add(previous);
+                changes.add(current);
+            }
+        });
+
+        //when
+        registry.updateByOrderId(0, new LocationRegistry.Mutation() {
+            @Override
+            public Location apply(Location location) {
+                return location;
+            }
+        });
+        registry.remove(1);
+
+        //then
+        assertEquals(4, changes.size());
+        assertEquals(Long.valueOf(1), changes.get(0).getId());
+        assertNull(changes.get(1));
+        assertEquals(1, changes.get(2).getOrderId());
+        assertEquals(0, changes.get(3).getOrderId());
+    }
+
+    private static Location location(long id, int orderId) {
+        return location(id, orderId, false);
+    }
+
+    private static Location location(long id, int orderId, boolean enabled) {
+        return new Location(id, orderId, null, "en", 10, 50, 0, "", 0, true, enabled, null);
+    }
+}
@@ -0,0 +1,150 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecordCacheTest {
+
+    @Test
+    public void leastRecentlyUsedRecordIsEvicted() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(2);
+        recordCache.put(1, 1, "first");
+        recordCache.put(2, 1, "second");
+        recordCache.written(1, 1);
+        recordCache.written(2, 1);
+        recordCache.get(1, 1);
+
+        //when
+        recordCache.put(3, 1, "third");
+
+        //then
+        assertEquals("first", recordCache.get(1, 1));
+        assertNull(recordCache.get(2, 1));
+        assertEquals("third", recordCache.get(3, 1));
+        assertEquals(1, recordCache.getEvictions());
+        assertEquals(3, recordCache.getHits());
+        assertEquals(1, recordCache.getMisses());
+    }
+
+    @Test
+    public void evictedRecordIsKeptUntilItIsWritten() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(1);
+        recordCache.put(1, 1, "unwritten");
+
+        //when
+        recordCache.put(2, 1, "newer");
+        String beforeWrite = recordCache.get(1, 1);
+        recordCache.written(1, 1);
+
+        //then
+        assertEquals("unwritten", beforeWrite);
+        assertNull(recordCache.get(1, 1));
+        assertEquals(0, recordCache.getUnwrittenCount());
+    }
+
+    @Test
+    public void recordIsKeptWhileAnyOfItsWritesIsPending() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(1);
+        recordCache.put(1, 1, "first");
+        recordCache.put(1, 1, "second");
+        recordCache.put(2, 1, "other");
+
+        //when
+        recordCache.written(1, 1);
+
+        //then
+        assertEquals("second", recordCache.peek(1, 1));
+    }
+
+    @Test
+    public void recordIsDroppedWhenItsWriteFails() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(2);
+        recordCache.put(1, 1, "unpersisted");
+        long versionBeforeFailure = recordCache.getVersion();
+
+        //when
+        recordCache.failed(1, 1);
+
+        //then
+        assertNull(recordCache.get(1, 1));
+        assertEquals(0, recordCache.getUnwrittenCount());
+        assertTrue(recordCache.getVersion() > versionBeforeFailure);
+    }
+
+    @Test
+    public void newerRecordIsKeptWhenOlderWriteFails() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(2);
+        recordCache.put(1, 1, "older");
+        recordCache.put(1, 1, "newer");
+
+        //when
+        recordCache.failed(1, 1);
+
+        //then
+        assertEquals("newer", recordCache.get(1, 1));
+    }
+
+    @Test
+    public void changedRecordDoesNotChangeCache() {
+        //given
+        RecordCache<List<String>> recordCache = new RecordCache<>(10, new RecordCache.Copier<List<String>>() {
+            @Override
+            public List<String> copy(List<String> record) {
+                return new ArrayList<>(record);
+            }
+        });
+        List<String> saved = new ArrayList<>(Arrays.asList("saved"));
+        recordCache.put(1, 1, saved);
+
+        //when
+        saved.add("changed after put");
+        recordCache.get(1, 1).add("changed after get");
+
+        //then
+        assertEquals(Arrays.asList("saved"), recordCache.get(1, 1));
+    }
+
+    @Test
+    public void recordLoadedBeforeChangeIsNotStored() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(10);
+        long versionBeforeLoad = recordCache.getVersion();
+        recordCache.put(1, 1, "saved");
+
+        //when
+        recordCache.putIfNotChanged(1, 1, "loaded", versionBeforeLoad);
+        recordCache.putIfNotChanged(1, 2, "loaded", versionBeforeLoad);
+
+        //then
+        assertEquals("saved", recordCache.get(1, 1));
+        assertNull(recordCache.get(1, 2));
+    }
+
+    @Test
+    public void locationIsInvalidatedForAllTypes() {
+        //given
+        RecordCache<String> recordCache = new RecordCache<>(10);
+        recordCache.put(1, 1, "forecast");
+        recordCache.put(1, 2, "long forecast");
+        recordCache.put(2, 1, "other location");
+
+        //when
+        recordCache.invalidateLocation(1);
+
+        //then
+        assertNull(recordCache.peek(1, 1));
+        assertNull(recordCache.peek(1, 2));
+        assertEquals("other location", recordCache.peek(2, 1));
+        assertEquals(1, recordCache.size());
+    }
+}
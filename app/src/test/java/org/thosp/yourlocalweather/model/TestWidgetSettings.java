@@ -0,0 +1,14 @@
+package org.thosp.yourlocalweather.model;
+
+/**
+ * Creates widget settings for tests outside of the model package, without a
+ * widget settings database.
+ */
+public class TestWidgetSettings {
+
+    public static WidgetSettings create(int widgetId, long locationId, boolean showLocation) {
+        return WidgetSettings.empty(widgetId)
+                .withValue(WidgetSettings.LOCATION_ID, new WidgetSettings.Value(locationId, null))
+                .withValue(WidgetSettings.SHOW_LOCATION, new WidgetSettings.Value(showLocation ? 1l : 0l, null));
+    }
+}
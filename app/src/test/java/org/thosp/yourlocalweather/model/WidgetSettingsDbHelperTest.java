@@ -0,0 +1,93 @@
+package org.thosp.yourlocalweather.model;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class WidgetSettingsDbHelperTest {
+
+    private static final int WIDGET_ID = 7;
+    private static final long FLUSH_TIMEOUT_IN_MS = 5000;
+
+    private Context context;
+
+    @Before
+    public void setup() {
+        context = RuntimeEnvironment.getApplication();
+    }
+
+    @Test
+    public void savedSettingsAreServedFromCache() {
+        //given
+        WidgetSettingsDbHelper dbHelper = new WidgetSettingsDbHelper(context);
+        saveSettings(dbHelper);
+        assertTrue(dbHelper.flushPendingWrites(FLUSH_TIMEOUT_IN_MS));
+        WidgetSettings savedSettings = dbHelper.getWidgetSettings(WIDGET_ID);
+
+        //when
+        dbHelper.getWritableDatabase().delete(WidgetSettingsContract.WidgetSettings.TABLE_NAME, null, null);
+        WidgetSettings widgetSettings = dbHelper.getWidgetSettings(WIDGET_ID);
+
+        //then
+        assertSame(savedSettings, widgetSettings);
+        assertEquals(Long.valueOf(3), widgetSettings.getLocationId());
+        assertTrue(widgetSettings.getShowLocation());
+        assertEquals("0,1,2", widgetSettings.getCombinedGraphValues());
+        assertEquals(Long.valueOf(3), widgetSettings.getForecastDaysCount());
+    }
+
+    @Test
+    public void flushedSettingsAreReadByNewHelper() {
+        //given
+        WidgetSettingsDbHelper dbHelper = new WidgetSettingsDbHelper(context);
+        saveSettings(dbHelper);
+        assertTrue(dbHelper.flushPendingWrites(FLUSH_TIMEOUT_IN_MS));
+        dbHelper.saveParamLong(WIDGET_ID, WidgetSettings.FORECAST_DAYS_COUNT, 5);
+
+        //when
+        assertTrue(dbHelper.flushPendingWrites(FLUSH_TIMEOUT_IN_MS));
+        WidgetSettings widgetSettings = new WidgetSettingsDbHelper(context).getWidgetSettings(WIDGET_ID);
+
+        //then
+        assertEquals(Long.valueOf(3), widgetSettings.getLocationId());
+        assertTrue(widgetSettings.getShowLocation());
+        assertEquals("0,1,2", widgetSettings.getCombinedGraphValues());
+        assertEquals(Long.valueOf(5), widgetSettings.getForecastDaysCount());
+    }
+
+    @Test
+    public void failedWriteDropsCachedSettings() {
+        //given
+        WidgetSettingsDbHelper dbHelper = new WidgetSettingsDbHelper(context);
+        dbHelper.getWidgetSettings(WIDGET_ID);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.execSQL(WidgetSettingsContract.SQL_DELETE_TABLE_WIDGET_SETTINGS);
+        dbHelper.saveParamLong(WIDGET_ID, WidgetSettings.LOCATION_ID, 3);
+
+        //when
+        assertFalse(dbHelper.flushPendingWrites(FLUSH_TIMEOUT_IN_MS));
+        dbHelper.onCreate(db);
+        WidgetSettings widgetSettings = dbHelper.getWidgetSettings(WIDGET_ID);
+        dbHelper.saveParamLong(WIDGET_ID, WidgetSettings.LOCATION_ID, 4);
+        assertTrue(dbHelper.flushPendingWrites(FLUSH_TIMEOUT_IN_MS));
+
+        //then
+        assertFalse(widgetSettings.hasParam(WidgetSettings.LOCATION_ID));
+        assertEquals(Long.valueOf(4), new WidgetSettingsDbHelper(context).getWidgetSettings(WIDGET_ID).getLocationId());
+    }
+
+    private static void saveSettings(WidgetSettingsDbHelper dbHelper) {
+        dbHelper.saveParamLong(WIDGET_ID, WidgetSettings.LOCATION_ID, 3);
+        dbHelper.saveParamBoolean(WIDGET_ID, WidgetSettings.SHOW_LOCATION, true);
+        dbHelper.saveParamString(WIDGET_ID, WidgetSettings.COMBINED_GRAPH_VALUES, "0,1,2");
+        dbHelper.saveParamLong(WIDGET_ID, WidgetSettings.FORECAST_DAYS_COUNT, 3);
+    }
+}
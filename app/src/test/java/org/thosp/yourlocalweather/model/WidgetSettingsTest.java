@@ -0,0 +1,86 @@
+package org.thosp.yourlocalweather.model;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class WidgetSettingsTest {
+
+    @Test
+    public void readsStoredValuesAsTheTableColumns() {
+        //given
+        Map<String, WidgetSettings.Value> values = new HashMap<>();
+        values.put(WidgetSettings.LOCATION_ID, new WidgetSettings.Value(3l, null));
+        values.put(WidgetSettings.HOURS_FORECAST, new WidgetSettings.Value(1l, null));
+        values.put(WidgetSettings.SHOW_LOCATION, new WidgetSettings.Value(null, null));
+        values.put(WidgetSettings.COMBINED_GRAPH_VALUES, new WidgetSettings.Value(null, "0,1,2"));
+
+        //when
+        WidgetSettings widgetSettings = new WidgetSettings(7, values);
+
+        //then
+        assertEquals(Long.valueOf(3), widgetSettings.getLocationId());
+        assertTrue(widgetSettings.getHoursForecast());
+        assertFalse(widgetSettings.getShowLocation());
+        assertEquals(Long.valueOf(0), widgetSettings.getParamLong(WidgetSettings.SHOW_LOCATION));
+        assertEquals("0,1,2", widgetSettings.getCombinedGraphValues());
+        assertNull(widgetSettings.getForecastDaysCount());
+        assertNull(widgetSettings.getForecastDayAbbrev());
+        assertNull(widgetSettings.getCurrentWeatherDetails());
+    }
+
+    @Test
+    public void savedValueCreatesNewSettings() {
+        //given
+        WidgetSettings widgetSettings = WidgetSettings.empty(7);
+
+        //when
+        WidgetSettings changedSettings = widgetSettings.withValue(WidgetSettings.FORECAST_DAYS_COUNT, new WidgetSettings.Value(3l, null));
+
+        //then
+        assertFalse(widgetSettings.hasParam(WidgetSettings.FORECAST_DAYS_COUNT));
+        assertTrue(changedSettings.hasParam(WidgetSettings.FORECAST_DAYS_COUNT));
+        assertEquals(Long.valueOf(3), changedSettings.getForecastDaysCount());
+        assertEquals(7, changedSettings.getWidgetId());
+    }
+
+    @Test
+    public void storedValueKeepsMissingNumber() {
+        //given
+        Map<String, WidgetSettings.Value> values = new HashMap<>();
+        values.put(WidgetSettings.COMBINED_GRAPH_VALUES, new WidgetSettings.Value(null, "0,1,2"));
+        WidgetSettings widgetSettings = new WidgetSettings(7, values);
+
+        //when
+        WidgetSettings.Value storedValue = widgetSettings.getValue(WidgetSettings.COMBINED_GRAPH_VALUES);
+
+        //then
+        assertNull(storedValue.longValue);
+        assertEquals("0,1,2", storedValue.stringValue);
+        assertEquals(Long.valueOf(0), widgetSettings.getParamLong(WidgetSettings.COMBINED_GRAPH_VALUES));
+        assertNull(widgetSettings.getValue(WidgetSettings.LOCATION_ID));
+    }
+
+    @Test
+    public void sameValuesHaveSameContentHash() {
+        //given
+        WidgetSettings widgetSettings = WidgetSettings.empty(7)
+                .withValue(WidgetSettings.LOCATION_ID, new WidgetSettings.Value(3l, null))
+                .withValue(WidgetSettings.COMBINED_GRAPH_VALUES, new WidgetSettings.Value(null, "0,1,2"));
+
+        //when
+        WidgetSettings sameSettings = WidgetSettings.empty(7)
+                .withValue(WidgetSettings.COMBINED_GRAPH_VALUES, new WidgetSettings.Value(null, "0,1,2"))
+                .withValue(WidgetSettings.LOCATION_ID, new WidgetSettings.Value(3l, null));
+        WidgetSettings changedSettings = sameSettings
+                .withValue(WidgetSettings.COMBINED_GRAPH_VALUES, new WidgetSettings.Value(null, "0,2"));
+
+        //then
+        assertEquals(widgetSettings.getContentHash(), sameSettings.getContentHash());
+        assertNotEquals(widgetSettings.getContentHash(), changedSettings.getContentHash());
+        assertNotEquals(widgetSettings.getContentHash(), WidgetSettings.empty(7).getContentHash());
+    }
+}
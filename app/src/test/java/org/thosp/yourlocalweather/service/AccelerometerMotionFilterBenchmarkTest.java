@@ -0,0 +1,144 @@
+package org.thosp.yourlocalweather.service;
+
+import org.junit.Test;
+import org.thosp.yourlocalweather.Benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays accelerometer traces of a device lying on a table, carried while
+ * walking and lying in a driving car through the motion filter and logs the
+ * time and the bytes allocated per event. The traces are generated from a seed,
+ * 20 minutes of 50 events per second, as the sensor delivers them in a batch.
+ */
+public class AccelerometerMotionFilterBenchmarkTest {
+
+    private static final long EVENT_INTERVAL_IN_NS = 20000000L;
+    private static final int TRACE_EVENTS = 60000;
+    private static final int WARM_UP_REPLAYS = 20;
+    private static final int MEASURED_REPLAYS = 50;
+    private static final long NOW_IN_MS = 1572048000000L;
+
+    @Test
+    public void stationaryDeviceDoesNotRequestLocation() {
+        //given
+        Trace trace = Trace.stationary(1);
+
+        //when
+        boolean updateNeeded = replay(trace, NOW_IN_MS - 3600000L);
+
+        //then
+        assertFalse(updateNeeded);
+    }
+
+    @Test
+    public void walkingRequestsLocationOnlyAfterTimeSpan() {
+        //given
+        Trace trace = Trace.walking(2);
+
+        //when
+        boolean updateNeededAfterHour = replay(trace, NOW_IN_MS - 3600000L);
+        boolean updateNeededAfterMinute = replay(trace, NOW_IN_MS - 60000L);
+
+        //then
+        assertTrue(updateNeededAfterHour);
+        assertFalse(updateNeededAfterMinute);
+    }
+
+    @Test
+    public void replaySpeedAndAllocations() {
+        Benchmarks.assumeRequested();
+        measure(Trace.stationary(1), "stationary");
+        measure(Trace.walking(2), "walking");
+        measure(Trace.driving(3), "driving");
+    }
+
+    private void measure(Trace trace, String name) {
+        AccelerometerMotionFilter filter = new AccelerometerMotionFilter();
+        for (int i = 0; i < WARM_UP_REPLAYS; i++) {
+            replay(filter, trace, 0);
+        }
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        int updatesNeeded = 0;
+        for (int i = 0; i < MEASURED_REPLAYS; i++) {
+            updatesNeeded += replay(filter, trace, NOW_IN_MS - 3600000L);
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+        long events = (long) MEASURED_REPLAYS * TRACE_EVENTS;
+        Benchmarks.report("Motion filter, " + name + ": " + ((double) duration / events) +
+                " ns per event, " + ((double) allocated / events) + " bytes allocated per event, " +
+                updatesNeeded + " location updates");
+        if (allocatedBefore >= 0) {
+            assertTrue(allocated < events);
+        }
+    }
+
+    private boolean replay(Trace trace, long lastUpdatedPosition) {
+        return replay(new AccelerometerMotionFilter(), trace, lastUpdatedPosition) > 0;
+    }
+
+    /**
+     * Feeds the trace the way the service does and clears the measured length
+     * when a location update is requested.
+     */
+    private int replay(AccelerometerMotionFilter filter, Trace trace, long lastUpdatedPosition) {
+        filter.reset();
+        int updatesNeeded = 0;
+        for (int i = 0; i < TRACE_EVENTS; i++) {
+            if (!filter.addAcceleration(trace.timestamps[i], trace.x[i], trace.y[i], trace.z[i])) {
+                continue;
+            }
+            if (filter.isLocationUpdateNeeded(NOW_IN_MS, lastUpdatedPosition, true, 1)) {
+                updatesNeeded++;
+                filter.clearMeasuredLength();
+            }
+        }
+        return updatesNeeded;
+    }
+
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class Trace {
+        final long[] timestamps = new long[TRACE_EVENTS];
+        final float[] x = new float[TRACE_EVENTS];
+        final float[] y = new float[TRACE_EVENTS];
+        final float[] z = new float[TRACE_EVENTS];
+
+        static Trace stationary(long seed) {
+            return create(seed, 0, 0, 0.01f);
+        }
+
+        static Trace walking(long seed) {
+            return create(seed, 1.5f, 2, 0.2f);
+        }
+
+        static Trace driving(long seed) {
+            return create(seed, 0.6f, 11, 0.8f);
+        }
+
+        private static Trace create(long seed, float amplitude, float frequencyInHz, float noise) {
+            Random random = new Random(seed);
+            Trace trace = new Trace();
+            for (int i = 0; i < TRACE_EVENTS; i++) {
+                double time = (double) i * EVENT_INTERVAL_IN_NS / 1000000000.0;
+                double wave = amplitude * Math.sin(2 * Math.PI * frequencyInHz * time);
+                trace.timestamps[i] = 1000000000L + i * EVENT_INTERVAL_IN_NS;
+                trace.x[i] = (float) (0.3 * wave + noise * random.nextGaussian());
+                trace.y[i] = (float) (0.5 * wave + noise * random.nextGaussian());
+                trace.z[i] = (float) (9.81 + wave + noise * random.nextGaussian());
+            }
+            return trace;
+        }
+    }
+}
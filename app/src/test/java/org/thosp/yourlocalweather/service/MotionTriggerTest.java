@@ -0,0 +1,118 @@
+package org.thosp.yourlocalweather.service;
+
+import android.hardware.Sensor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MotionTriggerTest {
+
+    private static final long NOW_IN_MS = 1572048000000L;
+    private static final long MINUTE_IN_MS = 60000L;
+    private static final long SECOND_IN_NS = 1000000000L;
+
+    @Test
+    public void selectsSensorWakingLeast() {
+        //given
+        //when
+        MotionTrigger significantMotion = MotionTrigger.forAvailableSensors(true, true);
+        MotionTrigger stepCounter = MotionTrigger.forAvailableSensors(false, true);
+        MotionTrigger accelerometer = MotionTrigger.forAvailableSensors(false, false);
+
+        //then
+        assertEquals(Sensor.TYPE_SIGNIFICANT_MOTION, significantMotion.getSensorType());
+        assertTrue(significantMotion.isOneShot());
+        assertEquals(Sensor.TYPE_STEP_COUNTER, stepCounter.getSensorType());
+        assertFalse(stepCounter.isOneShot());
+        assertTrue(stepCounter.getMaxReportLatencyInUs() > 0);
+        assertEquals(Sensor.TYPE_ACCELEROMETER, accelerometer.getSensorType());
+        assertEquals(0, accelerometer.getMaxReportLatencyInUs());
+    }
+
+    @Test
+    public void stepsUpdateLocationAfterTimeSpan() {
+        //given
+        MotionTrigger trigger = new MotionTrigger.StepCounterMotionTrigger();
+
+        //when
+        addSteps(trigger, 5000, 2000, 250);
+
+        //then
+        assertEquals(1500f, trigger.getAbsCurrentLength(1), 0.01f);
+        assertFalse(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 10 * MINUTE_IN_MS, true, 1));
+        assertTrue(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 16 * MINUTE_IN_MS, true, 1));
+    }
+
+    @Test
+    public void fewStepsUpdateLocationWithoutAddress() {
+        //given
+        MotionTrigger trigger = new MotionTrigger.StepCounterMotionTrigger();
+
+        //when
+        addSteps(trigger, 100, 300, 1);
+
+        //then
+        assertFalse(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 6 * MINUTE_IN_MS, true, 1));
+        assertTrue(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 6 * MINUTE_IN_MS, false, 1));
+        assertFalse(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 4 * MINUTE_IN_MS, false, 1));
+    }
+
+    @Test
+    public void firstStepCountAfterRebootIsNotCounted() {
+        //given
+        MotionTrigger trigger = new MotionTrigger.StepCounterMotionTrigger();
+        addSteps(trigger, 5000, 400, 1);
+
+        //when
+        boolean countedAfterReboot = trigger.addSensorValues(3000 * SECOND_IN_NS, new float[] {20});
+        trigger.addSensorValues(3001 * SECOND_IN_NS, new float[] {60});
+
+        //then
+        assertFalse(countedAfterReboot);
+        assertEquals(440 * 0.75f, trigger.getAbsCurrentLength(1), 0.01f);
+    }
+
+    @Test
+    public void significantMotionCountsAsFirstLimit() {
+        //given
+        MotionTrigger trigger = new MotionTrigger.SignificantMotionTrigger();
+
+        //when
+        trigger.addSensorValues(SECOND_IN_NS, new float[] {1});
+
+        //then
+        assertFalse(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 10 * MINUTE_IN_MS, true, 1));
+        assertTrue(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 16 * MINUTE_IN_MS, true, 1));
+    }
+
+    @Test
+    public void repeatedSignificantMotionUpdatesLocationEarlier() {
+        //given
+        MotionTrigger trigger = new MotionTrigger.SignificantMotionTrigger();
+
+        //when
+        for (int i = 1; i <= 7; i++) {
+            trigger.addSensorValues(i * 30 * SECOND_IN_NS, new float[] {1});
+        }
+
+        //then
+        assertFalse(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 4 * MINUTE_IN_MS, true, 1));
+        assertTrue(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 6 * MINUTE_IN_MS, true, 1));
+        trigger.clearMeasuredLength();
+        assertFalse(trigger.isLocationUpdateNeeded(NOW_IN_MS, NOW_IN_MS - 6 * MINUTE_IN_MS, true, 1));
+    }
+
+    /**
+     * Step counter events as batched by the sensor hub, the first one only sets
+     * the steps since boot.
+     */
+    private void addSteps(MotionTrigger trigger, int stepsSinceBoot, int steps, int stepsPerEvent) {
+        long timestamp = SECOND_IN_NS;
+        trigger.addSensorValues(timestamp, new float[] {stepsSinceBoot});
+        for (int step = stepsPerEvent; step <= steps; step += stepsPerEvent) {
+            timestamp += stepsPerEvent * SECOND_IN_NS / 2;
+            trigger.addSensorValues(timestamp, new float[] {stepsSinceBoot + step});
+        }
+    }
+}
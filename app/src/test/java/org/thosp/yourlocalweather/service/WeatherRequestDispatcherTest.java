@@ -0,0 +1,276 @@
+package org.thosp.yourlocalweather.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WeatherRequestDispatcherTest {
+
+    private HttpServer server;
+    private ExecutorService httpExecutor;
+    private final AtomicInteger requestsInProgress = new AtomicInteger();
+    private final AtomicInteger maxRequestsInProgress = new AtomicInteger();
+    private final ConcurrentHashMap<String, AtomicInteger> requestsInProgressPerEndpoint = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> maxRequestsInProgressPerEndpoint = new ConcurrentHashMap<>();
+    private final AtomicReference<IOException> callFailure = new AtomicReference<>();
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new SlowHandler());
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        httpExecutor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        httpExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void requestsRunInParallelWithinLimits() throws Exception {
+        //given
+        final WeatherRequestDispatcher dispatcher = new WeatherRequestDispatcher(3, 2);
+        final WeatherRequestDispatcher.RequestPolicy requestPolicy = createRequestPolicy(0, 0);
+        for (long locationId = 0; locationId < 6; locationId++) {
+            dispatcher.add(new WeatherRequestDataHolder(locationId, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+            dispatcher.add(new WeatherRequestDataHolder(locationId, null, UpdateWeatherService.START_WEATHER_FORECAST_UPDATE));
+        }
+        final CountDownLatch allRequestsDone = new CountDownLatch(12);
+
+        //when
+        startRequests(dispatcher, requestPolicy, allRequestsDone);
+
+        //then
+        assertTrue(allRequestsDone.await(20, TimeUnit.SECONDS));
+        assertNull("Call failed: " + callFailure.get(), callFailure.get());
+        assertTrue(dispatcher.isEmpty());
+        assertTrue(maxRequestsInProgress.get() > 1);
+        assertTrue(maxRequestsInProgress.get() <= 3);
+        assertTrue(maxRequestsInProgressPerEndpoint.get("/weather").get() <= 2);
+        assertTrue(maxRequestsInProgressPerEndpoint.get("/forecast").get() <= 2);
+    }
+
+    @Test
+    public void licensedEndpointIsNotCalledBeforeIntervalIsOver() {
+        //given
+        WeatherRequestDispatcher dispatcher = new WeatherRequestDispatcher();
+        WeatherRequestDispatcher.RequestPolicy requestPolicy = createRequestPolicy(60000, 10000);
+        dispatcher.add(new WeatherRequestDataHolder(1, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        dispatcher.add(new WeatherRequestDataHolder(2, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+
+        //when
+        List<WeatherRequestDataHolder> tooEarly = dispatcher.dispatch(requestPolicy, 70000);
+        List<WeatherRequestDataHolder> first = dispatcher.dispatch(requestPolicy, 70001);
+        List<WeatherRequestDataHolder> whileFirstInFlight = dispatcher.dispatch(requestPolicy, 200000);
+        dispatcher.callStarted("weather", 70001);
+        dispatcher.finished(first.get(0));
+        List<WeatherRequestDataHolder> secondTooEarly = dispatcher.dispatch(requestPolicy, 80000);
+        long delay = dispatcher.getDelayUntilNextAllowedCallInMs(requestPolicy, 80000);
+        List<WeatherRequestDataHolder> second = dispatcher.dispatch(requestPolicy, 130002);
+
+        //then
+        assertTrue(tooEarly.isEmpty());
+        assertEquals(1, first.size());
+        assertTrue(whileFirstInFlight.isEmpty());
+        assertTrue(secondTooEarly.isEmpty());
+        assertEquals(50002, delay);
+        assertEquals(1, second.size());
+        assertEquals(2, second.get(0).getLocationId());
+    }
+
+    @Test
+    public void requestsForSameLocationAndTypeAreCoalesced() {
+        //given
+        WeatherRequestDispatcher dispatcher = new WeatherRequestDispatcher();
+        WeatherRequestDispatcher.RequestPolicy requestPolicy = createRequestPolicy(0, 0);
+
+        //when
+        boolean firstAdded = dispatcher.add(new WeatherRequestDataHolder(1, null, false, false, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        boolean secondAdded = dispatcher.add(new WeatherRequestDataHolder(1, "MAIN", true, false, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        boolean thirdAdded = dispatcher.add(new WeatherRequestDataHolder(1, "NOTIFICATION", false, true, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        boolean otherTypeAdded = dispatcher.add(new WeatherRequestDataHolder(1, null, UpdateWeatherService.START_WEATHER_FORECAST_UPDATE));
+        List<WeatherRequestDataHolder> started = dispatcher.dispatch(requestPolicy, 0);
+        boolean addedWhileInFlight = dispatcher.add(new WeatherRequestDataHolder(1, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        List<WeatherRequestDataHolder> waiters = dispatcher.finished(started.get(0));
+
+        //then
+        assertTrue(firstAdded);
+        assertFalse(secondAdded);
+        assertFalse(thirdAdded);
+        assertTrue(otherTypeAdded);
+        assertFalse(addedWhileInFlight);
+        assertEquals(2, started.size());
+        WeatherRequestDataHolder coalesced = started.get(0);
+        assertEquals(UpdateWeatherService.START_CURRENT_WEATHER_UPDATE, coalesced.getUpdateType());
+        assertTrue(coalesced.isForceUpdate());
+        assertTrue(coalesced.isUpdateWeatherOnly());
+        assertEquals("MAIN", coalesced.getUpdateSource());
+        assertEquals(4, waiters.size());
+        assertEquals(5, dispatcher.getReceivedRequestsCount());
+        assertEquals(3, dispatcher.getCoalescedRequestsCount());
+        assertTrue(dispatcher.finished(started.get(0)).isEmpty());
+    }
+
+    @Test
+    public void strongerRequestWhileInFlightIsSentAfterIt() {
+        //given
+        WeatherRequestDispatcher dispatcher = new WeatherRequestDispatcher();
+        WeatherRequestDispatcher.RequestPolicy requestPolicy = createRequestPolicy(0, 0);
+        dispatcher.add(new WeatherRequestDataHolder(1, null, false, false, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        List<WeatherRequestDataHolder> first = dispatcher.dispatch(requestPolicy, 0);
+
+        //when
+        boolean forcedAdded = dispatcher.add(new WeatherRequestDataHolder(1, "MAIN", true, false, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        boolean weatherOnlyAdded = dispatcher.add(new WeatherRequestDataHolder(1, null, false, true, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        List<WeatherRequestDataHolder> whileFirstInFlight = dispatcher.dispatch(requestPolicy, 0);
+        List<WeatherRequestDataHolder> firstWaiters = dispatcher.finished(first.get(0));
+        List<WeatherRequestDataHolder> second = dispatcher.dispatch(requestPolicy, 0);
+        List<WeatherRequestDataHolder> secondWaiters = dispatcher.finished(second.get(0));
+
+        //then
+        assertTrue(forcedAdded);
+        assertFalse(weatherOnlyAdded);
+        assertTrue(whileFirstInFlight.isEmpty());
+        assertEquals(1, firstWaiters.size());
+        assertEquals(1, second.size());
+        assertTrue(second.get(0).isForceUpdate());
+        assertTrue(second.get(0).isUpdateWeatherOnly());
+        assertEquals("MAIN", second.get(0).getUpdateSource());
+        assertEquals(2, secondWaiters.size());
+        assertTrue(dispatcher.isEmpty());
+    }
+
+    @Test
+    public void lateFinishOfTimedOutRequestDoesNotFinishNewerRequest() {
+        //given
+        WeatherRequestDispatcher dispatcher = new WeatherRequestDispatcher();
+        WeatherRequestDispatcher.RequestPolicy requestPolicy = createRequestPolicy(0, 0);
+        dispatcher.add(new WeatherRequestDataHolder(1, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        WeatherRequestDataHolder timedOut = dispatcher.dispatch(requestPolicy, 0).get(0);
+        dispatcher.finished(timedOut);
+        dispatcher.add(new WeatherRequestDataHolder(1, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+        WeatherRequestDataHolder newer = dispatcher.dispatch(requestPolicy, 0).get(0);
+        dispatcher.add(new WeatherRequestDataHolder(1, null, UpdateWeatherService.START_CURRENT_WEATHER_UPDATE));
+
+        //when
+        List<WeatherRequestDataHolder> lateWaiters = dispatcher.finished(timedOut);
+
+        //then
+        assertTrue(lateWaiters.isEmpty());
+        assertFalse(dispatcher.isInFlight(timedOut));
+        assertTrue(dispatcher.isInFlight(newer));
+        assertEquals(1, dispatcher.getRequestsInFlight("weather"));
+        assertEquals(2, dispatcher.finished(newer).size());
+        assertTrue(dispatcher.isEmpty());
+    }
+
+    private void startRequests(final WeatherRequestDispatcher dispatcher,
+                               final WeatherRequestDispatcher.RequestPolicy requestPolicy,
+                               final CountDownLatch allRequestsDone) {
+        for (final WeatherRequestDataHolder request: dispatcher.dispatch(requestPolicy, System.currentTimeMillis())) {
+            httpExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        callServer("/" + requestPolicy.getEndpoint(request) + "?lat=" + request.getLocationId());
+                    } finally {
+                        dispatcher.finished(request);
+                        allRequestsDone.countDown();
+                        startRequests(dispatcher, requestPolicy, allRequestsDone);
+                    }
+                }
+            });
+        }
+    }
+
+    private void callServer(String path) {
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            InputStream inputStream = connection.getInputStream();
+            while (inputStream.read() != -1) {
+                //
+            }
+            inputStream.close();
+            connection.disconnect();
+        } catch (IOException e) {
+            callFailure.compareAndSet(null, e);
+        }
+    }
+
+    private WeatherRequestDispatcher.RequestPolicy createRequestPolicy(final long minimumCallInterval,
+                                                                      final long lastCallTime) {
+        return new WeatherRequestDispatcher.RequestPolicy() {
+            @Override
+            public String getEndpoint(WeatherRequestDataHolder request) {
+                return (request.getUpdateType() == UpdateWeatherService.START_CURRENT_WEATHER_UPDATE) ? "weather" : "forecast";
+            }
+
+            @Override
+            public long getMinimumCallIntervalInMs(String endpoint) {
+                return minimumCallInterval;
+            }
+
+            @Override
+            public long getLastCallTimeInMs(String endpoint) {
+                return lastCallTime;
+            }
+        };
+    }
+
+    private class SlowHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String endpoint = exchange.getRequestURI().getPath();
+            requestsInProgressPerEndpoint.putIfAbsent(endpoint, new AtomicInteger());
+            maxRequestsInProgressPerEndpoint.putIfAbsent(endpoint, new AtomicInteger());
+            int inProgress = requestsInProgress.incrementAndGet();
+            int inProgressForEndpoint = requestsInProgressPerEndpoint.get(endpoint).incrementAndGet();
+            updateMax(maxRequestsInProgress, inProgress);
+            updateMax(maxRequestsInProgressPerEndpoint.get(endpoint), inProgressForEndpoint);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                //
+            }
+            requestsInProgressPerEndpoint.get(endpoint).decrementAndGet();
+            requestsInProgress.decrementAndGet();
+            byte[] response = "{\"cod\":200}".getBytes();
+            exchange.sendResponseHeaders(200, response.length);
+            OutputStream responseBody = exchange.getResponseBody();
+            responseBody.write(response);
+            responseBody.close();
+        }
+
+        private void updateMax(AtomicInteger max, int value) {
+            int current;
+            do {
+                current = max.get();
+            } while ((value > current) && !max.compareAndSet(current, value));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.thosp.yourlocalweather.Benchmarks;
+import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares converting a forecast series point by point with the scalar helpers
+ * (a Calendar per apparent temperature) with the one pass conversion into
+ * columns, for the 5 day forecast of 40 three hourly points and for a 16 day
+ * series. The numbers are logged, the test only fails when both disagree.
+ */
+public class ForecastSeriesBenchmarkTest {
+
+    private static final int THREE_HOURS_IN_S = 10800;
+    private static final int WARM_UP_ITERATIONS = 5000;
+    private static final int MEASURED_ITERATIONS = 20000;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeRequested();
+    }
+
+    @Test
+    public void fiveDaySeriesConversionSpeed() {
+        measure(ForecastSeriesTest.createForecasts(1572048000, THREE_HOURS_IN_S, 40), "5 days");
+    }
+
+    @Test
+    public void sixteenDaySeriesConversionSpeed() {
+        measure(ForecastSeriesTest.createForecasts(1572048000, THREE_HOURS_IN_S, 16 * 8), "16 days");
+    }
+
+    private static void measure(List<DetailedWeatherForecast> forecasts, String name) {
+        //given
+        Map<String, Object> storedPreferences = new HashMap<>();
+        storedPreferences.put(Constants.KEY_PREF_TEMPERATURE_UNITS, "fahrenheit");
+        storedPreferences.put(Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_appearance_primary_appearance");
+        storedPreferences.put(Constants.KEY_PREF_WIND_UNITS, "km_per_hour");
+        storedPreferences.put(Constants.KEY_PREF_PRESSURE_UNITS, "mmhg");
+        PreferenceSnapshot preferences = new PreferenceSnapshot(storedPreferences);
+        double latitude = 48.1;
+        double checksumPointByPoint = 0;
+        double checksumSeries = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            checksumPointByPoint += convertPointByPoint(preferences, forecasts, latitude);
+            checksumSeries += convertSeries(preferences, forecasts, latitude);
+        }
+
+        //when
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksumPointByPoint += convertPointByPoint(preferences, forecasts, latitude);
+        }
+        long durationPointByPoint = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksumSeries += convertSeries(preferences, forecasts, latitude);
+        }
+        long durationSeries = System.nanoTime() - start;
+        Benchmarks.report("Series of " + name + " (" + forecasts.size() + " points) point by point: " +
+                (durationPointByPoint / MEASURED_ITERATIONS) + " ns, as columns: " +
+                (durationSeries / MEASURED_ITERATIONS) + " ns");
+
+        //then
+        assertEquals(checksumPointByPoint, checksumSeries, Math.abs(checksumPointByPoint) * 1e-5);
+    }
+
+    private static double convertPointByPoint(PreferenceSnapshot preferences,
+                                              List<DetailedWeatherForecast> forecasts,
+                                              double latitude) {
+        double sum = 0;
+        for (int i = 0; i < forecasts.size(); i++) {
+            DetailedWeatherForecast weather = forecasts.get(i);
+            sum += TemperatureUtil.getTemperature(preferences, weather);
+            sum += preferences.getTemperatureInPreferredUnit(TemperatureUtil.getApparentTemperatureWithSolarIrradiation(
+                    weather.getTemperature(),
+                    weather.getHumidity(),
+                    weather.getWindSpeed(),
+                    weather.getCloudiness(),
+                    latitude,
+                    weather.getDateTime() * 1000));
+            double humidityLogarithm = Math.log(weather.getHumidity() / 100.0) / Math.log(Math.E);
+            double dewPointPart = humidityLogarithm + ((17.67 * weather.getTemperature())/(243.5 + weather.getTemperature()));
+            sum += preferences.getTemperatureInPreferredUnit((243.5 * dewPointPart) / (17.67 - dewPointPart));
+            if (preferences.getWindUnits().contains("km_per_hour")) {
+                sum += 3.6d * weather.getWindSpeed();
+            }
+            if ("mmhg".equals(preferences.getPressureUnits())) {
+                sum += weather.getPressure() * 0.75f;
+            }
+        }
+        return sum;
+    }
+
+    private static double convertSeries(PreferenceSnapshot preferences,
+                                        List<DetailedWeatherForecast> forecasts,
+                                        double latitude) {
+        ForecastSeries series = ForecastSeries.convert(preferences, forecasts, latitude);
+        double sum = 0;
+        for (int i = 0; i < series.size(); i++) {
+            sum += series.getTemperatures()[i];
+            sum += series.getApparentTemperatures()[i];
+            sum += series.getDewPoints()[i];
+            sum += series.getWinds()[i];
+            sum += series.getPressures()[i];
+        }
+        return sum;
+    }
+}
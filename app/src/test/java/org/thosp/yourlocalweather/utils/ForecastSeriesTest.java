@@ -0,0 +1,109 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ForecastSeriesTest {
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void seriesMatchesPointByPointConversion() {
+        //given
+        Map<String, Object> storedPreferences = new HashMap<>();
+        storedPreferences.put(Constants.KEY_PREF_TEMPERATURE_UNITS, "fahrenheit");
+        storedPreferences.put(Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_appearance_primary_appearance");
+        storedPreferences.put(Constants.KEY_PREF_WIND_UNITS, "km_per_hour");
+        storedPreferences.put(Constants.KEY_PREF_PRESSURE_UNITS, "mmhg");
+        storedPreferences.put(Constants.KEY_PREF_RAIN_SNOW_UNITS, "inches");
+        PreferenceSnapshot preferences = new PreferenceSnapshot(storedPreferences);
+        double latitude = 52.5;
+        // three hourly points over the daylight saving time change in October
+        List<DetailedWeatherForecast> forecasts = createForecasts(1572048000, 10800, 40);
+
+        //when
+        ForecastSeries series = ForecastSeries.convert(preferences, forecasts, latitude);
+
+        //then
+        assertEquals(forecasts.size(), series.size());
+        for (int i = 0; i < forecasts.size(); i++) {
+            DetailedWeatherForecast weather = forecasts.get(i);
+            double apparentTemperature = TemperatureUtil.getApparentTemperatureWithSolarIrradiation(
+                    weather.getTemperature(),
+                    weather.getHumidity(),
+                    weather.getWindSpeed(),
+                    weather.getCloudiness(),
+                    latitude,
+                    weather.getDateTime() * 1000);
+            assertEquals(weather.getDateTime(), series.getDateTimes()[i]);
+            assertEquals(TemperatureUtil.getTemperature(preferences, weather), series.getTemperatures()[i], 1e-3);
+            assertEquals(preferences.getTemperatureInPreferredUnit(apparentTemperature), series.getApparentTemperatures()[i], 1e-3);
+            assertEquals(preferences.getTemperatureInPreferredUnit(weather.getTemperatureMax()), series.getMaxTemperatures()[i], 1e-3);
+            assertEquals(3.6 * weather.getWindSpeed(), series.getWinds()[i], 1e-3);
+            assertEquals(0.75 * weather.getPressure(), series.getPressures()[i], 1e-2);
+            assertEquals(0.03937007874d * weather.getRain(), series.getRains()[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void dewPointAndBeaufortWind() {
+        //given
+        Map<String, Object> storedPreferences = new HashMap<>();
+        storedPreferences.put(Constants.KEY_PREF_WIND_UNITS, "beaufort");
+        PreferenceSnapshot preferences = new PreferenceSnapshot(storedPreferences);
+        DetailedWeatherForecast forecast = new DetailedWeatherForecast();
+        forecast.setTemperature(20);
+        forecast.setHumidity(50);
+        forecast.setWindSpeed(9);
+        List<DetailedWeatherForecast> forecasts = new ArrayList<>();
+        forecasts.add(forecast);
+
+        //when
+        ForecastSeries series = ForecastSeries.convert(preferences, forecasts);
+
+        //then
+        assertEquals(9.27, series.getDewPoints()[0], 0.01);
+        assertEquals(5, series.getWinds()[0], 0);
+        assertNull(series.getApparentTemperatures());
+    }
+
+    static List<DetailedWeatherForecast> createForecasts(long firstDateTime, long step, int count) {
+        List<DetailedWeatherForecast> forecasts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DetailedWeatherForecast forecast = new DetailedWeatherForecast();
+            forecast.setDateTime(firstDateTime + i * step);
+            forecast.setTemperature(-5 + (i % 17) * 1.3);
+            forecast.setTemperatureMin(-6 + (i % 17) * 1.3);
+            forecast.setTemperatureMax(-4 + (i % 17) * 1.3);
+            forecast.setHumidity(35 + (i % 60));
+            forecast.setWindSpeed((i % 11) * 1.7);
+            forecast.setCloudiness((i * 13) % 100);
+            forecast.setPressure(990 + (i % 30));
+            forecast.setRain((i % 5) * 0.4);
+            forecast.setSnow((i % 7) * 0.2);
+            forecasts.add(forecast);
+        }
+        return forecasts;
+    }
+}
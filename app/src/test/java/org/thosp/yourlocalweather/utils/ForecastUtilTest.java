@@ -6,12 +6,15 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.thosp.yourlocalweather.model.ColumnarWeatherForecast;
 import org.thosp.yourlocalweather.model.CompleteWeatherForecast;
 import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
 import org.thosp.yourlocalweather.model.WeatherForecastDbHelper;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -68,13 +71,85 @@ public class ForecastUtilTest {
 
         //then
         assertEquals(5, result.size());
+        List<ForecastUtil.WeatherForecastPerDay> days = sortByDayIndex(result);
+        assertEquals(2019, days.get(3).year);
+        assertEquals(365, days.get(3).dayInYear);
+        assertEquals(2020, days.get(4).year);
+        assertEquals(1, days.get(4).dayInYear);
+    }
+
+    @Test
+    public void createForecastFor5DaysAtTheEndOfLeapYear() throws Exception {
+        //given
+        createDetailedWeatherForecastForDays(2020, 11, 29);
+
+        //when
+        Set<ForecastUtil.WeatherForecastPerDay> result = ForecastUtil.calculateWeatherForDays(weatherForecastRecord);
+
+        //then
+        List<ForecastUtil.WeatherForecastPerDay> days = sortByDayIndex(result);
+        assertEquals(5, days.size());
+        int[][] expectedDays = {{2020, 364}, {2020, 365}, {2020, 366}, {2021, 1}, {2021, 2}};
+        for (int i = 0; i < expectedDays.length; i++) {
+            assertEquals(i + 1, days.get(i).dayIndex);
+            assertEquals(expectedDays[i][0], days.get(i).year);
+            assertEquals(expectedDays[i][1], days.get(i).dayInYear);
+        }
+    }
+
+    @Test
+    public void createForecastFor5DaysOverLeapDay() throws Exception {
+        //given
+        createDetailedWeatherForecastForDays(2020, 1, 27);
+
+        //when
+        Set<ForecastUtil.WeatherForecastPerDay> result = ForecastUtil.calculateWeatherForDays(weatherForecastRecord);
+
+        //then
+        List<ForecastUtil.WeatherForecastPerDay> days = sortByDayIndex(result);
+        assertEquals(5, days.size());
+        for (int i = 0; i < days.size(); i++) {
+            assertEquals(2020, days.get(i).year);
+            assertEquals(58 + i, days.get(i).dayInYear);
+        }
+    }
+
+    @Test
+    public void dayIndexIsKeptWithForecast() throws Exception {
+        //given
+        createDetailedWeatherForecastForDay();
+        ForecastUtil.calculateWeatherForDays(weatherForecastRecord);
+
+        //when
+        ForecastDayIndex dayIndex = ColumnarWeatherForecast.of(completeWeatherForecast).getDayIndex();
+
+        //then
+        assertSame(dayIndex, ColumnarWeatherForecast.of(completeWeatherForecast).getDayIndex());
+        assertEquals(5, dayIndex.getDaysCount());
+        assertEquals(8, dayIndex.getForecastIndexes(4).length);
+        assertEquals(-22.0, dayIndex.getWeatherMaxMin(4).minTemp, 0);
+    }
+
+    private List<ForecastUtil.WeatherForecastPerDay> sortByDayIndex(Set<ForecastUtil.WeatherForecastPerDay> weatherForecastPerDays) {
+        List<ForecastUtil.WeatherForecastPerDay> days = new ArrayList<>(weatherForecastPerDays);
+        Collections.sort(days, new Comparator<ForecastUtil.WeatherForecastPerDay>() {
+            @Override
+            public int compare(ForecastUtil.WeatherForecastPerDay first, ForecastUtil.WeatherForecastPerDay second) {
+                return Integer.compare(first.dayIndex, second.dayIndex);
+            }
+        });
+        return days;
     }
 
     private void createDetailedWeatherForecastForDay() {
+        createDetailedWeatherForecastForDays(2019, 11, 28);
+    }
+
+    private void createDetailedWeatherForecastForDays(int year, int month, int dayOfMonth) {
         Calendar forecastDay = Calendar.getInstance();
-        forecastDay.set(Calendar.YEAR, 2019);
-        forecastDay.set(Calendar.MONTH, 11);
-        forecastDay.set(Calendar.DAY_OF_MONTH, 28);
+        forecastDay.set(Calendar.YEAR, year);
+        forecastDay.set(Calendar.MONTH, month);
+        forecastDay.set(Calendar.DAY_OF_MONTH, dayOfMonth);
         forecastDay.set(Calendar.MINUTE, 0);
         forecastDay.set(Calendar.SECOND, 0);
         forecastDay.set(Calendar.MILLISECOND, 0);
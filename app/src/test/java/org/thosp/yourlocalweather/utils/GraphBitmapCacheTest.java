@@ -0,0 +1,147 @@
+package org.thosp.yourlocalweather.utils;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class GraphBitmapCacheTest {
+
+    private static final int GRAPH_WIDTH = 40;
+    private static final int GRAPH_HEIGHT = 20;
+
+    @Test
+    public void leastRecentlyUsedGraphIsEvictedWhenBytesAreOver() {
+        //given
+        long graphBytes = createGraph().getAllocationByteCount();
+        GraphBitmapCache cache = new GraphBitmapCache(3 * graphBytes);
+        GraphBitmapCache.Key first = createKey(1, 10, 1);
+        GraphBitmapCache.Key second = createKey(2, 10, 1);
+        GraphBitmapCache.Key third = createKey(3, 20, 1);
+        GraphBitmapCache.Key fourth = createKey(4, 20, 1);
+        cache.put(first, createGraph());
+        cache.put(second, createGraph());
+        cache.put(third, createGraph());
+        cache.get(first);
+
+        //when
+        cache.put(fourth, createGraph());
+
+        //then
+        assertTrue(graphBytes > 0);
+        assertEquals(3, cache.size());
+        assertEquals(3 * graphBytes, cache.getCurrentBytes());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertNotNull(cache.get(fourth));
+    }
+
+    @Test
+    public void graphLargerThanCacheIsKeptAlone() {
+        //given
+        long graphBytes = createGraph().getAllocationByteCount();
+        GraphBitmapCache cache = new GraphBitmapCache(graphBytes / 2);
+        GraphBitmapCache.Key first = createKey(1, 10, 1);
+        GraphBitmapCache.Key second = createKey(2, 10, 1);
+        cache.put(first, createGraph());
+
+        //when
+        cache.put(second, createGraph());
+
+        //then
+        assertEquals(1, cache.size());
+        assertEquals(graphBytes, cache.getCurrentBytes());
+        assertNull(cache.get(first));
+        assertNotNull(cache.get(second));
+    }
+
+    @Test
+    public void changedForecastIsMiss() {
+        //given
+        GraphBitmapCache cache = new GraphBitmapCache(10 * createGraph().getAllocationByteCount());
+        cache.put(createKey(1, 10, 1), createGraph());
+
+        //when
+        Bitmap graph = cache.get(createKey(1, 10, 2));
+
+        //then
+        assertNull(graph);
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void invalidatedWidgetHasNoGraphs() {
+        //given
+        long graphBytes = createGraph().getAllocationByteCount();
+        GraphBitmapCache cache = new GraphBitmapCache(10 * graphBytes);
+        GraphBitmapCache.Key widgetGraph = createKey(1, 10, 1);
+        GraphBitmapCache.Key resizedWidgetGraph = new GraphBitmapCache.Key(1, 10, 2 * GRAPH_WIDTH, GRAPH_HEIGHT, 0, 1);
+        GraphBitmapCache.Key otherWidgetGraph = createKey(2, 10, 1);
+        cache.put(widgetGraph, createGraph());
+        cache.put(resizedWidgetGraph, createGraph());
+        cache.put(otherWidgetGraph, createGraph());
+
+        //when
+        cache.invalidateWidget(1);
+
+        //then
+        assertEquals(1, cache.size());
+        assertEquals(graphBytes, cache.getCurrentBytes());
+        assertNull(cache.get(widgetGraph));
+        assertNull(cache.get(resizedWidgetGraph));
+        assertNotNull(cache.get(otherWidgetGraph));
+    }
+
+    @Test
+    public void invalidatedLocationHasNoGraphs() {
+        //given
+        long graphBytes = createGraph().getAllocationByteCount();
+        GraphBitmapCache cache = new GraphBitmapCache(10 * graphBytes);
+        GraphBitmapCache.Key firstWidgetGraph = createKey(1, 10, 1);
+        GraphBitmapCache.Key secondWidgetGraph = createKey(2, 10, 1);
+        GraphBitmapCache.Key otherLocationGraph = createKey(3, 20, 1);
+        cache.put(firstWidgetGraph, createGraph());
+        cache.put(secondWidgetGraph, createGraph());
+        cache.put(otherLocationGraph, createGraph());
+
+        //when
+        cache.invalidateLocation(10);
+
+        //then
+        assertEquals(1, cache.size());
+        assertEquals(graphBytes, cache.getCurrentBytes());
+        assertNull(cache.get(firstWidgetGraph));
+        assertNull(cache.get(secondWidgetGraph));
+        assertNotNull(cache.get(otherLocationGraph));
+    }
+
+    @Test
+    public void invalidatedCacheHasNoGraphsAndNoBytes() {
+        //given
+        GraphBitmapCache cache = new GraphBitmapCache(10 * createGraph().getAllocationByteCount());
+        cache.put(createKey(1, 10, 1), createGraph());
+        cache.put(createKey(2, 20, 1), createGraph());
+
+        //when
+        cache.invalidateAll();
+
+        //then
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    private static GraphBitmapCache.Key createKey(int widgetId, long locationId, long forecastVersion) {
+        return new GraphBitmapCache.Key(widgetId, locationId, GRAPH_WIDTH, GRAPH_HEIGHT, 0, forecastVersion);
+    }
+
+    private static Bitmap createGraph() {
+        return Bitmap.createBitmap(GRAPH_WIDTH, GRAPH_HEIGHT, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,71 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.thosp.yourlocalweather.Benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the cost per logged line seen by the caller when every line opens,
+ * formats and closes the log file with the cost of appending to LogWriter. The
+ * numbers are logged, the test only fails when lines are lost.
+ */
+public class LogWriterBenchmarkTest {
+
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 20000;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeRequested();
+    }
+
+    @Test
+    public void loggingSpeed() throws Exception {
+        //given
+        File logFile = File.createTempFile("log", ".txt");
+        LogWriter logWriter = new LogWriter(new LogWriterTest.FileLogDestination(logFile, 24), 32768);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", new Locale("en"));
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            writeLineOpeningFile(logFile, dateFormat, i);
+            logWriter.append("Tag", null, "value = ", String.valueOf(i));
+        }
+        logWriter.flush(5000);
+
+        //when
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            writeLineOpeningFile(logFile, dateFormat, i);
+        }
+        long openingDuration = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            logWriter.append("Tag", null, "value = ", String.valueOf(i));
+        }
+        long appendDuration = System.nanoTime() - start;
+        boolean flushed = logWriter.flush(10000);
+        Benchmarks.report("Opening log per line: " + (openingDuration / MEASURED_ITERATIONS) +
+                " ns per line, LogWriter: " + (appendDuration / MEASURED_ITERATIONS) + " ns per line");
+        logFile.delete();
+
+        //then
+        assertTrue(flushed);
+        assertEquals(0, logWriter.getDroppedCount());
+    }
+
+    private void writeLineOpeningFile(File logFile, SimpleDateFormat dateFormat, int value) throws Exception {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(logFile, true));
+        writer.write(dateFormat.format(Calendar.getInstance().getTime()));
+        writer.write(" Tag - value = " + value);
+        writer.newLine();
+        writer.close();
+    }
+}
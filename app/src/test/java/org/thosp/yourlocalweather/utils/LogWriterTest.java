@@ -0,0 +1,269 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class LogWriterTest {
+
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("log", ".txt");
+        logFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        logFile.delete();
+    }
+
+    @Test
+    public void linesAreWrittenInOrderAfterFlush() throws Exception {
+        //given
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24));
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            logWriter.append("Tag", null, "line ", String.valueOf(i));
+        }
+        boolean flushed = logWriter.flush(5000);
+
+        //then
+        assertTrue(flushed);
+        List<String> lines = readLines();
+        assertEquals(100, lines.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(lines.get(i), lines.get(i).endsWith(" Tag - line " + i));
+        }
+    }
+
+    @Test
+    public void lineAppendedToIdleWriterIsWritten() throws Exception {
+        //given
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24));
+        logWriter.append("Tag", null, "first");
+        assertTrue(logWriter.flush(5000));
+        Thread.sleep(100);
+
+        //when
+        logWriter.append("Tag", null, "second");
+        boolean flushed = logWriter.flush(5000);
+
+        //then
+        assertTrue(flushed);
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1), lines.get(1).endsWith(" Tag - second"));
+    }
+
+    @Test
+    public void throwableIsWrittenWithStackTrace() throws Exception {
+        //given
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24));
+        Exception exception = new IllegalStateException("failure");
+
+        //when
+        logWriter.append("Tag", exception, "text");
+        logWriter.flush(5000);
+
+        //then
+        List<String> lines = readLines();
+        assertTrue(lines.get(0).endsWith(" Tag - text"));
+        assertEquals("failure", lines.get(1));
+        assertEquals(exception.getStackTrace()[0].toString(), lines.get(2));
+    }
+
+    @Test
+    public void eventValuesAreWrittenAsStringConversionsDo() throws Exception {
+        //given
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24));
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", new Locale("en"));
+        long time = 1735686000123L;
+        float floatValue = 0.1f;
+
+        //when
+        logWriter.claimEvent("Tag", null)
+                .text("a=").value(42).text(", b=").value(-7L).text(", c=").value(true)
+                .text(", d=").value(floatValue).text(", e=").value(2.5d)
+                .text(", f=").decimal(floatValue).text(", g=").date(time)
+                .text(", h=").value((Object) null).text(", i=").text(null)
+                .publish();
+        logWriter.flush(5000);
+
+        //then
+        String expected = " Tag - a=42, b=-7, c=true, d=" + String.valueOf(floatValue) +
+                ", e=2.5, f=" + String.format("%.8f", floatValue) +
+                ", g=" + dateFormat.format(time) + ", h=null, i=null";
+        assertTrue(readLines().get(0), readLines().get(0).endsWith(expected));
+    }
+
+    @Test
+    public void failingValueDoesNotStopLaterLines() throws Exception {
+        //given
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24), 2);
+        Object failingValue = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("failure");
+            }
+        };
+
+        //when
+        logWriter.claimEvent("Tag", null).text("a=").value(failingValue).publish();
+        for (int i = 0; i < 4; i++) {
+            logWriter.append("Tag", null, "line ", String.valueOf(i));
+            logWriter.flush(5000);
+        }
+
+        //then
+        List<String> lines = readLines();
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0), lines.get(0).endsWith(" Tag - a=<IllegalStateException>"));
+        assertTrue(lines.get(4), lines.get(4).endsWith(" Tag - line 3"));
+    }
+
+    @Test
+    public void eventIsReusedWithoutPreviousValues() throws Exception {
+        //given
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24), 2);
+
+        //when
+        for (int i = 0; i < 6; i++) {
+            LogWriter.LogEvent event = logWriter.claimEvent("Tag", null);
+            event.text("line ");
+            for (int j = 0; j <= i * 10; j++) {
+                event.value(i);
+            }
+            event.publish();
+            logWriter.flush(5000);
+        }
+
+        //then
+        List<String> lines = readLines();
+        assertEquals(6, lines.size());
+        for (int i = 0; i < 6; i++) {
+            StringBuilder expected = new StringBuilder(" Tag - line ");
+            for (int j = 0; j <= i * 10; j++) {
+                expected.append(i);
+            }
+            assertTrue(lines.get(i), lines.get(i).endsWith(expected.toString()));
+        }
+    }
+
+    @Test
+    public void timestampMatchesDateFormatAcrossHours() {
+        //given
+        LogTimestampFormatter formatter = new LogTimestampFormatter();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", new Locale("en"));
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.DECEMBER, 31, 22, 59, 59);
+        long start = calendar.getTimeInMillis();
+
+        for (long time = start; time < start + 3 * 3600000L; time += 997) {
+            //when
+            String formatted = new String(formatter.format(time));
+
+            //then
+            assertEquals(dateFormat.format(time), formatted);
+        }
+    }
+
+    @Test
+    public void logIsTruncatedWhenItsLastingIsOver() throws Exception {
+        //given
+        Writer writer = new OutputStreamWriter(new FileOutputStream(logFile), StandardCharsets.UTF_8);
+        writer.write("2000-01-01 00:00:00.000 old line\n");
+        writer.close();
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 1));
+
+        //when
+        logWriter.append("Tag", null, "new line");
+        logWriter.flush(5000);
+
+        //then
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith(" rotated"));
+        assertTrue(lines.get(1).endsWith(" Tag - new line"));
+    }
+
+    @Test
+    public void linesAreAppendedToLogThatIsNotOverLasting() throws Exception {
+        //given
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", new Locale("en"));
+        Writer writer = new OutputStreamWriter(new FileOutputStream(logFile), StandardCharsets.UTF_8);
+        writer.write(dateFormat.format(System.currentTimeMillis()) + " old line\n");
+        writer.close();
+        LogWriter logWriter = new LogWriter(new FileLogDestination(logFile, 24));
+
+        //when
+        logWriter.append("Tag", null, "new line");
+        logWriter.flush(5000);
+
+        //then
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith(" old line"));
+        assertTrue(lines.get(1).endsWith(" Tag - new line"));
+    }
+
+    private List<String> readLines() throws IOException {
+        return Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+    }
+
+    static class FileLogDestination implements LogWriter.LogDestination {
+
+        private final File file;
+        private final int hoursOfLasting;
+
+        FileLogDestination(File file, int hoursOfLasting) {
+            this.file = file;
+            this.hoursOfLasting = hoursOfLasting;
+        }
+
+        @Override
+        public Object getId() {
+            return file.getPath();
+        }
+
+        @Override
+        public long readCreationTime() {
+            try {
+                if (!file.exists()) {
+                    return -1;
+                }
+                String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", new Locale("en"))
+                        .parse(content.substring(0, LogTimestampFormatter.LENGTH)).getTime();
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public Writer open(boolean truncate) throws IOException {
+            return new OutputStreamWriter(new FileOutputStream(file, !truncate), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long getLastingInMs() {
+            return hoursOfLasting * 3600000L;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Before
+    public void setup() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void bucketsKeepValuesWithinPrecision() {
+        //given
+        long[] values = new long[] {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE};
+
+        //when
+        //then
+        for (long value: values) {
+            int bucket = Metrics.Histogram.getBucket(value);
+            long highestValue = Metrics.Histogram.getHighestValue(bucket);
+            assertTrue(value <= highestValue);
+            assertTrue((highestValue - value) <= (value / 8));
+            assertEquals(bucket, Metrics.Histogram.getBucket(highestValue));
+        }
+    }
+
+    @Test
+    public void percentilesOfRecordedValues() {
+        //given
+        Metrics.Histogram histogram = new Metrics.Histogram();
+
+        //when
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000000L);
+        }
+
+        //then
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000000L, histogram.getMax());
+        assertEquals(500500000L, histogram.getMean());
+        assertEquals(500000000L, histogram.getPercentile(50), 500000000L / 8);
+        assertEquals(950000000L, histogram.getPercentile(95), 950000000L / 8);
+        assertEquals(1000000000L, histogram.getPercentile(100));
+        assertEquals(0, new Metrics.Histogram().getPercentile(50));
+    }
+
+    @Test
+    public void dumpListsAllMetrics() {
+        //given
+        Metrics.counter("test.counter").add(3);
+        Metrics.histogram("test.histogram").record(2000000L);
+        Metrics.gauge("test.gauge", new Metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return 42;
+            }
+        });
+
+        //when
+        String dump = Metrics.dump();
+
+        //then
+        assertTrue(dump.contains("test.counter: 3\n"));
+        assertTrue(dump.contains("test.histogram: count=1 mean=2.00"));
+        assertTrue(dump.contains("test.gauge: 42\n"));
+        assertSame(Metrics.counter("test.counter"), Metrics.counter("test.counter"));
+    }
+
+    @Test
+    public void resetClearsCountersAndHistograms() {
+        //given
+        Metrics.counter("test.counter").increment();
+        Metrics.histogram("test.histogram").record(5);
+
+        //when
+        Metrics.reset();
+
+        //then
+        assertEquals(0, Metrics.counter("test.counter").get());
+        assertEquals(0, Metrics.histogram("test.histogram").getCount());
+        assertEquals(0, Metrics.histogram("test.histogram").getMax());
+    }
+}
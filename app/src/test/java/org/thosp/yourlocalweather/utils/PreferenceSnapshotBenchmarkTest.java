@@ -0,0 +1,140 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.thosp.yourlocalweather.Benchmarks;
+import org.thosp.yourlocalweather.model.DetailedWeatherForecast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the cost of converting the temperatures of one chart when every
+ * point reads the temperature type and units the way SharedPreferences does
+ * (locked map lookup, then parsing the value) with reading them from the
+ * preference snapshot. The numbers are logged, the test only fails when both
+ * conversions disagree.
+ */
+public class PreferenceSnapshotBenchmarkTest {
+
+    private static final int CHART_POINTS = 40;
+    private static final int WARM_UP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 100000;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeRequested();
+    }
+
+    @Test
+    public void chartTemperatureConversionSpeed() {
+        //given
+        Map<String, Object> storedPreferences = new HashMap<>();
+        storedPreferences.put(Constants.KEY_PREF_TEMPERATURE_UNITS, "fahrenheit");
+        storedPreferences.put(Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_appearance_primary_appearance");
+        LockedPreferences lockedPreferences = new LockedPreferences(storedPreferences);
+        PreferenceSnapshot snapshot = new PreferenceSnapshot(storedPreferences);
+        List<DetailedWeatherForecast> forecasts = new ArrayList<>();
+        for (int i = 0; i < CHART_POINTS; i++) {
+            DetailedWeatherForecast forecast = new DetailedWeatherForecast();
+            forecast.setTemperature(-5 + i * 0.7);
+            forecast.setHumidity(40 + i);
+            forecast.setWindSpeed(i % 9);
+            forecasts.add(forecast);
+        }
+        double[] temperatures = new double[CHART_POINTS];
+        double checksumBefore = 0;
+        double checksumAfter = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            checksumBefore += convertReadingPreferences(lockedPreferences, forecasts, temperatures);
+            checksumAfter += convertWithSnapshot(snapshot, forecasts, temperatures);
+        }
+
+        //when
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksumBefore += convertReadingPreferences(lockedPreferences, forecasts, temperatures);
+        }
+        long durationBefore = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksumAfter += convertWithSnapshot(snapshot, forecasts, temperatures);
+        }
+        long durationAfter = System.nanoTime() - start;
+        Benchmarks.report("Chart of " + CHART_POINTS + " points reading preferences per point: " +
+                (durationBefore / MEASURED_ITERATIONS) + " ns, with snapshot: " +
+                (durationAfter / MEASURED_ITERATIONS) + " ns");
+
+        //then
+        assertEquals(checksumBefore, checksumAfter, Math.abs(checksumBefore) * 1e-9);
+    }
+
+    private static double convertReadingPreferences(LockedPreferences preferences,
+                                                    List<DetailedWeatherForecast> forecasts,
+                                                    double[] temperatures) {
+        double sum = 0;
+        for (int i = 0; i < forecasts.size(); i++) {
+            DetailedWeatherForecast weather = forecasts.get(i);
+            String temperatureTypeFromPreferences = preferences.getString(
+                    Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_only");
+            double value = weather.getTemperature();
+            if ("appearance_only".equals(temperatureTypeFromPreferences) ||
+                    ("measured_appearance_primary_appearance".equals(temperatureTypeFromPreferences))) {
+                value = TemperatureUtil.getApparentTemperatureWithoutSolarIrradiation(
+                        weather.getTemperature(),
+                        weather.getHumidity(),
+                        weather.getWindSpeed());
+            }
+            String unitsFromPreferences = preferences.getString(
+                    Constants.KEY_PREF_TEMPERATURE_UNITS, "celsius");
+            if (unitsFromPreferences.contains("fahrenheit")) {
+                value = (value * 1.8d) + 32;
+            } else if (unitsFromPreferences.contains("kelvin")) {
+                value = value + 273.15;
+            }
+            temperatures[i] = value;
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static double convertWithSnapshot(PreferenceSnapshot snapshot,
+                                              List<DetailedWeatherForecast> forecasts,
+                                              double[] temperatures) {
+        double sum = 0;
+        for (int i = 0; i < forecasts.size(); i++) {
+            double value = TemperatureUtil.getTemperature(snapshot, forecasts.get(i));
+            temperatures[i] = value;
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static class LockedPreferences {
+        private final Object lock = new Object();
+        private final Map<String, Object> values;
+        private boolean loaded = true;
+
+        LockedPreferences(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        String getString(String key, String defaultValue) {
+            synchronized (lock) {
+                while (!loaded) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                String value = (String) values.get(key);
+                return (value != null) ? value : defaultValue;
+            }
+        }
+    }
+}
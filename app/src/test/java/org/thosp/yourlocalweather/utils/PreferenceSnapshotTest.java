@@ -0,0 +1,96 @@
+package org.thosp.yourlocalweather.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PreferenceSnapshotTest {
+
+    @Test
+    public void defaultsAreUsedForMissingPreferences() {
+        //given
+        Map<String, Object> preferences = new HashMap<>();
+
+        //when
+        PreferenceSnapshot snapshot = new PreferenceSnapshot(preferences);
+
+        //then
+        assertEquals(PreferenceSnapshot.TEMPERATURE_UNIT_CELSIUS, snapshot.getTemperatureUnit());
+        assertEquals("measured_only", snapshot.getTemperatureType());
+        assertFalse(snapshot.isApparentTemperaturePrimary());
+        assertFalse(snapshot.isSecondTemperatureShown());
+        assertEquals("m_per_second", snapshot.getWindUnits());
+        assertEquals("hpa", snapshot.getPressureUnits());
+        assertEquals("system", snapshot.getTimeStyle());
+        assertEquals("dark", snapshot.getWidgetTheme());
+        assertNull(snapshot.getWidgetTextColor());
+        assertEquals(21.5, snapshot.getTemperatureInPreferredUnit(21.5), 0.0001);
+    }
+
+    @Test
+    public void storedPreferencesAreParsedOnce() {
+        //given
+        Map<String, Object> preferences = new HashMap<>();
+        preferences.put(Constants.KEY_PREF_TEMPERATURE_UNITS, "fahrenheit");
+        preferences.put(Constants.KEY_PREF_TEMPERATURE_TYPE, "measured_appearance_primary_appearance");
+        preferences.put(Constants.KEY_PREF_RAIN_SNOW_UNITS, "inches");
+        preferences.put(Constants.KEY_PREF_WIDGET_TEXT_COLOR, 0xff112233);
+        preferences.put(Constants.KEY_PREF_WIDGET_SHOW_CONTROLS, true);
+
+        //when
+        PreferenceSnapshot snapshot = new PreferenceSnapshot(preferences);
+
+        //then
+        assertEquals(PreferenceSnapshot.TEMPERATURE_UNIT_FAHRENHEIT, snapshot.getTemperatureUnit());
+        assertEquals(50, snapshot.getTemperatureInPreferredUnit(10), 0.0001);
+        assertTrue(snapshot.isApparentTemperaturePrimary());
+        assertTrue(snapshot.isSecondTemperatureShown());
+        assertTrue(snapshot.isRainSnowInInches());
+        assertEquals(Integer.valueOf(0xff112233), snapshot.getWidgetTextColor());
+        assertTrue(snapshot.isShowControls());
+    }
+
+    @Test
+    public void onlyDisplayPreferencesRebuildSnapshot() {
+        //then
+        assertTrue(PreferenceSnapshot.isSnapshotKey(Constants.KEY_PREF_TEMPERATURE_UNITS));
+        assertTrue(PreferenceSnapshot.isSnapshotKey(Constants.KEY_PREF_WIDGET_THEME));
+        assertFalse(PreferenceSnapshot.isSnapshotKey(Constants.LAST_NOTIFICATION_TIME_IN_MS));
+    }
+
+    @Test
+    public void otherPreferencesDoNotChangeContentHash() {
+        //given
+        Map<String, Object> preferences = new HashMap<>();
+        preferences.put(Constants.KEY_PREF_TEMPERATURE_UNITS, "fahrenheit");
+        PreferenceSnapshot snapshot = new PreferenceSnapshot(preferences);
+
+        //when
+        preferences.put(Constants.LAST_NOTIFICATION_TIME_IN_MS, 1000l);
+        PreferenceSnapshot changedSnapshot = new PreferenceSnapshot(preferences);
+
+        //then
+        assertEquals(snapshot.getContentHash(), changedSnapshot.getContentHash());
+    }
+
+    @Test
+    public void displayPreferencesChangeContentHash() {
+        //given
+        Map<String, Object> preferences = new HashMap<>();
+        PreferenceSnapshot snapshot = new PreferenceSnapshot(preferences);
+
+        //when
+        preferences.put(Constants.KEY_PREF_COMBINED_GRAPH_VALUES, new HashSet<>(Arrays.asList("0", "1")));
+        PreferenceSnapshot changedSnapshot = new PreferenceSnapshot(preferences);
+
+        //then
+        assertNotEquals(snapshot.getContentHash(), changedSnapshot.getContentHash());
+        assertEquals(new HashSet<>(Arrays.asList("0", "2")), snapshot.getCombinedGraphValues());
+        assertEquals(new HashSet<>(Arrays.asList("0", "1")), changedSnapshot.getCombinedGraphValues());
+    }
+}
@@ -0,0 +1,83 @@
+package org.thosp.yourlocalweather.utils;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class WeatherIconCacheTest {
+
+    private static final int ICON_SIZE = 16;
+
+    @Test
+    public void leastRecentlyUsedIconIsEvictedWhenBytesAreOver() {
+        //given
+        long iconBytes = createIcon().getAllocationByteCount();
+        WeatherIconCache cache = new WeatherIconCache(3 * iconBytes);
+        WeatherIconCache.Key first = new WeatherIconCache.Key("a", 0xffffffff, ICON_SIZE);
+        WeatherIconCache.Key second = new WeatherIconCache.Key("b", 0xffffffff, ICON_SIZE);
+        WeatherIconCache.Key third = new WeatherIconCache.Key("c", 0xffffffff, ICON_SIZE);
+        WeatherIconCache.Key fourth = new WeatherIconCache.Key("d", 0xffffffff, ICON_SIZE);
+        cache.put(first, createIcon(), 0);
+        cache.put(second, createIcon(), 0);
+        cache.put(third, createIcon(), 0);
+        cache.get(first);
+
+        //when
+        cache.put(fourth, createIcon(), 0);
+
+        //then
+        assertTrue(iconBytes > 0);
+        assertEquals(3, cache.size());
+        assertEquals(3 * iconBytes, cache.getCurrentBytes());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.contains(first));
+        assertFalse(cache.contains(second));
+        assertTrue(cache.contains(third));
+        assertTrue(cache.contains(fourth));
+    }
+
+    @Test
+    public void replacedIconIsCountedOnce() {
+        //given
+        long iconBytes = createIcon().getAllocationByteCount();
+        WeatherIconCache cache = new WeatherIconCache(10 * iconBytes);
+        WeatherIconCache.Key key = new WeatherIconCache.Key("a", 0xff000000, ICON_SIZE);
+        Bitmap icon = createIcon();
+        cache.put(key, icon, 0);
+
+        //when
+        cache.put(key, icon, 0);
+        cache.put(key, createIcon(), 0);
+
+        //then
+        assertEquals(1, cache.size());
+        assertEquals(iconBytes, cache.getCurrentBytes());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void invalidatedCacheHasNoIconsAndNoBytes() {
+        //given
+        long iconBytes = createIcon().getAllocationByteCount();
+        WeatherIconCache cache = new WeatherIconCache(10 * iconBytes);
+        WeatherIconCache.Key key = new WeatherIconCache.Key("a", 0xff000000, ICON_SIZE);
+        cache.put(key, createIcon(), 0);
+
+        //when
+        cache.invalidateAll();
+
+        //then
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+        assertNull(cache.get(key));
+    }
+
+    private static Bitmap createIcon() {
+        return Bitmap.createBitmap(ICON_SIZE, ICON_SIZE, Bitmap.Config.ARGB_8888);
+    }
+}
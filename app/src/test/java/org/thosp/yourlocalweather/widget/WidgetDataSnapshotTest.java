@@ -0,0 +1,92 @@
+package org.thosp.yourlocalweather.widget;
+
+import android.location.Address;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.thosp.yourlocalweather.model.Location;
+import org.thosp.yourlocalweather.model.TestWidgetSettings;
+import org.thosp.yourlocalweather.model.WidgetSettings;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class WidgetDataSnapshotTest {
+
+    private static final long NOW = 1600000000000l;
+    private static final long PREFERENCES_HASH = 5;
+
+    @Test
+    public void sameContentHasSameRenderHash() {
+        //given
+        WidgetDataSnapshot snapshot = WidgetDataSnapshot.create(
+                createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW);
+        long renderHash = WidgetRenderPipeline.getRenderHash(snapshot, TestWidgetSettings.create(1, 1, true));
+
+        //when
+        WidgetDataSnapshot sameSnapshot = WidgetDataSnapshot.create(
+                createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW + 1000);
+        long sameRenderHash = WidgetRenderPipeline.getRenderHash(sameSnapshot, TestWidgetSettings.create(1, 1, true));
+
+        //then
+        assertEquals(renderHash, sameRenderHash);
+    }
+
+    @Test
+    public void changedAddressChangesRenderHash() {
+        //given
+        WidgetSettings widgetSettings = TestWidgetSettings.create(1, 1, true);
+        WidgetDataSnapshot snapshot = WidgetDataSnapshot.create(
+                createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW);
+        long renderHash = WidgetRenderPipeline.getRenderHash(snapshot, widgetSettings);
+
+        //when
+        WidgetDataSnapshot changedSnapshot = WidgetDataSnapshot.create(
+                createLocation("Potsdam"), null, null, PREFERENCES_HASH, NOW);
+        long changedRenderHash = WidgetRenderPipeline.getRenderHash(changedSnapshot, widgetSettings);
+
+        //then
+        assertNotEquals(renderHash, changedRenderHash);
+    }
+
+    @Test
+    public void changedDisplayPreferencesChangeRenderHash() {
+        //given
+        WidgetSettings widgetSettings = TestWidgetSettings.create(1, 1, true);
+        WidgetDataSnapshot snapshot = WidgetDataSnapshot.create(
+                createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW);
+        long renderHash = WidgetRenderPipeline.getRenderHash(snapshot, widgetSettings);
+
+        //when
+        WidgetDataSnapshot changedSnapshot = WidgetDataSnapshot.create(
+                createLocation("Berlin"), null, null, PREFERENCES_HASH + 1, NOW);
+        long changedRenderHash = WidgetRenderPipeline.getRenderHash(changedSnapshot, widgetSettings);
+
+        //then
+        assertNotEquals(renderHash, changedRenderHash);
+    }
+
+    @Test
+    public void changedWidgetSettingsChangeRenderHash() {
+        //given
+        WidgetDataSnapshot snapshot = WidgetDataSnapshot.create(
+                createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW);
+        long renderHash = WidgetRenderPipeline.getRenderHash(snapshot, TestWidgetSettings.create(1, 1, true));
+
+        //when
+        long changedRenderHash = WidgetRenderPipeline.getRenderHash(snapshot, TestWidgetSettings.create(1, 1, false));
+
+        //then
+        assertNotEquals(renderHash, changedRenderHash);
+    }
+
+    static Location createLocation(String locality) {
+        Address address = new Address(Locale.ENGLISH);
+        address.setLocality(locality);
+        address.setCountryCode("DE");
+        return new Location(1, 0, null, "en", 13.4, 52.5, 10, "G", NOW, true, true, address);
+    }
+}
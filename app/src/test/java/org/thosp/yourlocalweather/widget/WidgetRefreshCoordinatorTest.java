@@ -0,0 +1,103 @@
+package org.thosp.yourlocalweather.widget;
+
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.thosp.yourlocalweather.model.TestWidgetSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class WidgetRefreshCoordinatorTest {
+
+    private static final int WIDGET_ID = 11;
+    private static final long NOW = 1600000000000l;
+    private static final long PREFERENCES_HASH = 5;
+
+    private Context context;
+    private RecordingWidgetProvider provider;
+
+    @Before
+    public void setup() {
+        context = RuntimeEnvironment.getApplication();
+        provider = new RecordingWidgetProvider();
+        WidgetRenderPipeline.removeWidget(WIDGET_ID);
+    }
+
+    @Test
+    public void unchangedWidgetIsSkipped() {
+        //given
+        WidgetRefreshCoordinator.refreshWidget(context, null, provider, WIDGET_ID,
+                WidgetDataSnapshot.create(WidgetDataSnapshotTest.createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW),
+                TestWidgetSettings.create(WIDGET_ID, 1, true));
+
+        //when
+        boolean rendered = WidgetRefreshCoordinator.refreshWidget(context, null, provider, WIDGET_ID,
+                WidgetDataSnapshot.create(WidgetDataSnapshotTest.createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW + 1000),
+                TestWidgetSettings.create(WIDGET_ID, 1, true));
+
+        //then
+        assertFalse(rendered);
+        assertEquals(Arrays.asList(WIDGET_ID), provider.renderedWidgetIds);
+    }
+
+    @Test
+    public void widgetWithChangedSettingsIsRendered() {
+        //given
+        WidgetDataSnapshot snapshot = WidgetDataSnapshot.create(
+                WidgetDataSnapshotTest.createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW);
+        WidgetRefreshCoordinator.refreshWidget(context, null, provider, WIDGET_ID, snapshot,
+                TestWidgetSettings.create(WIDGET_ID, 1, true));
+
+        //when
+        boolean rendered = WidgetRefreshCoordinator.refreshWidget(context, null, provider, WIDGET_ID, snapshot,
+                TestWidgetSettings.create(WIDGET_ID, 1, false));
+
+        //then
+        assertTrue(rendered);
+        assertEquals(Arrays.asList(WIDGET_ID, WIDGET_ID), provider.renderedWidgetIds);
+    }
+
+    @Test
+    public void widgetWithChangedSnapshotIsRendered() {
+        //given
+        WidgetRefreshCoordinator.refreshWidget(context, null, provider, WIDGET_ID,
+                WidgetDataSnapshot.create(WidgetDataSnapshotTest.createLocation("Berlin"), null, null, PREFERENCES_HASH, NOW),
+                TestWidgetSettings.create(WIDGET_ID, 1, true));
+
+        //when
+        boolean rendered = WidgetRefreshCoordinator.refreshWidget(context, null, provider, WIDGET_ID,
+                WidgetDataSnapshot.create(WidgetDataSnapshotTest.createLocation("Potsdam"), null, null, PREFERENCES_HASH, NOW),
+                TestWidgetSettings.create(WIDGET_ID, 1, true));
+
+        //then
+        assertTrue(rendered);
+        assertEquals(Arrays.asList(WIDGET_ID, WIDGET_ID), provider.renderedWidgetIds);
+    }
+
+    private static class RecordingWidgetProvider extends LessWidgetProvider {
+        private final List<Integer> renderedWidgetIds = new ArrayList<>();
+
+        @Override
+        AbstractWidgetProvider createRenderer() {
+            return this;
+        }
+
+        @Override
+        void renderWidget(Context context,
+                          AppWidgetManager appWidgetManager,
+                          int appWidgetId,
+                          WidgetDataSnapshot snapshot) {
+            renderedWidgetIds.add(appWidgetId);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.thosp.yourlocalweather.widget;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WidgetRenderPipelineTest {
+
+    @Test
+    public void requestIsReleasedOnceWhenAllWidgetsAreRendered() {
+        //given
+        AtomicInteger finished = new AtomicInteger();
+        TestRenderRequest request = new TestRenderRequest(new int[] {1, 2, 3}, finished, null);
+
+        //when
+        request.run();
+        boolean expired = request.expire();
+
+        //then
+        assertFalse(expired);
+        assertEquals(1, finished.get());
+        assertEquals(3, request.rendered.size());
+        assertTrue(request.skipped.isEmpty());
+    }
+
+    @Test
+    public void expiredRequestIsReleasedAndRemainingWidgetsAreSkipped() throws Exception {
+        //given
+        AtomicInteger finished = new AtomicInteger();
+        CountDownLatch renderStarted = new CountDownLatch(1);
+        CountDownLatch renderBlocked = new CountDownLatch(1);
+        final TestRenderRequest request = new TestRenderRequest(
+                new int[] {1, 2, 3}, finished, new CountDownLatch[] {renderStarted, renderBlocked});
+        Thread worker = new Thread(request);
+        worker.start();
+        assertTrue(renderStarted.await(5, TimeUnit.SECONDS));
+
+        //when
+        boolean expired = request.expire();
+        int finishedAtDeadline = finished.get();
+        renderBlocked.countDown();
+        worker.join(5000);
+
+        //then
+        assertTrue(expired);
+        assertEquals(1, finishedAtDeadline);
+        assertEquals(1, finished.get());
+        assertEquals(1, request.rendered.size());
+        assertEquals(2, request.skipped.size());
+    }
+
+    @Test
+    public void requestIsReleasedWhenRenderFails() {
+        //given
+        AtomicInteger finished = new AtomicInteger();
+        WidgetRenderPipeline.RenderRequest request = new WidgetRenderPipeline.RenderRequest(
+                new int[] {1}, new CountingRunnable(finished)) {
+            @Override
+            void renderWidget(int appWidgetId) {
+                throw new IllegalStateException("failure");
+            }
+
+            @Override
+            void skipWidget(int appWidgetId) {
+            }
+        };
+
+        //when
+        try {
+            request.run();
+            fail();
+        } catch (IllegalStateException e) {
+            //expected
+        }
+
+        //then
+        assertEquals(1, finished.get());
+        assertFalse(request.expire());
+    }
+
+    private static class CountingRunnable implements Runnable {
+        private final AtomicInteger count;
+
+        CountingRunnable(AtomicInteger count) {
+            this.count = count;
+        }
+
+        @Override
+        public void run() {
+            count.incrementAndGet();
+        }
+    }
+
+    private static class TestRenderRequest extends WidgetRenderPipeline.RenderRequest {
+        private final List<Integer> rendered = new CopyOnWriteArrayList<>();
+        private final List<Integer> skipped = new CopyOnWriteArrayList<>();
+        private final CountDownLatch[] firstRenderLatches;
+
+        TestRenderRequest(int[] appWidgetIds, AtomicInteger finished, CountDownLatch[] firstRenderLatches) {
+            super(appWidgetIds, new CountingRunnable(finished));
+            this.firstRenderLatches = firstRenderLatches;
+        }
+
+        @Override
+        void renderWidget(int appWidgetId) {
+            rendered.add(appWidgetId);
+            if ((firstRenderLatches != null) && (rendered.size() == 1)) {
+                firstRenderLatches[0].countDown();
+                try {
+                    firstRenderLatches[1].await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        void skipWidget(int appWidgetId) {
+            skipped.add(appWidgetId);
+        }
+    }
+}